@@ -0,0 +1,54 @@
+package livonia.benchmarks;
+
+import livonia.base.Vas;
+import livonia.connector.http.HttpRequest;
+import livonia.core.DefaultContext;
+import livonia.mapper.ContextMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ContextMapper#map} 的基准，分别覆盖精确、前缀、扩展名与默认四种匹配结果。
+ * <p>
+ * 映射表见 {@link Fixtures#context()}。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ContextMapperBenchmark {
+    //<editor-fold desc = "attr">
+    @Param({"/hello", "/pages/page17", "/api/v1/users/42/orders", "/views/order/detail.jsp", "/not/mapped/anywhere"})
+    public String relativeUri;
+
+    private ContextMapper mapper;
+    private HttpRequest request;
+
+    //</editor-fold>
+    //<editor-fold desc = "准备">
+    @Setup
+    public void setup() {
+        DefaultContext context = Fixtures.context();
+        mapper = new ContextMapper();
+        mapper.setVas(context);
+        request = new HttpRequest();
+        request.setContextPath(Fixtures.CONTEXT_PATH);
+        request.setUri(Fixtures.CONTEXT_PATH + relativeUri);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "基准">
+    @Benchmark
+    public Vas mapOnly() {
+        return mapper.map(request, false);
+    }
+
+    @Benchmark
+    public Vas mapAndWriteRequest() {
+        return mapper.map(request, true);
+    }
+    //</editor-fold>
+}
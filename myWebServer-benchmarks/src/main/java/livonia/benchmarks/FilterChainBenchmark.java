@@ -0,0 +1,60 @@
+package livonia.benchmarks;
+
+import livonia.checkpoints.EndpointCheckpoint;
+import livonia.connector.http.HttpRequest;
+import livonia.core.DefaultContext;
+import livonia.core.DefaultEndpoint;
+import livonia.filter.ApplicationFilterChain;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.Servlet;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EndpointCheckpoint} 为每个请求准备过滤链的基准。
+ * <p>
+ * 只测量过滤链的查表、装配与复位，不调用过滤器和Servlet本身。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class FilterChainBenchmark {
+    //<editor-fold desc = "attr">
+    private static final MethodHandle CREATE_FILTER_CHAIN = Internals.privateMethod(EndpointCheckpoint.class,
+            "createFilterChain", ApplicationFilterChain.class, HttpRequest.class, Servlet.class);
+
+    // 端点名与请求的相对路径，分别命中 2、3、3 个过滤器
+    @Param({"HelloServlet:/hello", "ApiV1Servlet:/api/v1/users/42", "UploadServlet:/upload"})
+    public String target;
+
+    private EndpointCheckpoint checkpoint;
+    private HttpRequest request;
+
+    //</editor-fold>
+    //<editor-fold desc = "准备">
+    @Setup
+    public void setup() {
+        DefaultContext context = Fixtures.context();
+        String[] parts = target.split(":", 2);
+        checkpoint = new EndpointCheckpoint();
+        checkpoint.setVas((DefaultEndpoint) context.findChild(parts[0]));
+        request = new HttpRequest();
+        request.setContextPath(Fixtures.CONTEXT_PATH);
+        request.setUri(Fixtures.CONTEXT_PATH + parts[1]);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "基准">
+    @Benchmark
+    public ApplicationFilterChain createFilterChain() throws Throwable {
+        ApplicationFilterChain chain =
+                (ApplicationFilterChain) CREATE_FILTER_CHAIN.invokeExact(checkpoint, request, (Servlet) null);
+        chain.recycle();
+        return chain;
+    }
+    //</editor-fold>
+}
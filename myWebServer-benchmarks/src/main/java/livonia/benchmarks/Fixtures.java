@@ -0,0 +1,87 @@
+package livonia.benchmarks;
+
+import livonia.core.DefaultContext;
+import livonia.core.DefaultEndpoint;
+import livonia.filter.FilterDef;
+import livonia.filter.FilterMap;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * 基准共用的容器装配。
+ * <p>
+ * 按一个中等规模的 Web 应用构造 Context：若干精确映射、多层前缀映射、扩展名映射与默认 Servlet，
+ * 以及按 URL 模式和按 Servlet 名两种方式映射的过滤器。容器不启动，只填充映射表。
+ */
+final class Fixtures {
+    //<editor-fold desc = "attr">
+    static final String CONTEXT_PATH = "/app1";
+    // 精确映射的页面数量（不含 hello / login / echo / upload）
+    static final int PAGE_COUNT = 32;
+    private static final MethodHandle START_FILTER =
+            Internals.privateMethod(DefaultContext.class, "startFilter", boolean.class);
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private Fixtures() {
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "装配">
+
+    /**
+     * 构造带有完整 Servlet 映射与过滤器映射的 Context
+     */
+    static DefaultContext context() {
+        DefaultContext context = new DefaultContext();
+        context.setPath(CONTEXT_PATH);
+
+        addEndpoint(context, "HelloServlet", "/hello");
+        addEndpoint(context, "LoginServlet", "/login");
+        addEndpoint(context, "EchoServlet", "/echo");
+        addEndpoint(context, "UploadServlet", "/upload");
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            addEndpoint(context, "Page" + i, "/pages/page" + i);
+        }
+        addEndpoint(context, "ApiServlet", "/api/*");
+        addEndpoint(context, "ApiV1Servlet", "/api/v1/*");
+        addEndpoint(context, "StaticServlet", "/static/*");
+        addEndpoint(context, "JspServlet", "*.jsp");
+        addEndpoint(context, "ActionServlet", "*.do");
+        addEndpoint(context, "DefaultServlet", "/");
+
+        addFilter(context, "LoggingFilter", "/*", null);
+        addFilter(context, "CharacterEncodingFilter", "/*", null);
+        addFilter(context, "AuthFilter", "/api/*", null);
+        addFilter(context, "JspFilter", "*.jsp", null);
+        addFilter(context, "AuditFilter", null, "UploadServlet");
+        try {
+            // 过滤器配置只在Context启动时创建，这里单独创建，过滤器实例本身是懒加载的
+            boolean ignored = (boolean) START_FILTER.invokeExact(context);
+        } catch (Throwable t) {
+            throw new IllegalStateException("create filter configs failed", t);
+        }
+        return context;
+    }
+
+    private static void addEndpoint(DefaultContext context, String name, String urlPattern) {
+        DefaultEndpoint endpoint = new DefaultEndpoint();
+        endpoint.setName(name);
+        endpoint.setServletClass("livonia.benchmarks." + name);
+        context.addChild(endpoint);
+        context.addServletMapping(urlPattern, name);
+    }
+
+    private static void addFilter(DefaultContext context, String name, String urlPattern, String servletName) {
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName(name);
+        filterDef.setFilterClass("livonia.benchmarks." + name);
+        context.addFilterDef(filterDef);
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName(name);
+        if (urlPattern != null) filterMap.setUrlPattern(urlPattern);
+        if (servletName != null) filterMap.setServletName(servletName);
+        context.addFilterMap(filterMap);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,97 @@
+package livonia.benchmarks;
+
+import livonia.connector.http.streamFilter.ChunkedFilter;
+import livonia.connector.http.streamFilter.ContentLengthFilter;
+import livonia.connector.http.streamFilter.FilterChainInputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求体解码的基准：{@link ChunkedFilter} 与 {@link ContentLengthFilter}。
+ * <p>
+ * 请求体通过 {@link FilterChainInputStream} 以 8KB 缓冲读完，与 Servlet 读取请求体的方式一致；
+ * 每次操作读完整个请求体后回收过滤器，模拟同一连接上的下一个请求。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class InputFilterBenchmark {
+    //<editor-fold desc = "attr">
+    // 请求体大小（字节）
+    @Param({"1024", "65536"})
+    public int bodySize;
+    // 分块编码时每块的大小（字节）
+    @Param({"512", "8192"})
+    public int chunkSize;
+
+    private final byte[] readBuffer = new byte[8192];
+    private ByteArrayInputStream chunkedSource;
+    private ByteArrayInputStream plainSource;
+    private ChunkedFilter chunkedFilter;
+    private ContentLengthFilter contentLengthFilter;
+    private FilterChainInputStream chunkedStream;
+    private FilterChainInputStream contentLengthStream;
+
+    //</editor-fold>
+    //<editor-fold desc = "准备">
+    @Setup
+    public void setup() throws IOException {
+        byte[] body = new byte[bodySize];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        plainSource = new ByteArrayInputStream(body);
+        chunkedSource = new ByteArrayInputStream(encodeChunked(body, chunkSize));
+        chunkedFilter = new ChunkedFilter(chunkedSource);
+        contentLengthFilter = new ContentLengthFilter(plainSource, bodySize);
+        chunkedStream = new FilterChainInputStream(chunkedFilter);
+        contentLengthStream = new FilterChainInputStream(contentLengthFilter);
+    }
+
+    private static byte[] encodeChunked(byte[] body, int chunkSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 64);
+        for (int off = 0; off < body.length; off += chunkSize) {
+            int len = Math.min(chunkSize, body.length - off);
+            out.write((Integer.toHexString(len) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.write(body, off, len);
+            out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "基准">
+    @Benchmark
+    public long chunked() throws IOException {
+        chunkedSource.reset();
+        chunkedStream.recycle();
+        return drain(chunkedStream);
+    }
+
+    @Benchmark
+    public long contentLength() throws IOException {
+        plainSource.reset();
+        contentLengthStream.recycle();
+        contentLengthFilter.setContentLength(bodySize);
+        return drain(contentLengthStream);
+    }
+
+    private long drain(FilterChainInputStream in) throws IOException {
+        long total = 0;
+        int n;
+        while ((n = in.read(readBuffer, 0, readBuffer.length)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,29 @@
+package livonia.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 取得被测类中非公开方法的句柄。
+ * <p>
+ * 热路径上的解析、回收、过滤链构造等方法在服务器内部是私有的，
+ * 基准直接调用这些方法，避免为了测量而改动其可见性，也避免把套接字等无关开销算进结果。
+ */
+final class Internals {
+    //<editor-fold desc = "constructor">
+    private Internals() {
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "方法句柄">
+    static MethodHandle privateMethod(Class<?> owner, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            return lookup.findVirtual(owner, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot access " + owner.getName() + "#" + name, e);
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,84 @@
+package livonia.benchmarks;
+
+import livonia.connector.http.HttpConnector;
+import livonia.connector.http.HttpProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpProcessor} 请求行与请求头解析的基准。
+ * <p>
+ * 请求头从内存中的 byte[] 读取，每次操作解析一个完整的请求头后回收处理器，
+ * 与 keep-alive 连接上处理器复用的方式一致。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class RequestParseBenchmark {
+    //<editor-fold desc = "attr">
+    private static final MethodHandle PARSE_REQUEST =
+            Internals.privateMethod(HttpProcessor.class, "parseRequest", void.class, InputStream.class);
+    private static final MethodHandle RECYCLE =
+            Internals.privateMethod(HttpProcessor.class, "recycle", void.class);
+
+    // 浏览器风格的 GET 请求
+    private static final String BROWSER_GET = "GET /app1/users/list?page=2&size=20&sort=name HTTP/1.1\r\n"
+            + "Host: localhost:8080\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+            + "Accept-Language: zh-CN,zh;q=0.9,en;q=0.8\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Connection: keep-alive\r\n"
+            + "Cookie: JSESSIONID=6F1E2A4C9B7D3E5F8A0B1C2D3E4F5A6B; theme=dark; lang=zh-CN\r\n"
+            + "Referer: http://localhost:8080/app1/index.html\r\n"
+            + "\r\n";
+    // 带请求体声明的表单 POST（只解析请求头）
+    private static final String FORM_POST = "POST /app1/login HTTP/1.1\r\n"
+            + "Host: localhost:8080\r\n"
+            + "Content-Type: application/x-www-form-urlencoded; charset=UTF-8\r\n"
+            + "Content-Length: 27\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n";
+    // 最小请求
+    private static final String MINIMAL_GET = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+    @Param({"browserGet", "formPost", "minimalGet"})
+    public String request;
+
+    private HttpProcessor processor;
+    private ByteArrayInputStream input;
+
+    //</editor-fold>
+    //<editor-fold desc = "准备">
+    @Setup
+    public void setup() {
+        processor = new HttpProcessor(new HttpConnector(), 0);
+        String head = switch (request) {
+            case "browserGet" -> BROWSER_GET;
+            case "formPost" -> FORM_POST;
+            default -> MINIMAL_GET;
+        };
+        input = new ByteArrayInputStream(head.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "基准">
+    @Benchmark
+    public void parseRequestHead(Blackhole bh) throws Throwable {
+        input.reset();
+        PARSE_REQUEST.invokeExact(processor, (InputStream) input);
+        bh.consume(processor.uri);
+        bh.consume(processor.headers.size());
+        RECYCLE.invokeExact(processor);
+    }
+    //</editor-fold>
+}
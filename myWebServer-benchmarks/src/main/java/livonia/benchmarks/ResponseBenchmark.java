@@ -0,0 +1,109 @@
+package livonia.benchmarks;
+
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.connector.http.HttpResponseStream;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.Cookie;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应输出的基准：{@link HttpResponse#sendHeaders()} 与 {@link HttpResponseStream} 的定长 / 分块写出路径。
+ * <p>
+ * 底层输出流丢弃所有字节，测量结果只包含响应头拼装、缓冲与分块编码的开销。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ResponseBenchmark {
+    //<editor-fold desc = "attr">
+    // 响应体大小（字节）
+    @Param({"128", "16384", "262144"})
+    public int bodySize;
+    // Servlet 每次 write 的字节数
+    @Param({"1024"})
+    public int writeSize;
+
+    private HttpRequest request;
+    private HttpResponse response;
+    private HttpResponseStream stream;
+    private byte[] body;
+
+    //</editor-fold>
+    //<editor-fold desc = "准备">
+    @Setup
+    public void setup() {
+        request = new HttpRequest();
+        request.setProtocol("HTTP/1.1");
+        response = new HttpResponse();
+        response.setStream(NullOutputStream.INSTANCE);
+        stream = new HttpResponseStream(response);
+        response.setResponseStream(stream);
+        body = new byte[bodySize];
+    }
+
+    // 模拟处理器在两次请求之间的回收
+    private void reset() {
+        response.recycle();
+        stream.recycle();
+        response.setRequest(request);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "基准">
+    @Benchmark
+    public HttpResponse sendHeaders() throws IOException {
+        reset();
+        response.setContentType("text/html;charset=UTF-8");
+        response.setContentLength(bodySize);
+        response.setHeader("Cache-Control", "no-cache");
+        response.addCookie(new Cookie("JSESSIONID", "6F1E2A4C9B7D3E5F8A0B1C2D3E4F5A6B"));
+        response.sendHeaders();
+        return response;
+    }
+
+    @Benchmark
+    public long writeContentLength() throws IOException {
+        reset();
+        response.setContentType("application/octet-stream");
+        response.setContentLength(bodySize);
+        return write();
+    }
+
+    @Benchmark
+    public long writeChunked() throws IOException {
+        reset();
+        response.setAllowChunking(true);
+        response.setContentType("application/octet-stream");
+        return write();
+    }
+
+    private long write() throws IOException {
+        for (int off = 0; off < body.length; off += writeSize) {
+            stream.write(body, off, Math.min(writeSize, body.length - off));
+        }
+        stream.close();
+        return stream.getTotalBytesWritten();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+    private static final class NullOutputStream extends OutputStream {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,77 @@
+package livonia.benchmarks;
+
+import livonia.core.DefaultContext;
+import livonia.session.SessionManager;
+import livonia.session.StandardSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SessionManager} 在大量存活会话下的基准。
+ * <p>
+ * 准备阶段先创建 {@link #sessions} 个会话，并打印每个会话大致占用的堆内存；
+ * 之后测量查找并访问已有会话、创建后立即失效两种操作。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx2g"})
+public class SessionManagerBenchmark {
+    //<editor-fold desc = "attr">
+    @Param({"10000", "1000000"})
+    public int sessions;
+
+    private SessionManager manager;
+    private String[] ids;
+
+    //</editor-fold>
+    //<editor-fold desc = "准备">
+    @Setup
+    public void setup() throws Exception {
+        long before = usedHeap();
+        manager = new SessionManager(new DefaultContext());
+        ids = new String[sessions];
+        for (int i = 0; i < sessions; i++) ids[i] = manager.createSession().getId();
+        long after = usedHeap();
+        System.out.printf("%n%d sessions, about %d bytes per session%n",
+                sessions, (after - before) / sessions);
+        manager.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        manager.stop();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "基准">
+    @Benchmark
+    @Threads(4)
+    public StandardSession findAndAccess() {
+        StandardSession session = manager.findSession(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+        if (session != null) manager.access(session);
+        return session;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String createAndInvalidate() {
+        StandardSession session = manager.createSession();
+        session.invalidate();
+        return session.getId();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,118 @@
+package livonia.loadtest;
+
+import livonia.base.Context;
+import livonia.connector.http.HttpConnector;
+import livonia.core.*;
+import livonia.lifecycle.LifecycleException;
+import livonia.listener.InnerContextListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 在回环地址上以代码方式装配并启动的 Livonia。
+ * <p>
+ * 容器层级与 server.xml 中的结构一致：Server → Service(+Connector) → Engine → Host → Context，
+ * 只部署 testServlet 一个应用，不启用 Host 的自动部署。Context 启动后再挂上一个
+ * {@link StaticFileServlet}，用于静态文件场景。
+ */
+final class EmbeddedLivonia {
+    //<editor-fold desc = "attr">
+    static final String STATIC_ROOT_PROPERTY = "livonia.loadtest.staticRoot";
+    private static final String CONTEXT_PATH = "/testServlet";
+    private static final String STATIC_ENDPOINT = "LoadTestStaticFile";
+    private final Options options;
+    private DefaultServer server;
+    private Path staticRoot;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    EmbeddedLivonia(Options options) {
+        this.options = options;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "生命周期">
+    void start() throws LifecycleException, IOException {
+        File appBase = new File(options.appBase).getAbsoluteFile();
+        if (!new File(appBase, "testServlet/WEB-INF/classes").isDirectory()) {
+            throw new IllegalStateException("testServlet classes not found under " + appBase
+                    + " , build the testServlet module first");
+        }
+        staticRoot = Files.createTempDirectory("livonia-loadtest-static");
+        writeStaticFile(staticRoot.resolve(staticFileName(options.staticSize)), options.staticSize);
+        System.setProperty(STATIC_ROOT_PROPERTY, staticRoot.toString());
+
+        server = new DefaultServer();
+        DefaultService service = new DefaultService();
+        service.setName("loadTestService");
+        server.addService(service);
+
+        HttpConnector connector = new HttpConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(options.port);
+        connector.setMaxProcessors(Math.max(connector.getMaxProcessors(), options.connections * 2));
+        service.addConnector(connector);
+
+        DefaultEngine engine = new DefaultEngine();
+        engine.setName("loadTestEngine");
+        engine.setDefaultHostName("localhost");
+        service.setVas(engine);
+
+        DefaultHost host = new DefaultHost();
+        host.setName("localhost");
+        host.setAppBase(appBase.getPath());
+        host.setAutoDeploy(false);
+        engine.addChild(host);
+
+        DefaultContext context = new DefaultContext();
+        context.setPath(CONTEXT_PATH);
+        context.setBasePath("testServlet");
+        context.addLifecycleListener(new InnerContextListener());
+        host.addChild(context);
+
+        server.initialize();
+        server.start();
+        if (!context.getAvailable()) {
+            throw new IllegalStateException("context " + CONTEXT_PATH + " failed to start");
+        }
+        addStaticEndpoint(context);
+    }
+
+    void stop() throws LifecycleException, IOException {
+        if (server != null) server.stop();
+        if (staticRoot != null) {
+            try (var files = Files.list(staticRoot)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(staticRoot);
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "静态文件">
+    static String staticFileName(int size) {
+        return "file-" + size + ".bin";
+    }
+
+    private static void writeStaticFile(Path path, int size) throws IOException {
+        byte[] line = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ\n".getBytes();
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (int written = 0; written < size; written += line.length) {
+                out.write(line, 0, Math.min(line.length, size - written));
+            }
+        }
+    }
+
+    private void addStaticEndpoint(Context context) {
+        DefaultEndpoint endpoint = new DefaultEndpoint();
+        endpoint.setName(STATIC_ENDPOINT);
+        endpoint.setServletClass(StaticFileServlet.class.getName());
+        context.addChild(endpoint);
+        context.addServletMapping("/static/*", STATIC_ENDPOINT);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,109 @@
+package livonia.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 端到端压力测试入口。
+ * <p>
+ * 启动内嵌的 Livonia，按顺序运行选定的场景：每个场景先以目标速率预热（不记录），
+ * 再以同样的速率测量，最后把全部结果写入一个 JSON 文件。
+ * <pre>
+ * {
+ *   "label": "...", "timestamp": "...", "java": "...", "rate": 1000, ...
+ *   "scenarios": [
+ *     {"scenario": "plaintext", "throughput": 999.8, "latencyMicros": {"p50": .., "p99": .., "p99.9": ..}, ...}
+ *   ]
+ * }
+ * </pre>
+ */
+public final class LoadTest {
+    //<editor-fold desc = "constructor">
+    private LoadTest() {
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "运行">
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (options.help) {
+            System.out.println(Options.HELP_MESSAGE);
+            return;
+        }
+        // 必须在服务器第一次取得Logger之前设置
+        System.setProperty("log.level", options.logLevel);
+
+        EmbeddedLivonia livonia = new EmbeddedLivonia(options);
+        livonia.start();
+        List<ScenarioResult> results = new ArrayList<>();
+        try {
+            for (Scenario scenario : options.scenarios) {
+                OpenLoopDriver driver = new OpenLoopDriver(options, scenario);
+                if (options.warmupSeconds > 0) driver.run(options.warmupSeconds);
+                ScenarioResult result = driver.run(options.durationSeconds);
+                results.add(result);
+                print(result);
+            }
+        } finally {
+            livonia.stop();
+        }
+        writeJson(options, results);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "输出">
+    private static void print(ScenarioResult r) {
+        System.out.printf(Locale.ROOT,
+                "%-15s %8.1f req/s  p50 %7dus  p99 %7dus  p99.9 %7dus  max %7dus  errors %d  non2xx %d  missed %d%n",
+                r.scenario(), r.throughput(), r.corrected().valueAtPercentile(50),
+                r.corrected().valueAtPercentile(99), r.corrected().valueAtPercentile(99.9),
+                r.correctedMax(), r.errors(), r.non2xx(), r.missed());
+    }
+
+    private static void writeJson(Options options, List<ScenarioResult> results) throws IOException {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("{\n");
+        out.append("  \"label\": ").append(options.label == null ? "null" : quote(options.label)).append(",\n");
+        out.append("  \"timestamp\": ").append(quote(Instant.now().toString())).append(",\n");
+        out.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+        out.append("  \"os\": ").append(quote(System.getProperty("os.name") + " " + System.getProperty("os.arch"))).append(",\n");
+        out.append("  \"cpus\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        out.append("  \"rate\": ").append(options.rate).append(",\n");
+        out.append("  \"durationSeconds\": ").append(options.durationSeconds).append(",\n");
+        out.append("  \"warmupSeconds\": ").append(options.warmupSeconds).append(",\n");
+        out.append("  \"connections\": ").append(options.connections).append(",\n");
+        out.append("  \"pipelineDepth\": ").append(options.pipelineDepth).append(",\n");
+        out.append("  \"uploadSize\": ").append(options.uploadSize).append(",\n");
+        out.append("  \"staticSize\": ").append(options.staticSize).append(",\n");
+        out.append("  \"scenarios\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            results.get(i).writeJson(out, "    ");
+            out.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        out.append("  ]\n}\n");
+        Path path = Path.of(options.out);
+        Files.writeString(path, out, StandardCharsets.UTF_8);
+        System.out.println("result written to " + path.toAbsolutePath());
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                default -> sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+    //</editor-fold>
+}
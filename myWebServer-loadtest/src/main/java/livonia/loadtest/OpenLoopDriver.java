@@ -0,0 +1,159 @@
+package livonia.loadtest;
+
+import livonia.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 固定到达速率（开环）的负载驱动器。
+ * <p>
+ * 第 i 次发送的计划时间为 {@code start + i * interval}，按 i 对连接数取模分配给各连接的工作线程。
+ * 工作线程在计划时间到达前等待，到达后发送请求并读取响应；若服务器变慢，线程会落后于计划，
+ * 但后续请求的计划时间不会因此推迟。延迟从计划时间算起（协调遗漏校正），
+ * 因此服务器停顿期间本应发出的请求同样计入停顿造成的延迟。
+ * 测量结束时仍未能发出的请求计为 missed，并以计划时间到放弃发送时刻的时长计入校正后的延迟，
+ * 否则停顿最严重时被挤掉的请求恰好从直方图中消失。
+ * 同时记录从实际发送时间算起的延迟，便于对比两者的差距。
+ */
+final class OpenLoopDriver {
+    //<editor-fold desc = "attr">
+    private static final int SOCKET_TIMEOUT_MILLIS = 10_000;
+    private final Options options;
+    private final Scenario scenario;
+    private final byte[] request;
+    private final int batchSize;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    OpenLoopDriver(Options options, Scenario scenario) {
+        this.options = options;
+        this.scenario = scenario;
+        this.request = scenario.request(options);
+        this.batchSize = scenario.batchSize(options);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "运行">
+
+    /**
+     * 以目标速率运行给定秒数
+     *
+     * @param seconds 运行时长
+     * @return 运行期间的测量结果
+     */
+    ScenarioResult run(int seconds) throws InterruptedException {
+        int connections = options.connections;
+        // 一次发送包含 batchSize 个请求，发送间隔相应放大
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) * (double) batchSize / options.rate;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        Stats stats = new Stats();
+        Thread[] workers = new Thread[connections];
+        for (int w = 0; w < connections; w++) {
+            int index = w;
+            workers[w] = new Thread(() -> work(index, connections, start, end, intervalNanos, stats),
+                    "LoadTest[" + scenario.scenarioName() + "][" + w + "]");
+            workers[w].start();
+        }
+        for (Thread worker : workers) worker.join();
+        double elapsed = (Math.max(stats.lastCompletion.get(), end) - start) / 1e9;
+        return new ScenarioResult(scenario.scenarioName(), options.rate, connections, seconds, elapsed,
+                stats.requests.get(), stats.errors.get(), stats.non2xx.get(), stats.missed.get(),
+                stats.corrected, stats.uncorrected, stats.correctedMax.get(), stats.uncorrectedMax.get());
+    }
+
+    private void work(int index, int connections, long start, long end, double intervalNanos, Stats stats) {
+        Socket socket = null;
+        ResponseReader reader = null;
+        OutputStream out = null;
+        for (long i = index; ; i += connections) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) break;
+            long now = System.nanoTime();
+            if (now >= end) {
+                // 测量已结束但计划中的发送还没轮到，说明本连接已落后于计划；
+                // 这些请求至少已等待到现在，按此计入校正后的延迟
+                stats.miss(batchSize, (now - intended) / 1000);
+                continue;
+            }
+            if (intended > now) LockSupport.parkNanos(intended - now);
+            try {
+                if (socket == null) {
+                    socket = new Socket();
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+                    socket.connect(new InetSocketAddress("127.0.0.1", options.port), SOCKET_TIMEOUT_MILLIS);
+                    reader = new ResponseReader(socket.getInputStream());
+                    out = socket.getOutputStream();
+                }
+                long sent = System.nanoTime();
+                out.write(request);
+                out.flush();
+                boolean close = false;
+                for (int r = 0; r < batchSize; r++) {
+                    int status = reader.read();
+                    long done = System.nanoTime();
+                    stats.record(status, (done - intended) / 1000, (done - sent) / 1000, done);
+                    close |= reader.isClose();
+                }
+                if (close || scenario.isCloseAfterBatch()) {
+                    closeQuietly(socket);
+                    socket = null;
+                }
+            } catch (IOException e) {
+                stats.errors.incrementAndGet();
+                closeQuietly(socket);
+                socket = null;
+            }
+        }
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+    private static final class Stats {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LatencyHistogram uncorrected = new LatencyHistogram();
+        final LongAccumulator correctedMax = new LongAccumulator(Math::max, 0);
+        final LongAccumulator uncorrectedMax = new LongAccumulator(Math::max, 0);
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong non2xx = new AtomicLong();
+        final AtomicLong missed = new AtomicLong();
+        final LongAccumulator lastCompletion = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void record(int status, long correctedMicros, long uncorrectedMicros, long completedAt) {
+            requests.incrementAndGet();
+            if (status < 200 || status >= 300) non2xx.incrementAndGet();
+            corrected.record(correctedMicros);
+            uncorrected.record(uncorrectedMicros);
+            correctedMax.accumulate(correctedMicros);
+            uncorrectedMax.accumulate(uncorrectedMicros);
+            lastCompletion.accumulate(completedAt);
+        }
+
+        // 未能发出的请求只计入校正后的延迟，它们没有实际发送时间
+        void miss(int count, long correctedMicros) {
+            missed.addAndGet(count);
+            for (int i = 0; i < count; i++) corrected.record(correctedMicros);
+            correctedMax.accumulate(correctedMicros);
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,104 @@
+package livonia.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 负载测试的命令行参数
+ */
+final class Options {
+    //<editor-fold desc = "helpMessage">
+    static final String HELP_MESSAGE =
+            """
+                    Usage: LoadTest [options]
+                      -scenarios   Comma separated scenarios (default: all)
+                                   plaintext,keepalive,close,pipelined,chunked-upload,static
+                      -rate        Target arrival rate in requests/second (default: 1000)
+                      -duration    Measured seconds per scenario (default: 10)
+                      -warmup      Unrecorded warmup seconds per scenario (default: 3)
+                      -connections Concurrent connections (default: 16)
+                      -pipeline    Pipeline depth of the pipelined scenario (default: 8)
+                      -upload      Body bytes of the chunked-upload scenario (default: 4096)
+                      -static      File bytes of the static scenario (default: 16384)
+                      -port        Port of the embedded server (default: 18080)
+                      -appBase     Directory containing the testServlet webapp
+                                   (default: myWebServer/server/webapps)
+                      -label       Free-form label stored in the result, e.g. a commit id
+                      -out         JSON result file (default: loadtest-result.json)
+                      -logLevel    Server log level (default: ERROR)
+                      -h           Show this help message""";
+    //</editor-fold>
+    //<editor-fold desc = "attr">
+    List<Scenario> scenarios = new ArrayList<>(Arrays.asList(Scenario.values()));
+    int rate = 1000;
+    int durationSeconds = 10;
+    int warmupSeconds = 3;
+    int connections = 16;
+    int pipelineDepth = 8;
+    int uploadSize = 4096;
+    int staticSize = 16384;
+    int port = 18080;
+    String appBase = null;
+    String label = null;
+    String out = "loadtest-result.json";
+    String logLevel = "ERROR";
+    boolean help = false;
+
+    //</editor-fold>
+    //<editor-fold desc = "解析">
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-h") || arg.equals("--help")) {
+                options.help = true;
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "-scenarios" -> {
+                    options.scenarios = new ArrayList<>();
+                    for (String name : value.split(",")) {
+                        if (!name.isBlank()) options.scenarios.add(Scenario.of(name.trim()));
+                    }
+                }
+                case "-rate" -> options.rate = positive(arg, value);
+                case "-duration" -> options.durationSeconds = positive(arg, value);
+                case "-warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                case "-connections" -> options.connections = positive(arg, value);
+                case "-pipeline" -> options.pipelineDepth = positive(arg, value);
+                case "-upload" -> options.uploadSize = positive(arg, value);
+                case "-static" -> options.staticSize = positive(arg, value);
+                case "-port" -> options.port = positive(arg, value);
+                case "-appBase" -> options.appBase = value;
+                case "-label" -> options.label = value;
+                case "-out" -> options.out = value;
+                case "-logLevel" -> options.logLevel = value;
+                default -> throw new IllegalArgumentException("unknown option : " + arg);
+            }
+        }
+        if (options.appBase == null) options.appBase = defaultAppBase();
+        return options;
+    }
+
+    private static int positive(String name, String value) {
+        int result = Integer.parseInt(value);
+        if (result <= 0) throw new IllegalArgumentException(name + " must be positive : " + value);
+        return result;
+    }
+
+    // 依次尝试在工作目录及其上级目录中寻找 myWebServer/server/webapps
+    private static String defaultAppBase() {
+        File dir = new File(System.getProperty("user.dir")).getAbsoluteFile();
+        while (dir != null) {
+            File candidate = new File(dir, "myWebServer/server/webapps");
+            if (candidate.isDirectory()) return candidate.getPath();
+            dir = dir.getParentFile();
+        }
+        return new File("myWebServer/server/webapps").getAbsolutePath();
+    }
+    //</editor-fold>
+}
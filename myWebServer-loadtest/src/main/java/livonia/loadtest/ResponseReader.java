@@ -0,0 +1,157 @@
+package livonia.loadtest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 从原始套接字流中读取一个完整 HTTP/1.1 响应的最小解析器。
+ * <p>
+ * 只解析状态码、Content-Length、Transfer-Encoding 与 Connection，响应体直接跳过。
+ * 每个连接持有一个实例，内部缓冲在多次读取之间复用，流水线上后续响应的字节会留在缓冲中。
+ */
+final class ResponseReader {
+    //<editor-fold desc = "attr">
+    private static final int MAX_LINE = 8192;
+    private final InputStream in;
+    private final byte[] buffer = new byte[16384];
+    private final char[] line = new char[MAX_LINE];
+    private int pos = 0;
+    private int limit = 0;
+    // 最近一次响应的状态码与连接是否将被关闭
+    private int status;
+    private boolean close;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    ResponseReader(InputStream in) {
+        this.in = in;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "读取">
+
+    /**
+     * 读取并丢弃一个完整响应，之前的 1xx 临时响应（如 100 Continue）一并跳过
+     *
+     * @return 最终响应的状态码
+     */
+    int read() throws IOException {
+        while (readOne() / 100 == 1) {
+        }
+        return status;
+    }
+
+    private int readOne() throws IOException {
+        int length = readLine();
+        // HTTP/1.1 200 OK
+        if (length < 12) throw new IOException("malformed status line : " + new String(line, 0, length));
+        status = (line[9] - '0') * 100 + (line[10] - '0') * 10 + (line[11] - '0');
+        close = false;
+        long contentLength = -1;
+        boolean chunked = false;
+        while ((length = readLine()) > 0) {
+            int colon = indexOf(':', length);
+            if (colon < 0) continue;
+            if (headerIs("Content-Length", colon)) {
+                contentLength = Long.parseLong(value(colon, length));
+            } else if (headerIs("Transfer-Encoding", colon)) {
+                chunked = value(colon, length).equalsIgnoreCase("chunked");
+            } else if (headerIs("Connection", colon)) {
+                close = value(colon, length).equalsIgnoreCase("close");
+            }
+        }
+        if (status / 100 == 1) {
+            // 临时响应没有响应体
+            return status;
+        }
+        if (chunked) {
+            skipChunked();
+        } else if (contentLength >= 0) {
+            skip(contentLength);
+        } else {
+            // 既无长度也非分块，响应体到连接关闭为止
+            while (fill() > 0) pos = limit;
+            close = true;
+        }
+        return status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    boolean isClose() {
+        return close;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部方法">
+    private void skipChunked() throws IOException {
+        while (true) {
+            int length = readLine();
+            int end = indexOf(';', length);
+            long size = Long.parseLong(new String(line, 0, end < 0 ? length : end).trim(), 16);
+            if (size == 0) {
+                // trailer 直到空行
+                while (readLine() > 0) {
+                }
+                return;
+            }
+            skip(size);
+            readLine();
+        }
+    }
+
+    private void skip(long n) throws IOException {
+        while (n > 0) {
+            if (pos == limit && fill() < 0) throw new EOFException("connection closed in body");
+            int step = (int) Math.min(n, limit - pos);
+            pos += step;
+            n -= step;
+        }
+    }
+
+    // 读取一行到 line 中（不含CRLF），返回长度
+    private int readLine() throws IOException {
+        int length = 0;
+        while (true) {
+            if (pos == limit && fill() < 0) throw new EOFException("connection closed");
+            byte b = buffer[pos++];
+            if (b == '\n') {
+                if (length > 0 && line[length - 1] == '\r') length--;
+                return length;
+            }
+            if (length == MAX_LINE) throw new IOException("line too long");
+            line[length++] = (char) (b & 0xFF);
+        }
+    }
+
+    private int fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        int n = in.read(buffer, 0, buffer.length);
+        if (n > 0) limit = n;
+        return n;
+    }
+
+    private int indexOf(char c, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] == c) return i;
+        }
+        return -1;
+    }
+
+    private boolean headerIs(String name, int colon) {
+        if (colon != name.length()) return false;
+        for (int i = 0; i < colon; i++) {
+            if (Character.toLowerCase(line[i]) != Character.toLowerCase(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private String value(int colon, int length) {
+        return new String(line, colon + 1, length - colon - 1).trim();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,159 @@
+package livonia.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 命名的负载场景。
+ * <p>
+ * 每个场景描述一次发送的原始请求字节、一次发送中包含的请求数（流水线深度），
+ * 以及每次发送后是否关闭连接。请求字节在场景创建时一次性生成，发送时不再分配。
+ */
+public enum Scenario {
+    //<editor-fold desc = "场景">
+    /**
+     * 长连接上的最小 GET，响应为 HelloServlet 的小页面
+     */
+    PLAINTEXT("plaintext", false) {
+        @Override
+        byte[] request(Options options) {
+            return get("/testServlet/hello", "keep-alive");
+        }
+    },
+    /**
+     * 长连接上带请求头、Cookie 与查询参数的 GET，由 EchoServlet 回显
+     */
+    KEEPALIVE("keepalive", false) {
+        @Override
+        byte[] request(Options options) {
+            return browserGet("keep-alive");
+        }
+    },
+    /**
+     * 与 keepalive 相同的请求，但每个请求都新建连接并以 Connection: close 结束
+     */
+    CLOSE("close", true) {
+        @Override
+        byte[] request(Options options) {
+            return browserGet("close");
+        }
+    },
+    /**
+     * 一次写出多个请求，再依次读取全部响应
+     */
+    PIPELINED("pipelined", false) {
+        @Override
+        byte[] request(Options options) {
+            byte[] one = get("/testServlet/hello", "keep-alive");
+            byte[] all = new byte[one.length * options.pipelineDepth];
+            for (int i = 0; i < options.pipelineDepth; i++) {
+                System.arraycopy(one, 0, all, i * one.length, one.length);
+            }
+            return all;
+        }
+
+        @Override
+        int batchSize(Options options) {
+            return options.pipelineDepth;
+        }
+    },
+    /**
+     * 以分块编码向 UploadServlet 上传请求体
+     */
+    CHUNKED_UPLOAD("chunked-upload", false) {
+        @Override
+        byte[] request(Options options) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(options.uploadSize + 256);
+            out.writeBytes(("POST /testServlet/upload HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Content-Type: text/plain\r\n"
+                    + "Transfer-Encoding: chunked\r\n"
+                    + "Connection: keep-alive\r\n"
+                    + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            int chunkSize = 1024;
+            for (int off = 0; off < options.uploadSize; off += chunkSize) {
+                int len = Math.min(chunkSize, options.uploadSize - off);
+                out.writeBytes((Integer.toHexString(len) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                for (int i = 0; i < len; i++) {
+                    out.write('a' + (off + i) % 26);
+                }
+                out.writeBytes("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            }
+            out.writeBytes("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            return out.toByteArray();
+        }
+    },
+    /**
+     * 长连接上读取磁盘上的静态文件
+     */
+    STATIC("static", false) {
+        @Override
+        byte[] request(Options options) {
+            return get("/testServlet/static/" + EmbeddedLivonia.staticFileName(options.staticSize), "keep-alive");
+        }
+    };
+    //</editor-fold>
+
+    //<editor-fold desc = "attr">
+    private final String scenarioName;
+    private final boolean closeAfterBatch;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    Scenario(String scenarioName, boolean closeAfterBatch) {
+        this.scenarioName = scenarioName;
+        this.closeAfterBatch = closeAfterBatch;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "场景属性">
+
+    /**
+     * 生成一次发送的完整请求字节
+     */
+    abstract byte[] request(Options options);
+
+    /**
+     * 一次发送包含的请求数
+     */
+    int batchSize(Options options) {
+        return 1;
+    }
+
+    boolean isCloseAfterBatch() {
+        return closeAfterBatch;
+    }
+
+    String scenarioName() {
+        return scenarioName;
+    }
+
+    static Scenario of(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.scenarioName.equalsIgnoreCase(name)) return scenario;
+        }
+        throw new IllegalArgumentException("unknown scenario : " + name);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "请求模板">
+    private static byte[] get(String uri, String connection) {
+        return ("GET " + uri + " HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Connection: " + connection + "\r\n"
+                + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] browserGet(String connection) {
+        return ("GET /testServlet/echo?page=2&size=20&sort=name HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36\r\n"
+                + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+                + "Accept-Language: zh-CN,zh;q=0.9,en;q=0.8\r\n"
+                + "Accept-Encoding: gzip, deflate, br\r\n"
+                + "Cookie: theme=dark; lang=zh-CN\r\n"
+                + "Connection: " + connection + "\r\n"
+                + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+    //</editor-fold>
+}
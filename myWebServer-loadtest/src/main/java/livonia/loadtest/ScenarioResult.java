@@ -0,0 +1,69 @@
+package livonia.loadtest;
+
+import livonia.metrics.LatencyHistogram;
+
+import java.util.Locale;
+
+/**
+ * 一个场景的测量结果
+ *
+ * @param scenario          场景名
+ * @param targetRate        目标到达速率（请求/秒）
+ * @param connections       并发连接数
+ * @param durationSeconds   计划的测量时长（秒）
+ * @param elapsedSeconds    实际测量时长（秒），从开始到最后一个响应完成
+ * @param requests          完成的请求数
+ * @param errors            连接或解析错误数
+ * @param non2xx            状态码不是2xx的响应数
+ * @param missed            测量结束时仍未发出的计划请求数
+ * @param corrected         从计划发送时间算起的延迟，包含 missed 的请求
+ * @param uncorrected       从实际发送时间算起的延迟
+ * @param correctedMax      从计划发送时间算起的最大延迟（微秒）
+ * @param uncorrectedMax    从实际发送时间算起的最大延迟（微秒）
+ */
+record ScenarioResult(String scenario, int targetRate, int connections, int durationSeconds,
+                      double elapsedSeconds, long requests, long errors, long non2xx, long missed,
+                      LatencyHistogram corrected, LatencyHistogram uncorrected,
+                      long correctedMax, long uncorrectedMax) {
+
+    double throughput() {
+        return elapsedSeconds > 0 ? requests / elapsedSeconds : 0;
+    }
+
+    /**
+     * 以 JSON 对象写出，延迟单位为微秒
+     */
+    void writeJson(StringBuilder out, String indent) {
+        out.append(indent).append("{\n");
+        field(out, indent, "scenario", '"' + scenario + '"');
+        field(out, indent, "targetRate", targetRate);
+        field(out, indent, "connections", connections);
+        field(out, indent, "durationSeconds", durationSeconds);
+        field(out, indent, "elapsedSeconds", String.format(Locale.ROOT, "%.3f", elapsedSeconds));
+        field(out, indent, "requests", requests);
+        field(out, indent, "errors", errors);
+        field(out, indent, "non2xx", non2xx);
+        field(out, indent, "missed", missed);
+        field(out, indent, "throughput", String.format(Locale.ROOT, "%.1f", throughput()));
+        out.append(indent).append("  \"latencyMicros\": ");
+        latency(out, corrected, correctedMax);
+        out.append(",\n");
+        out.append(indent).append("  \"uncorrectedLatencyMicros\": ");
+        latency(out, uncorrected, uncorrectedMax);
+        out.append('\n').append(indent).append('}');
+    }
+
+    private static void field(StringBuilder out, String indent, String name, Object value) {
+        out.append(indent).append("  \"").append(name).append("\": ").append(value).append(",\n");
+    }
+
+    private static void latency(StringBuilder out, LatencyHistogram histogram, long max) {
+        long count = histogram.getCount();
+        out.append("{\"p50\": ").append(histogram.valueAtPercentile(50))
+                .append(", \"p99\": ").append(histogram.valueAtPercentile(99))
+                .append(", \"p99.9\": ").append(histogram.valueAtPercentile(99.9))
+                .append(", \"max\": ").append(max)
+                .append(", \"mean\": ").append(count == 0 ? 0 : histogram.getSum() / count)
+                .append('}');
+    }
+}
@@ -0,0 +1,52 @@
+package livonia.loadtest;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 从磁盘目录读取文件并原样返回的 Servlet，供静态文件场景使用。
+ * <p>
+ * Livonia 本身没有默认的静态资源 Servlet，因此由压力测试在 testServlet 上下文中以
+ * {@code /static/*} 挂载本类，目录由系统属性 {@value EmbeddedLivonia#STATIC_ROOT_PROPERTY} 指定。
+ */
+public class StaticFileServlet extends HttpServlet {
+    //<editor-fold desc = "attr">
+    private Path root;
+
+    //</editor-fold>
+    //<editor-fold desc = "Servlet">
+    @Override
+    public void init() throws ServletException {
+        String dir = System.getProperty(EmbeddedLivonia.STATIC_ROOT_PROPERTY);
+        if (dir == null) throw new ServletException(EmbeddedLivonia.STATIC_ROOT_PROPERTY + " is not set");
+        root = Path.of(dir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String pathInfo = request.getPathInfo();
+        Path file = pathInfo == null ? null : root.resolve(pathInfo.substring(1)).normalize();
+        if (file == null || !file.startsWith(root) || !Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType("application/octet-stream");
+        response.setContentLengthLong(Files.size(file));
+        byte[] buffer = new byte[8192];
+        ServletOutputStream out = response.getOutputStream();
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+    //</editor-fold>
+}
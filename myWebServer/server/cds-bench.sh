@@ -0,0 +1,57 @@
+#!/bin/bash
+
+# 比较使用与不使用 AppCDS 归档时的启动耗时
+# 每次运行都以 -exit-after-start 启动，读取 "server started in N ms"（JVM 启动至今的耗时）
+# 用法: ./cds-bench.sh <只含 jar 的类路径> [每组次数，默认5]，额外的 JVM 参数通过 JAVA_OPTS 传入
+# 例如: ./cds-bench.sh "../target/myWebServer-1.0-SNAPSHOT.jar:core/lib/*:common/lib/*"
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+CLASSPATH="$1"
+RUNS="${2:-5}"
+
+if [ -z "$CLASSPATH" ]; then
+    echo "用法: $0 <只含 jar 的类路径> [每组次数]"
+    exit 1
+fi
+
+ARCHIVE="${SCRIPT_DIR}/bench.jsa"
+JVM_OPTS="$JAVA_OPTS -Dcore.dir=${SCRIPT_DIR} -Ddeploy.dir=${SCRIPT_DIR} -Dlivonia.banner.animation=false"
+ARGS="-start -c ${SCRIPT_DIR}/server.xml"
+
+# 启动一次，输出启动耗时（毫秒）
+startup_millis() {
+    java $JVM_OPTS "$@" -cp "$CLASSPATH" livonia.startup.Bootstrap $ARGS -exit-after-start 2>&1 \
+        | sed -n 's/.*server started in \([0-9]*\) ms.*/\1/p'
+}
+
+# 重复运行并输出平均值
+average() {
+    local total=0
+    local count=0
+    for ((i = 0; i < RUNS; i++)); do
+        local ms
+        ms=$(startup_millis "$@")
+        if [ -n "$ms" ]; then
+            total=$((total + ms))
+            count=$((count + 1))
+        fi
+    done
+    if [ "$count" -eq 0 ]; then
+        echo "n/a"
+    else
+        echo $((total / count))
+    fi
+}
+
+echo "生成归档: $ARCHIVE"
+java $JVM_OPTS -Dlivonia.cds.archive="$ARCHIVE" -cp "$CLASSPATH" livonia.startup.Bootstrap $ARGS -cds-dump > /dev/null 2>&1
+if [ ! -f "$ARCHIVE" ]; then
+    echo "归档生成失败"
+    exit 1
+fi
+
+WITHOUT=$(average -Xshare:auto)
+WITH=$(average -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto)
+echo "不使用 AppCDS: ${WITHOUT} ms (平均 ${RUNS} 次)"
+echo "使用 AppCDS:   ${WITH} ms (平均 ${RUNS} 次)"
+rm -f "$ARCHIVE"
@@ -142,6 +142,12 @@ fi
 JVM_OPTS="$JVM_OPTS -Dcore.dir=${PROJECT_DIR}"
 JVM_OPTS="$JVM_OPTS -Ddeploy.dir=${PROJECT_DIR}"
 
+# 存在 AppCDS 归档（由 -cds-dump 生成）时使用它，归档与类路径不兼容时 JVM 会自动忽略
+CDS_ARCHIVE="${PROJECT_DIR}/livonia.jsa"
+if [ -f "$CDS_ARCHIVE" ]; then
+    JVM_OPTS="$JVM_OPTS -XX:SharedArchiveFile=${CDS_ARCHIVE} -Xshare:auto"
+fi
+
 # 构建启动命令
 CMD="java $JVM_OPTS -cp $CLASSPATH livonia.startup.Bootstrap -start"
 
@@ -1,8 +1,10 @@
 package livonia.XMLParse;
 
+import livonia.checkpoints.AccessLogCheckpoint;
 import livonia.core.DefaultContext;
 
 import static livonia.base.Const.commonCharacters.SOLIDUS;
+import static livonia.base.Const.confInfo.CHECKPOINT;
 import static livonia.base.Const.confInfo.CONTEXT;
 import static livonia.base.Const.confInfo.LOADER;
 
@@ -23,6 +25,11 @@ public class ContextRuleSet extends RuleSet {
         digester.addRule(prefix + CONTEXT + LOADER, new SetPropertiesRule());
         digester.addRule(prefix + CONTEXT + LOADER, new SetNextRuleAccessible("setLoader"));
         digester.addRule(prefix + CONTEXT, new SetNextRuleAccessible("addChild"));
+        // <Context>下的检查点
+        digester.addRule(prefix + CONTEXT + SOLIDUS + CHECKPOINT,
+                new ObjectCreateRule(AccessLogCheckpoint.class, "className"));
+        digester.addRule(prefix + CONTEXT + SOLIDUS + CHECKPOINT, new SetPropertiesRule());
+        digester.addRule(prefix + CONTEXT + SOLIDUS + CHECKPOINT, new SetNextRuleAccessible("addCheckpoint"));
         // 添加默认监听器
 
 
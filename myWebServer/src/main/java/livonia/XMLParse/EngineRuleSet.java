@@ -1,8 +1,10 @@
 package livonia.XMLParse;
 
+import livonia.checkpoints.AccessLogCheckpoint;
 import livonia.core.DefaultEngine;
 
 import static livonia.base.Const.commonCharacters.SOLIDUS;
+import static livonia.base.Const.confInfo.CHECKPOINT;
 import static livonia.base.Const.confInfo.ENGINE;
 
 public class EngineRuleSet extends RuleSet {
@@ -20,6 +22,11 @@ public class EngineRuleSet extends RuleSet {
         // 添加默认监听器
         digester.addRule(prefix + ENGINE, new InnerListenerRule("livonia.listener.InnerEngineListener"));
         digester.addRule(prefix + ENGINE, new SetNextRuleAccessible("setVas"));
+        // <Engine>下的检查点
+        digester.addRule(prefix + ENGINE + SOLIDUS + CHECKPOINT,
+                new ObjectCreateRule(AccessLogCheckpoint.class, "className"));
+        digester.addRule(prefix + ENGINE + SOLIDUS + CHECKPOINT, new SetPropertiesRule());
+        digester.addRule(prefix + ENGINE + SOLIDUS + CHECKPOINT, new SetNextRuleAccessible("addCheckpoint"));
 
     }
 }
@@ -1,8 +1,11 @@
 package livonia.XMLParse;
 
+import livonia.checkpoints.AccessLogCheckpoint;
 import livonia.core.DefaultHost;
 
 import static livonia.base.Const.commonCharacters.SOLIDUS;
+import static livonia.base.Const.confInfo.ALIAS;
+import static livonia.base.Const.confInfo.CHECKPOINT;
 
 public class HostRuleSet extends RuleSet {
     private final String prefix;
@@ -19,6 +22,13 @@ public class HostRuleSet extends RuleSet {
         digester.addRule(prefix + "Host", new SetNextRuleAccessible("addChild"));
         // 添加默认监听器
         digester.addRule(prefix + "Host", new InnerListenerRule("livonia.listener.InnerHostListener"));
+        // <Host>下的检查点
+        digester.addRule(prefix + "Host" + SOLIDUS + CHECKPOINT,
+                new ObjectCreateRule(AccessLogCheckpoint.class, "className"));
+        digester.addRule(prefix + "Host" + SOLIDUS + CHECKPOINT, new SetPropertiesRule());
+        digester.addRule(prefix + "Host" + SOLIDUS + CHECKPOINT, new SetNextRuleAccessible("addCheckpoint"));
+        // <Host>下的别名，例如 <Alias>www.example.com</Alias>
+        digester.addCallMethod(prefix + "Host" + SOLIDUS + ALIAS, "addAlias");
 
 
     }
@@ -17,10 +17,20 @@ public class WebRuleSet extends RuleSet {
 
         /* ---------- <display‑name> ---------- */
         d.addCallMethod("web-app/display-name", "setDisplayName");
+        /* ---------- <session‑config> ---------- */
+        d.addCallMethod("web-app/session-config/session-timeout", "setSessionTimeout", 1,
+                new String[]{"web-app/session-config/session-timeout"}, int.class);
         /* ---------- <servlet> ---------- */
         d.addRule("web-app/servlet", new endpointCreateRule());
         d.addCallMethod("web-app/servlet/servlet-name", "setName");
         d.addCallMethod("web-app/servlet/servlet-class", "setServletClass");
+        // 非线程安全的servlet使用实例池，max-instances为池的上限
+        d.addCallMethod("web-app/servlet/thread-safe", "setThreadSafe", 1,
+                new String[]{"web-app/servlet/thread-safe"}, boolean.class);
+        d.addCallMethod("web-app/servlet/max-instances", "setMaxInstances", 1,
+                new String[]{"web-app/servlet/max-instances"}, int.class);
+        d.addCallMethod("web-app/servlet/load-on-startup", "setLoadOnStartup", 1,
+                new String[]{"web-app/servlet/load-on-startup"}, int.class);
         d.addRule("web-app/servlet", new SetNextRuleAccessible("addChild"));
         /* ---------- <servlet‑mapping> ---------- */
         List<String> smArgs = new ArrayList<>();
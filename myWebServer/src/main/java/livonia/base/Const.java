@@ -23,6 +23,8 @@ public final class Const {
         public static final String CONNECTOR = "Connector";
         public static final String HOST = "Host";
         public static final String ENGINE = "Engine";
+        public static final String CHECKPOINT = "Checkpoint";
+        public static final String ALIAS = "Alias";
     }
 
     /**
@@ -144,6 +146,8 @@ public final class Const {
     public static class Header {
         public static final String CLOSE = "close";
         public static final String SESSION_ID = "JSESSIONID";
+        // 会话保存在Cookie中时使用的Cookie名
+        public static final String SESSION_STATE = "LSESSION";
         public static final String AUTHORIZATION = "Authorization";
         public static final String HOST = "Host";
         public static final String CONTENT_TYPE = "Content-Type";
@@ -159,5 +163,10 @@ public final class Const {
         public static final String TRANSFER_ENCODING = "Transfer-Encoding";
         public static final String CHUNKED = "chunked";
         public static final String LOCATION = "Location";
+        public static final String CACHE_CONTROL = "Cache-Control";
+        public static final String PRAGMA = "Pragma";
+        public static final String EXPIRES = "Expires";
+        public static final String VARY = "Vary";
+        public static final String AGE = "Age";
     }
 }
@@ -2,10 +2,14 @@ package livonia.base;
 
 import livonia.filter.FilterDef;
 import livonia.filter.FilterMap;
+import livonia.mapper.ServletMappingTable;
 import livonia.resource.ResourceManager;
+import livonia.session.CookieSessionCodec;
+import livonia.session.SessionManager;
 
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
+import java.nio.file.Path;
 
 /**
  * 代表一个Web程序上下文
@@ -49,6 +53,47 @@ public interface Context extends Vas {
      */
     void setResources(ResourceManager resources);
 
+    /**
+     * 获取此上下文在 Host 工作目录下的私有目录：{@code <workDir>/<context>}，
+     * 根上下文使用 ROOT，路径中的 / 换成 #。
+     *
+     * @return Host 未配置工作目录时返回 null
+     */
+    Path getWorkPath();
+
+    /**
+     * 获取管理此上下文会话的管理器。
+     *
+     * @return 会话管理器，上下文尚未启动时可能为 null
+     */
+    SessionManager getManager();
+
+    /**
+     * 设置会话管理器，未设置时上下文启动时创建默认的管理器。
+     *
+     * @param manager 会话管理器
+     */
+    void setManager(SessionManager manager);
+
+    /**
+     * 会话完整保存在Cookie中时使用的编解码器，此时没有会话管理器。
+     *
+     * @return 编解码器，使用服务器端会话或上下文尚未启动时为 null
+     */
+    CookieSessionCodec getSessionCodec();
+
+    /**
+     * 新会话的默认超时时间（分钟），对应 web.xml 中的 session-timeout。
+     */
+    int getSessionTimeout();
+
+    /**
+     * 设置新会话的默认超时时间，不大于0时会话永不过期。
+     *
+     * @param sessionTimeout 超时时间（分钟）
+     */
+    void setSessionTimeout(int sessionTimeout);
+
 
     /**
      * 重载
@@ -139,6 +184,13 @@ public interface Context extends Vas {
      */
     void removeServletMapping(String urlPattern);
 
+    /**
+     * 取得由当前 servlet 映射编译得到的只读匹配表，映射或子容器变化后重新编译。
+     *
+     * @return 编译后的映射表
+     */
+    ServletMappingTable getServletMappingTable();
+
     /**
      * 检索与指定过滤器名称相关的 {@code FilterConfig} 实例。
      *
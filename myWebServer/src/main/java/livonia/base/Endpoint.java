@@ -39,9 +39,10 @@ public interface Endpoint extends Vas {
      * 此方法被调用以释放特定于 servlet 的资源，如内存或对象引用，确保 servlet 被正确移除。
      * 子类或实现类应确保实现此方法以处理自定义资源的释放。
      *
+     * @param servlet 由 {@link #salloc()} 分配的 servlet 实例，实例池模式下归还到池中
      * @throws ServletException 如果在释放资源时发生错误。
      */
-    void sfree() throws ServletException;
+    void sfree(Servlet servlet) throws ServletException;
 
     /**
      * 设置与此 {@code Endpoint} 关联的 servlet 的类名。
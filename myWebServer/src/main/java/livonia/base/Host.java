@@ -26,6 +26,42 @@ public interface Host extends Vas {
      */
     void setAppBase(String appBase);
 
+    /**
+     * 检索此主机的工作目录，用于保存可再生成的运行时数据（如资源索引）
+     *
+     * @return 工作目录路径的字符串，未配置时为空串。相对路径基于 core.dir 解析
+     */
+    String getWorkDir();
+
+    /**
+     * 设置此主机的工作目录。
+     *
+     * @param workDir 要设置的工作目录。
+     */
+    void setWorkDir(String workDir);
+
+    /**
+     * 为此主机添加一个别名，请求的主机名与别名相同时同样路由到此主机。
+     * 以 {@code *.} 开头的别名按域名后缀匹配。
+     *
+     * @param alias 别名
+     */
+    void addAlias(String alias);
+
+    /**
+     * 取得此主机的全部别名
+     *
+     * @return 别名数组，没有别名时为空数组
+     */
+    String[] findAliases();
+
+    /**
+     * 移除此主机的一个别名
+     *
+     * @param alias 要移除的别名
+     */
+    void removeAlias(String alias);
+
     interface Deployer {
 
         /**
@@ -63,6 +63,13 @@ public interface Loader {
      */
     boolean modified();
 
+    /**
+     * 重载失败、继续使用当前类加载器时由容器调用，重新开始检测仓库的变化。
+     * 检测线程在要求重载后就会退出，不调用此方法的话之后的变化都不会再被发现。
+     */
+    default void resumeMonitoring() {
+    }
+
     /**
      * 向组件添加属性变化监听器。
      * 监听器将在实施对象的属性发生任何变化时被通知。
@@ -0,0 +1,479 @@
+package livonia.checkpoints;
+
+import livonia.base.CheckpointContext;
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleException;
+import livonia.lifecycle.LifecycleListener;
+import livonia.log.BaseLogger;
+import livonia.utils.LifecycleHelper;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static livonia.base.Const.confInfo.CORE_DIR;
+import static livonia.base.Const.confInfo.USER_DIR;
+
+/**
+ * 访问日志检查点，可以安装在 Engine / Host / Context 的通道上。
+ * <p>
+ * 请求线程只把本次请求的摘要（方法、URI、状态码、字节数、耗时、远程地址）写入一个预分配的无锁环形缓冲区，
+ * 格式化与落盘全部交给后台线程批量完成。磁盘缓慢导致缓冲区写满时，新的记录会被直接丢弃并计数，
+ * 请求线程永远不会因为访问日志而阻塞。
+ * <pre>
+ * &lt;Checkpoint className="livonia.checkpoints.AccessLogCheckpoint"
+ *             directory="logs" prefix="access_log." suffix=".txt"
+ *             fileDateFormat="yyyy-MM-dd" pattern="%a %t &quot;%r&quot; %s %b %D"/&gt;
+ * </pre>
+ * pattern 支持的占位符：
+ * <ul>
+ *   <li>%a 远程地址</li>
+ *   <li>%t 请求完成时刻</li>
+ *   <li>%m 请求方法</li>
+ *   <li>%U 请求URI</li>
+ *   <li>%H 协议</li>
+ *   <li>%r 请求行（方法 URI 协议）</li>
+ *   <li>%s 状态码</li>
+ *   <li>%b 响应体字节数，为0时输出 "-"</li>
+ *   <li>%D 处理耗时（毫秒）</li>
+ *   <li>%% 百分号</li>
+ * </ul>
+ *
+ * @author LILINJIAN
+ */
+public class AccessLogCheckpoint extends CheckpointBase implements Lifecycle, Runnable {
+    //<editor-fold desc = "attr">
+    private static final String info = "livonia.checkpoints.AccessLogCheckpoint";
+    private static final Logger logger = BaseLogger.getLogger(AccessLogCheckpoint.class);
+    // %t 的输出格式
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("'['dd/MMM/yyyy:HH:mm:ss Z']'", Locale.US);
+    // 缺省值占位
+    private static final String NONE = "-";
+    // 已丢弃的记录数（缓冲区满或写入失败）
+    private final LongAdder dropped = new LongAdder();
+    // 已写入文件的记录数
+    private final LongAdder written = new LongAdder();
+    // 生产者序号
+    private final AtomicLong tail = new AtomicLong();
+    // 生命周期助手
+    protected LifecycleHelper lifecycleHelper = new LifecycleHelper(this);
+    // 日志目录，相对路径以 core.dir 为基准
+    private String directory = "logs";
+    // 文件名前缀
+    private String prefix = "access_log.";
+    // 文件名后缀
+    private String suffix = ".txt";
+    // 文件名中的日期格式，日期变化时滚动到新文件
+    private String fileDateFormat = "yyyy-MM-dd";
+    // 单条日志的格式
+    private String pattern = "%a %t \"%r\" %s %b %D";
+    // 环形缓冲区容量，会被调整为2的幂
+    private int bufferSize = 16384;
+    // 后台线程空闲时的刷新间隔（毫秒）
+    private long flushInterval = 200L;
+    // 环形缓冲区
+    private Slot[] slots;
+    private int mask;
+    // 消费者序号，只由后台线程访问
+    private long head;
+    // 预解析后的格式
+    private Object[] tokens;
+    // 当前写入的文件
+    private Writer fileWriter;
+    // 下一次滚动的时刻
+    private long rollAt;
+    private DateTimeFormatter fileDateFormatter;
+    // 后台线程格式化使用的缓冲
+    private final StringBuilder batch = new StringBuilder(8192);
+    // %t 的秒级缓存
+    private long cachedSecond = -1;
+    private String cachedTimestamp;
+    // 记录时刻与文件日期使用的时钟
+    private Clock clock = Clock.systemDefaultZone();
+    // 后台线程
+    private Thread thread = null;
+    private volatile boolean started = false;
+
+    //</editor-fold>
+    //<editor-fold desc = "getter & setter">
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public void setSuffix(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String getFileDateFormat() {
+        return fileDateFormat;
+    }
+
+    public void setFileDateFormat(String fileDateFormat) {
+        this.fileDateFormat = fileDateFormat;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * 因缓冲区已满或写入失败而丢弃的记录总数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 已成功写入文件的记录总数
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    // 测试用，替换时钟以验证按日期滚动
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "抽象方法实现">
+    @Override
+    public String getInfo() {
+        return info;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpResponse response, CheckpointContext context) throws Exception {
+        long begin = System.nanoTime();
+        try {
+            context.process(request, response);
+        } finally {
+            if (started) record(request, response, System.nanoTime() - begin);
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "环形缓冲区">
+
+    // 请求线程：占用一个槽位并写入记录，缓冲区已满时直接丢弃
+    private void record(HttpRequest request, HttpResponse response, long elapsedNanos) {
+        Slot[] slots = this.slots;
+        long pos;
+        Slot slot;
+        while (true) {
+            pos = tail.get();
+            slot = slots[(int) (pos & mask)];
+            long diff = slot.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+            } else if (diff < 0) {
+                // 后台线程还没有消费到这里
+                dropped.increment();
+                return;
+            }
+        }
+        InetAddress inet = request.getInet();
+        slot.time = clock.millis();
+        slot.remoteAddr = inet != null ? inet.getHostAddress() : null;
+        slot.method = request.getMethod();
+        slot.uri = request.getRequestURI();
+        slot.protocol = request.getProtocol();
+        slot.status = response.getStatus();
+        slot.bytes = response.getContentCount();
+        slot.elapsedNanos = elapsedNanos;
+        // 发布
+        slot.sequence = pos + 1;
+        // 缓冲区已用过半时提前唤醒后台线程
+        if ((pos & (mask >> 1)) == 0) LockSupport.unpark(thread);
+    }
+
+    // 后台线程：把已发布的记录格式化到batch中并写入文件，返回处理的条数
+    private int drain() throws IOException {
+        int count = 0;
+        batch.setLength(0);
+        try {
+            while (true) {
+                Slot slot = slots[(int) (head & mask)];
+                if (slot.sequence != head + 1) break;
+                if (fileWriter == null || slot.time >= rollAt) {
+                    // 日期变化时先把当前批次写入旧文件，下一轮再切换
+                    if (count > 0) break;
+                    roll(slot.time);
+                }
+                format(slot, batch);
+                slot.remoteAddr = null;
+                slot.method = null;
+                slot.uri = null;
+                slot.protocol = null;
+                // 释放槽位给下一轮的生产者
+                slot.sequence = head + slots.length;
+                head++;
+                count++;
+                if (batch.length() >= 65536) break;
+            }
+            if (count > 0) {
+                fileWriter.write(batch.toString());
+                fileWriter.flush();
+                written.add(count);
+            }
+        } catch (IOException e) {
+            dropped.add(count);
+            throw e;
+        }
+        return count;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "格式化">
+    private Object[] parsePattern(String pattern) {
+        List<Object> result = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' && i + 1 < pattern.length()) {
+                char code = pattern.charAt(++i);
+                if (code == '%') {
+                    literal.append('%');
+                    continue;
+                }
+                if ("atmUHrsbD".indexOf(code) < 0) {
+                    throw new IllegalArgumentException("AccessLogCheckpoint : unknown pattern code %" + code);
+                }
+                if (!literal.isEmpty()) {
+                    result.add(literal.toString());
+                    literal.setLength(0);
+                }
+                result.add(code);
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) result.add(literal.toString());
+        return result.toArray();
+    }
+
+    private void format(Slot slot, StringBuilder sb) {
+        for (Object token : tokens) {
+            if (token instanceof String literal) {
+                sb.append(literal);
+                continue;
+            }
+            switch ((char) (Character) token) {
+                case 'a' -> sb.append(slot.remoteAddr != null ? slot.remoteAddr : NONE);
+                case 't' -> sb.append(timestamp(slot.time));
+                case 'm' -> sb.append(slot.method);
+                case 'U' -> sb.append(slot.uri);
+                case 'H' -> sb.append(slot.protocol);
+                case 'r' -> sb.append(slot.method).append(' ').append(slot.uri).append(' ').append(slot.protocol);
+                case 's' -> sb.append(slot.status);
+                case 'b' -> {
+                    if (slot.bytes > 0) sb.append(slot.bytes);
+                    else sb.append(NONE);
+                }
+                case 'D' -> sb.append(TimeUnit.NANOSECONDS.toMillis(slot.elapsedNanos));
+                default -> {
+                }
+            }
+        }
+        sb.append(System.lineSeparator());
+    }
+
+    // 同一秒内的记录复用同一个时间字符串
+    private String timestamp(long time) {
+        long second = time / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(time).atZone(clock.getZone()));
+        }
+        return cachedTimestamp;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "文件滚动">
+    private void roll(long time) throws IOException {
+        close();
+        ZoneId zone = clock.getZone();
+        LocalDate date = Instant.ofEpochMilli(time).atZone(zone).toLocalDate();
+        rollAt = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        File dir = new File(directory);
+        if (!dir.isAbsolute()) {
+            String base = System.getProperty(CORE_DIR, System.getProperty(USER_DIR));
+            dir = new File(base, directory);
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("AccessLogCheckpoint : cannot create directory " + dir.getAbsolutePath());
+        }
+        File file = new File(dir, prefix + fileDateFormatter.format(date) + suffix);
+        fileWriter = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8), 65536);
+        logger.debug("AccessLogCheckpoint : open log file {}", file.getAbsolutePath());
+    }
+
+    private void close() {
+        if (fileWriter == null) return;
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            logger.warn("AccessLogCheckpoint : close log file failed", e);
+        }
+        fileWriter = null;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "后台线程">
+    @Override
+    public void run() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        while (started) {
+            int count = 0;
+            try {
+                count = drain();
+            } catch (IOException e) {
+                logger.error("AccessLogCheckpoint : write access log failed", e);
+                close();
+            }
+            if (count == 0) LockSupport.parkNanos(this, idleNanos);
+        }
+        // 停止前把剩余的记录写完
+        try {
+            while (drain() > 0) {
+                // 继续
+            }
+        } catch (IOException e) {
+            logger.error("AccessLogCheckpoint : write access log failed", e);
+        }
+        close();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "生命周期">
+    @Override
+    public void removeLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.removeLifecycleListener(listener);
+    }
+
+    @Override
+    public void addLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.addLifecycleListener(listener);
+    }
+
+    @Override
+    public LifecycleListener[] findLifecycleListener() {
+        return lifecycleHelper.findLifecycleListeners();
+    }
+
+    @Override
+    public synchronized void start() throws LifecycleException {
+        if (started) throw new LifecycleException("AccessLogCheckpoint : already started");
+        lifecycleHelper.fireLifecycleEvent(BEFORE_START_EVENT, null);
+        try {
+            tokens = parsePattern(pattern);
+            fileDateFormatter = DateTimeFormatter.ofPattern(fileDateFormat);
+        } catch (IllegalArgumentException e) {
+            throw new LifecycleException("AccessLogCheckpoint : invalid configuration", e);
+        }
+        int capacity = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) slots[i] = new Slot(i);
+        mask = capacity - 1;
+        tail.set(0);
+        head = 0;
+        rollAt = 0;
+        started = true;
+        thread = new Thread(this, "AccessLogCheckpoint[" + (vas != null ? vas.getName() : "") + "]");
+        thread.setDaemon(true);
+        // 不持有web应用的类加载器，避免重载时泄漏
+        thread.setContextClassLoader(AccessLogCheckpoint.class.getClassLoader());
+        thread.start();
+        lifecycleHelper.fireLifecycleEvent(START_EVENT, null);
+        lifecycleHelper.fireLifecycleEvent(AFTER_START_EVENT, null);
+    }
+
+    @Override
+    public synchronized void stop() throws LifecycleException {
+        if (!started) throw new LifecycleException("AccessLogCheckpoint : not started");
+        lifecycleHelper.fireLifecycleEvent(BEFORE_STOP_EVENT, null);
+        lifecycleHelper.fireLifecycleEvent(STOP_EVENT, null);
+        started = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(5000);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        lifecycleHelper.fireLifecycleEvent(AFTER_STOP_EVENT, null);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+    // 环形缓冲区中的一个槽位，sequence 用于在生产者和后台线程之间发布数据
+    private static final class Slot {
+        volatile long sequence;
+        long time;
+        String remoteAddr;
+        String method;
+        String uri;
+        String protocol;
+        int status;
+        long bytes;
+        long elapsedNanos;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+    //</editor-fold>
+}
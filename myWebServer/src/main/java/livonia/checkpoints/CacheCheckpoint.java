@@ -0,0 +1,527 @@
+package livonia.checkpoints;
+
+import livonia.base.CheckpointContext;
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.connector.http.HttpResponseStream;
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleException;
+import livonia.lifecycle.LifecycleListener;
+import livonia.log.BaseLogger;
+import livonia.metrics.CacheMetrics;
+import livonia.metrics.MetricsRegistry;
+import livonia.utils.LifecycleHelper;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static livonia.base.Const.Header;
+
+/**
+ * 响应缓存检查点，可以安装在 Host / Context 的通道上。
+ * <p>
+ * GET 请求按（Host、URI与查询串、Vary 中列出的请求头）查找缓存，命中时直接以保存的状态码、响应头与响应体字节回放，
+ * 不再经过之后的检查点与 servlet；HEAD 请求使用同一条目，只回放响应头。
+ * 未命中时照常处理，同时复制写入 {@link HttpResponseStream} 的响应体，满足以下条件时保存：
+ * <ul>
+ *   <li>状态码属于可缓存的状态码，响应没有写出 Cookie，Vary 不为 *</li>
+ *   <li>Cache-Control 中没有 no-store / private / no-cache</li>
+ *   <li>新鲜期依次取自 s-maxage、max-age、Expires；都没有时按 paths 中最长匹配的URI前缀配置</li>
+ * </ul>
+ * 携带 Authorization 或 Cache-Control: no-store 的请求绕过缓存；
+ * 携带 Cookie 的请求可能得到按会话生成的响应，只有响应以 public 或 s-maxage 明确允许共享时才保存，
+ * paths 的配置不适用于这类响应；
+ * Cache-Control: no-cache、max-age=0 或 Pragma: no-cache 的请求不读缓存，但其响应可以更新缓存。
+ * <p>
+ * 缓存按字节数限制大小，分段加锁，各段内淘汰最久未使用的条目。
+ * <pre>
+ * &lt;Checkpoint className="livonia.checkpoints.CacheCheckpoint"
+ *             maxSize="67108864" maxEntrySize="1048576" paths="/catalog/=60,/static/=3600"/&gt;
+ * </pre>
+ */
+public class CacheCheckpoint extends CheckpointBase implements Lifecycle {
+    //<editor-fold desc = "attr">
+    private static final String info = "livonia.checkpoints.CacheCheckpoint";
+    private static final Logger logger = BaseLogger.getLogger(CacheCheckpoint.class);
+    private static final int SEGMENTS = 16;
+    // 同一URI最多保存的变体（Vary）数
+    private static final int MAX_VARIANTS = 8;
+    // 每个条目在响应体与响应头之外的估算开销
+    private static final int ENTRY_OVERHEAD = 128;
+    // 未给出新鲜期时也可以按启发式规则缓存的状态码（RFC 9111）
+    private static final Set<Integer> CACHEABLE_STATUS = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+    // 不随缓存回放的响应头，由本次响应重新生成
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length", "date", "age", "set-cookie");
+    private static final String[] NO_VARY = new String[0];
+    // 生命周期助手
+    protected LifecycleHelper lifecycleHelper = new LifecycleHelper(this);
+    // 缓存的总字节数上限
+    private long maxSize = 64L * 1024 * 1024;
+    // 单个响应体的字节数上限，超出的响应不缓存
+    private int maxEntrySize = 1024 * 1024;
+    // 逗号分隔的 URI前缀=秒数，响应没有给出新鲜期时按最长匹配的前缀缓存
+    private String paths = null;
+    private PathRule[] rules = new PathRule[0];
+    private Segment[] segments = new Segment[0];
+    private CacheMetrics metrics = null;
+    private volatile boolean started = false;
+
+    //</editor-fold>
+    //<editor-fold desc = "getter & setter">
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public String getPaths() {
+        return paths;
+    }
+
+    public void setPaths(String paths) {
+        this.paths = paths;
+    }
+
+    public long getHits() {
+        CacheMetrics current = metrics;
+        return current == null ? 0 : current.getHits();
+    }
+
+    public long getMisses() {
+        CacheMetrics current = metrics;
+        return current == null ? 0 : current.getMisses();
+    }
+
+    /**
+     * 当前缓存的URI数，每个URI可能有多个变体
+     */
+    public long getEntryCount() {
+        long count = 0;
+        for (Segment segment : segments) count += segment.count();
+        return count;
+    }
+
+    /**
+     * 当前缓存占用的估算字节数
+     */
+    public long getSize() {
+        long size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "抽象方法实现">
+    @Override
+    public String getInfo() {
+        return info;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpResponse response, CheckpointContext context) throws Exception {
+        String method = request.getMethod();
+        boolean head = "HEAD".equalsIgnoreCase(method);
+        Map<String, List<String>> requestHeaders = request.getHeaderMap();
+        if (!started || !(head || "GET".equalsIgnoreCase(method)) || header(requestHeaders, Header.AUTHORIZATION) != null) {
+            context.process(request, response);
+            return;
+        }
+        String cacheControl = header(requestHeaders, Header.CACHE_CONTROL);
+        if (hasDirective(cacheControl, "no-store")) {
+            context.process(request, response);
+            return;
+        }
+        String uri = uriOf(request);
+        String key = hostOf(request) + uri;
+        long now = System.currentTimeMillis();
+        boolean revalidate = hasDirective(cacheControl, "no-cache") || directive(cacheControl, "max-age") == 0
+                || hasDirective(header(requestHeaders, Header.PRAGMA), "no-cache");
+        if (!revalidate) {
+            Entry entry = segmentOf(key).get(key, requestHeaders, now);
+            if (entry != null) {
+                metrics.hit();
+                replay(entry, response, head, now);
+                return;
+            }
+        }
+        metrics.miss();
+        if (head) {
+            context.process(request, response);
+            return;
+        }
+        response.startCapture(maxEntrySize);
+        context.process(request, response);
+        byte[] body = response.takeCapture();
+        if (body != null) store(key, uri, requestHeaders, response, body, now);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "回放与保存">
+    private void replay(Entry entry, HttpResponse response, boolean head, long now) throws IOException {
+        response.setStatus(entry.status);
+        String[] headers = entry.headers;
+        for (int i = 0; i < headers.length; i += 2) response.addHeader(headers[i], headers[i + 1]);
+        response.setHeader(Header.AGE, Long.toString(Math.max(0, now - entry.storedAt) / 1000));
+        response.setContentLengthLong(entry.body.length);
+        if (!head && entry.body.length > 0) response.getOutputStream().write(entry.body);
+    }
+
+    private void store(String key, String uri, Map<String, List<String>> requestHeaders,
+                       HttpResponse response, byte[] body, long now) {
+        int status = response.getStatus();
+        if (response.isError() || !CACHEABLE_STATUS.contains(status) || !response.getCookies().isEmpty()) return;
+        Map<String, List<String>> headers = response.getHeadersMap();
+        if (header(headers, Header.SET_COOKIE) != null) return;
+        String cacheControl = header(headers, Header.CACHE_CONTROL);
+        // 带 Cookie 的请求（例如 JSESSIONID）的响应可能只属于该会话，除非明确声明可共享，否则不能回放给其他用户
+        if (header(requestHeaders, Header.COOKIE) != null
+                && !hasDirective(cacheControl, "public") && directive(cacheControl, "s-maxage") < 0) return;
+        long ttl = freshness(cacheControl, headers, uri, now);
+        if (ttl <= 0) return;
+        String[] varyNames = varyNames(header(headers, Header.VARY));
+        if (varyNames == null) return;
+
+        List<String> kept = new ArrayList<>();
+        long size = ENTRY_OVERHEAD + body.length + key.length() * 2L;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) continue;
+            for (String value : header.getValue()) {
+                kept.add(header.getKey());
+                kept.add(value);
+                size += (header.getKey().length() + value.length()) * 2L;
+            }
+        }
+        String[] varyValues = varyValues(varyNames, requestHeaders);
+        Entry entry = new Entry(varyValues, status, kept.toArray(new String[0]), body, now, now + ttl, size);
+        if (segmentOf(key).put(key, uri, varyNames, entry)) metrics.stored();
+    }
+
+    /**
+     * @return 响应可以缓存的毫秒数，不可缓存时不大于0
+     */
+    private long freshness(String cacheControl, Map<String, List<String>> headers, String uri, long now) {
+        if (cacheControl != null) {
+            if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "private")
+                    || hasDirective(cacheControl, "no-cache")) return -1;
+            long seconds = directive(cacheControl, "s-maxage");
+            if (seconds < 0) seconds = directive(cacheControl, "max-age");
+            if (seconds >= 0) return seconds * 1000;
+        }
+        String expires = header(headers, Header.EXPIRES);
+        if (expires != null) {
+            try {
+                return ZonedDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - now;
+            } catch (DateTimeParseException _) {
+                // 无法解析的 Expires 视为已过期
+                return -1;
+            }
+        }
+        for (PathRule rule : rules) {
+            if (uri.startsWith(rule.prefix)) return rule.seconds * 1000;
+        }
+        return -1;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "清除">
+
+    /**
+     * 清除URI（含查询串）以给定前缀开头的全部条目，不区分 Host
+     *
+     * @param prefix 为null或空串时清除全部
+     * @return 清除的URI数
+     */
+    public int purge(String prefix) {
+        String match = prefix == null ? "" : prefix;
+        int count = 0;
+        for (Segment segment : segments) count += segment.purge(match);
+        CacheMetrics current = metrics;
+        if (current != null && count > 0) current.purged(count);
+        if (count > 0) logger.debug("cache : purged {} entries under {}", count, match);
+        return count;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "请求与响应头">
+    private Segment segmentOf(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static String uriOf(HttpRequest request) {
+        String uri = request.getRequestURI();
+        String query = request.getQueryString();
+        return query == null || query.isEmpty() ? uri : uri + '?' + query;
+    }
+
+    private static String hostOf(HttpRequest request) {
+        String host = request.getServerName();
+        return host == null ? "" : host.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 不区分大小写地取得头部，多个值以逗号连接
+     */
+    private static String header(Map<String, List<String>> headers, String name) {
+        if (headers == null) return null;
+        String result = null;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (!header.getKey().equalsIgnoreCase(name) || header.getValue().isEmpty()) continue;
+            String joined = String.join(",", header.getValue());
+            result = result == null ? joined : result + ',' + joined;
+        }
+        return result;
+    }
+
+    private static boolean hasDirective(String value, String name) {
+        if (value == null) return false;
+        for (String token : value.split(",")) {
+            String directive = token.trim();
+            if (directive.equalsIgnoreCase(name)
+                    || directive.regionMatches(true, 0, name + '=', 0, name.length() + 1)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 指令的秒数，没有该指令或无法解析时返回-1
+     */
+    private static long directive(String value, String name) {
+        if (value == null) return -1;
+        for (String token : value.split(",")) {
+            String directive = token.trim();
+            if (!directive.regionMatches(true, 0, name + '=', 0, name.length() + 1)) continue;
+            String seconds = directive.substring(name.length() + 1).trim();
+            if (seconds.length() > 1 && seconds.startsWith("\"") && seconds.endsWith("\""))
+                seconds = seconds.substring(1, seconds.length() - 1);
+            try {
+                return Math.max(0, Long.parseLong(seconds));
+            } catch (NumberFormatException _) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 小写并排序后的头部名，Vary 为 * 时返回null
+     */
+    private static String[] varyNames(String vary) {
+        if (vary == null || vary.isBlank()) return NO_VARY;
+        TreeSet<String> names = new TreeSet<>();
+        for (String token : vary.split(",")) {
+            String name = token.trim().toLowerCase(Locale.ROOT);
+            if (name.equals("*")) return null;
+            if (!name.isEmpty()) names.add(name);
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private static String[] varyValues(String[] varyNames, Map<String, List<String>> requestHeaders) {
+        if (varyNames.length == 0) return NO_VARY;
+        String[] values = new String[varyNames.length];
+        for (int i = 0; i < varyNames.length; i++) values[i] = header(requestHeaders, varyNames[i]);
+        return values;
+    }
+
+    private static PathRule[] parseRules(String paths) {
+        if (paths == null || paths.isBlank()) return new PathRule[0];
+        List<PathRule> rules = new ArrayList<>();
+        for (String token : paths.split(",")) {
+            String rule = token.trim();
+            if (rule.isEmpty()) continue;
+            int separator = rule.lastIndexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("invalid cache path rule : " + rule);
+            long seconds = Long.parseLong(rule.substring(separator + 1).trim());
+            rules.add(new PathRule(rule.substring(0, separator).trim(), seconds));
+        }
+        // 最长的前缀优先匹配
+        rules.sort(Comparator.comparingInt((PathRule r) -> r.prefix.length()).reversed());
+        return rules.toArray(new PathRule[0]);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "生命周期">
+    @Override
+    public void removeLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.removeLifecycleListener(listener);
+    }
+
+    @Override
+    public void addLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.addLifecycleListener(listener);
+    }
+
+    @Override
+    public LifecycleListener[] findLifecycleListener() {
+        return lifecycleHelper.findLifecycleListeners();
+    }
+
+    @Override
+    public synchronized void start() throws LifecycleException {
+        if (started) throw new LifecycleException("CacheCheckpoint : already started");
+        lifecycleHelper.fireLifecycleEvent(BEFORE_START_EVENT, null);
+        try {
+            rules = parseRules(paths);
+        } catch (IllegalArgumentException e) {
+            throw new LifecycleException("CacheCheckpoint : invalid configuration", e);
+        }
+        Segment[] created = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) created[i] = new Segment(Math.max(1, maxSize / SEGMENTS));
+        segments = created;
+        metrics = MetricsRegistry.getDefault().registerCache(vas != null ? vas.getName() : "",
+                this::getEntryCount, this::getSize);
+        started = true;
+        lifecycleHelper.fireLifecycleEvent(START_EVENT, null);
+        lifecycleHelper.fireLifecycleEvent(AFTER_START_EVENT, null);
+    }
+
+    @Override
+    public synchronized void stop() throws LifecycleException {
+        if (!started) throw new LifecycleException("CacheCheckpoint : not started");
+        lifecycleHelper.fireLifecycleEvent(BEFORE_STOP_EVENT, null);
+        lifecycleHelper.fireLifecycleEvent(STOP_EVENT, null);
+        started = false;
+        MetricsRegistry.getDefault().unregisterCache(metrics);
+        for (Segment segment : segments) segment.purge("");
+        lifecycleHelper.fireLifecycleEvent(AFTER_STOP_EVENT, null);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+    private record PathRule(String prefix, long seconds) {
+    }
+
+    /**
+     * 一个变体：保存的响应及其对应的 Vary 请求头取值
+     *
+     * @param headers 名称与值交替排列
+     */
+    private record Entry(String[] varyValues, int status, String[] headers, byte[] body,
+                         long storedAt, long expiresAt, long size) {
+    }
+
+    /**
+     * 同一URI的全部变体，替换而不修改
+     */
+    private record Variants(String uri, String[] varyNames, Entry[] entries, long size) {
+    }
+
+    /**
+     * 缓存的一段，按访问顺序排列，超出字节上限时从最久未使用的一端淘汰
+     */
+    private final class Segment {
+        private final LinkedHashMap<String, Variants> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final long limit;
+        private long size = 0;
+
+        Segment(long limit) {
+            this.limit = limit;
+        }
+
+        synchronized Entry get(String key, Map<String, List<String>> requestHeaders, long now) {
+            Variants variants = map.get(key);
+            if (variants == null) return null;
+            String[] values = varyValues(variants.varyNames(), requestHeaders);
+            for (Entry entry : variants.entries()) {
+                if (!Arrays.equals(entry.varyValues(), values)) continue;
+                if (entry.expiresAt() > now) return entry;
+                replace(key, variants, without(variants.entries(), entry.varyValues(), now));
+                return null;
+            }
+            return null;
+        }
+
+        /**
+         * @return 条目超出本段的上限时不保存并返回false
+         */
+        synchronized boolean put(String key, String uri, String[] varyNames, Entry entry) {
+            if (entry.size() > limit) return false;
+            Variants old = map.get(key);
+            Entry[] entries;
+            if (old == null || !Arrays.equals(old.varyNames(), varyNames)) {
+                entries = new Entry[]{entry};
+            } else {
+                Entry[] others = without(old.entries(), entry.varyValues(), entry.storedAt());
+                int from = others.length >= MAX_VARIANTS ? others.length - MAX_VARIANTS + 1 : 0;
+                entries = Arrays.copyOfRange(others, from, others.length + 1);
+                entries[entries.length - 1] = entry;
+            }
+            long total = 0;
+            for (Entry e : entries) total += e.size();
+            if (old != null) size -= old.size();
+            map.put(key, new Variants(uri, varyNames, entries, total));
+            size += total;
+            long evicted = 0;
+            Iterator<Variants> eldest = map.values().iterator();
+            while (size > limit && eldest.hasNext()) {
+                Variants victim = eldest.next();
+                if (victim.uri().equals(uri) && victim.varyNames() == varyNames) break;
+                eldest.remove();
+                size -= victim.size();
+                evicted += victim.entries().length;
+            }
+            if (evicted > 0) metrics.evicted(evicted);
+            return true;
+        }
+
+        synchronized int purge(String prefix) {
+            int count = 0;
+            Iterator<Variants> iterator = map.values().iterator();
+            while (iterator.hasNext()) {
+                Variants variants = iterator.next();
+                if (!variants.uri().startsWith(prefix)) continue;
+                iterator.remove();
+                size -= variants.size();
+                count++;
+            }
+            return count;
+        }
+
+        synchronized int count() {
+            return map.size();
+        }
+
+        synchronized long size() {
+            return size;
+        }
+
+        // 以剩余的变体替换，没有剩余时移除整个URI
+        private void replace(String key, Variants variants, Entry[] entries) {
+            size -= variants.size();
+            if (entries.length == 0) {
+                map.remove(key);
+                return;
+            }
+            long total = 0;
+            for (Entry e : entries) total += e.size();
+            map.put(key, new Variants(variants.uri(), variants.varyNames(), entries, total));
+            size += total;
+        }
+
+        // 去掉与给定取值相同以及已经过期的变体
+        private static Entry[] without(Entry[] entries, String[] varyValues, long now) {
+            List<Entry> kept = new ArrayList<>(entries.length);
+            for (Entry e : entries) {
+                if (!Arrays.equals(e.varyValues(), varyValues) && e.expiresAt() > now) kept.add(e);
+            }
+            return kept.toArray(new Entry[0]);
+        }
+    }
+    //</editor-fold>
+}
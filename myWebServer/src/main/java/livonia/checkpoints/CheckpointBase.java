@@ -50,6 +50,9 @@ public abstract class CheckpointBase implements Checkpoint, VasManager {
                 case 500:
                     response.sendError(SC_INTERNAL_SERVER_ERROR, request.getRequestURI());
                     break;
+                case 503:
+                    response.sendError(SC_SERVICE_UNAVAILABLE, request.getRequestURI());
+                    break;
                 default:
                     break;
             }
@@ -5,6 +5,7 @@ import livonia.base.Context;
 import livonia.base.Endpoint;
 import livonia.connector.http.HttpRequest;
 import livonia.connector.http.HttpResponse;
+import livonia.core.DefaultContext;
 import livonia.log.BaseLogger;
 import livonia.utils.Decoder;
 import org.slf4j.Logger;
@@ -33,7 +34,7 @@ public class ContextCheckpoint extends CheckpointBase {
 
     @Override
     public void process(HttpRequest request, HttpResponse response, CheckpointContext context) throws Exception {
-        logger.info("ContextCheckpoint : process in {}", getVas().getName());
+        if (request.getTrace() != null) request.getTrace().event("ContextCheckpoint", getVas().getName());
         // 拒绝对受限资源的直接访问
         String requestURI = Decoder.decode(request.getRequestURI(), StandardCharsets.UTF_8);
         String contextPath = request.getContextPath();
@@ -46,6 +47,11 @@ public class ContextCheckpoint extends CheckpointBase {
             }
         }
         Context innerContext = (Context) getVas();
+        // 暂停中（重载或手动暂停）的应用暂不受理请求
+        if (innerContext instanceof DefaultContext && ((DefaultContext) innerContext).isPaused()) {
+            rejectRequest(request, response, SC_SERVICE_UNAVAILABLE);
+            return;
+        }
         // 找到处理该请求的servlet
         Endpoint endpoint;
         try {
@@ -60,6 +66,7 @@ public class ContextCheckpoint extends CheckpointBase {
             rejectRequest(request, response, SC_NOT_FOUND);
         } else {
             // 正常，则通过servlet处理请求
+            request.setContext(innerContext);
             response.setContext(innerContext);
             endpoint.process(request, response);
         }
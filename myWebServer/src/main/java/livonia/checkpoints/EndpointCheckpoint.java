@@ -9,18 +9,14 @@ import livonia.core.DefaultEndpoint;
 import livonia.filter.ApplicationFilterChain;
 import livonia.filter.ApplicationFilterConfig;
 import livonia.filter.FilterDef;
-import livonia.filter.FilterMap;
 import livonia.log.BaseLogger;
-import livonia.utils.Decoder;
 import org.slf4j.Logger;
 
 import javax.servlet.Servlet;
 import javax.servlet.UnavailableException;
-import java.util.function.Predicate;
 
 import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
 import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
-import static livonia.base.Const.commonCharacters.*;
 
 public class EndpointCheckpoint extends CheckpointBase {
     //<editor-fold desc = "attr">
@@ -38,7 +34,7 @@ public class EndpointCheckpoint extends CheckpointBase {
 
     @Override
     public void process(HttpRequest request, HttpResponse response, CheckpointContext context) throws Exception {
-        logger.info("EndpointCheckpoint : process in {}", getVas().getName());
+        if (request.getTrace() != null) request.getTrace().event("EndpointCheckpoint", getVas().getName());
         boolean unavailable = false;
         Servlet servlet = null;
         Throwable t;
@@ -76,6 +72,8 @@ public class EndpointCheckpoint extends CheckpointBase {
             t = e;
             assert response != null;
             handleException(request, response, t);
+            // 归还已分配的实例，否则活跃访问数无法归零，卸载时只能等到超时
+            if (servlet != null) endpoint.sfree(servlet);
             servlet = null;
         }
 
@@ -96,17 +94,17 @@ public class EndpointCheckpoint extends CheckpointBase {
             t = e;
             handleException(request, response, t);
         } finally {
-            // 清理过滤链
+            // 复位过滤链
             try {
-                chain.destroy();
+                chain.recycle();
             } catch (Throwable e) {
-                logger.error("EndpointCheckpoint : destroy filter chain error", e);
+                logger.error("EndpointCheckpoint : recycle filter chain error", e);
                 t = e;
                 handleException(request, response, t);
             }
             // 将正在处理的请求数量-1
             try {
-                if (servlet != null) endpoint.sfree();
+                if (servlet != null) endpoint.sfree(servlet);
             } catch (Throwable e) {
                 logger.error("EndpointCheckpoint : free servlet error", e);
                 t = e;
@@ -136,129 +134,24 @@ public class EndpointCheckpoint extends CheckpointBase {
 
     //</editor-fold>
     //<editor-fold desc = "创造过滤链">
+
+    /**
+     * 取出随请求复用的过滤链，并装入从 Context 过滤链表中查得的过滤器
+     */
     private ApplicationFilterChain createFilterChain(HttpRequest request, Servlet servlet) {
-        ApplicationFilterChain filterChain = new ApplicationFilterChain();
+        ApplicationFilterChain filterChain = request.getFilterChain();
         DefaultEndpoint endpoint = (DefaultEndpoint) getVas();
         DefaultContext context = (DefaultContext) endpoint.getParent();
         // 为过滤链设置对应的servlet
         filterChain.setServlet(servlet);
 
-        // 从context中获取过滤器映射
-        FilterMap[] filterMaps = context.findFilterMaps();
-        // 若不存在过滤器配置，直接返回初始状态的过滤链
-        if (filterMaps == null || filterMaps.length == 0) return filterChain;
-        logger.info("EndpointCheckpoint : createFilterChain_filterMaps.length : {}", filterMaps.length);
-
-        // 获取具体的请求的servlet名
         String contextPath = request.getContextPath();
-        if (contextPath == null) contextPath = BLANK;
-        String requestURI = Decoder.decode(request.getRequestURI());
-        String requestPath = (requestURI.length() >= contextPath.length())
-                ? requestURI.substring(contextPath.length()) : null;
-        String servletName = endpoint.getName();
-        // 通过URLPattern模式匹配，将匹配到的过滤器添加到过滤链中
-        addFiltersToChain(
-                filterMaps,
-                fm -> matchFilterURL(fm, requestPath),
-                filterChain,
-                context
-        );
-
-        // 通过直接servlet名模式匹配，将匹配到的过滤器添加到过滤链中
-        addFiltersToChain(
-                filterMaps,
-                fm -> matchFilterServlet(fm, servletName),
-                filterChain,
-                context
-        );
-
+        int contextPathLength = contextPath == null ? 0 : contextPath.length();
+        ApplicationFilterConfig[] filters = context.getFilterChainTable()
+                .resolve(endpoint.getName(), request.getRequestURI(), contextPathLength);
+        if (request.getTrace() != null) request.getTrace().event("EndpointCheckpoint : filters", filters.length);
+        filterChain.setFilters(filters);
         return filterChain;
     }
     //</editor-fold>
-    //<editor-fold desc = "过滤器匹配方法">
-    // toDO 制作几个以下规则的filter来测试
-
-    /**
-     * 将提供的请求路径与给定 FilterMap 中定义的 URL 模式进行匹配。
-     * <p>
-     * 该方法比较请求路径与过滤器的 URL 模式，以确定是否存在匹配。
-     * 它支持精确匹配、路径模式匹配（例如，“/*”）和扩展名匹配（例如，“*.ext”）。
-     *
-     * @param filterMap   包含要匹配的 URL 模式的 FilterMap
-     * @param requestPath 要检查与过滤器 URL 模式的传入请求路径
-     * @return 如果请求路径与过滤器的 URL 模式匹配则返回 true，否则返回 false
-     */
-    private boolean matchFilterURL(FilterMap filterMap, String requestPath) {
-        String filterPattern = filterMap.getUrlPattern();
-        if (requestPath == null || filterPattern == null) return false;
-        // 精确匹配
-        if (filterPattern.equals(requestPath)) return true;
-        // 路径匹配 ("/.../*")
-        if (filterPattern.equals("/*")) return true;
-        // 如以 "/*" 结尾，循环判断更深层的路径
-        if (filterPattern.endsWith("/*")) {
-            String path = requestPath;
-            while (true) {
-                // 当拼接路径和过滤器匹配路径一致时，返回 true
-                if (filterPattern.equals(path + "/*")) return true;
-                // 找出最后一个斜杠位置
-                int slashIndex = path.lastIndexOf(SOLIDUS);
-                // 如果没有找到斜杠，跳出循环
-                if (slashIndex < 0) break;
-                path = path.substring(0, slashIndex);
-            }
-            // 没有找到的话 返回false
-            return false;
-        }
-        // 扩展名匹配
-        if (filterPattern.startsWith("*.")) {
-            // 找到请求路径中最后一个斜杠和最后一个点的位置
-            int slashIndex = requestPath.lastIndexOf(SOLIDUS);
-            int dotIndex = requestPath.lastIndexOf(DOT);
-            // 当路径中存在点并且点的位置在最后一个斜杠之后时，尝试匹配扩展名
-            if ((slashIndex >= 0) && (dotIndex > slashIndex)) {
-                // 判断过滤器模式是否与请求路径的扩展名相匹配
-                return filterPattern.equals(
-                        "*." + requestPath.substring(dotIndex + 1));
-            }
-        }
-        // 以上都没有找到的话 返回false
-        return false;
-    }
-
-    /**
-     * 确定给定的 Servlet 名称是否与提供的 FilterMap 中指定的 Servlet 名称匹配。
-     *
-     * @param filterMap   包含要匹配的 Servlet 名称的 FilterMap
-     * @param servletName 要检查匹配的 Servlet 名称
-     * @return 如果 FilterMap 中的 Servlet 名称与给定的 Servlet 名称匹配，则返回 true；否则返回 false。
-     */
-    private boolean matchFilterServlet(FilterMap filterMap, String servletName) {
-        if (filterMap.getServletName() == null) return false;
-        return filterMap.getServletName().equals(servletName);
-    }
-
-
-    //</editor-fold>
-    //<editor-fold desc = "add">
-    private void addFiltersToChain(
-            FilterMap[] filterMaps,
-            Predicate<FilterMap> matchCondition,
-            ApplicationFilterChain filterChain,
-            DefaultContext context) {
-        for (FilterMap filterMap : filterMaps) {
-            if (!matchCondition.test(filterMap)) {
-                continue;
-            }
-            ApplicationFilterConfig filterConfig =
-                    (ApplicationFilterConfig) context.findFilterConfig(filterMap.getFilterName());
-            if (filterConfig == null) {
-                logger.warn("EndpointCheckpoint : context : {} has no filter config : {} ，something may went wrong when server starting",
-                        context.getName(), filterMap.getFilterName());
-                continue;
-            }
-            filterChain.addFilter(filterConfig);
-        }
-    }
-    //</editor-fold>
 }
@@ -23,7 +23,7 @@ public class HostCheckpoint extends CheckpointBase {
 
     @Override
     public void process(HttpRequest request, HttpResponse response, CheckpointContext context) throws Exception {
-        logger.info("HostCheckpoint : process in {}", getVas().getName());
+        if (request.getTrace() != null) request.getTrace().event("HostCheckpoint", getVas().getName());
         DefaultHost host = (DefaultHost) getVas();
         Context innerContext = (Context) host.map(request, true);
         if (innerContext == null) {
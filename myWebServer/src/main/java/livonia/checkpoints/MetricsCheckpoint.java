@@ -0,0 +1,66 @@
+package livonia.checkpoints;
+
+import livonia.base.CheckpointContext;
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.metrics.MetricsRegistry;
+
+import java.io.PrintWriter;
+
+import static javax.servlet.http.HttpServletResponse.SC_METHOD_NOT_ALLOWED;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+/**
+ * 指标导出检查点，通常安装在 Engine 的通道上。
+ * <p>
+ * 请求URI与 {@code path} 完全一致时，直接以 Prometheus 文本格式返回
+ * {@link MetricsRegistry} 中的全部指标，不再进入 Host / Context；其余请求原样交给下一个检查点。
+ * <pre>
+ * &lt;Checkpoint className="livonia.checkpoints.MetricsCheckpoint" path="/metrics"/&gt;
+ * </pre>
+ */
+public class MetricsCheckpoint extends CheckpointBase {
+    //<editor-fold desc = "attr">
+    private static final String info = "livonia.checkpoints.MetricsCheckpoint";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    // 导出指标的URI
+    private String path = "/metrics";
+
+    //</editor-fold>
+    //<editor-fold desc = "getter & setter">
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "抽象方法实现">
+    @Override
+    public String getInfo() {
+        return info;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpResponse response, CheckpointContext context) throws Exception {
+        if (path == null || !path.equals(request.getRequestURI())) {
+            context.process(request, response);
+            return;
+        }
+        String method = request.getMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"HEAD".equalsIgnoreCase(method)) {
+            rejectRequest(request, response, SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        StringBuilder body = new StringBuilder(4096);
+        MetricsRegistry.getDefault().writePrometheus(body);
+        response.setStatus(SC_OK);
+        response.setContentType(CONTENT_TYPE);
+        if ("HEAD".equalsIgnoreCase(method)) return;
+        PrintWriter writer = response.getWriter();
+        writer.write(body.toString());
+    }
+    //</editor-fold>
+}
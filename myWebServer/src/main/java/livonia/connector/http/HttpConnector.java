@@ -8,6 +8,8 @@ import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
+import livonia.metrics.ConnectorMetrics;
+import livonia.metrics.MetricsRegistry;
 import livonia.net.DefaultServerSocketFactory;
 import livonia.net.ServerSocketFactory;
 import livonia.utils.LifecycleHelper;
@@ -79,6 +81,12 @@ public class HttpConnector extends BaseLogger implements Runnable, Lifecycle, Co
     private Service service = null;
     // 支持的协议
     private String protocol = null;
+    // 请求追踪采样率，每N个请求追踪1个，0表示关闭
+    private int traceSampleRate = 0;
+    // 携带此请求头的请求无论采样率如何都会被追踪，为null时关闭；任何客户端都能携带请求头，默认关闭
+    private String traceHeader = null;
+    // 本连接器在指标注册表中的统计，启动后可用
+    private ConnectorMetrics metrics = null;
 
     //</editor-fold>
     //<editor-fold desc="getter & setter">
@@ -208,6 +216,48 @@ public class HttpConnector extends BaseLogger implements Runnable, Lifecycle, Co
         this.factory = factory;
     }
 
+    public ConnectorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取已创建的解析器数量
+     */
+    public int getCurrentProcessors() {
+        return currentProcessors;
+    }
+
+    /**
+     * 获取正在处理连接的解析器数量
+     */
+    public int getBusyProcessors() {
+        synchronized (processors) {
+            return currentProcessors - processors.size();
+        }
+    }
+
+    public int getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * 设置请求追踪采样率，每N个请求追踪1个，小于等于0时关闭采样
+     */
+    public void setTraceSampleRate(int traceSampleRate) {
+        this.traceSampleRate = Math.max(traceSampleRate, 0);
+    }
+
+    public String getTraceHeader() {
+        return traceHeader;
+    }
+
+    /**
+     * 设置强制追踪的请求头名，为空时不允许通过请求头强制追踪
+     */
+    public void setTraceHeader(String traceHeader) {
+        this.traceHeader = (traceHeader == null || traceHeader.isEmpty()) ? null : traceHeader;
+    }
+
     //</editor-fold>
     //<editor-fold desc="线程相关">
     @Override
@@ -315,6 +365,9 @@ public class HttpConnector extends BaseLogger implements Runnable, Lifecycle, Co
         threadName = "HttpConnector[" + port + "]";
         helper.fireLifecycleEvent(START_EVENT, null);
         started = true;
+        // 注册连接与解析器池指标
+        metrics = MetricsRegistry.getDefault().registerConnector(port,
+                this::getCurrentProcessors, this::getBusyProcessors, this::getMaxProcessors);
         // 启动线程
         threadStart();
         // 创建一定数量的解析器
@@ -354,6 +407,7 @@ public class HttpConnector extends BaseLogger implements Runnable, Lifecycle, Co
             threadStop();
         }
         serverSocket = null;
+        MetricsRegistry.getDefault().unregisterConnector(port);
     }
 
     //</editor-fold>
@@ -439,7 +493,9 @@ public class HttpConnector extends BaseLogger implements Runnable, Lifecycle, Co
      */
     void recycle(HttpProcessor processor) {
         processor.recycleByConnector();
-        processors.offer(processor);
+        synchronized (processors) {
+            processors.offer(processor);
+        }
     }
 
 
@@ -4,10 +4,15 @@ import livonia.base.Const.Ack;
 import livonia.base.Const.Header;
 import livonia.base.Const.HttpProtocol;
 import livonia.base.Const.Processor;
+import livonia.base.Context;
+import livonia.base.Endpoint;
 import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
+import livonia.log.RequestTrace;
+import livonia.metrics.ConnectorMetrics;
+import livonia.metrics.MetricsRegistry;
 import livonia.utils.LifecycleHelper;
 import org.slf4j.Logger;
 
@@ -120,6 +125,14 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
     private long totalRequestsProcessed = 0;
     private long totalBytesRead = 0;
     private long totalBytesWritten = 0;
+    // 复用的请求追踪缓冲区，仅在请求被采样时挂到request上
+    private final RequestTrace trace = new RequestTrace();
+    // 采样计数器，只由本解析器线程访问
+    private long traceCounter = 0;
+    // 当前请求是否携带了强制追踪的请求头
+    private boolean traceForced = false;
+    // 当前请求读到请求行的时刻，0表示尚未读到
+    private long requestStartNanos = 0;
 
     //</editor-fold>
     //<editor-fold desc = "constructor">
@@ -200,6 +213,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
         // 1. 读取并解析请求行
         String requestLine = readLine(socketInputBuffer, characterEncoding);
         status = Processor.PROCESSOR_ACTIVE;
+        requestStartNanos = System.nanoTime();
         if (requestLine == null) {
             // 到达流末尾，客户端关闭了连接
             throw new EOFException("Client closed connection");
@@ -238,8 +252,6 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
             String[] uriParts = fullUri.split("\\?", 2);
             uri = uriParts[0];
             parseParameters(uriParts[1]);
-            logger.info("解析后的URI: {}", uri);
-            logger.info("解析后的查询参数: {}", parameters);
         } else {
             uri = fullUri;
         }
@@ -253,18 +265,20 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
             while ((headerLine = readLine(socketInputBuffer, characterEncoding)) != null && !headerLine.isEmpty()) {
                 int separatorIndex = headerLine.indexOf(COLON_SPACE);
                 if (separatorIndex == -1) {
-                    logger.info("格式错误的头部: {}", headerLine);
+                    logger.debug("格式错误的头部: {}", headerLine);
                     continue;
                 }
                 String key = headerLine.substring(0, separatorIndex).trim();
                 String value = headerLine.substring(separatorIndex + 2).trim();
                 headers.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
-                logger.info("头部: {} = {}", key, value);
+                String traceHeader = connector.getTraceHeader();
+                if (traceHeader != null && traceHeader.equalsIgnoreCase(key)) {
+                    traceForced = true;
+                }
 
                 if (Header.CONTENT_LENGTH.equalsIgnoreCase(key)) {
                     try {
                         contentLength = Integer.parseInt(value);
-                        logger.info("Content-Length: {}", contentLength);
                     } catch (NumberFormatException e) {
                         throw new ServletException("Invalid Content-Length value: " + value);
                     }
@@ -296,7 +310,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
      * 解析查询字符串参数
      */
     private void parseParameters(String queryString) throws UnsupportedEncodingException {
-        logger.info("解析参数: {}", queryString);
+        logger.debug("解析参数: {}", queryString);
         String[] pairs = queryString.split("&");
         for (String pair : pairs) {
             if (pair.isEmpty()) continue;
@@ -416,8 +430,6 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                 for (Cookie cookie : cookies) {
                     if (cookie.getName().equals(Header.SESSION_ID)) {
                         if (!request.isRequestedSessionIdFromCookie()) {
-                            String value = cookie.getValue();
-                            logger.info("设置sessionId: {}", value);
                             request.setRequestedSessionId(cookie.getValue());
                             request.setRequestedSessionIdFromCookie(true);
                             request.setRequestedSessionIdFromURL(false);
@@ -519,6 +531,8 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
         // 重置其他标志
         this.finishResponse = true;
         this.characterEncoding = "UTF-8";
+        this.traceForced = false;
+        this.requestStartNanos = 0;
         // 回收请求和响应对象
         request.recycle();
         response.recycle();
@@ -541,13 +555,61 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
         try {
             if (input.available() > 0) {
                 long skip = input.skip(input.available());
-                logger.info("已跳过字节数 ：{}", skip);
+                logger.debug("已跳过字节数 ：{}", skip);
             }
         } catch (IOException e) {
             logger.error("closeInputStream失败 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
         }
     }
 
+    //</editor-fold>
+    //<editor-fold desc = "请求追踪">
+
+    /**
+     * 按连接器配置的采样率或强制追踪请求头决定本次请求是否被追踪。
+     * 被追踪时把请求行、查询参数、头部与会话信息一次性写入追踪缓冲区，
+     * 之后各层组件在该缓冲区上追加事件，请求完成后统一输出。
+     */
+    private void beginTrace(Socket socket) {
+        int rate = connector.getTraceSampleRate();
+        boolean sampled = traceForced || (rate > 0 && ++traceCounter % rate == 0);
+        if (!sampled) return;
+        trace.begin(threadName + "#" + totalRequestsProcessed, method + SPACE + fullUri + SPACE + protocol);
+        trace.event("HttpProcessor : client", socket.getInetAddress());
+        trace.values("HttpProcessor : 查询参数", parameters);
+        trace.headers("HttpProcessor : 头部", headers);
+        if (request.getRequestedSessionId() != null) {
+            trace.event("HttpProcessor : sessionId", RequestTrace.redactId(request.getRequestedSessionId()));
+        }
+        request.setTrace(trace);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "请求指标">
+
+    /**
+     * 按连接器端口以及映射到的 Host、Context、Endpoint 记录本次请求。
+     * 标签取自容器配置的名字而不是请求头，未映射到的层级记为 "-"。
+     */
+    private void recordMetrics() {
+        String host = null;
+        String contextPath = null;
+        String endpointName = null;
+        Context context = response.getContext();
+        if (context != null) {
+            contextPath = context.getPath();
+            if (context.getParent() != null) host = context.getParent().getName();
+        }
+        Endpoint endpoint = request.getEndpoint();
+        if (endpoint != null) endpointName = endpoint.getName();
+        MetricsRegistry.getDefault()
+                .requestMetrics(serverPort, host, contextPath, endpointName)
+                .record(response.getStatus(),
+                        requestStream != null ? requestStream.getBytesRead() : 0L,
+                        responseStream != null ? responseStream.getTotalBytesWritten() : 0L,
+                        System.nanoTime() - requestStartNanos);
+    }
+
     //</editor-fold>
     //<editor-fold desc = "线程相关">
     protected synchronized void receiveSocket(Socket socket) {
@@ -691,6 +753,8 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
         SocketInputBuffer socketInputStream = null;
         OutputStream output = null;
 
+        ConnectorMetrics metrics = connector.getMetrics();
+        if (metrics != null) metrics.connectionOpened();
         // 初始化keepAlive为true，允许连接复用
         keepAlive = true;
         try {
@@ -699,6 +763,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
         } catch (Exception e) {
             logger.error("无法获取Socket输入流，连接初始化失败 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
             ok = false;
+            if (metrics != null) metrics.error();
         }
         while (!stopped && ok && keepAlive) {
             try {
@@ -726,7 +791,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
 
             } catch (EOFException e) {
                 // 客户端关闭连接
-                logger.info("检测到EOF，客户端已关闭TCP连接 [{}]", e.getClass().getSimpleName());
+                logger.debug("检测到EOF，客户端已关闭TCP连接 [{}]", e.getClass().getSimpleName());
                 ok = false;
                 finishResponse = false;
             } catch (ServletException e) {
@@ -738,6 +803,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                     logger.error("发送错误响应失败 [{}]: {}", ex.getClass().getSimpleName(), ex.getMessage());
                 }
                 ok = false;
+                if (metrics != null) metrics.error();
             } catch (InterruptedIOException e) {
                 logger.warn("Socket读取超时，等待客户端数据超时 [{}]: {}", e.getClass().getSimpleName(), e.getMessage());
                 ok = false;
@@ -757,6 +823,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
             } catch (IOException e) {
                 logger.error("Socket I/O操作异常 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                 ok = false;
+                if (metrics != null) metrics.error();
                 try {
                     response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 } catch (IOException ex) {
@@ -765,6 +832,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
             } catch (Exception e) {
                 logger.error("处理HTTP请求时发生未预期的异常 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                 ok = false;
+                if (metrics != null) metrics.error();
                 try {
                     response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 } catch (IOException ex) {
@@ -785,6 +853,8 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                     requestStream.setupForNewRequest(request);
                 }
                 request.setRequestStream(requestStream);
+                // 决定本次请求是否被追踪
+                beginTrace(socket);
 
                 // 创建或复用响应流
                 if (responseStream == null) {
@@ -800,6 +870,7 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                 } catch (Exception e) {
                     logger.error("Servlet容器处理请求失败 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                     ok = false;
+                    if (metrics != null) metrics.error();
                     try {
                         response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                     } catch (IOException ex) {
@@ -819,9 +890,11 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                         logger.error("响应数据写入失败，无法完成HTTP响应 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                     }
                     ok = false;
+                    if (metrics != null) metrics.error();
                 } catch (Throwable e) {
                     logger.error("完成响应时发生严重错误 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                     ok = false;
+                    if (metrics != null) metrics.error();
                 }
 
                 try {
@@ -829,9 +902,11 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                 } catch (IOException e) {
                     logger.error("完成请求失败 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                     ok = false;
+                    if (metrics != null) metrics.error();
                 } catch (Throwable e) {
                     logger.error("完成请求时发生严重错误 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
                     ok = false;
+                    if (metrics != null) metrics.error();
                 }
 
                 try {
@@ -848,6 +923,17 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
                 }
             }
 
+            // 记录请求指标
+            if (metrics != null && finishResponse && requestStartNanos != 0) {
+                recordMetrics();
+            }
+
+            // 输出本次请求的追踪记录
+            if (request.getTrace() != null) {
+                trace.emit(response.getStatus(),
+                        responseStream != null ? responseStream.getTotalBytesWritten() : 0L);
+            }
+
             // 检查连接是否应该关闭
             if ("close".equalsIgnoreCase(response.getHeader("Connection"))) {
                 keepAlive = false;
@@ -880,8 +966,9 @@ public class HttpProcessor extends BaseLogger implements Runnable, Lifecycle {
             logger.error("释放Socket资源失败，连接可能未正确关闭 [{}]: {}", e.getClass().getSimpleName(), e.getMessage(), e);
         }
         socket = null;
+        if (metrics != null) metrics.connectionClosed();
 
-        logger.info("处理器统计 - 请求数: {}, 读取字节: {}, 写入字节: {}",
+        logger.debug("处理器统计 - 请求数: {}, 读取字节: {}, 写入字节: {}",
                 totalRequestsProcessed, totalBytesRead, totalBytesWritten);
     }
 
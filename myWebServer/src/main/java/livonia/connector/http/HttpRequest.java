@@ -1,7 +1,16 @@
 package livonia.connector.http;
 
+import livonia.base.Const;
+import livonia.base.Context;
 import livonia.base.Endpoint;
+import livonia.core.CheckpointCursor;
+import livonia.filter.ApplicationFilterChain;
 import livonia.log.BaseLogger;
+import livonia.log.RequestTrace;
+import livonia.session.CookieSession;
+import livonia.session.CookieSessionCodec;
+import livonia.session.SessionManager;
+import livonia.session.StandardSession;
 
 import javax.servlet.*;
 import javax.servlet.http.*;
@@ -64,6 +73,14 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
     private ArrayList<Cookie> cookies = new ArrayList<>();
     // 客户端在请求中携带的SessionID
     private String requestedSessionId = null;
+    // 处理此请求的Context，由ContextCheckpoint设置
+    private Context context = null;
+    // 本次请求取得或创建的会话
+    private StandardSession session = null;
+    // 会话保存在Cookie中时本请求解码出的会话
+    private CookieSession cookieSession = null;
+    // 是否已经尝试过解码请求携带的会话Cookie
+    private boolean cookieSessionDecoded = false;
     // /LLJ/LLJ-home/login 则为/LLJ-home/login
     private String servletPath = null;
     // 在前缀匹配模式下则为login
@@ -80,6 +97,13 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
     private boolean readerUsed = false;
     // POST参数是否已解析
     private boolean postParametersParsed = false;
+    // 请求追踪缓冲区，仅在本次请求被采样时非空
+    private RequestTrace trace = null;
+    // 随本请求对象复用的过滤链
+    private final ApplicationFilterChain filterChain = new ApplicationFilterChain();
+    // 各层通道复用的检查点游标，rootCursor为最外层，currentCursor为正在执行的一层
+    private final CheckpointCursor rootCursor = new CheckpointCursor();
+    private CheckpointCursor currentCursor = null;
 
 
     //</editor-fold>
@@ -257,8 +281,7 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
 
     @Override
     public String getPathInfo() {
-        // 简单实现，根据需求调整
-        return null;
+        return this.pathInfo;
     }
 
     public void setPathInfo(String pathInfo) {
@@ -280,6 +303,14 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
         this.contextPath = contextPath;
     }
 
+    public Context getContext() {
+        return context;
+    }
+
+    public void setContext(Context context) {
+        this.context = context;
+    }
+
     @Override
     public String getQueryString() {
         // 将参数映射转换为查询字符串
@@ -344,26 +375,99 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
 
     @Override
     public HttpSession getSession(boolean create) {
-        // 未实现会话管理
+        CookieSessionCodec codec = context == null ? null : context.getSessionCodec();
+        if (codec != null) return getCookieSession(codec, create);
+        if (session != null && session.getManager().findSession(session.getId()) == session) return session;
+        session = null;
+        SessionManager manager = context == null ? null : context.getManager();
+        if (manager == null) return null;
+        // 客户端携带的会话仍然有效
+        StandardSession requested = manager.findSession(requestedSessionId);
+        if (requested != null) {
+            manager.access(requested);
+            session = requested;
+            return session;
+        }
+        if (!create) return null;
+        if (response != null && response.isCommitted())
+            throw new IllegalStateException("cannot create a session after the response has been committed");
+        session = manager.createSession();
+        addSessionCookie(Const.Header.SESSION_ID, session.getId(), -1);
+        return session;
+    }
+
+    // 会话完整保存在Cookie中，首次使用时才解码
+    private HttpSession getCookieSession(CookieSessionCodec codec, boolean create) {
+        if (!cookieSessionDecoded) {
+            cookieSessionDecoded = true;
+            cookieSession = codec.decode(findCookie(Const.Header.SESSION_STATE), System.currentTimeMillis());
+        }
+        if (cookieSession != null && cookieSession.isValid()) return cookieSession;
+        if (!create) return null;
+        if (response != null && response.isCommitted())
+            throw new IllegalStateException("cannot create a session after the response has been committed");
+        cookieSession = codec.create();
+        return cookieSession;
+    }
+
+    /**
+     * 响应提交前调用：Cookie中的会话有变化时重新写出，失效或已清空时删除客户端的Cookie。
+     * 提交之后对会话的修改无法再保存。
+     */
+    void commitSession() {
+        if (!cookieSessionDecoded) return;
+        CookieSessionCodec codec = context == null ? null : context.getSessionCodec();
+        if (codec == null) return;
+        long now = System.currentTimeMillis();
+        CookieSession current = cookieSession;
+        if (current != null && current.isValid() && !current.isEmpty()) {
+            if (!codec.shouldWrite(current, now)) return;
+            String value = codec.encode(current, now);
+            if (value != null) addSessionCookie(Const.Header.SESSION_STATE, value, -1);
+        } else if (findCookie(Const.Header.SESSION_STATE) != null) {
+            addSessionCookie(Const.Header.SESSION_STATE, "", 0);
+        }
+    }
+
+    private String findCookie(String name) {
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName())) return cookie.getValue();
+        }
         return null;
     }
 
     @Override
     public HttpSession getSession() {
-        // 未实现会话管理
-        return null;
+        return getSession(true);
     }
 
     @Override
     public String changeSessionId() {
-        // 未实现会话管理
-        return null;
+        if (getSession(false) == null) throw new IllegalStateException("no session associated with this request");
+        if (cookieSession != null) return cookieSession.changeId();
+        String id = session.getManager().changeSessionId(session);
+        addSessionCookie(Const.Header.SESSION_ID, id, -1);
+        return id;
     }
 
     @Override
     public boolean isRequestedSessionIdValid() {
-        // 未实现会话管理
-        return false;
+        if (context != null && context.getSessionCodec() != null) {
+            HttpSession current = getSession(false);
+            return current != null && !current.isNew();
+        }
+        if (requestedSessionId == null || context == null || context.getManager() == null) return false;
+        return context.getManager().findSession(requestedSessionId) != null;
+    }
+
+    // 通过Cookie把会话ID或会话内容交给客户端，maxAge为0时删除
+    private void addSessionCookie(String name, String value, int maxAge) {
+        if (response == null) return;
+        Cookie cookie = new Cookie(name, value);
+        cookie.setPath(contextPath == null || contextPath.isEmpty() ? "/" : contextPath);
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAge);
+        response.addCookie(cookie);
     }
 
     @Override
@@ -650,8 +754,7 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
 
     @Override
     public ServletContext getServletContext() {
-        // 未实现ServletContext相关逻辑
-        return null;
+        return context == null ? null : context.getServletContext();
     }
 
     @Override
@@ -707,6 +810,39 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
         this.response = response;
     }
 
+    /**
+     * 获取本次请求的追踪缓冲区，未被采样时返回null
+     */
+    public RequestTrace getTrace() {
+        return trace;
+    }
+
+    public void setTrace(RequestTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * 获取随本请求对象复用的过滤链，在 {@link #recycle()} 时复位
+     */
+    public ApplicationFilterChain getFilterChain() {
+        return filterChain;
+    }
+
+    /**
+     * 进入一层通道，取得该层复用的检查点游标
+     */
+    public CheckpointCursor enterChannel() {
+        currentCursor = currentCursor == null ? rootCursor : currentCursor.inner();
+        return currentCursor;
+    }
+
+    /**
+     * 离开当前通道，复位其游标
+     */
+    public void exitChannel() {
+        if (currentCursor != null) currentCursor = currentCursor.outer();
+    }
+
     /**
      * 回收对象，清理资源
      */
@@ -735,6 +871,10 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
         reader = null;
         // 重置会话信息
         requestedSessionId = null;
+        session = null;
+        cookieSession = null;
+        cookieSessionDecoded = false;
+        context = null;
         isRequestedSessionIdFromCookie = false;
         isRequestedSessionIdFromURL = false;
         // 重置服务器信息
@@ -747,6 +887,9 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
         response = null;
         endpoint = null;
         socketInputBuffer = null;
+        trace = null;
+        filterChain.recycle();
+        while (currentCursor != null) currentCursor = currentCursor.outer();
     }
 
     public void finishRequest() throws IOException {
@@ -758,6 +901,10 @@ public class HttpRequest extends BaseLogger implements HttpServletRequest {
         }
     }
 
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
     public void setEndpoint(Endpoint endpoint) {
         this.endpoint = endpoint;
     }
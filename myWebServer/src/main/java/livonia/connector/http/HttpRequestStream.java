@@ -91,11 +91,14 @@ public class HttpRequestStream extends ServletInputStream {
                 return;
             } catch (NumberFormatException e) {
                 // 无效的Content-Length，使用透传过滤器
+                setupPassthroughFilter();
+                return;
             }
         }
 
-        // 既无Transfer-Encoding也无Content-Length，使用透传过滤器
-        setupPassthroughFilter();
+        // 既无Transfer-Encoding也无Content-Length，按RFC 7230 3.3.3请求体长度为0，
+        // 不能透传读到EOF，否则会吞掉同一连接上流水线发送的后续请求
+        setupContentLengthFilter(0);
     }
 
     /**
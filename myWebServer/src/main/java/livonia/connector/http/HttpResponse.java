@@ -50,7 +50,7 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
     // 流相关 - 改进的流管理
     private OutputStream clientOutputStream;
     private HttpResponseStream responseStream;
-    private PrintWriter writer;
+    private ResponsePrintWriter writer;
     // 状态标志
     private boolean committed = false;
     private boolean writerUsed = false;
@@ -116,6 +116,40 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
         return new HttpResponseStream(this, bufferSize);
     }
 
+    /**
+     * 获取已写入响应体的字节数（不含响应头与chunk元数据）
+     * 若使用了Writer，会先把其中缓存的字符交给响应流，但不刷新响应流，响应不会因此被提交
+     */
+    public long getContentCount() {
+        drainWriter();
+        return responseStream != null ? responseStream.getTotalBytesWritten() : 0;
+    }
+
+    /**
+     * 开始复制写入的响应体，由响应缓存在交给servlet之前调用
+     *
+     * @param limit 最多复制的字节数，超出时放弃复制
+     */
+    public void startCapture(int limit) {
+        if (responseStream == null) responseStream = createOutputStream();
+        responseStream.startCapture(limit);
+    }
+
+    /**
+     * 取走复制到的响应体，Writer中缓存的字符先交给响应流（不提交响应）
+     *
+     * @return 未开启复制或超出上限时返回null
+     */
+    public byte[] takeCapture() {
+        drainWriter();
+        return responseStream == null ? null : responseStream.takeCapture();
+    }
+
+    // 把Writer中缓存的字符编码后交给响应流，不刷新响应流
+    private void drainWriter() {
+        if (writer != null) writer.drain();
+    }
+
     /**
      * 发送响应头
      */
@@ -152,7 +186,8 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
             }
         }
 
-        // Cookie头
+        // Cookie头，Cookie中的会话在此之前写出
+        if (request != null) request.commitSession();
         for (Cookie cookie : cookies) {
             sb.append(Header.SET_COOKIE).append(COLON_SPACE)
                     .append(formatCookie(cookie))
@@ -179,17 +214,13 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
     public void finishResponse() throws IOException {
         // 如果还没有发送响应头，现在发送
         if (!committed) {
-            // 先刷新Writer确保所有数据都写入到底层流
-            if (writer != null) {
-                writer.flush();
-            }
+            // Writer中缓存的字符交给响应流；此时不能刷新，否则响应头会在设置Content-Length之前发出
+            drainWriter();
 
             // 设置默认的Content-Length
             if (contentLength == -1 && !isChunking()) {
                 if (responseStream != null) {
-                    // 先刷新流，确保所有数据都写入
-                    responseStream.flush();
-                    // 计算写入的长度
+                    // 写入的长度已包含响应流缓冲区中尚未发出的数据
                     contentLength = responseStream.getTotalBytesWritten();
                 } else {
                     contentLength = 0;
@@ -806,10 +837,28 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
     //</editor-fold>
 
     private static class ResponsePrintWriter extends PrintWriter {
+        private final WriterSink sink;
         private volatile boolean closed = false;
 
-        public ResponsePrintWriter(Writer out) {
-            super(out, false);
+        public ResponsePrintWriter(WriterSink sink, String encoding) throws UnsupportedEncodingException {
+            super(new OutputStreamWriter(sink, encoding), false);
+            this.sink = sink;
+        }
+
+        /**
+         * 把缓存的字符编码后写入响应流，但不刷新响应流。
+         * 容器内部在提交响应前统计长度或复制响应体时使用，servlet 调用的 flush() 仍会提交响应
+         */
+        void drain() {
+            if (closed) return;
+            synchronized (lock) {
+                sink.draining = true;
+                try {
+                    super.flush();
+                } finally {
+                    sink.draining = false;
+                }
+            }
         }
 
         @Override
@@ -867,6 +916,30 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
         }
     }
 
+    // Writer 与响应流之间的适配，drain 期间忽略编码器传下来的 flush
+    private static final class WriterSink extends FilterOutputStream {
+        private boolean draining = false;
+
+        WriterSink(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!draining) out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
     // 修改 getWriter() 方法，使用 ResponsePrintWriter：
     @Override
     public PrintWriter getWriter() throws IOException {
@@ -886,8 +959,7 @@ public class HttpResponse extends BaseLogger implements HttpServletResponse {
                 encoding = "ISO-8859-1";
             }
 
-            OutputStreamWriter osw = new OutputStreamWriter(responseStream, encoding);
-            writer = new ResponsePrintWriter(osw);  // 使用自定义的 PrintWriter
+            writer = new ResponsePrintWriter(new WriterSink(responseStream), encoding);  // 使用自定义的 PrintWriter
         }
 
         return writer;
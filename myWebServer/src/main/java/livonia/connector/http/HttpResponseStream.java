@@ -5,6 +5,7 @@ import livonia.base.Const.Header;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -45,6 +46,9 @@ public class HttpResponseStream extends ServletOutputStream {
 
     // chunk大小（动态调整）
     private int currentChunkSize = MIN_CHUNK_SIZE;
+    // 响应缓存复制响应体使用，未开启或超出上限时为null
+    private ByteArrayOutputStream capture = null;
+    private int captureLimit = 0;
     //</editor-fold>
 
     //<editor-fold desc = "构造器">
@@ -124,6 +128,10 @@ public class HttpResponseStream extends ServletOutputStream {
 
         buffer[bufferCount++] = (byte) b;
         totalBytesWritten++;
+        if (capture != null) {
+            if (capture.size() < captureLimit) capture.write(b);
+            else capture = null;
+        }
     }
 
     /**
@@ -152,6 +160,7 @@ public class HttpResponseStream extends ServletOutputStream {
         if (len == 0 || suspended) {
             return;
         }
+        if (capture != null) capture(b, off, len);
 
         // 如果数据量大于缓冲区，直接写入
         if (len > bufferSize) {
@@ -159,6 +168,7 @@ public class HttpResponseStream extends ServletOutputStream {
             flushBuffer();
             // 直接写入大块数据
             writeToOutputStream(b, off, len);
+            totalBytesWritten += len;
             return;
         }
 
@@ -262,7 +272,6 @@ public class HttpResponseStream extends ServletOutputStream {
             writeChunked(data, off, len);
         } else {
             clientOutputStream.write(data, off, len);
-            totalBytesWritten += len;  // 更新已写入字节数
         }
     }
 
@@ -293,7 +302,6 @@ public class HttpResponseStream extends ServletOutputStream {
             offset += chunkSize;
             remaining -= chunkSize;
             chunksWritten++;
-            totalBytesWritten += chunkSize;  // 统计实际数据字节数（不含chunk元数据）
 
             // 动态调整chunk大小（逐渐增大以提高效率）
             if (currentChunkSize < MAX_CHUNK_SIZE) {
@@ -340,6 +348,38 @@ public class HttpResponseStream extends ServletOutputStream {
     }
     //</editor-fold>
 
+    //<editor-fold desc = "响应体复制">
+
+    /**
+     * 开始复制之后写入的响应体，供响应缓存保存
+     *
+     * @param limit 最多复制的字节数，超出时放弃复制
+     */
+    public void startCapture(int limit) {
+        capture = new ByteArrayOutputStream(Math.min(limit, bufferSize));
+        captureLimit = limit;
+    }
+
+    /**
+     * 取走复制到的响应体并停止复制
+     *
+     * @return 未开启复制或超出上限时返回null
+     */
+    public byte[] takeCapture() {
+        ByteArrayOutputStream captured = capture;
+        capture = null;
+        return captured == null ? null : captured.toByteArray();
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (capture.size() + len > captureLimit) {
+            capture = null;
+            return;
+        }
+        capture.write(b, off, len);
+    }
+    //</editor-fold>
+
     //<editor-fold desc = "复用相关方法">
 
     /**
@@ -361,6 +401,7 @@ public class HttpResponseStream extends ServletOutputStream {
 
         // 重置chunk大小
         currentChunkSize = MIN_CHUNK_SIZE;
+        capture = null;
     }
 
     /**
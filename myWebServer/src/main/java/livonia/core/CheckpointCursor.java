@@ -0,0 +1,82 @@
+package livonia.core;
+
+import livonia.base.Checkpoint;
+import livonia.base.CheckpointContext;
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.log.BaseLogger;
+import org.slf4j.Logger;
+
+/**
+ * 通道中检查点的调用游标。
+ * <p>
+ * 游标随 HttpRequest 复用：请求每进入一层容器的通道就取用下一层游标，离开时归还，
+ * 因此 Engine → Host → Context → Endpoint 的嵌套调用不再为每层创建上下文对象。
+ * 普通检查点与基本检查点分两处调用，前者通常只有少数几种实现，
+ * 不会被各层不同的基本检查点拖成多态调用点。
+ */
+public final class CheckpointCursor implements CheckpointContext {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(CheckpointCursor.class);
+    private static final Checkpoint[] NO_CHECKPOINTS = new Checkpoint[0];
+    // 外层通道的游标，最外层为null
+    private final CheckpointCursor outer;
+    // 内层通道的游标，首次进入该深度时创建
+    private CheckpointCursor inner = null;
+    private Checkpoint[] checkpoints = NO_CHECKPOINTS;
+    private Checkpoint basicCheckpoint = null;
+    // 下一个要执行的检查点下标，等于checkpoints.length时执行基本检查点
+    private int pos = 0;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    public CheckpointCursor() {
+        this(null);
+    }
+
+    private CheckpointCursor(CheckpointCursor outer) {
+        this.outer = outer;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "接口实现">
+    @Override
+    public void process(HttpRequest request, HttpResponse response) throws Exception {
+        int current = pos++;
+        if (current < checkpoints.length) {
+            checkpoints[current].process(request, response, this);
+        } else if (current == checkpoints.length) {
+            if (basicCheckpoint != null) {
+                basicCheckpoint.process(request, response, this);
+            } else {
+                logger.warn("basic checkpoint not found");
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "其他方法">
+
+    /**
+     * 取得下一层通道使用的游标
+     */
+    public CheckpointCursor inner() {
+        if (inner == null) inner = new CheckpointCursor(this);
+        return inner;
+    }
+
+    /**
+     * 复位本层游标并返回外层游标
+     */
+    public CheckpointCursor outer() {
+        reset(NO_CHECKPOINTS, null);
+        return outer;
+    }
+
+    void reset(Checkpoint[] checkpoints, Checkpoint basicCheckpoint) {
+        this.checkpoints = checkpoints;
+        this.basicCheckpoint = basicCheckpoint;
+        this.pos = 0;
+    }
+    //</editor-fold>
+}
@@ -19,6 +19,10 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
     // 与该通道绑定的所有检查点的集合
     protected Checkpoint[] checkpoints = new Checkpoint[0];
     protected boolean stared = false;
+    // 检查点增删时使用的锁，checkpoints本身会被替换，不能作为锁对象
+    private final Object checkpointsLock = new Object();
+    // 请求处理时读取的不可变快照，检查点或基本检查点变化时重新生成
+    private volatile Pipeline pipeline = new Pipeline(new Checkpoint[0], null);
 
     //</editor-fold>
     //<editor-fold desc = "构造器">
@@ -37,6 +41,7 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
         if (stared) throw new LifecycleException("DefaultChannel : already started");
         lifecycleHelper.fireLifecycleEvent(Lifecycle.BEFORE_START_EVENT, null);
         stared = true;
+        rebuildPipeline();
         for (Checkpoint cp : checkpoints) {
             if (cp instanceof Lifecycle) ((Lifecycle) cp).start();
         }
@@ -144,6 +149,7 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
                 }
             }
             this.basicCheckpoint = checkpoint;
+            rebuildPipeline();
         }
     }
 
@@ -163,7 +169,7 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
                 logger.error("start checkpoint failed", e);
             }
         }
-        synchronized (checkpoints) {
+        synchronized (checkpointsLock) {
             for (Checkpoint cp : checkpoints) {
                 if (cp == checkpoint) return;
             }
@@ -171,6 +177,7 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
             System.arraycopy(checkpoints, 0, tmp, 0, checkpoints.length);
             tmp[checkpoints.length] = checkpoint;
             checkpoints = tmp;
+            rebuildPipeline();
         }
     }
 
@@ -182,13 +189,12 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
      */
     @Override
     public Checkpoint[] getCheckpoints() {
-        if (basicCheckpoint == null) return checkpoints;
-        synchronized (checkpoints) {
-            Checkpoint[] tmp = new Checkpoint[checkpoints.length + 1];
-            tmp[0] = basicCheckpoint;
-            System.arraycopy(checkpoints, 0, tmp, 1, checkpoints.length);
-            return tmp;
-        }
+        Pipeline current = pipeline;
+        if (current.basicCheckpoint == null) return current.checkpoints;
+        Checkpoint[] tmp = new Checkpoint[current.checkpoints.length + 1];
+        tmp[0] = current.basicCheckpoint;
+        System.arraycopy(current.checkpoints, 0, tmp, 1, current.checkpoints.length);
+        return tmp;
     }
 
     /**
@@ -198,7 +204,7 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
      */
     @Override
     public void removeCheckpoint(Checkpoint checkpoint) {
-        synchronized (checkpoints) {
+        synchronized (checkpointsLock) {
             int j = -1;
             for (int i = 0; i < checkpoints.length; i++) {
                 if (checkpoints[i] == checkpoint) {
@@ -214,6 +220,7 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
             System.arraycopy(checkpoints, 0, tmp, 0, j);
             System.arraycopy(checkpoints, j + 1, tmp, j, checkpoints.length - j - 1);
             checkpoints = tmp;
+            rebuildPipeline();
             if (checkpoint instanceof VasManager) ((VasManager) checkpoint).setVas(null);
             if (stared && (checkpoint instanceof Lifecycle)) {
                 try {
@@ -227,38 +234,39 @@ public class DefaultChannel implements Channel, Lifecycle, VasManager {
     }
 
     /**
-     * 通过检查点处理请求和响应
+     * 通过检查点处理请求和响应。
+     * 检查点取自当前快照，调用游标随请求复用，处理过程中不创建新对象。
      *
      * @param request  HTTP请求
      * @param response HTTP响应
      */
     @Override
     public void process(HttpRequest request, HttpResponse response) throws Exception {
-        new InnerCheckPointContext().process(request, response);
+        Pipeline current = pipeline;
+        CheckpointCursor cursor = request.enterChannel();
+        try {
+            cursor.reset(current.checkpoints, current.basicCheckpoint);
+            cursor.process(request, response);
+        } finally {
+            request.exitChannel();
+        }
     }
 
     //</editor-fold>
-    //<editor-fold desc = "getter && setter">
+    //<editor-fold desc = "其他方法">
+    private void rebuildPipeline() {
+        synchronized (checkpointsLock) {
+            pipeline = new Pipeline(checkpoints, basicCheckpoint);
+        }
+    }
+
     //</editor-fold>
     //<editor-fold desc = "内部类">
-    public class InnerCheckPointContext implements CheckpointContext {
-        protected int checkpointId = 0;
 
-        public void process(HttpRequest request, HttpResponse response) throws Exception {
-            int current = checkpointId;
-            checkpointId++;
-            if (current < checkpoints.length) {
-                checkpoints[current].process(request, response, this);
-                logger.debug("checkpoint {} processed", checkpoints[current].getInfo());
-            } else if (current == checkpoints.length) {
-                if (basicCheckpoint != null) {
-                    basicCheckpoint.process(request, response, this);
-                } else {
-                    logger.warn("basic checkpoint not found");
-                }
-            }
-
-        }
+    /**
+     * 检查点快照，checkpoints 数组在替换后不再修改
+     */
+    private record Pipeline(Checkpoint[] checkpoints, Checkpoint basicCheckpoint) {
     }
     //</editor-fold>
 }
@@ -5,12 +5,19 @@ import livonia.checkpoints.ContextCheckpoint;
 import livonia.connector.http.HttpRequest;
 import livonia.connector.http.HttpResponse;
 import livonia.filter.ApplicationFilterConfig;
+import livonia.filter.FilterChainTable;
 import livonia.filter.FilterDef;
 import livonia.filter.FilterMap;
+import livonia.lifecycle.InheritableLifecycleListener;
 import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
+import livonia.lifecycle.LifecycleListener;
 import livonia.loader.WebAppLoader;
+import livonia.mapper.ServletMappingTable;
+import livonia.metrics.StartupReport;
 import livonia.resource.ResourceManager;
+import livonia.session.CookieSessionCodec;
+import livonia.session.SessionManager;
 import livonia.utils.Decoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +26,26 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
+import javax.servlet.ServletException;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static livonia.base.Const.CharPunctuationMarks.CHAR_SOLIDUS;
+import static livonia.base.Const.commonCharacters.SOLIDUS;
+import static livonia.base.Const.webApp.ROOT;
 
 /**
  * 表示一个web程序的总体上下文
@@ -30,6 +55,8 @@ import java.util.HashMap;
  */
 public class DefaultContext extends VasBase implements Context {
     private static final Logger logger = LoggerFactory.getLogger(DefaultContext.class);
+    public static final String SESSION_MODE_SERVER = "server";
+    public static final String SESSION_MODE_COOKIE = "cookie";
     //<editor-fold desc = "attr">
     private String defaultContextMapper = "livonia.mapper.ContextMapper";
     private String basePath = "";
@@ -42,8 +69,12 @@ public class DefaultContext extends VasBase implements Context {
     private final HashMap<String, FilterDef> filterDefs = new HashMap<>();
     // 加载过后的过滤器集合，key为过滤器的名字
     private final HashMap<String, ApplicationFilterConfig> filterConfigs = new HashMap<>();
+    // 由filterMaps与filterConfigs编译得到的过滤链表，为null时表示需要重新编译
+    private volatile FilterChainTable filterChainTable = null;
     // servlet map
     private final HashMap<String, String> servletMappings = new HashMap<>();
+    // 由servletMappings编译得到的匹配表，为null时表示需要重新编译
+    private volatile ServletMappingTable servletMappingTable = null;
     // mime map
     private final HashMap<String, String> mimeMappings = new HashMap<>();
     // 展示名
@@ -54,10 +85,34 @@ public class DefaultContext extends VasBase implements Context {
     private WebApplicationContext applicationContext = null;
     // webResources
     private ResourceManager resources = null;
+    // 会话管理器
+    private SessionManager manager = null;
+    // 新会话的默认超时时间（分钟）
+    private int sessionTimeout = SessionManager.DEFAULT_MAX_INACTIVE_INTERVAL / 60;
+    // 会话空闲多少秒后钝化到工作目录，小于0时不钝化
+    private int sessionIdleSwap = -1;
+    // 会话保存位置：server 保存在服务器内存中，cookie 完整保存在客户端Cookie中
+    private String sessionMode = SESSION_MODE_SERVER;
+    // cookie 模式下签名与加密使用的密钥，多个实例之间需一致
+    private String sessionSecret = null;
+    // cookie 模式下是否加密会话内容
+    private boolean sessionEncrypt = false;
+    // 实际使用的密钥，未配置密钥时随机生成，蓝绿重载时沿用
+    private byte[] sessionKey = null;
+    // cookie 模式下的编解码器
+    private volatile CookieSessionCodec sessionCodec = null;
     // 暂停标志位
-    private boolean paused = false;
+    private volatile boolean paused = false;
     // 配置文件加载状态标志位
     private boolean configured = false;
+    // 正在处理的请求数，蓝绿重载时用于等待旧实例上的请求结束
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 等待请求结束的门闩，仅在被替换后非空
+    private volatile CountDownLatch drainLatch = null;
+    // 被蓝绿重载替换后指向新实例，此后仍路由到旧实例的请求转交给新实例
+    private volatile DefaultContext replacement = null;
+    // 是否正在重新加载，防止重复触发
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
 
     //</editor-fold>
     //<editor-fold desc = "构造器">
@@ -123,6 +178,78 @@ public class DefaultContext extends VasBase implements Context {
         return applicationContext;
     }
 
+    @Override
+    public synchronized SessionManager getManager() {
+        return manager;
+    }
+
+    @Override
+    public synchronized void setManager(SessionManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    @Override
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    public String getSessionMode() {
+        return sessionMode;
+    }
+
+    public void setSessionMode(String sessionMode) {
+        this.sessionMode = sessionMode;
+    }
+
+    public String getSessionSecret() {
+        return sessionSecret;
+    }
+
+    public void setSessionSecret(String sessionSecret) {
+        this.sessionSecret = sessionSecret;
+        this.sessionKey = null;
+    }
+
+    public boolean getSessionEncrypt() {
+        return sessionEncrypt;
+    }
+
+    public void setSessionEncrypt(boolean sessionEncrypt) {
+        this.sessionEncrypt = sessionEncrypt;
+    }
+
+    @Override
+    public CookieSessionCodec getSessionCodec() {
+        return sessionCodec;
+    }
+
+    public int getSessionIdleSwap() {
+        return sessionIdleSwap;
+    }
+
+    public void setSessionIdleSwap(int sessionIdleSwap) {
+        this.sessionIdleSwap = sessionIdleSwap;
+    }
+
+    @Override
+    public Path getWorkPath() {
+        if (!(getParent() instanceof Host host)) return null;
+        String workDir = host.getWorkDir();
+        if (workDir == null || workDir.isEmpty()) return null;
+        Path dir = Path.of(workDir);
+        String coreDir = System.getProperty(Const.confInfo.CORE_DIR);
+        if (!dir.isAbsolute() && coreDir != null) dir = Path.of(coreDir).resolve(dir);
+        String path = getPath();
+        String name = path == null || path.isEmpty() || path.equals(SOLIDUS)
+                ? ROOT : path.substring(path.startsWith(SOLIDUS) ? 1 : 0).replace(CHAR_SOLIDUS, '#');
+        return dir.resolve(name);
+    }
+
     @Override
     public synchronized ResourceManager getResources() {
         return resources;
@@ -133,18 +260,32 @@ public class DefaultContext extends VasBase implements Context {
         this.resources = resources;
     }
 
+    /**
+     * 重新加载。
+     * 挂在 DefaultHost 下时由 Host 以蓝绿方式完成：新实例在调用线程中启动并预热，
+     * 就绪后替换路由，旧实例上的请求处理完再停止，期间请求不会被阻塞。
+     * 没有 Host 时只能原地停止再启动。
+     */
     @Override
-    public synchronized void reload() {
+    public void reload() {
         if (!started) throw new IllegalStateException("context : " + getName() + " is not started");
-        setPaused(true);
+        // 不持有本实例的锁，重新加载期间请求仍可访问旧实例
+        if (replacement != null || !reloading.compareAndSet(false, true)) {
+            logger.info("context : {} is reloading or has been replaced , skip reloading", getName());
+            return;
+        }
         try {
+            if (getParent() instanceof DefaultHost host) {
+                host.reload(this);
+                return;
+            }
             stop();
             logger.info("context : {} reloading...", getName());
             start();
         } catch (LifecycleException e) {
             logger.error("reload context : {} failed , continue running the old context", getName(), e);
         } finally {
-            setPaused(false);
+            reloading.set(false);
         }
     }
 
@@ -237,6 +378,7 @@ public class DefaultContext extends VasBase implements Context {
         urlPattern = Decoder.decode(urlPattern, StandardCharsets.UTF_8);
         synchronized (servletMappings) {
             servletMappings.put(urlPattern, servletName);
+            servletMappingTable = null;
         }
     }
 
@@ -244,6 +386,58 @@ public class DefaultContext extends VasBase implements Context {
     public void removeServletMapping(String urlPattern) {
         synchronized (servletMappings) {
             servletMappings.remove(urlPattern);
+            servletMappingTable = null;
+        }
+    }
+
+    @Override
+    public ServletMappingTable getServletMappingTable() {
+        ServletMappingTable table = servletMappingTable;
+        if (table != null) return table;
+        synchronized (servletMappings) {
+            if (servletMappingTable == null) {
+                servletMappingTable = ServletMappingTable.compile(servletMappings, this::findChild);
+            }
+            return servletMappingTable;
+        }
+    }
+
+    // 映射表与过滤链表都按Endpoint组织，子容器变化后需要重新编译
+    @Override
+    public void addChild(Vas child) {
+        super.addChild(child);
+        synchronized (servletMappings) {
+            servletMappingTable = null;
+        }
+        invalidateFilterChainTable();
+    }
+
+    @Override
+    public void removeChild(Vas child) {
+        super.removeChild(child);
+        synchronized (servletMappings) {
+            servletMappingTable = null;
+        }
+        invalidateFilterChainTable();
+    }
+
+    /**
+     * 取得过滤链表，映射或过滤器配置变化后首次调用时重新编译
+     */
+    public FilterChainTable getFilterChainTable() {
+        FilterChainTable table = filterChainTable;
+        if (table != null) return table;
+        synchronized (filterConfigs) {
+            if (filterChainTable == null) {
+                filterChainTable = FilterChainTable.compile(filterMaps, filterConfigs::get, findChildren());
+            }
+            return filterChainTable;
+        }
+    }
+
+    private void invalidateFilterChainTable() {
+        synchronized (filterConfigs) {
+            filterChainTable = null;
         }
     }
 
@@ -267,6 +461,7 @@ public class DefaultContext extends VasBase implements Context {
             newFilterMaps[newFilterMaps.length - 1] = filterMap;
             filterMaps = newFilterMaps;
         }
+        invalidateFilterChainTable();
     }
 
     @Override
@@ -331,6 +526,7 @@ public class DefaultContext extends VasBase implements Context {
                     newLength - indexToRemove);
             filterMaps = updatedFilterMaps;
         }
+        invalidateFilterChainTable();
     }
 
     @Override
@@ -353,6 +549,155 @@ public class DefaultContext extends VasBase implements Context {
         setName(Decoder.decode(path, StandardCharsets.UTF_8));
     }
 
+    //</editor-fold>
+    //<editor-fold desc = "蓝绿重载">
+
+    /**
+     * 按当前配置创建一个尚未启动的新实例。
+     * web.xml 中的内容在新实例启动时重新解析，这里只复制由 server.xml 或部署器设置的部分：
+     * 路径、基础目录、映射器、父类加载器、生命周期监听器、加载器与检查点。
+     * 可继承的监听器由 Host 在启动前重新继承，其余监听器、加载器和检查点按类重新创建，
+     * 并复制可读写的简单类型属性，不与旧实例共享状态。
+     */
+    DefaultContext createReplacement() throws ReflectiveOperationException {
+        DefaultContext fresh = new DefaultContext();
+        fresh.setPath(getPath());
+        fresh.setBasePath(basePath);
+        fresh.defaultContextMapper = defaultContextMapper;
+        fresh.parentClassLoader = parentClassLoader;
+        fresh.sessionIdleSwap = sessionIdleSwap;
+        fresh.sessionMode = sessionMode;
+        fresh.sessionSecret = sessionSecret;
+        fresh.sessionEncrypt = sessionEncrypt;
+        fresh.sessionKey = sessionKey;
+        for (LifecycleListener listener : findLifecycleListener()) {
+            if (listener instanceof InheritableLifecycleListener) continue;
+            fresh.addLifecycleListener(copyOf(listener));
+        }
+        if (loader != null) {
+            Loader freshLoader = copyOf(loader);
+            fresh.setLoader(freshLoader);
+            if (loader.getContext() != null) freshLoader.setContext(fresh);
+        }
+        Checkpoint basic = channel.getBasicCheckpoint();
+        for (Checkpoint checkpoint : channel.getCheckpoints()) {
+            if (checkpoint != basic) fresh.addCheckpoint(copyOf(checkpoint));
+        }
+        return fresh;
+    }
+
+    // 以同类的新实例复制可读写的字符串与基本类型属性，加载器优先使用带父类加载器的构造器
+    private <T> T copyOf(T source) throws ReflectiveOperationException {
+        Class<?> type = source.getClass();
+        Object copy;
+        try {
+            copy = type.getDeclaredConstructor(ClassLoader.class).newInstance(getParentClassLoader());
+        } catch (NoSuchMethodException e) {
+            copy = type.getDeclaredConstructor().newInstance();
+        }
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                if (pd.getReadMethod() == null || pd.getWriteMethod() == null) continue;
+                Class<?> propertyType = pd.getPropertyType();
+                if (propertyType != String.class && !propertyType.isPrimitive()) continue;
+                pd.getWriteMethod().invoke(copy, pd.getReadMethod().invoke(source));
+            }
+        } catch (IntrospectionException e) {
+            throw new ReflectiveOperationException(e);
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T) copy;
+        return result;
+    }
+
+    /**
+     * 按 load-on-startup 从小到大加载servlet，单个servlet加载失败不影响Context启动
+     */
+    private void loadOnStartup() {
+        List<DefaultEndpoint> endpoints = new ArrayList<>();
+        for (Vas child : findChildren()) {
+            if (child instanceof DefaultEndpoint endpoint && endpoint.getLoadOnStartup() >= 0) endpoints.add(endpoint);
+        }
+        endpoints.sort(Comparator.comparingInt(DefaultEndpoint::getLoadOnStartup));
+        for (DefaultEndpoint endpoint : endpoints) {
+            try {
+                endpoint.load();
+            } catch (ServletException | RuntimeException e) {
+                logger.error("context : {} load servlet : {} on startup failed", getName(), endpoint.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 预先加载旧实例中已加载的 servlet，切换后的首批请求不必等待 servlet 初始化
+     */
+    void warmUp(DefaultContext previous) {
+        ClassLoader oldCL = bindThread();
+        try {
+            for (Vas child : previous.findChildren()) {
+                if (!(child instanceof DefaultEndpoint old) || !old.isLoaded()) continue;
+                if (!(findChild(child.getName()) instanceof DefaultEndpoint endpoint)) continue;
+                try {
+                    endpoint.load();
+                } catch (ServletException | RuntimeException e) {
+                    logger.warn("context : {} warm up servlet : {} failed", getName(), child.getName(), e);
+                }
+            }
+        } finally {
+            unbindThread(oldCL);
+        }
+    }
+
+    /**
+     * 切换路由前调用，之后旧实例中的会话在本实例中首次被访问时迁移过来
+     */
+    void inheritSessions(DefaultContext previous) {
+        SessionManager sessionManager = getManager();
+        if (sessionManager != null && previous.getManager() != null) sessionManager.setPredecessor(previous.getManager());
+    }
+
+    /**
+     * 旧实例的请求结束后调用，迁移其余的会话
+     */
+    void adoptSessions() {
+        SessionManager sessionManager = getManager();
+        if (sessionManager == null) return;
+        ClassLoader oldCL = bindThread();
+        try {
+            int count = sessionManager.migrateFromPredecessor();
+            if (count > 0) logger.info("context : {} took over {} sessions from the old context", getName(), count);
+        } finally {
+            unbindThread(oldCL);
+        }
+    }
+
+    /**
+     * 标记已被替换，并等待正在处理的请求结束
+     *
+     * @param fresh   替换本实例的新实例
+     * @param timeout 最长等待时间（毫秒）
+     * @return 请求是否已在超时前全部结束
+     */
+    boolean retire(DefaultContext fresh, long timeout) {
+        CountDownLatch latch = new CountDownLatch(1);
+        drainLatch = latch;
+        replacement = fresh;
+        if (inFlight.get() == 0) return true;
+        try {
+            return latch.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inFlight.get() == 0;
+        }
+    }
+
+    /**
+     * 获取正在处理的请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
     //</editor-fold>
     //<editor-fold desc = "thread bind">
     // 绑定当前线程，一般用于启动 关闭 重载时
@@ -377,15 +722,33 @@ public class DefaultContext extends VasBase implements Context {
     //</editor-fold>
     //<editor-fold desc = "生命周期">
     public void process(HttpRequest request, HttpResponse response) throws Exception {
-        while (isPaused()) {
+        // 暂停中的请求由 ContextCheckpoint 直接回应503，不在这里挂起请求线程
+        // 先计数再检查是否已被替换，与retire()的先替换再检查计数配对，保证请求要么被等待要么被转交
+        inFlight.incrementAndGet();
+        DefaultContext next = replacement;
+        if (next != null) {
+            leave();
+            // HostCheckpoint 在交换前绑定的是本实例的类加载器，转交时换成新实例的
+            ClassLoader oldCL = next.bindThread();
             try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                next.process(request, response);
+            } finally {
+                unbindThread(oldCL);
             }
+            return;
         }
+        try {
+            super.process(request, response);
+        } finally {
+            leave();
+        }
+    }
 
-        super.process(request, response);
+    private void leave() {
+        if (inFlight.decrementAndGet() == 0) {
+            CountDownLatch latch = drainLatch;
+            if (latch != null) latch.countDown();
+        }
     }
 
     @Override
@@ -393,6 +756,9 @@ public class DefaultContext extends VasBase implements Context {
         if (started) throw new LifecycleException("context : " + getName() + " is already started");
         Mapper mapper = setMapper(defaultContextMapper);
         mapper.setVas(this);
+        StartupReport report = StartupReport.getDefault();
+        String component = StartupReport.nameOf(this);
+        long begin = System.nanoTime();
         lifecycleHelper.fireLifecycleEvent(BEFORE_START_EVENT, null);
         logger.info("context : {} starting...", getName());
         setConfigured(false);
@@ -420,6 +786,7 @@ public class DefaultContext extends VasBase implements Context {
         }
 
         // 资源管理器设置
+        long phase = System.nanoTime();
         try {
             ResourceManager resources = new ResourceManager(this);
             setResources(resources);
@@ -427,6 +794,7 @@ public class DefaultContext extends VasBase implements Context {
         } catch (Exception e) {
             noProblem = false;
         }
+        phase = report.record(component, "resources", phase);
         // 设置自定义类加载器
         if (noProblem && getLoader() == null) {
             WebAppLoader webAppLoader = new WebAppLoader(getParentClassLoader());
@@ -441,6 +809,7 @@ public class DefaultContext extends VasBase implements Context {
                 Loader loader = getLoader();
                 // 启动自定义类加载器
                 if (loader instanceof Lifecycle) ((Lifecycle) loader).start();
+                phase = report.record(component, "loader", phase);
                 started = true;
                 // 复原为原来的类加载器
                 unbindThread(oldCL);
@@ -454,7 +823,10 @@ public class DefaultContext extends VasBase implements Context {
                 }
                 // 启动通道
                 if (channel instanceof Lifecycle) ((Lifecycle) channel).start();
+                phase = report.record(component, "endpoints", phase);
+                // 由InnerContextListener解析web.xml
                 lifecycleHelper.fireLifecycleEvent(START_EVENT, null);
+                phase = report.record(component, "configure", phase);
             } catch (Exception e) {
                 noProblem = false;
                 logger.error("warning : context : {} start failed", getName(), e);
@@ -473,13 +845,27 @@ public class DefaultContext extends VasBase implements Context {
         // 启动过滤器和监听器
         if (noProblem) {
             if (!startListener()) noProblem = false;
+            phase = report.record(component, "listeners", phase);
+        }
+        if (noProblem) {
+            if (!startManager()) noProblem = false;
+            phase = report.record(component, "sessions", phase);
         }
         if (noProblem) {
             if (!startFilter()) noProblem = false;
+            phase = report.record(component, "filters", phase);
+        }
+        if (noProblem) {
+            loadOnStartup();
+            phase = report.record(component, "servlets", phase);
         }
         // 复原加载器
         unbindThread(oldCL);
         if (noProblem) {
+            // 在开始接收请求前编译映射表与过滤链表
+            getServletMappingTable();
+            getFilterChainTable();
+            report.record(component, "tables", phase);
             logger.info("context : {} started succeed", getName());
             setAvailable(true);
         } else {
@@ -492,6 +878,7 @@ public class DefaultContext extends VasBase implements Context {
             setAvailable(false);
         }
         lifecycleHelper.fireLifecycleEvent(AFTER_START_EVENT, null);
+        report.record(component, StartupReport.TOTAL, begin);
     }
 
     @Override
@@ -518,6 +905,7 @@ public class DefaultContext extends VasBase implements Context {
                 if (mapper instanceof Lifecycle)
                     ((Lifecycle) mapper).stop();
             }
+            stopManager();
             stopListener();
             if (getResources() != null) getResources().stop();
             if (getLoader() instanceof Lifecycle) ((Lifecycle) getLoader()).stop();
@@ -531,6 +919,61 @@ public class DefaultContext extends VasBase implements Context {
         lifecycleHelper.fireLifecycleEvent(AFTER_STOP_EVENT, null);
     }
 
+    //</editor-fold>
+    //<editor-fold desc = "会话管理器启动 停止">
+    private boolean startManager() {
+        if (SESSION_MODE_COOKIE.equalsIgnoreCase(sessionMode)) return startSessionCodec();
+        SessionManager sessionManager = getManager();
+        if (sessionManager == null) {
+            sessionManager = new SessionManager(this);
+            setManager(sessionManager);
+        }
+        sessionManager.setMaxInactiveInterval(sessionTimeout * 60);
+        sessionManager.setMaxIdleSwap(sessionIdleSwap);
+        if (getParent() instanceof DefaultHost host) sessionManager.setReplicator(host.getReplicator());
+        try {
+            sessionManager.start();
+            return true;
+        } catch (LifecycleException e) {
+            logger.error("context : {} start session manager failed", getName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * cookie 模式不创建会话管理器，服务器端不保存会话状态
+     */
+    private boolean startSessionCodec() {
+        if (sessionKey == null) {
+            if (sessionSecret == null || sessionSecret.isEmpty()) {
+                sessionKey = new byte[32];
+                new SecureRandom().nextBytes(sessionKey);
+                logger.warn("context : {} has no sessionSecret , cookie sessions are only valid on this instance until restart", getName());
+            } else {
+                sessionKey = sessionSecret.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        try {
+            sessionCodec = new CookieSessionCodec(this, sessionKey, sessionEncrypt);
+            return true;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            logger.error("context : {} start cookie sessions failed", getName(), e);
+            return false;
+        }
+    }
+
+    // 会话在监听器停止之前失效，以便监听器收到 sessionDestroyed
+    private void stopManager() {
+        sessionCodec = null;
+        SessionManager sessionManager = getManager();
+        if (sessionManager == null) return;
+        try {
+            sessionManager.stop();
+        } catch (LifecycleException e) {
+            logger.debug("context : {} stop session manager : {}", getName(), e.getMessage());
+        }
+    }
+
     //</editor-fold>
     //<editor-fold desc = "过滤器和监听器启动 停止">
     private boolean startListener() {
@@ -600,6 +1043,7 @@ public class DefaultContext extends VasBase implements Context {
         boolean noProblem = true;
         synchronized (filterConfigs) {
             filterConfigs.clear();
+            filterChainTable = null;
             for (String o : filterDefs.keySet()) {
                 ApplicationFilterConfig filterConfig = null;
                 try {
@@ -626,6 +1070,7 @@ public class DefaultContext extends VasBase implements Context {
                 logger.info("context : {} stop filter : {} succeed", getName(), o);
             }
             filterConfigs.clear();
+            filterChainTable = null;
             logger.info("context : {} stop filters succeed", getName());
         }
     }
@@ -9,9 +9,13 @@ import livonia.log.BaseLogger;
 import org.slf4j.Logger;
 
 import javax.servlet.*;
-import java.util.Collections;
-import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class DefaultEndpoint extends VasBase implements Endpoint, ServletConfig {
     //<editor-fold desc = "attr">
@@ -21,15 +25,39 @@ public final class DefaultEndpoint extends VasBase implements Endpoint, ServletC
     private final HashMap<String, String> initParams = new HashMap<>();
     // 内部类
     private final InnerServletConfig innerServletConfig = new InnerServletConfig(this);
+    // 卸载时等待活跃访问结束的最长时间（毫秒）
+    private static final long UNLOAD_DRAIN_TIMEOUT = 1000;
+    // 实例池模式下等待空闲实例时，检查卸载标志位的间隔（毫秒）
+    private static final long POOL_WAIT_INTERVAL = 1000;
+    // 实例池默认的最大实例数
+    public static final int DEFAULT_MAX_INSTANCES = 20;
     // 初始化后的servlet实例
-    private Servlet sInstance = null;
+    private volatile Servlet sInstance = null;
     private String servletClass = null;
     // 初始化标志位
     private volatile boolean initialized = false;
     // 当前活跃访问数量
-    private volatile int count = 0;
+    private final AtomicInteger count = new AtomicInteger();
+    // 卸载时等待活跃访问归零的门闩，仅在卸载期间非空
+    private volatile CountDownLatch drainLatch = null;
     // 正在卸载servlet标志位
-    private boolean isUnloading = false;
+    private volatile boolean isUnloading = false;
+    // web.xml中声明的线程安全性，为false时与实现SingleThreadModel一样使用实例池
+    private boolean threadSafe = true;
+    // 实例池的最大实例数
+    private int maxInstances = DEFAULT_MAX_INSTANCES;
+    // 启动顺序，负数表示首次请求时才加载
+    private int loadOnStartup = -1;
+    // 是否使用实例池，在首个实例初始化时确定
+    private volatile boolean singleThreadModel = false;
+    // 当前一代的实例池，仅在实例池模式下非空
+    private volatile InstancePool instancePool = null;
+    // 实例池的代数
+    private final AtomicInteger generations = new AtomicInteger();
+    // 卸载时仍有实例借出的旧实例池，这些实例归还时直接销毁
+    private final List<InstancePool> retiredPools = new CopyOnWriteArrayList<>();
+    // 实例池模式下已创建的实例数
+    private final AtomicInteger nInstances = new AtomicInteger();
     // 可用性：OL可用 INT MAXVALUE不可用
     private long available = 0L;
 
@@ -51,8 +79,60 @@ public final class DefaultEndpoint extends VasBase implements Endpoint, ServletC
         else this.available = 0L;
     }
 
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /**
+     * 对应 web.xml 中 servlet 的 thread-safe 元素，在 servlet 加载前设置
+     */
+    public void setThreadSafe(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+    }
+
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
+    /**
+     * 对应 web.xml 中 servlet 的 max-instances 元素，在 servlet 加载前设置
+     */
+    public void setMaxInstances(int maxInstances) {
+        if (maxInstances < 1) throw new IllegalArgumentException("maxInstances : " + maxInstances + " is invalid");
+        this.maxInstances = maxInstances;
+    }
+
+    public int getLoadOnStartup() {
+        return loadOnStartup;
+    }
+
+    /**
+     * 对应 web.xml 中 servlet 的 load-on-startup 元素，非负时随 Context 启动按从小到大的顺序加载
+     */
+    public void setLoadOnStartup(int loadOnStartup) {
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    /**
+     * servlet是否已加载并初始化
+     */
+    public boolean isLoaded() {
+        return sInstance != null && initialized;
+    }
+
+    /**
+     * 是否以实例池方式分配servlet
+     */
+    public boolean isSingleThreadModel() {
+        return singleThreadModel;
+    }
+
     //</editor-fold>
     //<editor-fold desc = "实现或重写父类，接口">
+    public String getServletClass() {
+        return servletClass;
+    }
+
     @Override
     public void setServletClass(String servletClass) {
         this.servletClass = servletClass;
@@ -67,6 +147,11 @@ public final class DefaultEndpoint extends VasBase implements Endpoint, ServletC
 
     public synchronized Servlet loadServlet() throws ServletException {
         if (sInstance != null) return sInstance;
+        return newInstance();
+    }
+
+    // 加载servlet类并创建一个未初始化的实例
+    private Servlet newInstance() throws ServletException {
         if (servletClass == null) {
             unavailable(null);
             throw new ServletException("servlet class is null");
@@ -115,97 +200,222 @@ public final class DefaultEndpoint extends VasBase implements Endpoint, ServletC
 
     private void initServlet(Servlet servlet) throws ServletException {
         if (!initialized) {
-            try {
-                servlet.init(innerServletConfig);
-                initialized = true;
-            } catch (UnavailableException e) {
-                unavailable(e);
-                throw new ServletException("init servlet failed", e);
-            } catch (RuntimeException e) {
-                throw new ServletException("init servlet failed", e);
-            }
+            initInstance(servlet);
+            preparePool(servlet);
+            initialized = true;
+        }
+    }
+
+    private void initInstance(Servlet servlet) throws ServletException {
+        try {
+            servlet.init(innerServletConfig);
+        } catch (UnavailableException e) {
+            unavailable(e);
+            throw new ServletException("init servlet failed", e);
+        } catch (RuntimeException e) {
+            throw new ServletException("init servlet failed", e);
         }
     }
 
+    // 实现SingleThreadModel或声明为非线程安全的servlet，以首个实例建立实例池
+    @SuppressWarnings("deprecation")
+    private void preparePool(Servlet servlet) {
+        singleThreadModel = !threadSafe || servlet instanceof SingleThreadModel;
+        if (!singleThreadModel) return;
+        InstancePool pool = new InstancePool(generations.incrementAndGet(), maxInstances);
+        pool.members.add(servlet);
+        pool.idle.offer(servlet);
+        nInstances.set(1);
+        instancePool = pool;
+        logger.info("endpoint : {} uses instance pool , maxInstances : {}", getName(), maxInstances);
+    }
+
     @Override
     public synchronized void unload() throws ServletException {
         if (sInstance == null) return;
+        // 先设置门闩再设置标志位，保证归零的sfree一定能看到门闩
+        CountDownLatch latch = new CountDownLatch(1);
+        drainLatch = latch;
         isUnloading = true;
-        if (getCount() > 0) {
-            // 最大等待时间设为1000毫秒
-            long maxWaitTime = 1000;
-            long startTime = System.currentTimeMillis();
-            while (getCount() > 0 && (System.currentTimeMillis() - startTime) < maxWaitTime) {
-                try {
-                    Thread.sleep(50); // 每50毫秒检查一次
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        // 先登记为退役再清空空闲实例，之后归还的实例不会再进入这一代或下一代的实例池
+        InstancePool pool = instancePool;
+        if (pool != null) {
+            pool.retired = true;
+            retiredPools.add(pool);
+        }
+        if (count.get() > 0) {
+            try {
+                latch.await(UNLOAD_DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
+        // 若超时仍有servlet在被使用，则输出日志并销毁实例
+        if (count.get() > 0) {
+            logger.warn("endpoint : {} is unloading but still has {} servlets allocated", getName(), count.get());
+        }
         // 获取当前servlet实例的类加载器
         ClassLoader webCL = sInstance.getClass().getClassLoader();
         // 获取当前上下文的类加载器
         ClassLoader oldCL = Thread.currentThread().getContextClassLoader();
-        // 若超时仍有servlet在被使用，则输出日志并销毁实例
-        if (getCount() > 0) {
-            logger.warn("endpoint : {} is unloading but still has {} servlets allocated", getName(), count);
-        }
         try {
             // 使用web程序类加载
             Thread.currentThread().setContextClassLoader(webCL);
-            sInstance.destroy();
+            for (Servlet servlet : instancesToDestroy(pool)) {
+                servlet.destroy();
+            }
         } catch (Exception e) {
             logger.error("endpoint : {} destroy servlet failed", getName(), e);
-            sInstance = null;
-            initialized = false;
-            isUnloading = false;
+            resetInstances();
             throw new ServletException("endpoint : " + getName() + " destroy servlet failed", e);
         } finally {
             // 将原加载器放回
             Thread.currentThread().setContextClassLoader(oldCL);
         }
+        resetInstances();
+        if (pool != null) {
+            if (pool.members.isEmpty()) {
+                retiredPools.remove(pool);
+            } else {
+                logger.warn("endpoint : {} instance pool generation {} still has {} servlets allocated , "
+                        + "they will be destroyed when returned", getName(), pool.generation, pool.members.size());
+            }
+        }
+        logger.info("endpoint : {} unload success", getName());
+    }
+
+    // 单实例模式下只有sInstance，实例池模式下为池中全部空闲实例，借出的实例在归还时销毁
+    private List<Servlet> instancesToDestroy(InstancePool pool) {
+        List<Servlet> servlets = new ArrayList<>();
+        if (pool == null) {
+            servlets.add(sInstance);
+            return servlets;
+        }
+        pool.idle.drainTo(servlets);
+        for (Servlet servlet : servlets) pool.members.remove(servlet);
+        return servlets;
+    }
+
+    private void resetInstances() {
         sInstance = null;
+        instancePool = null;
+        nInstances.set(0);
+        singleThreadModel = false;
         initialized = false;
         isUnloading = false;
-        logger.info("endpoint : {} unload success", getName());
+        drainLatch = null;
     }
 
-
+    /**
+     * 分配servlet实例。
+     * 活跃访问数先加一再检查卸载标志位，卸载开始后新到的分配会立即回退并失败，
+     * 卸载线程因此只需等待标志位设置前已进入的分配。
+     */
     @Override
     public Servlet salloc() throws ServletException {
-        logger.debug("endpoint : {} allocate servlet", getName());
-        if (isUnloading) throw new ServletException("endpoint : " + getName() + " is unloading");
-        boolean isNew = false;
-        // 当servlet不存在或未被初始化时
-        if (sInstance == null || !initialized) {
-            synchronized (this) {
-                if (sInstance == null) {
-                    try {
-                        sInstance = loadServlet();
-                        isNew = true;
-                        countUp();
-                    } catch (ServletException e) {
-                        throw new ServletException("endpoint : " + getName() + " load servlet failed when allocating", e);
+        count.incrementAndGet();
+        if (isUnloading) {
+            countDown();
+            throw new ServletException("endpoint : " + getName() + " is unloading");
+        }
+        try {
+            // 当servlet不存在或未被初始化时
+            if (sInstance == null || !initialized) {
+                synchronized (this) {
+                    if (sInstance == null) {
+                        try {
+                            sInstance = loadServlet();
+                        } catch (ServletException e) {
+                            throw new ServletException("endpoint : " + getName() + " load servlet failed when allocating", e);
+                        }
+                    }
+                    if (!initialized) {
+                        initServlet(sInstance);
                     }
-                }
-                if (!initialized) {
-                    initServlet(sInstance);
                 }
             }
+            if (!singleThreadModel) return sInstance;
+            return allocatePooled();
+        } catch (ServletException | RuntimeException e) {
+            countDown();
+            throw e;
         }
-        // 不是新生成的servlet实例，当前活跃访问+1
-        if (!isNew) countUp();
-        return sInstance;
     }
 
+    // 优先取空闲实例，未达上限时创建新实例，否则等待其他请求归还
+    private Servlet allocatePooled() throws ServletException {
+        InstancePool pool = instancePool;
+        if (pool == null) throw new ServletException("endpoint : " + getName() + " is unloading");
+        Servlet servlet = pool.idle.poll();
+        if (servlet != null) return servlet;
+        for (int n = nInstances.get(); n < maxInstances; n = nInstances.get()) {
+            if (!nInstances.compareAndSet(n, n + 1)) continue;
+            try {
+                servlet = newInstance();
+                initInstance(servlet);
+                pool.members.add(servlet);
+                return servlet;
+            } catch (ServletException | RuntimeException e) {
+                nInstances.decrementAndGet();
+                throw e;
+            }
+        }
+        try {
+            while ((servlet = pool.idle.poll(POOL_WAIT_INTERVAL, TimeUnit.MILLISECONDS)) == null) {
+                if (isUnloading) throw new ServletException("endpoint : " + getName() + " is unloading");
+            }
+            return servlet;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("endpoint : " + getName() + " interrupted while waiting for servlet instance", e);
+        }
+    }
+
+    /**
+     * 归还servlet实例。
+     * 实例只回到创建它的那一代实例池；那一代已在卸载中退役时直接销毁，
+     * 因此卸载超时后迟到的归还不会把旧类加载器的实例放进重新加载后的实例池。
+     */
     @Override
-    public void sfree() {
-        logger.debug("endpoint : 减少对当前Servlet：{} 的访问", getName());
+    public void sfree(Servlet servlet) {
+        if (servlet != null) {
+            InstancePool pool = ownerOf(servlet);
+            if (pool != null && !pool.retired) {
+                pool.idle.offer(servlet);
+                // 与卸载并发时，卸载可能已清空过空闲实例，此时由归还方负责销毁
+                if (pool.retired && pool.idle.remove(servlet)) destroyRetired(pool, servlet);
+            } else if (pool != null) {
+                destroyRetired(pool, servlet);
+            }
+        }
         countDown();
     }
 
+    // 单实例模式下返回null
+    private InstancePool ownerOf(Servlet servlet) {
+        InstancePool current = instancePool;
+        if (current != null && current.members.contains(servlet)) return current;
+        for (InstancePool retired : retiredPools) {
+            if (retired.members.contains(servlet)) return retired;
+        }
+        return null;
+    }
+
+    private void destroyRetired(InstancePool pool, Servlet servlet) {
+        if (!pool.members.remove(servlet)) return;
+        if (pool.members.isEmpty()) retiredPools.remove(pool);
+        Thread thread = Thread.currentThread();
+        ClassLoader oldCL = thread.getContextClassLoader();
+        try {
+            thread.setContextClassLoader(servlet.getClass().getClassLoader());
+            servlet.destroy();
+        } catch (Throwable t) {
+            logger.error("endpoint : {} destroy servlet returned after unloading failed", getName(), t);
+        } finally {
+            thread.setContextClassLoader(oldCL);
+        }
+    }
+
     @Override
     public String findInitParam(String name) {
         synchronized (initParams) {
@@ -278,20 +488,19 @@ public final class DefaultEndpoint extends VasBase implements Endpoint, ServletC
 
     //</editor-fold>
     //<editor-fold desc = "线程安全算数">
-    private synchronized void countUp() {
-        count++;
-    }
-
-    private synchronized void countDown() {
-        count--;
-    }
-
-    private synchronized void countReset() {
-        count = 0;
+    // 活跃访问数归零时，若正在卸载则打开门闩
+    private void countDown() {
+        if (count.decrementAndGet() == 0) {
+            CountDownLatch latch = drainLatch;
+            if (latch != null) latch.countDown();
+        }
     }
 
-    private synchronized int getCount() {
-        return count;
+    /**
+     * 获取当前正在使用servlet实例的请求数
+     */
+    public int getCount() {
+        return count.get();
     }
 
     //</editor-fold>
@@ -313,6 +522,23 @@ public final class DefaultEndpoint extends VasBase implements Endpoint, ServletC
 
     //</editor-fold>
     //<editor-fold desc = "内部类">
+    /**
+     * 一代实例池。卸载时整代退役，此后归还的实例直接销毁，不会混入下一代
+     */
+    private static final class InstancePool {
+        private final int generation;
+        // 空闲实例
+        private final BlockingQueue<Servlet> idle;
+        // 本代创建且尚未销毁的全部实例，含借出的，按引用比较
+        private final Set<Servlet> members = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        private volatile boolean retired = false;
+
+        private InstancePool(int generation, int capacity) {
+            this.generation = generation;
+            this.idle = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
     public static final class InnerServletConfig implements ServletConfig {
         private ServletConfig config;
 
@@ -3,6 +3,7 @@ package livonia.core;
 import livonia.base.*;
 import livonia.checkpoints.EngineCheckpoint;
 import livonia.lifecycle.LifecycleException;
+import livonia.mapper.HostRoutingTable;
 import livonia.utils.ServerInfo;
 
 public class DefaultEngine extends VasBase implements Engine {
@@ -12,6 +13,8 @@ public class DefaultEngine extends VasBase implements Engine {
     private String defaultHostName = "";
     // 包含次Engine的Service
     private Service service = null;
+    // 虚拟主机路由快照，子容器或主机别名变化时整体替换
+    private volatile HostRoutingTable hostRoutingTable = HostRoutingTable.EMPTY;
 
     //</editor-fold>
     //<editor-fold desc = "构造器">
@@ -47,6 +50,27 @@ public class DefaultEngine extends VasBase implements Engine {
         return service;
     }
 
+    /**
+     * 取得当前的虚拟主机路由快照，查找无需加锁
+     */
+    public HostRoutingTable getHostRoutingTable() {
+        return hostRoutingTable;
+    }
+
+    /**
+     * 按当前的子容器与主机别名重建路由快照
+     */
+    void rebuildHostRoutingTable() {
+        synchronized (children) {
+            Vas[] vases = findChildren();
+            Host[] hosts = new Host[vases.length];
+            for (int i = 0; i < vases.length; i++) {
+                hosts[i] = (Host) vases[i];
+            }
+            hostRoutingTable = HostRoutingTable.build(hosts);
+        }
+    }
+
     @Override
     public void setService(Service service) {
         this.service = service;
@@ -66,6 +90,13 @@ public class DefaultEngine extends VasBase implements Engine {
     public void addChild(Vas child) {
         if (!(child instanceof Host)) throw new IllegalArgumentException("child must be a Host!");
         super.addChild(child);
+        rebuildHostRoutingTable();
+    }
+
+    @Override
+    public void removeChild(Vas child) {
+        super.removeChild(child);
+        rebuildHostRoutingTable();
     }
 
     @Override
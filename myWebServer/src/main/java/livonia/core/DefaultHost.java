@@ -4,10 +4,14 @@ import livonia.base.Context;
 import livonia.base.Host;
 import livonia.base.Mapper;
 import livonia.base.Vas;
+import livonia.base.Checkpoint;
+import livonia.checkpoints.CacheCheckpoint;
 import livonia.checkpoints.HostCheckpoint;
 import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
+import livonia.mapper.ContextRoutingTable;
+import livonia.session.SessionReplicator;
 
 import java.io.IOException;
 import java.net.URL;
@@ -15,6 +19,8 @@ import java.net.URL;
 import static livonia.base.Const.commonCharacters.SOLIDUS;
 
 public class DefaultHost extends VasBase implements Host, Host.Deployer {
+    // 蓝绿重载时等待旧Context上请求结束的最长时间（毫秒）
+    private static final long RELOAD_DRAIN_TIMEOUT = 30000;
     // context对象
     private final String defaultContextClass = "livonia.core.DefaultContext";
     // 部署器
@@ -24,12 +30,28 @@ public class DefaultHost extends VasBase implements Host, Host.Deployer {
     //<editor-fold desc = "attr">
     // 程序根目录
     private String appBase = "";
-    // 是否自动部署
+    // 是否自动部署：关闭时应用只在Host启动时部署一次，不再检测 appBase 与 web.xml 的变化
     private boolean autoDeploy = true;
     // context容器监听器
     private String innerContextListener = "livonia.listener.InnerContextListener";
     // 工作区
     private String workDir = "";
+    // 主机别名
+    private String[] aliases = new String[0];
+    // 上下文路由快照，部署、卸载或子容器变化时整体替换
+    private volatile ContextRoutingTable contextRoutingTable = ContextRoutingTable.EMPTY;
+    // 会话复制的监听端口，小于0时不复制
+    private int replicationPort = -1;
+    // 会话复制的监听地址
+    private String replicationAddress = "127.0.0.1";
+    // 其他节点，逗号分隔的 host:port
+    private String replicationPeers = "";
+    // 各节点共享的复制密钥，至少16字节
+    private String replicationSecret = null;
+    // 复制数据反序列化过滤器，为null时使用默认过滤器
+    private String replicationFilter = null;
+    // 会话复制器，未启用时为null
+    private SessionReplicator replicator = null;
 
     //</editor-fold>
     //<editor-fold desc = "构造器">
@@ -59,10 +81,12 @@ public class DefaultHost extends VasBase implements Host, Host.Deployer {
         this.name = name;
     }
 
+    @Override
     public String getWorkDir() {
         return workDir;
     }
 
+    @Override
     public void setWorkDir(String workDir) {
         this.workDir = workDir;
     }
@@ -75,6 +99,50 @@ public class DefaultHost extends VasBase implements Host, Host.Deployer {
         this.autoDeploy = autoDeploy;
     }
 
+    public int getReplicationPort() {
+        return replicationPort;
+    }
+
+    public void setReplicationPort(int replicationPort) {
+        this.replicationPort = replicationPort;
+    }
+
+    public String getReplicationAddress() {
+        return replicationAddress;
+    }
+
+    public void setReplicationAddress(String replicationAddress) {
+        this.replicationAddress = replicationAddress;
+    }
+
+    public String getReplicationPeers() {
+        return replicationPeers;
+    }
+
+    public void setReplicationPeers(String replicationPeers) {
+        this.replicationPeers = replicationPeers;
+    }
+
+    public String getReplicationSecret() {
+        return replicationSecret;
+    }
+
+    public void setReplicationSecret(String replicationSecret) {
+        this.replicationSecret = replicationSecret;
+    }
+
+    public String getReplicationFilter() {
+        return replicationFilter;
+    }
+
+    public void setReplicationFilter(String replicationFilter) {
+        this.replicationFilter = replicationFilter;
+    }
+
+    public SessionReplicator getReplicator() {
+        return replicator;
+    }
+
     public String getInnerContextListener() {
         return innerContextListener;
     }
@@ -90,13 +158,31 @@ public class DefaultHost extends VasBase implements Host, Host.Deployer {
         logger.debug("Starting host:{}", name);
         Mapper mapper = setMapper(defaultHostMapper);
         mapper.setVas(this);
+        // 复制器先创建供Context登记，Context都启动后再开始收发，新加入的节点收到的完整状态不会因Context未就绪而丢弃
+        if (replicationPort >= 0) {
+            replicator = new SessionReplicator();
+            replicator.setAddress(replicationAddress);
+            replicator.setPort(replicationPort);
+            replicator.setPeers(replicationPeers);
+            replicator.setSecret(replicationSecret);
+            if (replicationFilter != null) replicator.setSerialFilterPattern(replicationFilter);
+        }
         super.start();
+        if (replicator != null) replicator.start();
     }
 
     @Override
     public void stop() throws LifecycleException {
         logger.debug("Stopping host:{}", name);
+        if (replicator != null) {
+            try {
+                replicator.stop();
+            } catch (LifecycleException e) {
+                logger.debug("host : {} stop session replicator : {}", name, e.getMessage());
+            }
+        }
         super.stop();
+        replicator = null;
     }
 
     //</editor-fold>
@@ -105,16 +191,54 @@ public class DefaultHost extends VasBase implements Host, Host.Deployer {
     public Context map(String uri) {
         logger.debug("Mapping uri:{}", uri);
         if (uri == null) return null;
-        Context context;
-        String mappedUri = uri;
-        while (true) {
-            context = (Context) findChild(mappedUri);
-            if (context != null) break;
-            int index = mappedUri.lastIndexOf(SOLIDUS);
-            if (index == -1) break;
-            mappedUri = mappedUri.substring(0, index);
+        return contextRoutingTable.find(uri);
+    }
+
+    @Override
+    public void addAlias(String alias) {
+        alias = alias.trim().toLowerCase();
+        synchronized (this) {
+            for (String existing : aliases) {
+                if (existing.equals(alias)) return;
+            }
+            String[] results = new String[aliases.length + 1];
+            System.arraycopy(aliases, 0, results, 0, aliases.length);
+            results[aliases.length] = alias;
+            aliases = results;
+        }
+        aliasesChanged();
+    }
+
+    @Override
+    public String[] findAliases() {
+        synchronized (this) {
+            return aliases.clone();
         }
-        return context;
+    }
+
+    @Override
+    public void removeAlias(String alias) {
+        alias = alias.trim().toLowerCase();
+        synchronized (this) {
+            int index = -1;
+            for (int i = 0; i < aliases.length; i++) {
+                if (aliases[i].equals(alias)) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) return;
+            String[] results = new String[aliases.length - 1];
+            System.arraycopy(aliases, 0, results, 0, index);
+            System.arraycopy(aliases, index + 1, results, index, aliases.length - index - 1);
+            aliases = results;
+        }
+        aliasesChanged();
+    }
+
+    // 别名属于Engine的路由数据，变化后通知Engine重建快照
+    private void aliasesChanged() {
+        if (parent instanceof DefaultEngine engine) engine.rebuildHostRoutingTable();
     }
 
     @Override
@@ -164,6 +288,101 @@ public class DefaultHost extends VasBase implements Host, Host.Deployer {
             throw new IllegalArgumentException("child must be a context");
         }
         super.addChild(child);
+        rebuildContextRoutingTable();
+    }
+
+    @Override
+    public void removeChild(Vas child) {
+        super.removeChild(child);
+        rebuildContextRoutingTable();
+    }
+
+    /**
+     * 以蓝绿方式重新加载一个 Context。
+     * <ol>
+     *     <li>按旧实例的配置创建新实例，在调用线程中启动（重新创建加载器、解析 web.xml）</li>
+     *     <li>预热旧实例中已加载的 servlet</li>
+     *     <li>在子容器表与路由快照中以新实例替换旧实例，此后新实例按需从旧实例迁移会话</li>
+     *     <li>等待旧实例上的请求处理完，此后仍到达旧实例的请求转交给新实例</li>
+     *     <li>迁移其余的会话，停止旧实例</li>
+     * </ol>
+     * 新实例启动失败时旧实例继续提供服务。
+     *
+     * @param current 当前提供服务的 Context
+     */
+    void reload(DefaultContext current) {
+        String path = current.getName();
+        logger.info("context : {} reloading...", path);
+        DefaultContext fresh;
+        try {
+            fresh = current.createReplacement();
+        } catch (ReflectiveOperationException e) {
+            logger.error("reload context : {} failed , continue running the old context", path, e);
+            resumeMonitoring(current);
+            return;
+        }
+        fresh.setParent(this);
+        inheritLifecycleListeners(fresh);
+        try {
+            fresh.start();
+        } catch (LifecycleException | RuntimeException e) {
+            logger.error("reload context : {} failed , continue running the old context", path, e);
+        }
+        if (!fresh.getAvailable()) {
+            logger.error("reload context : {} failed , continue running the old context", path);
+            fresh.setParent(null);
+            resumeMonitoring(current);
+            return;
+        }
+        fresh.warmUp(current);
+        fresh.inheritSessions(current);
+
+        synchronized (children) {
+            if (children.get(path) != current) {
+                logger.warn("context : {} was changed during reloading , discard the new context", path);
+                discard(fresh);
+                return;
+            }
+            children.put(path, fresh);
+            contextRoutingTable = ContextRoutingTable.build(findChildren());
+        }
+        if (!current.retire(fresh, RELOAD_DRAIN_TIMEOUT)) {
+            logger.warn("context : {} still has {} requests in flight after {} ms , stop it anyway",
+                    path, current.getInFlight(), RELOAD_DRAIN_TIMEOUT);
+        }
+        purgeCaches(fresh.getPath());
+        fresh.adoptSessions();
+        discard(current);
+        logger.info("context : {} reloaded", path);
+    }
+
+    // 应用重载后，Host 通道上缓存的旧版本响应不再有效
+    private void purgeCaches(String contextPath) {
+        for (Checkpoint checkpoint : getCheckpoints()) {
+            if (checkpoint instanceof CacheCheckpoint cache) cache.purge(contextPath);
+        }
+    }
+
+    // 继续运行旧Context时，旧加载器的检测线程已在要求重载后退出，需要重新开始检测
+    private void resumeMonitoring(DefaultContext context) {
+        if (context.getLoader() != null) context.getLoader().resumeMonitoring();
+    }
+
+    // 停止一个已不在子容器表中的Context
+    private void discard(DefaultContext context) {
+        try {
+            context.stop();
+        } catch (LifecycleException e) {
+            logger.error("stop context : {} failed", context.getName(), e);
+        }
+        context.setParent(null);
+    }
+
+    // 按当前的子容器重建上下文路由快照
+    private void rebuildContextRoutingTable() {
+        synchronized (children) {
+            contextRoutingTable = ContextRoutingTable.build(findChildren());
+        }
     }
 
     private void beforeInstall(String contextPath, URL webApp) {
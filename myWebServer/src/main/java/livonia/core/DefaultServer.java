@@ -7,6 +7,7 @@ import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
+import livonia.metrics.StartupReport;
 import livonia.utils.LifecycleHelper;
 import org.slf4j.Logger;
 
@@ -15,6 +16,7 @@ import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Arrays;
 
 public class DefaultServer implements Server, Lifecycle {
     //<editor-fold desc = "attr">
@@ -79,19 +81,22 @@ public class DefaultServer implements Server, Lifecycle {
         helper.fireLifecycleEvent(BEFORE_START_EVENT, null);
         helper.fireLifecycleEvent(START_EVENT, null);
         started = true;
-        // 启动Service
+        StartupReport report = StartupReport.getDefault();
+        report.clear();
+        long begin = System.nanoTime();
+        // 并行启动各Service，个别Service失败不影响其余Service
         synchronized (services) {
-            for (Service service : services) {
-                try {
-                    logger.info("DefaultServer start : start service");
-                    ((Lifecycle) service).start();
-                } catch (LifecycleException e) {
-                    logger.error("start service failed", e);
-                }
+            logger.info("DefaultServer start : start {} services", services.length);
+            try {
+                StartupExecutor.startAll(Arrays.asList(services), Service::getName);
+            } catch (LifecycleException e) {
+                logger.error("start service failed : {}", e.getMessage());
+                for (Throwable cause : e.getSuppressed()) logger.error("start service failed", cause);
             }
         }
         helper.fireLifecycleEvent(AFTER_START_EVENT, null);
-
+        report.record("server", StartupReport.TOTAL, begin);
+        logger.info("{}", report.format());
     }
 
     @Override
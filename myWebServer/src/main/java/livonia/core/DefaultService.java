@@ -6,9 +6,16 @@ import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
+import livonia.metrics.StartupReport;
 import livonia.utils.LifecycleHelper;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 public class DefaultService implements Service, Lifecycle {
     //<editor-fold desc = "attr">
     // logger
@@ -29,7 +36,16 @@ public class DefaultService implements Service, Lifecycle {
     private Server server = null;
     // 此Service持有的连接器集合
     private HttpConnector[] connectors = new HttpConnector[0];
-    ;
+    // 连接器开始接收请求前是否预热
+    private boolean warmup = false;
+    // 预热时回放的请求，每条为 METHOD URI [HOST]，以分号或换行分隔；与 warmupFile 都未配置时不回放，只预加载类
+    private String warmupRequests = null;
+    // 录制的回放请求文件，格式同上
+    private String warmupFile = null;
+    // 回放的最大轮数
+    private int warmupMaxRounds = Warmup.DEFAULT_MAX_ROUNDS;
+    // 回放的最长时间（毫秒）
+    private long warmupTimeout = Warmup.DEFAULT_TIMEOUT;
 
     //</editor-fold>
     //<editor-fold desc = "接口实现">
@@ -82,6 +98,49 @@ public class DefaultService implements Service, Lifecycle {
         this.name = name;
     }
 
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(boolean warmup) {
+        this.warmup = warmup;
+    }
+
+    public String getWarmupRequests() {
+        return warmupRequests;
+    }
+
+    public void setWarmupRequests(String warmupRequests) {
+        this.warmupRequests = warmupRequests;
+    }
+
+    public String getWarmupFile() {
+        return warmupFile;
+    }
+
+    /**
+     * 相对路径基于 core.dir 解析
+     */
+    public void setWarmupFile(String warmupFile) {
+        this.warmupFile = warmupFile;
+    }
+
+    public int getWarmupMaxRounds() {
+        return warmupMaxRounds;
+    }
+
+    public void setWarmupMaxRounds(int warmupMaxRounds) {
+        this.warmupMaxRounds = warmupMaxRounds;
+    }
+
+    public long getWarmupTimeout() {
+        return warmupTimeout;
+    }
+
+    public void setWarmupTimeout(long warmupTimeout) {
+        this.warmupTimeout = warmupTimeout;
+    }
+
     @Override
     public Server getServer() {
         return server;
@@ -206,6 +265,9 @@ public class DefaultService implements Service, Lifecycle {
         System.out.println("DefaultService : " + name + "is starting...");
         helper.fireLifecycleEvent(Lifecycle.START_EVENT, null);
         started = true;
+        StartupReport report = StartupReport.getDefault();
+        String component = "service:" + name;
+        long phase = System.nanoTime();
 
         // 启动Engine
         if (vas != null) {
@@ -218,6 +280,26 @@ public class DefaultService implements Service, Lifecycle {
                 }
             }
         }
+        phase = report.record(component, "engine", phase);
+
+        // 预热，之后连接器才开始接收请求
+        if (warmup && vas != null) {
+            Warmup runner = new Warmup(vas, warmupMaxRounds, warmupTimeout);
+            int classes = runner.preloadClasses();
+            phase = report.record(component, "warmup-classes", phase);
+            logger.info("DefaultService start : warmup preloaded {} classes", classes);
+            HttpConnector connector;
+            synchronized (connectors) {
+                connector = connectors.length > 0 ? connectors[0] : null;
+            }
+            List<Warmup.Sample> samples = warmupSamples();
+            if (samples.isEmpty()) {
+                logger.info("DefaultService start : no warmupRequests or warmupFile, skip request replay");
+            } else if (connector != null) {
+                runner.replay(connector, samples);
+                phase = report.record(component, "warmup-replay", phase);
+            }
+        }
 
         // 启动连接器
         synchronized (connectors) {
@@ -230,6 +312,23 @@ public class DefaultService implements Service, Lifecycle {
                 }
             }
         }
+        report.record(component, "connectors", phase);
+    }
+
+    // 配置的回放请求与录制文件中的请求
+    private List<Warmup.Sample> warmupSamples() {
+        List<Warmup.Sample> samples = new ArrayList<>(Warmup.parse(warmupRequests));
+        if (warmupFile != null && !warmupFile.isEmpty()) {
+            Path file = Path.of(warmupFile);
+            String coreDir = System.getProperty(Const.confInfo.CORE_DIR);
+            if (!file.isAbsolute() && coreDir != null) file = Path.of(coreDir).resolve(file);
+            try {
+                samples.addAll(Warmup.parse(Files.readString(file)));
+            } catch (IOException e) {
+                logger.warn("DefaultService start : read warmup file {} failed", file, e);
+            }
+        }
+        return samples;
     }
 
     @Override
@@ -0,0 +1,108 @@
+package livonia.core;
+
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 并行启动互不依赖的兄弟组件（Service、Host、Context）。
+ * <p>
+ * 并行度由全局许可数限制。拿不到许可的组件在调用线程中直接启动，
+ * 因此父组件在等待子组件时不会占满线程池，嵌套启动（Engine → Host → Context）不会死锁。
+ * 所有组件都尝试启动，失败汇总成一个 {@link LifecycleException}，各个原因作为 suppressed 异常附上。
+ */
+final class StartupExecutor {
+    //<editor-fold desc = "attr">
+    // 同时在后台线程中启动的组件数上限
+    static final int PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final Semaphore permits = new Semaphore(PARALLELISM);
+    private static final AtomicInteger threadSeq = new AtomicInteger();
+    private static final ExecutorService executor = new ThreadPoolExecutor(
+            0, PARALLELISM, 5, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread t = new Thread(r, "livonia-startup-" + threadSeq.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private StartupExecutor() {
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "启动">
+
+    /**
+     * 启动所有组件并等待全部结束
+     *
+     * @param components 要启动的组件
+     * @param naming     组件在错误信息中的名称
+     * @throws LifecycleException 至少一个组件启动失败
+     */
+    static <T> void startAll(List<T> components, Function<T, String> naming) throws LifecycleException {
+        List<Future<?>> futures = new ArrayList<>(components.size());
+        List<String> failed = new ArrayList<>();
+        List<Throwable> causes = new ArrayList<>();
+        for (int i = 0; i < components.size(); i++) {
+            T component = components.get(i);
+            if (!(component instanceof Lifecycle lifecycle)) {
+                futures.add(null);
+                continue;
+            }
+            // 最后一个组件总是由调用线程自己启动
+            boolean last = i == components.size() - 1;
+            if (!last && permits.tryAcquire()) {
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            lifecycle.start();
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }));
+                    continue;
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                }
+            }
+            futures.add(null);
+            try {
+                lifecycle.start();
+            } catch (LifecycleException | RuntimeException e) {
+                failed.add(naming.apply(component));
+                causes.add(e);
+            }
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            Future<?> future = futures.get(i);
+            if (future == null) continue;
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // 组件启动不可中断，等它结束后再恢复中断标志
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    failed.add(naming.apply(components.get(i)));
+                    causes.add(e.getCause());
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failed.isEmpty()) return;
+        LifecycleException aggregated = new LifecycleException(
+                failed.size() + " of " + components.size() + " components failed to start : " + failed);
+        causes.forEach(aggregated::addSuppressed);
+        throw aggregated;
+    }
+    //</editor-fold>
+}
@@ -3,14 +3,18 @@ package livonia.core;
 import livonia.base.*;
 import livonia.connector.http.HttpRequest;
 import livonia.connector.http.HttpResponse;
+import livonia.lifecycle.InheritableLifecycleListener;
 import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
+import livonia.metrics.StartupReport;
 import livonia.utils.LifecycleHelper;
 import org.slf4j.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -73,6 +77,7 @@ public abstract class VasBase implements Vas, Lifecycle, Channel {
         this.loader = loader;
         if (loader != null) {
             loader.setVas(this);
+            if (loader instanceof Lifecycle) inheritLifecycleListeners((Lifecycle) loader);
         }
         if (started && loader instanceof Lifecycle) {
             try {
@@ -189,9 +194,14 @@ public abstract class VasBase implements Vas, Lifecycle, Channel {
     public synchronized void start() throws LifecycleException {
         if (started) throw new LifecycleException("container already started");
         started = true;
+        StartupReport report = StartupReport.getDefault();
+        String component = StartupReport.nameOf(this);
+        long begin = System.nanoTime();
         lifecycleHelper.fireLifecycleEvent(Lifecycle.BEFORE_START_EVENT, null);
+        long phase = System.nanoTime();
         if (loader != null && (loader instanceof Lifecycle)) {
             ((Lifecycle) loader).start();
+            phase = report.record(component, "loader", phase);
         }
         Mapper[] mappers = findMappers();
         for (Mapper mapper : mappers) {
@@ -204,20 +214,22 @@ public abstract class VasBase implements Vas, Lifecycle, Channel {
                 }
             }
         }
-        // 激活此容器的容器
+        phase = report.record(component, "mappers", phase);
+        // 激活此容器的容器，兄弟之间互不依赖，并行启动；个别子容器失败不影响其余子容器
         Vas[] children = findChildren();
-        for (Vas child : children) {
-            if (child instanceof Lifecycle) {
-                try {
-                    ((Lifecycle) child).start();
-                } catch (LifecycleException e) {
-                    logger.error("start child failed", e);
-                }
-            }
+        try {
+            StartupExecutor.startAll(Arrays.asList(children), Vas::getName);
+        } catch (LifecycleException e) {
+            logger.error("start child failed : {}", e.getMessage());
+            for (Throwable cause : e.getSuppressed()) logger.error("start child failed", cause);
         }
+        if (children.length > 0) phase = report.record(component, "children", phase);
         if (channel instanceof Lifecycle) ((Lifecycle) channel).start();
+        phase = report.record(component, "channel", phase);
         lifecycleHelper.fireLifecycleEvent(Lifecycle.START_EVENT, null);
         lifecycleHelper.fireLifecycleEvent(Lifecycle.AFTER_START_EVENT, null);
+        report.record(component, "listeners", phase);
+        report.record(component, StartupReport.TOTAL, begin);
     }
 
     /**
@@ -258,22 +270,48 @@ public abstract class VasBase implements Vas, Lifecycle, Channel {
     //<editor-fold desc = "其他方法">
 
     /**
-     * 设定此容器的子容器
+     * 设定此容器的子容器。
+     * 子容器在锁外启动，多个兄弟容器可以并行启动；启动完成后才对外可见。
      */
     @Override
     public void addChild(Vas child) {
         synchronized (children) {
             if (children.containsKey(child.getName())) throw new IllegalArgumentException("child name already exists");
-            child.setParent(this);
-            if (started && child instanceof Lifecycle) {
-                try {
-                    ((Lifecycle) child).start();
-                } catch (LifecycleException e) {
-                    logger.error("start child failed", e);
-                    throw new RuntimeException(e);
-                }
+        }
+        child.setParent(this);
+        if (child instanceof Lifecycle) inheritLifecycleListeners((Lifecycle) child);
+        if (started && child instanceof Lifecycle) {
+            try {
+                ((Lifecycle) child).start();
+            } catch (LifecycleException e) {
+                logger.error("start child failed", e);
+                throw new RuntimeException(e);
+            }
+        }
+        synchronized (children) {
+            if (children.putIfAbsent(child.getName(), child) == null) return;
+        }
+        // 启动期间有同名子容器先加入
+        if (started && child instanceof Lifecycle) {
+            try {
+                ((Lifecycle) child).stop();
+            } catch (LifecycleException e) {
+                logger.error("stop child failed", e);
+            }
+        }
+        child.setParent(null);
+        throw new IllegalArgumentException("child name already exists");
+    }
+
+    /**
+     * 把此容器上可继承的生命周期监听器注册到子组件上，已注册过的不会重复添加
+     */
+    protected void inheritLifecycleListeners(Lifecycle target) {
+        List<LifecycleListener> existing = Arrays.asList(target.findLifecycleListener());
+        for (LifecycleListener listener : lifecycleHelper.findLifecycleListeners()) {
+            if (listener instanceof InheritableLifecycleListener && !existing.contains(listener)) {
+                target.addLifecycleListener(listener);
             }
-            children.put(child.getName(), child);
         }
     }
 
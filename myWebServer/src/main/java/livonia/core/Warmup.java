@@ -0,0 +1,229 @@
+package livonia.core;
+
+import livonia.base.Context;
+import livonia.base.Host;
+import livonia.base.Vas;
+import livonia.connector.http.HttpConnector;
+import livonia.connector.http.HttpProcessor;
+import livonia.log.BaseLogger;
+import livonia.resource.ResourceManager;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接器开始接收请求之前的预热阶段。
+ * <ol>
+ *     <li>并行预加载各 Context 中 WEB-INF/classes 与 WEB-INF/lib 的类</li>
+ *     <li>通过一个不启动线程的 {@link HttpProcessor} 在进程内回放请求，
+ *     经过完整的请求解析、{@link Vas#process} 管道与响应写出，直到 JIT 编译趋于平稳</li>
+ * </ol>
+ * 回放的请求每条为 {@code METHOD URI [HOST]}，以换行或分号分隔，# 开头为注释。
+ * 回放的请求与真实请求一样经过会话、访问日志、指标与响应缓存，也会执行 servlet 的副作用，
+ * 因此只回放显式配置的请求，未配置时只预加载类；应当只配置无副作用、不创建会话的请求。
+ */
+final class Warmup {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(Warmup.class);
+    static final int DEFAULT_MAX_ROUNDS = 200;
+    static final long DEFAULT_TIMEOUT = 30000L;
+    // 连续这么多轮的JIT编译耗时都低于阈值时视为平稳
+    private static final int SETTLED_ROUNDS = 3;
+    // 一轮回放中JIT编译耗时占比低于此值视为平稳
+    private static final double SETTLED_RATIO = 0.02;
+    private final Vas engine;
+    private final int maxRounds;
+    private final long timeout;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    Warmup(Vas engine, int maxRounds, long timeout) {
+        this.engine = engine;
+        this.maxRounds = maxRounds;
+        this.timeout = timeout;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "预加载类">
+
+    /**
+     * 用各 Context 自己的类加载器并行加载其全部类（不初始化）
+     *
+     * @return 成功加载的类数
+     */
+    int preloadClasses() {
+        record Task(ClassLoader loader, String className) {
+        }
+        List<Task> tasks = new ArrayList<>();
+        for (Context context : contexts()) {
+            ResourceManager resources = context.getResources();
+            if (resources == null || context.getLoader() == null) continue;
+            ClassLoader loader = context.getLoader().getClassLoader();
+            if (loader == null) continue;
+            for (String className : resources.listClassNames()) tasks.add(new Task(loader, className));
+        }
+        AtomicInteger loaded = new AtomicInteger();
+        tasks.parallelStream().forEach(task -> {
+            try {
+                Class.forName(task.className(), false, task.loader());
+                loaded.incrementAndGet();
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.debug("warmup : preload class {} failed : {}", task.className(), e.toString());
+            }
+        });
+        return loaded.get();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "回放请求">
+
+    /**
+     * 反复回放请求，直到JIT编译平稳、达到最大轮数或超时
+     *
+     * @param connector 回放请求所用的连接器，尚未开始接收请求
+     * @param samples   要回放的请求，为空时不回放
+     * @return 实际回放的轮数
+     */
+    int replay(HttpConnector connector, List<Sample> samples) {
+        if (samples.isEmpty()) return 0;
+        String defaultHost = engine instanceof DefaultEngine defaultEngine && defaultEngine.getDefaultHostName() != null
+                ? defaultEngine.getDefaultHostName() : "localhost";
+        List<byte[]> requests = samples.stream().map(sample -> sample.toBytes(defaultHost)).toList();
+        HttpProcessor processor = new HttpProcessor(connector, -1);
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean measurable = jit != null && jit.isCompilationTimeMonitoringSupported();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int rounds = 0;
+        int settled = 0;
+        // 管道会把线程上下文类加载器切换为应用的类加载器，回放结束后必须还给启动线程，
+        // 否则启动线程会一直持有该类加载器，重载后也无法回收
+        Thread thread = Thread.currentThread();
+        ClassLoader callerLoader = thread.getContextClassLoader();
+        try {
+            while (rounds < maxRounds && System.nanoTime() < deadline) {
+                long jitBefore = measurable ? jit.getTotalCompilationTime() : 0;
+                long start = System.nanoTime();
+                for (byte[] request : requests) processor.process(new WarmupSocket(request));
+                rounds++;
+                if (!measurable) continue;
+                long roundMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                long jitMillis = jit.getTotalCompilationTime() - jitBefore;
+                if (jitMillis <= Math.max(1, roundMillis * SETTLED_RATIO)) {
+                    if (++settled >= SETTLED_ROUNDS) break;
+                } else {
+                    settled = 0;
+                }
+            }
+        } finally {
+            thread.setContextClassLoader(callerLoader);
+        }
+        logger.info("warmup : replayed {} requests x {} rounds", requests.size(), rounds);
+        return rounds;
+    }
+
+    /**
+     * 解析配置中的请求，每条为 {@code METHOD URI [HOST]}
+     */
+    static List<Sample> parse(String text) {
+        List<Sample> samples = new ArrayList<>();
+        if (text == null) return samples;
+        for (String line : text.split("[;\\r\\n]+")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                logger.warn("warmup : ignore invalid request : {}", line);
+                continue;
+            }
+            samples.add(new Sample(parts[0], parts[1], parts.length > 2 ? parts[2] : null));
+        }
+        return samples;
+    }
+
+    private List<Context> contexts() {
+        List<Context> contexts = new ArrayList<>();
+        for (Vas host : engine.findChildren()) {
+            if (!(host instanceof Host)) continue;
+            for (Vas child : host.findChildren()) {
+                if (child instanceof Context context && isAvailable(context)) contexts.add(context);
+            }
+        }
+        return contexts;
+    }
+
+    private static boolean isAvailable(Context context) {
+        return !(context instanceof DefaultContext defaultContext) || defaultContext.getAvailable();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 一条回放请求
+     *
+     * @param host Host 请求头，为null时使用引擎的默认Host
+     */
+    record Sample(String method, String uri, String host) {
+        byte[] toBytes(String defaultHost) {
+            return (method + " " + uri + " HTTP/1.1\r\n"
+                    + "Host: " + (host != null ? host : defaultHost) + "\r\n"
+                    + "Connection: close\r\n"
+                    + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * 从内存读取请求、丢弃响应的套接字
+     */
+    private static final class WarmupSocket extends Socket {
+        private final InputStream in;
+        private final OutputStream out = OutputStream.nullOutputStream();
+
+        WarmupSocket(byte[] request) {
+            this.in = new ByteArrayInputStream(request);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return InetAddress.getLoopbackAddress();
+        }
+
+        @Override
+        public SocketAddress getRemoteSocketAddress() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        }
+
+        @Override
+        public void setSoTimeout(int timeout) {
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+        }
+    }
+    //</editor-fold>
+}
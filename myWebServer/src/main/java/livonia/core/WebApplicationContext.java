@@ -554,12 +554,12 @@ public class WebApplicationContext implements ServletContext {
 
     @Override
     public int getSessionTimeout() {
-        return 0;
+        return context.getSessionTimeout();
     }
 
     @Override
     public void setSessionTimeout(int sessionTimeout) {
-
+        context.setSessionTimeout(sessionTimeout);
     }
 
     @Override
@@ -2,25 +2,27 @@ package livonia.filter;
 
 import javax.servlet.*;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
+/**
+ * 按下标推进的过滤链。
+ * <p>
+ * 过滤器数组来自 {@link FilterChainTable}，由多个请求共享且只读；
+ * 链本身随 HttpRequest 复用，每次请求结束后调用 {@link #recycle()} 复位。
+ */
 public class ApplicationFilterChain implements FilterChain {
     //<editor-fold desc = "attr">
+    private static final ApplicationFilterConfig[] NO_FILTERS = new ApplicationFilterConfig[0];
     private Servlet servlet = null;
-    private Iterator<ApplicationFilterConfig> filterIterator = null;
-    private final List<ApplicationFilterConfig> filters = new ArrayList<>();
+    private ApplicationFilterConfig[] filters = NO_FILTERS;
+    // 下一个要执行的过滤器下标
+    private int pos = 0;
 
     //</editor-fold>
     //<editor-fold desc = "接口方法实现">
     @Override
     public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
-        if (filterIterator == null) {
-            filterIterator = filters.iterator();
-        }
-        if (filterIterator.hasNext()) {
-            ApplicationFilterConfig filterConfig = filterIterator.next();
+        if (pos < filters.length) {
+            ApplicationFilterConfig filterConfig = filters[pos++];
             Filter filter = filterConfig.getFilter();
             filter.doFilter(request, response, this);
         } else {
@@ -30,18 +32,19 @@ public class ApplicationFilterChain implements FilterChain {
 
     //</editor-fold>
     //<editor-fold desc = "其他方法">
-    public void addFilter(ApplicationFilterConfig filterConfig) {
-        this.filters.add(filterConfig);
+    public void setFilters(ApplicationFilterConfig[] filters) {
+        this.filters = filters;
+        this.pos = 0;
     }
 
     public void setServlet(Servlet servlet) {
         this.servlet = servlet;
     }
 
-    public void destroy() {
-        this.filters.clear();
+    public void recycle() {
+        this.filters = NO_FILTERS;
         this.servlet = null;
-        this.filterIterator = null;
+        this.pos = 0;
     }
     //</editor-fold>
 
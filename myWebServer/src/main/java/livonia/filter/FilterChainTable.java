@@ -0,0 +1,264 @@
+package livonia.filter;
+
+import livonia.base.Vas;
+import livonia.log.BaseLogger;
+import livonia.utils.Decoder;
+import org.slf4j.Logger;
+
+import javax.servlet.FilterConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static livonia.base.Const.CharPunctuationMarks.CHAR_SOLIDUS;
+
+/**
+ * 由 Context 的过滤器映射编译得到的只读过滤链表。
+ * <p>
+ * URL 模式的过滤器按种类（{@code /*}、精确、前缀、扩展名）预先拆解，一个请求路径命中了哪些
+ * URL 过滤器用一个位掩码表示，即该路径的“URL 模式类别”。每个 Endpoint 持有：
+ * <ul>
+ *     <li>按 servlet 名称映射的过滤器，编译时确定</li>
+ *     <li>若 URL 过滤器全部为 {@code /*}，则与路径无关的完整过滤链也在编译时确定</li>
+ *     <li>否则按掩码缓存已合并好的过滤链，缓存有上限，超出后直接合并不再缓存</li>
+ * </ul>
+ * 过滤链中的顺序与原先一致：先是按 URL 匹配的过滤器，再是按 servlet 名称匹配的过滤器，各自保持
+ * web.xml 中的声明顺序。返回的数组由多个请求共享，调用方不得修改。
+ * 过滤器映射、过滤器配置或子容器变化时由 Context 丢弃旧表并重新编译。
+ */
+public final class FilterChainTable {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(FilterChainTable.class);
+    private static final ApplicationFilterConfig[] NO_FILTERS = new ApplicationFilterConfig[0];
+    // 掩码最多表示的URL过滤器数量，超过时不缓存
+    private static final int MAX_MASK_FILTERS = Long.SIZE;
+    // 每个Endpoint最多缓存的URL模式类别数
+    static final int MAX_CACHED_CLASSES = 64;
+    private final UrlFilter[] urlFilters;
+    // 所有URL过滤器都匹配任意路径
+    private final boolean pathIndependent;
+    private final Map<String, EndpointFilters> endpoints;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private FilterChainTable(UrlFilter[] urlFilters, Map<String, EndpointFilters> endpoints) {
+        this.urlFilters = urlFilters;
+        this.endpoints = endpoints;
+        boolean all = true;
+        for (UrlFilter urlFilter : urlFilters) {
+            if (urlFilter.kind != Kind.ALL) {
+                all = false;
+                break;
+            }
+        }
+        this.pathIndependent = all;
+        if (pathIndependent) {
+            for (EndpointFilters filters : endpoints.values()) {
+                filters.pathIndependentChain = merge(allMask(), filters.servletFilters);
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "编译">
+
+    /**
+     * 编译过滤链表
+     *
+     * @param filterMaps 过滤器映射，按声明顺序
+     * @param configs    按过滤器名称查找已创建的过滤器配置
+     * @param children   Context 的全部 Endpoint
+     * @return 编译后的过滤链表
+     */
+    public static FilterChainTable compile(FilterMap[] filterMaps, Function<String, FilterConfig> configs,
+                                           Vas[] children) {
+        List<UrlFilter> urlFilters = new ArrayList<>();
+        List<FilterMap> servletMaps = new ArrayList<>();
+        for (FilterMap filterMap : filterMaps) {
+            ApplicationFilterConfig config = (ApplicationFilterConfig) configs.apply(filterMap.getFilterName());
+            if (config == null) {
+                logger.warn("FilterChainTable : no filter config : {} ，something may went wrong when server starting",
+                        filterMap.getFilterName());
+                continue;
+            }
+            if (filterMap.getUrlPattern() != null) {
+                urlFilters.add(UrlFilter.of(filterMap.getUrlPattern(), config));
+            } else if (filterMap.getServletName() != null) {
+                servletMaps.add(filterMap);
+            }
+        }
+        Map<String, EndpointFilters> endpoints = new HashMap<>();
+        for (Vas child : children) {
+            endpoints.put(child.getName(), new EndpointFilters(servletFilters(servletMaps, configs, child.getName())));
+        }
+        return new FilterChainTable(urlFilters.toArray(new UrlFilter[0]), endpoints);
+    }
+
+    private static ApplicationFilterConfig[] servletFilters(List<FilterMap> servletMaps,
+                                                            Function<String, FilterConfig> configs,
+                                                            String servletName) {
+        List<ApplicationFilterConfig> result = new ArrayList<>();
+        for (FilterMap filterMap : servletMaps) {
+            if (filterMap.getServletName().equals(servletName)) {
+                result.add((ApplicationFilterConfig) configs.apply(filterMap.getFilterName()));
+            }
+        }
+        return result.isEmpty() ? NO_FILTERS : result.toArray(NO_FILTERS);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "查找">
+
+    /**
+     * 取得请求应经过的过滤器
+     *
+     * @param servletName       处理请求的 Endpoint 名称
+     * @param requestURI        未解码的请求URI
+     * @param contextPathLength 上下文路径的长度
+     * @return 按执行顺序排列的过滤器，调用方不得修改
+     */
+    public ApplicationFilterConfig[] resolve(String servletName, String requestURI, int contextPathLength) {
+        EndpointFilters filters = endpoints.get(servletName);
+        if (filters == null) return NO_FILTERS;
+        if (pathIndependent) return filters.pathIndependentChain;
+
+        // 路径中没有需要解码的字符时 decode 返回原字符串
+        String path = Decoder.decode(requestURI);
+        if (urlFilters.length > MAX_MASK_FILTERS) return mergeMatching(path, contextPathLength, filters);
+        long mask = match(path, contextPathLength);
+        ApplicationFilterConfig[] chain = filters.cached(mask);
+        if (chain == null) {
+            chain = merge(mask, filters.servletFilters);
+            filters.cache(mask, chain);
+        }
+        return chain;
+    }
+
+    // 计算路径命中的URL过滤器掩码
+    private long match(String path, int from) {
+        if (path.length() < from) return 0L;
+        long mask = 0L;
+        for (int i = 0; i < urlFilters.length; i++) {
+            if (urlFilters[i].matches(path, from)) mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    private long allMask() {
+        return urlFilters.length >= Long.SIZE ? -1L : (1L << urlFilters.length) - 1;
+    }
+
+    private ApplicationFilterConfig[] merge(long mask, ApplicationFilterConfig[] servletFilters) {
+        int count = Long.bitCount(mask & allMask());
+        if (count == 0) return servletFilters;
+        ApplicationFilterConfig[] chain = new ApplicationFilterConfig[count + servletFilters.length];
+        int n = 0;
+        for (int i = 0; i < urlFilters.length && i < Long.SIZE; i++) {
+            if ((mask & (1L << i)) != 0) chain[n++] = urlFilters[i].config;
+        }
+        System.arraycopy(servletFilters, 0, chain, n, servletFilters.length);
+        return chain;
+    }
+
+    // URL过滤器过多无法用掩码表示时，逐个匹配并合并
+    private ApplicationFilterConfig[] mergeMatching(String path, int from, EndpointFilters filters) {
+        List<ApplicationFilterConfig> chain = new ArrayList<>();
+        if (path.length() >= from) {
+            for (UrlFilter urlFilter : urlFilters) {
+                if (urlFilter.matches(path, from)) chain.add(urlFilter.config);
+            }
+        }
+        if (chain.isEmpty()) return filters.servletFilters;
+        chain.addAll(List.of(filters.servletFilters));
+        return chain.toArray(NO_FILTERS);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+    private enum Kind {
+        ALL,
+        EXACT,
+        PREFIX,
+        EXTENSION
+    }
+
+    /**
+     * 一个按 URL 模式映射的过滤器，模式在编译时拆解
+     */
+    private record UrlFilter(Kind kind, String value, ApplicationFilterConfig config) {
+
+        static UrlFilter of(String pattern, ApplicationFilterConfig config) {
+            if (pattern.equals("/*")) return new UrlFilter(Kind.ALL, pattern, config);
+            if (pattern.endsWith("/*")) {
+                return new UrlFilter(Kind.PREFIX, pattern.substring(0, pattern.length() - 2), config);
+            }
+            if (pattern.startsWith("*.")) return new UrlFilter(Kind.EXTENSION, pattern.substring(2), config);
+            return new UrlFilter(Kind.EXACT, pattern, config);
+        }
+
+        /**
+         * 判断 {@code path[from, length)} 是否与模式匹配
+         */
+        boolean matches(String path, int from) {
+            int length = path.length() - from;
+            return switch (kind) {
+                case ALL -> true;
+                case EXACT -> length == value.length() && path.regionMatches(from, value, 0, length);
+                // 前缀只在路径段边界上成立，/api/* 匹配 /api 与 /api/x，不匹配 /apix
+                case PREFIX -> length >= value.length()
+                        && path.regionMatches(from, value, 0, value.length())
+                        && (length == value.length() || path.charAt(from + value.length()) == CHAR_SOLIDUS);
+                case EXTENSION -> {
+                    int slash = path.lastIndexOf(CHAR_SOLIDUS);
+                    int dot = path.lastIndexOf('.');
+                    yield slash >= from && dot > slash && path.length() - dot - 1 == value.length()
+                            && path.regionMatches(dot + 1, value, 0, value.length());
+                }
+            };
+        }
+    }
+
+    /**
+     * 单个 Endpoint 的过滤器，以及按 URL 模式类别缓存的过滤链。
+     * 缓存以写时复制的数组保存，读取无需加锁，写入只在未命中时发生。
+     */
+    private static final class EndpointFilters {
+        final ApplicationFilterConfig[] servletFilters;
+        ApplicationFilterConfig[] pathIndependentChain;
+        private volatile Cached cached = new Cached(new long[0], new ApplicationFilterConfig[0][]);
+
+        EndpointFilters(ApplicationFilterConfig[] servletFilters) {
+            this.servletFilters = servletFilters;
+        }
+
+        ApplicationFilterConfig[] cached(long mask) {
+            Cached current = cached;
+            long[] masks = current.masks;
+            for (int i = 0; i < masks.length; i++) {
+                if (masks[i] == mask) return current.chains[i];
+            }
+            return null;
+        }
+
+        synchronized void cache(long mask, ApplicationFilterConfig[] chain) {
+            Cached current = cached;
+            int size = current.masks.length;
+            if (size >= MAX_CACHED_CLASSES) return;
+            for (long existing : current.masks) {
+                if (existing == mask) return;
+            }
+            long[] masks = Arrays.copyOf(current.masks, size + 1);
+            ApplicationFilterConfig[][] chains = Arrays.copyOf(current.chains, size + 1);
+            masks[size] = mask;
+            chains[size] = chain;
+            cached = new Cached(masks, chains);
+        }
+
+        private record Cached(long[] masks, ApplicationFilterConfig[][] chains) {
+        }
+    }
+    //</editor-fold>
+}
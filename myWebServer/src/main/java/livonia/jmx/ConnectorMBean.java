@@ -0,0 +1,38 @@
+package livonia.jmx;
+
+/**
+ * HttpConnector 的管理接口，超时、解析器数量上限与追踪采样率可在运行中调整
+ */
+public interface ConnectorMBean {
+    int getPort();
+
+    String getScheme();
+
+    String getProtocol();
+
+    int getConnectionTimeOut();
+
+    void setConnectionTimeOut(int connectionTimeOut);
+
+    int getMinProcessors();
+
+    int getMaxProcessors();
+
+    void setMaxProcessors(int maxProcessors);
+
+    int getCurrentProcessors();
+
+    int getBusyProcessors();
+
+    long getActiveConnections();
+
+    long getErrors();
+
+    boolean isAllowChunking();
+
+    void setAllowChunking(boolean allowChunking);
+
+    int getTraceSampleRate();
+
+    void setTraceSampleRate(int traceSampleRate);
+}
@@ -0,0 +1,61 @@
+package livonia.jmx;
+
+/**
+ * Context 的管理接口
+ */
+public interface ContextMBean {
+    String getName();
+
+    String getPath();
+
+    String getBasePath();
+
+    boolean isAvailable();
+
+    boolean isPaused();
+
+    String[] getEndpointNames();
+
+    /**
+     * 当前存活的会话数，会话管理器未启动时为0
+     */
+    int getActiveSessions();
+
+    long getSessionsCreated();
+
+    long getSessionsExpired();
+
+    /**
+     * 当前钝化在工作目录中的会话数
+     */
+    int getPassivatedSessions();
+
+    /**
+     * 重载整个应用
+     */
+    void reload();
+
+    /**
+     * 暂停受理请求，期间的请求返回503
+     */
+    void pause();
+
+    /**
+     * 恢复受理请求
+     */
+    void resume();
+
+    /**
+     * 通道上响应缓存的命中数，未安装 CacheCheckpoint 时为0
+     */
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /**
+     * 清除URI以给定前缀开头的缓存条目
+     *
+     * @return 清除的条目数
+     */
+    int purgeCache(String prefix);
+}
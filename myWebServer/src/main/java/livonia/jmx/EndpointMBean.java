@@ -0,0 +1,22 @@
+package livonia.jmx;
+
+/**
+ * Endpoint（servlet）的管理接口
+ */
+public interface EndpointMBean {
+    String getName();
+
+    String getServletClass();
+
+    /**
+     * 当前正在使用servlet实例的请求数
+     */
+    int getCount();
+
+    boolean isUnavailable();
+
+    /**
+     * 卸载servlet实例，下一个请求到来时重新加载
+     */
+    void unload() throws Exception;
+}
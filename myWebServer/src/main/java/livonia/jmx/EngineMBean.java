@@ -0,0 +1,12 @@
+package livonia.jmx;
+
+/**
+ * Engine 的管理接口
+ */
+public interface EngineMBean {
+    String getName();
+
+    String getDefaultHostName();
+
+    String[] getHostNames();
+}
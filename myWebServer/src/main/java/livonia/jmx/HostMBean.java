@@ -0,0 +1,47 @@
+package livonia.jmx;
+
+/**
+ * Host 的管理接口
+ */
+public interface HostMBean {
+    String getName();
+
+    String getAppBase();
+
+    boolean isAutoDeploy();
+
+    /**
+     * 仅在Host下次启动时生效
+     */
+    void setAutoDeploy(boolean autoDeploy);
+
+    String[] getContextPaths();
+
+    /**
+     * 会话复制发送的字节数，未启用复制时为0
+     */
+    long getReplicationBytesSent();
+
+    long getReplicationBytesReceived();
+
+    int getReplicationConnectedPeers();
+
+    /**
+     * 复制延迟的第99百分位（毫秒）
+     */
+    long getReplicationLagP99();
+
+    /**
+     * 通道上响应缓存的命中数，未安装 CacheCheckpoint 时为0
+     */
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /**
+     * 清除URI以给定前缀开头的缓存条目
+     *
+     * @return 清除的条目数
+     */
+    int purgeCache(String prefix);
+}
@@ -0,0 +1,17 @@
+package livonia.jmx;
+
+/**
+ * WebAppLoader 的管理接口
+ */
+public interface LoaderMBean {
+    boolean isReloadable();
+
+    void setReloadable(boolean reloadable);
+
+    boolean isDelegate();
+
+    /**
+     * 立即检查应用的类与jar是否被修改
+     */
+    boolean modified();
+}
@@ -0,0 +1,119 @@
+package livonia.jmx;
+
+import livonia.base.Connector;
+import livonia.base.Server;
+import livonia.base.Service;
+import livonia.base.Vas;
+import livonia.lifecycle.InheritableLifecycleListener;
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleEvent;
+import livonia.lifecycle.LifecycleListener;
+import livonia.log.BaseLogger;
+import org.slf4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static livonia.lifecycle.Lifecycle.*;
+
+/**
+ * 通过生命周期事件注册与注销 MBean 的监听器。
+ * <p>
+ * 只需注册到 Server 上：每个组件触发 {@code before_start} 时，监听器把自身注册到其子组件
+ * （Service、Connector、子容器）上，之后启动时触发的 {@code start} 注册 MBean，{@code stop} 注销 MBean。
+ * 容器启动后动态加入的子容器与加载器通过 {@link InheritableLifecycleListener} 自动继承本监听器。
+ */
+public final class MBeanLifecycleListener implements InheritableLifecycleListener {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(MBeanLifecycleListener.class);
+    private final MBeanServer mBeanServer;
+    // 已注册的组件与其ObjectName
+    private final Map<Lifecycle, ObjectName> registered = new ConcurrentHashMap<>();
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    public MBeanLifecycleListener() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public MBeanLifecycleListener(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "接口实现">
+    @Override
+    public void lifecycleEvent(LifecycleEvent event) {
+        Lifecycle lifecycle = event.getLifecycle();
+        switch (event.getType()) {
+            case BEFORE_START_EVENT -> attachToChildren(lifecycle);
+            case START_EVENT -> register(lifecycle);
+            case STOP_EVENT -> unregister(lifecycle);
+            default -> {
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "向下传播">
+    private void attachToChildren(Lifecycle lifecycle) {
+        switch (lifecycle) {
+            case Server server -> Arrays.stream(server.findServices()).forEach(this::attach);
+            case Service service -> {
+                attach(service.getVas());
+                for (Connector connector : service.findConnectors()) attach(connector);
+            }
+            case Vas vas -> Arrays.stream(vas.findChildren()).forEach(this::attach);
+            default -> {
+            }
+        }
+    }
+
+    private void attach(Object component) {
+        if (!(component instanceof Lifecycle lifecycle)) return;
+        for (LifecycleListener listener : lifecycle.findLifecycleListener()) {
+            if (listener == this) return;
+        }
+        lifecycle.addLifecycleListener(this);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "注册与注销">
+    private void register(Lifecycle component) {
+        try {
+            ObjectName name = MBeans.objectName(component);
+            Object mBean = MBeans.create(component);
+            if (name == null || mBean == null) return;
+            try {
+                mBeanServer.registerMBean(mBean, name);
+            } catch (InstanceAlreadyExistsException e) {
+                // 同名组件被替换（例如重新部署）时以新组件为准
+                mBeanServer.unregisterMBean(name);
+                mBeanServer.registerMBean(mBean, name);
+            }
+            registered.put(component, name);
+            logger.debug("registered MBean : {}", name);
+        } catch (Exception e) {
+            logger.warn("register MBean for {} failed", component, e);
+        }
+    }
+
+    private void unregister(Lifecycle component) {
+        ObjectName name = registered.remove(component);
+        if (name == null) return;
+        // 同名的新组件已接管该名称（例如蓝绿重载后停止旧Context），保留新组件的MBean
+        if (registered.containsValue(name)) return;
+        try {
+            if (mBeanServer.isRegistered(name)) mBeanServer.unregisterMBean(name);
+            logger.debug("unregistered MBean : {}", name);
+        } catch (Exception e) {
+            logger.warn("unregister MBean : {} failed", name, e);
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,454 @@
+package livonia.jmx;
+
+import livonia.base.Channel;
+import livonia.base.Checkpoint;
+import livonia.base.Connector;
+import livonia.base.Service;
+import livonia.base.Vas;
+import livonia.checkpoints.CacheCheckpoint;
+import livonia.connector.http.HttpConnector;
+import livonia.core.*;
+import livonia.loader.WebAppLoader;
+import livonia.metrics.ConnectorMetrics;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.util.Arrays;
+
+/**
+ * 为各生命周期组件创建 MBean 与 ObjectName。
+ * <p>
+ * MBean 只是对组件的一层薄包装，属性读取与操作都直接委托给组件本身，
+ * 因此通过 JConsole 修改的值与 server.xml 中配置的属性是同一份。
+ * <pre>
+ * Livonia:type=Server
+ * Livonia:type=Service,name=testService
+ * Livonia:type=Connector,port=8080
+ * Livonia:type=Engine,name=testEngine
+ * Livonia:type=Host,host=localhost
+ * Livonia:type=Context,host=localhost,path=/app1
+ * Livonia:type=Endpoint,host=localhost,context=/app1,name=hello
+ * Livonia:type=Loader,host=localhost,context=/app1
+ * </pre>
+ */
+final class MBeans {
+    //<editor-fold desc = "attr">
+    static final String DOMAIN = "Livonia";
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private MBeans() {
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "ObjectName">
+
+    /**
+     * 取得组件的 ObjectName，不支持的组件或尚未挂到容器树上的组件返回null
+     */
+    static ObjectName objectName(Object component) throws MalformedObjectNameException {
+        String props = switch (component) {
+            case DefaultServer server -> "type=Server";
+            case Service service -> "type=Service,name=" + quote(service.getName());
+            case HttpConnector connector -> "type=Connector,port=" + connector.getPort();
+            case DefaultEngine engine -> "type=Engine,name=" + quote(engine.getName());
+            case DefaultHost host -> "type=Host,host=" + quote(host.getName());
+            case DefaultContext context -> context.getParent() == null ? null
+                    : "type=Context,host=" + quote(context.getParent().getName()) + ",path=" + quote(context.getPath());
+            case DefaultEndpoint endpoint -> {
+                Vas context = endpoint.getParent();
+                if (!(context instanceof DefaultContext) || context.getParent() == null) yield null;
+                yield "type=Endpoint,host=" + quote(context.getParent().getName())
+                        + ",context=" + quote(((DefaultContext) context).getPath())
+                        + ",name=" + quote(endpoint.getName());
+            }
+            case WebAppLoader loader -> {
+                if (loader.getContext() == null || loader.getContext().getParent() == null) yield null;
+                yield "type=Loader,host=" + quote(loader.getContext().getParent().getName())
+                        + ",context=" + quote(loader.getContext().getPath());
+            }
+            default -> null;
+        };
+        return props == null ? null : new ObjectName(DOMAIN + ":" + props);
+    }
+
+    // 含有ObjectName保留字符时加引号
+    private static String quote(String value) {
+        if (value == null || value.isEmpty()) return "\"\"";
+        for (int i = 0; i < value.length(); i++) {
+            if (",=:\"*?\n".indexOf(value.charAt(i)) >= 0) return ObjectName.quote(value);
+        }
+        return value;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "MBean">
+
+    /**
+     * 为组件创建 MBean，不支持的组件返回null
+     */
+    static Object create(Object component) throws NotCompliantMBeanException {
+        return switch (component) {
+            case DefaultServer server -> new StandardMBean(new ServerView(server), ServerMBean.class);
+            case Service service -> new StandardMBean(new ServiceView(service), ServiceMBean.class);
+            case HttpConnector connector -> new StandardMBean(new ConnectorView(connector), ConnectorMBean.class);
+            case DefaultEngine engine -> new StandardMBean(new EngineView(engine), EngineMBean.class);
+            case DefaultHost host -> new StandardMBean(new HostView(host), HostMBean.class);
+            case DefaultContext context -> new StandardMBean(new ContextView(context), ContextMBean.class);
+            case DefaultEndpoint endpoint -> new StandardMBean(new EndpointView(endpoint), EndpointMBean.class);
+            case WebAppLoader loader -> new StandardMBean(new LoaderView(loader), LoaderMBean.class);
+            default -> null;
+        };
+    }
+
+    private static String[] names(Vas[] children) {
+        return Arrays.stream(children).map(Vas::getName).sorted().toArray(String[]::new);
+    }
+
+    // 通道上的第一个响应缓存检查点
+    private static CacheCheckpoint cacheOf(Channel channel) {
+        for (Checkpoint checkpoint : channel.getCheckpoints()) {
+            if (checkpoint instanceof CacheCheckpoint cache) return cache;
+        }
+        return null;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+    private record ServerView(DefaultServer server) implements ServerMBean {
+        @Override
+        public String getInfo() {
+            return server.getInfo();
+        }
+
+        @Override
+        public int getShutdownPort() {
+            return server.getShutdownPort();
+        }
+
+        @Override
+        public String[] getServiceNames() {
+            return Arrays.stream(server.findServices()).map(Service::getName).toArray(String[]::new);
+        }
+    }
+
+    private record ServiceView(Service service) implements ServiceMBean {
+        @Override
+        public String getName() {
+            return service.getName();
+        }
+
+        @Override
+        public String getEngineName() {
+            return service.getVas() == null ? null : service.getVas().getName();
+        }
+
+        @Override
+        public int[] getConnectorPorts() {
+            return Arrays.stream(service.findConnectors()).mapToInt(Connector::getPort).toArray();
+        }
+    }
+
+    private record ConnectorView(HttpConnector connector) implements ConnectorMBean {
+        @Override
+        public int getPort() {
+            return connector.getPort();
+        }
+
+        @Override
+        public String getScheme() {
+            return connector.getScheme();
+        }
+
+        @Override
+        public String getProtocol() {
+            return connector.getProtocol();
+        }
+
+        @Override
+        public int getConnectionTimeOut() {
+            return connector.getConnectionTimeOut();
+        }
+
+        @Override
+        public void setConnectionTimeOut(int connectionTimeOut) {
+            connector.setConnectionTimeOut(connectionTimeOut);
+        }
+
+        @Override
+        public int getMinProcessors() {
+            return connector.getMinProcessors();
+        }
+
+        @Override
+        public int getMaxProcessors() {
+            return connector.getMaxProcessors();
+        }
+
+        @Override
+        public void setMaxProcessors(int maxProcessors) {
+            connector.setMaxProcessors(maxProcessors);
+        }
+
+        @Override
+        public int getCurrentProcessors() {
+            return connector.getCurrentProcessors();
+        }
+
+        @Override
+        public int getBusyProcessors() {
+            return connector.getBusyProcessors();
+        }
+
+        @Override
+        public long getActiveConnections() {
+            ConnectorMetrics metrics = connector.getMetrics();
+            return metrics == null ? 0 : metrics.getActiveConnections();
+        }
+
+        @Override
+        public long getErrors() {
+            ConnectorMetrics metrics = connector.getMetrics();
+            return metrics == null ? 0 : metrics.getErrors();
+        }
+
+        @Override
+        public boolean isAllowChunking() {
+            return connector.isAllowChunking();
+        }
+
+        @Override
+        public void setAllowChunking(boolean allowChunking) {
+            connector.setAllowChunking(allowChunking);
+        }
+
+        @Override
+        public int getTraceSampleRate() {
+            return connector.getTraceSampleRate();
+        }
+
+        @Override
+        public void setTraceSampleRate(int traceSampleRate) {
+            connector.setTraceSampleRate(traceSampleRate);
+        }
+    }
+
+    private record EngineView(DefaultEngine engine) implements EngineMBean {
+        @Override
+        public String getName() {
+            return engine.getName();
+        }
+
+        @Override
+        public String getDefaultHostName() {
+            return engine.getDefaultHostName();
+        }
+
+        @Override
+        public String[] getHostNames() {
+            return names(engine.findChildren());
+        }
+    }
+
+    private record HostView(DefaultHost host) implements HostMBean {
+        @Override
+        public String getName() {
+            return host.getName();
+        }
+
+        @Override
+        public String getAppBase() {
+            return host.getAppBase();
+        }
+
+        @Override
+        public boolean isAutoDeploy() {
+            return host.isAutoDeploy();
+        }
+
+        @Override
+        public void setAutoDeploy(boolean autoDeploy) {
+            host.setAutoDeploy(autoDeploy);
+        }
+
+        @Override
+        public String[] getContextPaths() {
+            return names(host.findChildren());
+        }
+
+        @Override
+        public long getReplicationBytesSent() {
+            return host.getReplicator() == null ? 0 : host.getReplicator().getBytesSent();
+        }
+
+        @Override
+        public long getReplicationBytesReceived() {
+            return host.getReplicator() == null ? 0 : host.getReplicator().getBytesReceived();
+        }
+
+        @Override
+        public int getReplicationConnectedPeers() {
+            return host.getReplicator() == null ? 0 : host.getReplicator().getConnectedPeers();
+        }
+
+        @Override
+        public long getReplicationLagP99() {
+            return host.getReplicator() == null ? 0 : host.getReplicator().getLagMillis(99);
+        }
+
+        @Override
+        public long getCacheHits() {
+            CacheCheckpoint cache = cacheOf(host);
+            return cache == null ? 0 : cache.getHits();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            CacheCheckpoint cache = cacheOf(host);
+            return cache == null ? 0 : cache.getMisses();
+        }
+
+        @Override
+        public int purgeCache(String prefix) {
+            CacheCheckpoint cache = cacheOf(host);
+            return cache == null ? 0 : cache.purge(prefix);
+        }
+    }
+
+    private record ContextView(DefaultContext context) implements ContextMBean {
+        @Override
+        public String getName() {
+            return context.getName();
+        }
+
+        @Override
+        public String getPath() {
+            return context.getPath();
+        }
+
+        @Override
+        public String getBasePath() {
+            return context.getBasePath();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return context.getAvailable();
+        }
+
+        @Override
+        public boolean isPaused() {
+            return context.isPaused();
+        }
+
+        @Override
+        public int getActiveSessions() {
+            return context.getManager() == null ? 0 : context.getManager().getActiveSessions();
+        }
+
+        @Override
+        public long getSessionsCreated() {
+            return context.getManager() == null ? 0 : context.getManager().getSessionsCreated();
+        }
+
+        @Override
+        public long getSessionsExpired() {
+            return context.getManager() == null ? 0 : context.getManager().getSessionsExpired();
+        }
+
+        @Override
+        public int getPassivatedSessions() {
+            return context.getManager() == null ? 0 : context.getManager().getPassivatedSessions();
+        }
+
+        @Override
+        public String[] getEndpointNames() {
+            return names(context.findChildren());
+        }
+
+        @Override
+        public void reload() {
+            context.reload();
+        }
+
+        @Override
+        public void pause() {
+            context.setPaused(true);
+        }
+
+        @Override
+        public void resume() {
+            context.setPaused(false);
+        }
+
+        @Override
+        public long getCacheHits() {
+            CacheCheckpoint cache = cacheOf(context);
+            return cache == null ? 0 : cache.getHits();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            CacheCheckpoint cache = cacheOf(context);
+            return cache == null ? 0 : cache.getMisses();
+        }
+
+        @Override
+        public int purgeCache(String prefix) {
+            CacheCheckpoint cache = cacheOf(context);
+            return cache == null ? 0 : cache.purge(prefix);
+        }
+    }
+
+    private record EndpointView(DefaultEndpoint endpoint) implements EndpointMBean {
+        @Override
+        public String getName() {
+            return endpoint.getName();
+        }
+
+        @Override
+        public String getServletClass() {
+            return endpoint.getServletClass();
+        }
+
+        @Override
+        public int getCount() {
+            return endpoint.getCount();
+        }
+
+        @Override
+        public boolean isUnavailable() {
+            return endpoint.isUnavailable();
+        }
+
+        @Override
+        public void unload() throws Exception {
+            endpoint.unload();
+        }
+    }
+
+    private record LoaderView(WebAppLoader loader) implements LoaderMBean {
+        @Override
+        public boolean isReloadable() {
+            return loader.getReloadable();
+        }
+
+        @Override
+        public void setReloadable(boolean reloadable) {
+            loader.setReloadable(reloadable);
+        }
+
+        @Override
+        public boolean isDelegate() {
+            return loader.getDelegate();
+        }
+
+        @Override
+        public boolean modified() {
+            return loader.modified();
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,12 @@
+package livonia.jmx;
+
+/**
+ * Server 的管理接口
+ */
+public interface ServerMBean {
+    String getInfo();
+
+    int getShutdownPort();
+
+    String[] getServiceNames();
+}
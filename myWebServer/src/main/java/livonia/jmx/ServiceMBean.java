@@ -0,0 +1,12 @@
+package livonia.jmx;
+
+/**
+ * Service 的管理接口
+ */
+public interface ServiceMBean {
+    String getName();
+
+    String getEngineName();
+
+    int[] getConnectorPorts();
+}
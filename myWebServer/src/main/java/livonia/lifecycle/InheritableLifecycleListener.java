@@ -0,0 +1,13 @@
+package livonia.lifecycle;
+
+/**
+ * 可被子组件继承的生命周期监听器。
+ * <p>
+ * 容器在添加子容器或设置加载器时，会把自身持有的此类监听器一并注册到新组件上，
+ * 这样即使子组件是在父容器启动之后动态加入的（例如自动部署的应用），
+ * 监听器也能收到它的生命周期事件。
+ *
+ * @author LILINJIAN
+ */
+public interface InheritableLifecycleListener extends LifecycleListener {
+}
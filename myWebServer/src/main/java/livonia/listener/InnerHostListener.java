@@ -3,20 +3,27 @@ package livonia.listener;
 import livonia.base.Const;
 import livonia.base.Context;
 import livonia.base.Host;
+import livonia.core.DefaultHost;
 import livonia.lifecycle.LifecycleEvent;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
 import livonia.resource.LocalResource;
 import livonia.resource.ResourceManager;
+import livonia.utils.FileWatch;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.nio.file.StandardWatchEventKinds.*;
 import static livonia.base.Const.commonCharacters.EMPTY;
 import static livonia.base.Const.commonCharacters.SOLIDUS;
 import static livonia.base.Const.confInfo.CORE_DIR;
@@ -26,7 +33,10 @@ import static livonia.lifecycle.Lifecycle.START_EVENT;
 import static livonia.lifecycle.Lifecycle.STOP_EVENT;
 
 /**
- * 一个<code>Host</code>的生命周期监听器，用于监听启动和关闭<code>Host</code>容器的事件并调用相应的生命周期方法
+ * 一个<code>Host</code>的生命周期监听器，用于监听启动和关闭<code>Host</code>容器的事件并调用相应的生命周期方法。
+ * <p>
+ * 启动时把 appBase 下的 webApp 交给有界线程池并行部署；之后监视 appBase 与各应用的 WEB-INF，
+ * 按目录的增删与 web.xml 的修改部署、卸载或重载应用。文件系统不支持变更通知时退回定期扫描。
  */
 public final class InnerHostListener implements LifecycleListener, Runnable {
     //<editor-fold desc = "attr">
@@ -35,10 +45,14 @@ public final class InnerHostListener implements LifecycleListener, Runnable {
     private final String innerContextListener = "livonia.listener.InnerContextListener";
     // context class
     private final String contextClass = "livonia.core.DefaultContext";
-    // 检查周期
+    // 检查周期，仅在无法使用文件系统通知时轮询
     private final int checkCycle = 10000;
-    // 所有已部署的webApp
-    private final ArrayList<String> deployedApps = new ArrayList<>();
+    // 去抖时长：最后一次变更事件之后静默这么久才处理
+    private final long debouncePeriod = 500L;
+    // 并行部署的线程数上限
+    private final int deployThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // 所有已部署的webApp：目录名 -> context路径
+    private final HashMap<String, String> deployedApps = new HashMap<>();
     // webXML更新映射
     private final HashMap<String, Long> webXmlUpdateMapping = new HashMap<>();
     // 线程名
@@ -47,8 +61,12 @@ public final class InnerHostListener implements LifecycleListener, Runnable {
     private Host host = null;
     // 线程
     private Thread thread = null;
+    // 文件系统监视服务，为null时定期扫描
+    private WatchService watchService = null;
+    // 被监视的目录
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
     // 线程是否完成标志位
-    private boolean isThreadDone = false;
+    private volatile boolean isThreadDone = false;
     //</editor-fold>
     //<editor-fold desc = "接口实现">
 
@@ -63,14 +81,22 @@ public final class InnerHostListener implements LifecycleListener, Runnable {
     //<editor-fold desc = "被生命周期触发的方法">
     private void start() {
         logger.info("InnerHostListener : host start");
+        threadName = "InnerHostListener[" + host.getName() + "]";
         deployApps();
+        // 关闭自动部署时只在启动时部署一次，不启动检测线程：appBase 的增删与 web.xml 的修改都不再被感知，
+        // 需要重启 Host 才能生效；该开关仅在 Host 启动时读取
+        if (host instanceof DefaultHost defaultHost && !defaultHost.isAutoDeploy()) {
+            logger.info("InnerHostListener : autoDeploy disabled, {} will not watch for changes", host.getName());
+            return;
+        }
         threadStart();
     }
 
     private void stop() {
         threadStop();
         undeployApps();
-
+        deployedApps.clear();
+        webXmlUpdateMapping.clear();
     }
 
     //</editor-fold>
@@ -86,121 +112,160 @@ public final class InnerHostListener implements LifecycleListener, Runnable {
         return path;
     }
 
-    // 部署webApp
+    // 部署appBase下所有尚未部署的webApp
     private void deployApps() {
         logger.debug("InnerHostListener ：try to deploy apps");
         // 获取Host的应用基础目录
         Path appBase = appBase();
         logger.debug("InnerHostListener : appBase is {}", appBase);
-        
+
         // 检查appBase目录是否存在且为目录
-        if (!appBase.toFile().exists() || !appBase.toFile().isDirectory()) {
+        if (!Files.isDirectory(appBase)) {
             return;
         }
-        
+
         // 获取appBase目录下的所有文件和子目录
         String[] files = appBase.toFile().list();
+        if (files == null) {
+            logger.error("appBase {} is not a directory", appBase);
+            return;
+        }
+        Map<String, String> deployedDirs = deployedDirs();
+        List<String> pending = new ArrayList<>();
+        for (String file : files) {
+            if (prepareDeploy(appBase, file, deployedDirs)) pending.add(file);
+        }
+        installAll(appBase, pending);
+    }
+
+    /**
+     * 检查一个目录能否作为新的webApp部署，并在bookkeeping中登记。
+     *
+     * @param deployedDirs 已部署Context的物理目录名到context路径的映射
+     * @return 需要部署时返回true
+     */
+    private boolean prepareDeploy(Path appBase, String file, Map<String, String> deployedDirs) {
+        // 跳过META-INF目录（这是特殊的元数据目录）
+        if (file.equalsIgnoreCase(Const.webApp.META_INF.substring(1))) return false;
+        // 跳过WEB-INF目录（这是特殊的Web应用配置目录）
+        if (file.equalsIgnoreCase(Const.webApp.WEB_INF.substring(1))) return false;
+        // 如果该目录已经登记过，说明已经处理过，跳过
+        if (deployedApps.containsKey(file)) return false;
 
-        if (files != null) {
-            // 遍历每个文件/目录
+        // 只处理目录（Web应用必须是目录），且必须有WEB-INF目录
+        Path path = appBase.resolve(file);
+        if (!Files.isDirectory(path)) return false;
+        if (!Files.isDirectory(path.resolve(Const.webApp.WEB_INF.substring(1)))) {
+            logger.debug("Skipping {} - no WEB-INF directory", file);
+            return false;
+        }
+
+        // 该物理目录已经被某个Context使用，登记后跳过
+        String deployedAs = deployedDirs.get(file);
+        if (deployedAs != null) {
+            logger.debug("Directory {} already deployed as context path {}", file, deployedAs);
+            deployedApps.put(file, deployedAs);
+            return false;
+        }
+
+        // 构建Context路径（URL路径）
+        // 规则：目录名前加"/"，如simpleApp1 -> /simpleApp1，ROOT为根应用
+        String contextPath = file.equalsIgnoreCase(ROOT) ? EMPTY : SOLIDUS + file;
+
+        // 检查该Context路径是否已存在
+        if (host.findChild(contextPath) != null) {
+            logger.debug("Context path {} already exists", contextPath);
+            deployedApps.put(file, contextPath);
+            return false;
+        }
+        // 先登记，标记为已处理
+        deployedApps.put(file, contextPath);
+        return true;
+    }
+
+    /**
+     * 收集已部署Context的物理目录名。
+     * basePath 可能是相对路径、带结尾分隔符的绝对路径或Windows路径，统一取最后一级目录名比较。
+     */
+    private Map<String, String> deployedDirs() {
+        Host.Deployer deployer = (Host.Deployer) host;
+        Map<String, String> dirs = new HashMap<>();
+        for (String cp : deployer.findDeployedApps()) {
+            Context ctx = deployer.findDeployedApp(cp);
+            if (ctx == null || ctx.getBasePath() == null || ctx.getBasePath().isEmpty()) continue;
+            try {
+                Path name = Paths.get(ctx.getBasePath().replace('\\', '/')).getFileName();
+                if (name != null) dirs.put(name.toString(), cp);
+            } catch (InvalidPathException e) {
+                logger.debug("ignore context {} with basePath {}", cp, ctx.getBasePath());
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * 部署一批互不相关的webApp。
+     * 多于一个时交给有界线程池并行安装，全部完成后返回。
+     */
+    private void installAll(Path appBase, List<String> files) {
+        if (files.isEmpty()) return;
+        if (files.size() == 1) {
+            install(appBase, files.get(0));
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), deployThreads), r -> {
+            Thread t = new Thread(r, threadName + "-deploy-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(files.size());
             for (String file : files) {
-                // 跳过META-INF目录（这是特殊的元数据目录）
-                if (file.equalsIgnoreCase(
-                        (Const.webApp.META_INF)
-                                .substring(1))) {
-                    continue;
-                }
-                // 跳过WEB-INF目录（这是特殊的Web应用配置目录）
-                if (file.equalsIgnoreCase(
-                        (Const.webApp.WEB_INF)
-                                .substring(1))) {
-                    continue;
-                }
-                
-                // 如果该目录已经在deployedApps列表中，说明已经处理过，跳过
-                if (deployedApps.contains(file)) continue;
-                
-                // 构建该文件的完整路径
-                Path path = Paths.get(appBase.toString(), file);
-                
-                // 只处理目录（Web应用必须是目录）
-                if (path.toFile().isDirectory()) {
-                    // 检查是否有WEB-INF目录
-                    Path webInfoPath = Paths.get(path.toString(), Const.webApp.WEB_INF);
-                    if (!webInfoPath.toFile().exists() || !webInfoPath.toFile().isDirectory()) {
-                        logger.debug("Skipping {} - no WEB-INF directory", file);
-                        continue; 
-                    }
-                    
-                    // 检查该物理目录是否已经被部署
-                    boolean alreadyDeployed = false;
-                    // 获取所有已部署的Context路径
-                    String[] contextPaths = ((Host.Deployer) host).findDeployedApps();
-                    // 遍历每个已部署的Context
-                    for (String cp : contextPaths) {
-                        // 获取Context对象
-                        Context ctx = ((Host.Deployer) host).findDeployedApp(cp);
-                        if (ctx != null) {
-                            // 获取该Context的basePath（物理路径）
-                            String basePath = ctx.getBasePath();
-                            // 比较basePath是否指向当前扫描的目录
-                            // 需要处理三种情况：
-                            // 1. basePath直接等于目录名（相对路径）："simpleApp1"
-                            // 2. basePath以/结尾的绝对路径："/path/to/simpleApp1/"
-                            // 3. basePath以\结尾的绝对路径（Windows）："C:\path\to\simpleApp1\"
-                            if (basePath != null && (basePath.equals(file) || 
-                                basePath.endsWith("/" + file) || 
-                                basePath.endsWith("\\" + file))) {
-                                logger.debug("Directory {} already deployed as context path {}", file, cp);
-                                alreadyDeployed = true;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // 如果该目录已经被某个Context使用，跳过部署
-                    if (alreadyDeployed) {
-                        // 仍然添加到deployedApps列表，避免后续重复检查
-                        deployedApps.add(file);
-                        continue;
-                    }
-                    
-                    // 构建Context路径（URL路径）
-                    // 规则：目录名前加"/"，如simpleApp1 -> /simpleApp1
-                    String contextPath = SOLIDUS + file;
-                    
-                    // 特殊处理：如果目录名是ROOT，则Context路径为空（根应用）
-                    if (file.equalsIgnoreCase(ROOT)) {
-                        contextPath = EMPTY;
-                    }
-                    
-                    // 检查该Context路径是否已存在
-                    if (host.findChild(contextPath) != null) {
-                        logger.debug("Context path {} already exists", contextPath);
-                        // 添加到deployedApps，避免重复处理
-                        deployedApps.add(file);
-                        continue;
-                    }
-                    
-                    // 所有检查通过，开始部署
-                    logger.info("deploying app : {}", file);
-                    // 先添加到deployedApps，标记为已处理
-                    deployedApps.add(file);
-                    
-                    try {
-                        // 构建部署URI
-                        URI deploymentUri = path.toUri();
-                        // 调用Host的install方法进行实际部署
-                        ((Host.Deployer) host).install(contextPath, deploymentUri.toURL());
-                    } catch (Exception e) {
-                        logger.error("deploying app error", e);
-                    }
+                futures.add(executor.submit(() -> install(appBase, file)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("deploying app error", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
             }
-        } else {
-            logger.error("appBase {} is not a directory", appBase);
+        } finally {
+            executor.shutdownNow();
         }
+        logger.info("deployed {} apps in {} ms", files.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
+    private void install(Path appBase, String file) {
+        String contextPath = deployedApps.get(file);
+        logger.info("deploying app : {}", file);
+        try {
+            // 构建部署URI
+            URI deploymentUri = appBase.resolve(file).toUri();
+            // 调用Host的install方法进行实际部署
+            ((Host.Deployer) host).install(contextPath, deploymentUri.toURL());
+        } catch (Exception e) {
+            logger.error("deploying app error", e);
+        }
+    }
+
+    // 卸载一个目录已被删除的webApp
+    private void undeploy(String file) {
+        String contextPath = deployedApps.remove(file);
+        if (contextPath == null) return;
+        webXmlUpdateMapping.remove(contextPath);
+        if (((Host.Deployer) host).findDeployedApp(contextPath) == null) return;
+        logger.info("undeploying app : {}", contextPath);
+        try {
+            ((Host.Deployer) host).remove(contextPath);
+        } catch (IOException | RuntimeException e) {
+            logger.error("undeploying app error", e);
+        }
     }
 
     // 移除部署的webApp
@@ -254,18 +319,153 @@ public final class InnerHostListener implements LifecycleListener, Runnable {
     @Override
     public void run() {
         logger.debug("InnerHostListener : thread running");
+        if (watchService == null) {
+            poll();
+        } else {
+            try (WatchService watcher = watchService) {
+                watch(watcher);
+            } catch (IOException e) {
+                logger.warn("InnerHostListener : failed to close watch service", e);
+            }
+        }
+        logger.debug("InnerHostListener : thread stopping");
+    }
+
+    // 定期扫描appBase与各webApp的web.xml
+    private void poll() {
         while (!isThreadDone) {
             threadSleep();
+            if (isThreadDone) break;
             deployApps();
             checkWebXmlUpdate();
         }
-        logger.debug("InnerHostListener : thread stopping");
+    }
+
+    /**
+     * 监视 appBase 的目录增删与各webApp WEB-INF 下的修改。
+     * 事件先按目录名累积，静默 {@link #debouncePeriod} 后统一处理，
+     * 复制一个应用目录或连续保存 web.xml 只触发一次部署或重载。
+     */
+    private void watch(WatchService watcher) {
+        Path appBase = appBase();
+        Map<WatchKey, Path> dirs = watchedDirs;
+        // 静默期内累积的变更：增删的应用目录，以及web.xml有变化的应用目录
+        Set<String> changedApps = new HashSet<>();
+        Set<String> changedWebXml = new HashSet<>();
+        try {
+            while (!isThreadDone) {
+                boolean pending = !changedApps.isEmpty() || !changedWebXml.isEmpty();
+                WatchKey key = pending ? watcher.poll(debouncePeriod, TimeUnit.MILLISECONDS) : watcher.take();
+                if (key == null) {
+                    apply(watcher, appBase, dirs, changedApps, changedWebXml);
+                    changedApps.clear();
+                    changedWebXml.clear();
+                    continue;
+                }
+                Path dir = dirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir == null) continue;
+                    if (event.kind() == OVERFLOW) {
+                        // 丢失了事件，重新核对全部目录
+                        String[] files = appBase.toFile().list();
+                        if (files != null) changedApps.addAll(Arrays.asList(files));
+                        changedApps.addAll(deployedApps.keySet());
+                        continue;
+                    }
+                    String name = event.context().toString();
+                    if (dir.equals(appBase)) {
+                        changedApps.add(name);
+                    } else if (dir.getFileName().toString().equalsIgnoreCase(Const.webApp.WEB_INF.substring(1))) {
+                        if (name.equals(WEB_XML_PATH)) changedWebXml.add(dir.getParent().getFileName().toString());
+                    } else if (name.equalsIgnoreCase(Const.webApp.WEB_INF.substring(1))) {
+                        // 等待WEB-INF出现的应用目录
+                        changedApps.add(dir.getFileName().toString());
+                    }
+                }
+                if (!key.reset()) dirs.remove(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException _) {
+            // threadStop
+        }
+    }
+
+    // 处理静默期内累积的变更
+    private void apply(WatchService watcher, Path appBase, Map<WatchKey, Path> dirs,
+                       Set<String> changedApps, Set<String> changedWebXml) {
+        Map<String, String> deployedDirs = deployedDirs();
+        List<String> pending = new ArrayList<>();
+        for (String file : changedApps) {
+            Path path = appBase.resolve(file);
+            if (deployedApps.containsKey(file)) {
+                if (!Files.isDirectory(path)) undeploy(file);
+            } else if (prepareDeploy(appBase, file, deployedDirs)) {
+                pending.add(file);
+            } else if (Files.isDirectory(path) && !deployedApps.containsKey(file)) {
+                // 目录还在复制中，等它的WEB-INF出现
+                register(watcher, path, dirs, ENTRY_CREATE);
+            }
+        }
+        installAll(appBase, pending);
+        for (String file : pending) watchWebInf(watcher, appBase.resolve(file), dirs);
+
+        for (String file : changedWebXml) {
+            String contextPath = deployedApps.get(file);
+            if (contextPath == null || pending.contains(file)) continue;
+            Context context = ((Host.Deployer) host).findDeployedApp(contextPath);
+            if (context == null) continue;
+            logger.debug(":webApp ：{} webXml has been modified ，try to reload", contextPath);
+            context.reload();
+        }
+    }
+
+    private void watchWebInf(WatchService watcher, Path app, Map<WatchKey, Path> dirs) {
+        register(watcher, app.resolve(Const.webApp.WEB_INF.substring(1)), dirs, ENTRY_CREATE, ENTRY_MODIFY);
+    }
+
+    private void register(WatchService watcher, Path dir, Map<WatchKey, Path> dirs, WatchEvent.Kind<?>... kinds) {
+        if (!Files.isDirectory(dir)) return;
+        try {
+            dirs.put(dir.register(watcher, kinds), dir);
+        } catch (IOException e) {
+            logger.warn("InnerHostListener : failed to watch {}", dir, e);
+        }
+    }
+
+    /**
+     * 打开文件系统的监视服务并注册 appBase 与已部署应用的 WEB-INF。
+     * 在启动线程中完成注册，之后新建的目录不会漏掉。
+     * 只有JDK的轮询实现可用时（见 {@link FileWatch}）直接使用原有的定期扫描，返回null。
+     */
+    private WatchService openWatchService() {
+        Path appBase = appBase();
+        if (!Files.isDirectory(appBase)) return null;
+        WatchService watcher;
+        try {
+            watcher = FileWatch.open();
+        } catch (IOException e) {
+            logger.debug("InnerHostListener : watch service unavailable, fall back to polling", e);
+            return null;
+        }
+        if (watcher == null) return null;
+        try {
+            watchedDirs.clear();
+            watchedDirs.put(appBase.register(watcher, ENTRY_CREATE, ENTRY_DELETE), appBase);
+            for (String file : deployedApps.keySet()) watchWebInf(watcher, appBase.resolve(file), watchedDirs);
+            return watcher;
+        } catch (IOException e) {
+            logger.warn("InnerHostListener : failed to watch {}, fall back to polling", appBase, e);
+            try {
+                watcher.close();
+            } catch (IOException _) {
+            }
+            return null;
+        }
     }
 
     private void threadStart() {
         logger.debug("InnerHostListener : thread start");
         isThreadDone = false;
-        threadName = "InnerHostListener[" + host.getName() + "]";
+        watchService = openWatchService();
         thread = new Thread(this, threadName);
         thread.setDaemon(true);
         thread.start();
@@ -284,6 +484,8 @@ public final class InnerHostListener implements LifecycleListener, Runnable {
         }
         // 销毁
         thread = null;
+        watchService = null;
+        watchedDirs.clear();
     }
 
     private void threadSleep() {
@@ -35,6 +35,11 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
     private final Map<String, ResourceEntry> entries = new ConcurrentHashMap<>();
     // jar文件修改时刻
     private final Map<String, Long> jarTimes = new ConcurrentHashMap<>();
+    // 未命中缓存的上限，超过时整体清空
+    private static final int MAX_MISSES = 4096;
+    // 已确认加载不到的类名，重复查找时直接抛出异常：系统类加载器与本地仓库中都没有，
+    // 只有 delegate 为 true 或被 classFilter 过滤的类才会先查过父类加载器
+    private final Set<String> misses = ConcurrentHashMap.newKeySet();
     // 本地仓库URL集合
     private final List<URL> localRepositories = new ArrayList<>();
     // 生命周期助手
@@ -100,10 +105,13 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
         if (entries.containsKey(path)) return;
         ResourceEntry entry = new ResourceEntry();
         entry.lastModified = localResource.getLastModified();
-        synchronized (entries) {
-            if (!entries.containsKey(path)) entries.put(path, entry);
-        }
+        entries.putIfAbsent(path, entry);
+    }
 
+    // 记录找不到的类名
+    private void rememberMiss(String name) {
+        if (misses.size() >= MAX_MISSES) misses.clear();
+        misses.add(name);
     }
 
     // 检查MAP
@@ -127,24 +135,13 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
         if (entry == null) {
             loadableResource = localResource.getLoaderResource(path);
             // 本地磁盘目录中也不存在 则返回null
-            if (!loadableResource.exists()) return null;
+            if (loadableResource == null || !loadableResource.exists()) return null;
             // 找到资源，则创建一个ResourceEntry存入到缓存中
             entry = new ResourceEntry();
             entry.lastModified = loadableResource.getLastModified();
-            // 并发Map也无法保证跨操作的线程安全
-            // 如果这时有另一线程试图向Map中添加特定的类，无锁状态下
-            // 这里可能获得与被添加的特定类的实例不同的实例
-            synchronized (entries) {
-                // 确定在此操作之前是否由其他线程从此MAP中添加了实例
-                ResourceEntry oldEntry = entries.get(path);
-                // 如果未被添加，则添加到MAP中
-                if (oldEntry == null) {
-                    entries.put(path, entry);
-                    // 如果已存在，则将获取的对象指向已经在MAP中存在的entry
-                } else {
-                    entry = oldEntry;
-                }
-            }
+            // 如果在此之前已由其他线程添加，则使用已经在MAP中存在的entry
+            ResourceEntry oldEntry = entries.putIfAbsent(path, entry);
+            if (oldEntry != null) entry = oldEntry;
         }
         // 2.检查MAP后，有保存过该类的类对象的引用，试图直接从MAP获取类对象
         // 获取刚刚得到的对象的类实例
@@ -158,7 +155,7 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
             // 确认本地磁盘对象的状态
             if (loadableResource == null) loadableResource = localResource.getLoaderResource(path);
             // 若本地磁盘中字眼不存在，则返回null
-            if (!loadableResource.exists()) return null;
+            if (loadableResource == null || !loadableResource.exists()) return null;
             // 获取字节对象
             byte[] bytes;
             bytes = loadableResource.getContent();
@@ -223,7 +220,8 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
         logger.debug("检查web资源是否有更新，当前已被加载的类的总数为: {}", entries.size());
         for (Map.Entry<String, ResourceEntry> entry : entries.entrySet()) {
             long oldTime = entry.getValue().lastModified;
-            long newTime = localResource.getClassResource(entry.getKey()).getLastModified();
+            LocalResource resource = localResource.getLoaderResource(entry.getKey());
+            long newTime = resource == null ? 0L : resource.getLastModified();
             if (oldTime != newTime) {
                 logger.debug("监测到web资源变化: {} , oldTime: {} , newTime: {}",
                         entry.getKey(), new Date(oldTime), new Date(newTime));
@@ -310,6 +308,9 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
                 return clazz;
             }
 
+            // 之前已确认找不到
+            if (misses.contains(name)) throw new ClassNotFoundException(name);
+
             // 使用系统类加载器加载，防止web程序的版本产生冲突
             // 这里如果是web程序的用户自定义类的话就会忽略
             boolean loadingFromSysLoader = false;
@@ -344,7 +345,12 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
             }
 
             // 检查本地仓库
-            clazz = this.findClass(name);
+            try {
+                clazz = this.findClass(name);
+            } catch (ClassNotFoundException e) {
+                rememberMiss(name);
+                throw e;
+            }
             if (clazz != null) {
                 // logger.debug("loadClass: findLoadedClassFromLocal: {}", clazz);
                 if (resolve) resolveClass(clazz);
@@ -378,7 +384,7 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
         URL url = null;
         String resourceName = nameToPath(name);
         LocalResource resource = localResource.getLoaderResource(resourceName);
-        if (resource.exists()) {
+        if (resource != null && resource.exists()) {
             url = resource.getURL();
             recordModifiedTime(resourceName, resource);
         }
@@ -468,7 +474,7 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
         // 寻找本地仓库
         String resourceName = nameToPath(name);
         LocalResource resource = localResource.getLoaderResource(resourceName);
-        if (resource.exists()) {
+        if (resource != null && resource.exists()) {
             inputStream = resource.getInputStream();
             recordModifiedTime(resourceName, resource);
         }
@@ -527,6 +533,7 @@ public class WebAppClassLoader extends URLClassLoader implements Lifecycle {
     public void stop() {
         entries.clear();
         jarTimes.clear();
+        misses.clear();
         localRepositories.clear();
         localResource = null;
         started = false;
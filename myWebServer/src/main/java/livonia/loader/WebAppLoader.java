@@ -9,14 +9,23 @@ import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.lifecycle.LifecycleListener;
 import livonia.log.BaseLogger;
+import livonia.utils.FileWatch;
 import livonia.utils.LifecycleHelper;
 import org.slf4j.Logger;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
 
 /**
  * 类加载器层次结构：
@@ -54,8 +63,10 @@ public class WebAppLoader implements Loader, Runnable, Lifecycle, PropertyChange
     private ClassLoader parentClassLoader = null;
     // 被这个loader组件管理的真正的用于加载web程序的类加载器
     private WebAppClassLoader webAppClassLoader = null;
-    // 定期检查时常
+    // 定期检查时常，仅在无法使用文件系统通知时轮询
     private final long checkPeriod = 10000L;
+    // 去抖时长：最后一次变更事件之后静默这么久才触发重载
+    private final long debouncePeriod = 500L;
     // 使用的类加载器的全限定名
     private String loadClass = WebAppClassLoader.class.getName();
     // 组件启动标志位
@@ -263,6 +274,20 @@ public class WebAppLoader implements Loader, Runnable, Lifecycle, PropertyChange
     // 检查重新部署或者关闭指令
     @Override
     public void run() {
+        WatchService watcher = openWatchService();
+        if (watcher == null) {
+            poll();
+            return;
+        }
+        try (watcher) {
+            watch(watcher);
+        } catch (IOException e) {
+            logger.warn("webAppLoader : failed to close watch service of {}", vas.getName(), e);
+        }
+    }
+
+    // 定期比对已加载类与jar的修改时间
+    private void poll() {
         while (!closeRequried) {
             threadSleep();
             // 如果在这时候收到关闭指令的话，可以直接退出
@@ -275,6 +300,108 @@ public class WebAppLoader implements Loader, Runnable, Lifecycle, PropertyChange
         }
     }
 
+    /**
+     * 等待 WEB-INF/classes 与 WEB-INF/lib 的变更事件。
+     * 收到第一个相关事件后继续吸收后续事件，直到静默 {@link #debouncePeriod} 才要求重载，
+     * 这样一次构建写出的大量 class 文件只触发一次重载。
+     */
+    private void watch(WatchService watcher) {
+        Path webInf = Path.of(context.getBasePath() + Const.webApp.WEB_INF);
+        Path classesDir = webInf.resolve(Const.webApp.CLASSES_ONLY);
+        Path libDir = webInf.resolve(Const.webApp.LIB_ONLY);
+        Map<WatchKey, Path> dirs = new HashMap<>();
+        try {
+            registerAll(watcher, classesDir, dirs);
+            if (Files.isDirectory(libDir)) dirs.put(libDir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), libDir);
+        } catch (IOException e) {
+            logger.warn("webAppLoader : failed to watch {}, fall back to polling", webInf, e);
+            poll();
+            return;
+        }
+        boolean changed = false;
+        try {
+            while (!closeRequried && isStarted) {
+                WatchKey key = changed ? watcher.poll(debouncePeriod, TimeUnit.MILLISECONDS) : watcher.take();
+                if (key == null) {
+                    // 静默期已过
+                    if (!isStarted) break;
+                    askForReload();
+                    break;
+                }
+                Path dir = dirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        changed = true;
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    boolean relevant;
+                    if (dir.startsWith(classesDir)) {
+                        if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) registerAll(watcher, child, dirs);
+                        relevant = Files.isDirectory(child) || child.toString().endsWith(Const.webApp.DOTCLASS);
+                    } else {
+                        relevant = child.toString().endsWith(Const.webApp.DOTJAR);
+                    }
+                    if (relevant) {
+                        logger.debug("webAppLoader : {} {}", event.kind().name(), child);
+                        changed = true;
+                    }
+                }
+                if (!key.reset()) dirs.remove(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException _) {
+            // threadStop
+        } catch (IOException e) {
+            logger.warn("webAppLoader : failed to watch new directory under {}", classesDir, e);
+            askForReload();
+        }
+    }
+
+    // 注册目录及其全部子目录
+    private void registerAll(WatchService watcher, Path root, Map<WatchKey, Path> dirs) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        try (Stream<Path> tree = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) tree.filter(Files::isDirectory)::iterator) {
+                dirs.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+            }
+        }
+    }
+
+    /**
+     * 打开文件系统的监视服务，不可用或只有JDK的轮询实现时返回null，使用原有的修改时间比对
+     */
+    private WatchService openWatchService() {
+        if (context == null || context.getBasePath() == null) return null;
+        try {
+            return FileWatch.open();
+        } catch (IOException e) {
+            logger.debug("webAppLoader : watch service unavailable, fall back to polling", e);
+            return null;
+        }
+    }
+
+    /**
+     * 要求重载后检测线程已退出；重载失败时由容器调用，为仍在使用的类加载器重新启动检测线程
+     */
+    @Override
+    public void resumeMonitoring() {
+        if (!isStarted || !reloadable) return;
+        Thread previous = thread;
+        if (previous != null) {
+            try {
+                // 检测线程在要求重载后立即退出，仍在运行说明重载不是由它发起的，检测并未中断
+                previous.join(debouncePeriod);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (previous.isAlive() || thread != previous) return;
+            thread = null;
+        }
+        logger.info("webAppLoader : resume monitoring {} after a failed reload", vas.getName());
+        threadStart();
+    }
+
     //要求context容器重载
     private void askForReload() {
         Thread reloadThread = new Thread(new Runnable() {
@@ -0,0 +1,107 @@
+package livonia.log;
+
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单个请求的追踪缓冲区。
+ * <p>
+ * 由 {@link livonia.connector.http.HttpProcessor} 持有并在请求间复用，
+ * 只有被采样的请求才会把它挂到 request 上。请求处理过程中各组件只向缓冲区追加事件，
+ * 不直接写日志；请求完成时由解析器调用 {@link #emit(int, long)} 一次性输出整条追踪记录。
+ * <p>
+ * 未被采样的请求上 {@code request.getTrace()} 为 {@code null}，调用方只需做一次判空，
+ * 因此热路径上没有任何日志开销。
+ * <p>
+ * 携带凭据的头部（Authorization、Cookie 等）与会话ID只记录是否存在，不记录取值。
+ * <p>
+ * 非线程安全，同一时刻只属于一个解析器线程。
+ */
+public final class RequestTrace {
+    //<editor-fold desc = "attr">
+    // 追踪记录统一输出到此logger，可在logback中单独配置级别与appender
+    private static final Logger logger = BaseLogger.getLogger(RequestTrace.class);
+    // 取值不写入追踪记录的头部，小写
+    private static final Set<String> SENSITIVE_HEADERS = Set.of("authorization", "proxy-authorization", "cookie",
+            "set-cookie", "x-api-key", "x-auth-token");
+    private static final String REDACTED = "[redacted]";
+    // 事件缓冲区
+    private final StringBuilder buffer = new StringBuilder(512);
+    // 请求开始时间
+    private long startNanos;
+    // 已记录的事件数
+    private int events;
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+
+    /**
+     * 开始一次新的追踪，清空上一次请求遗留的内容
+     *
+     * @param id          追踪编号，用于区分同一连接上的多个请求
+     * @param requestLine 请求行
+     */
+    public void begin(String id, String requestLine) {
+        buffer.setLength(0);
+        events = 0;
+        startNanos = System.nanoTime();
+        buffer.append("trace[").append(id).append("] ").append(requestLine);
+    }
+
+    /**
+     * 追加一条事件，附带距请求开始的微秒数
+     */
+    public void event(String where, Object detail) {
+        events++;
+        buffer.append("\n  +").append((System.nanoTime() - startNanos) / 1000).append("us ")
+                .append(where);
+        if (detail != null) buffer.append(" : ").append(detail);
+    }
+
+    /**
+     * 以多条事件的形式追加一组头部或参数
+     */
+    public void values(String where, Map<String, List<String>> values) {
+        if (values == null || values.isEmpty()) return;
+        for (Map.Entry<String, List<String>> e : values.entrySet()) {
+            event(where, e.getKey() + " = " + e.getValue());
+        }
+    }
+
+    /**
+     * 与 {@link #values} 相同，但携带凭据的头部不记录取值
+     */
+    public void headers(String where, Map<String, List<String>> headers) {
+        if (headers == null || headers.isEmpty()) return;
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            event(where, describe(e.getKey(), e.getValue()));
+        }
+    }
+
+    static String describe(String name, List<String> values) {
+        return name + " = " + (SENSITIVE_HEADERS.contains(name.toLowerCase(Locale.ROOT)) ? REDACTED : values);
+    }
+
+    /**
+     * 会话ID等同于凭据，只记录前4个字符
+     */
+    public static String redactId(String id) {
+        if (id == null) return null;
+        return id.length() <= 4 ? REDACTED : id.substring(0, 4) + "...";
+    }
+
+    /**
+     * 记录请求结束并把整条追踪一次性输出
+     */
+    public void emit(int status, long bytesWritten) {
+        buffer.append("\n  total ").append((System.nanoTime() - startNanos) / 1000).append("us, status ")
+                .append(status).append(", bytes ").append(bytesWritten).append(", events ").append(events);
+        logger.info(buffer.toString());
+        buffer.setLength(0);
+    }
+    //</editor-fold>
+}
@@ -1,16 +1,12 @@
 package livonia.mapper;
 
 import livonia.base.Context;
-import livonia.base.Endpoint;
 import livonia.base.Mapper;
 import livonia.base.Vas;
 import livonia.connector.http.HttpRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static livonia.base.Const.CharPunctuationMarks.CHAR_SOLIDUS;
-import static livonia.base.Const.commonCharacters.SOLIDUS;
-
 public class ContextMapper implements Mapper {
     private static final Logger logger = LoggerFactory.getLogger(ContextMapper.class);
     //<editor-fold desc = "attr">
@@ -28,119 +24,31 @@ public class ContextMapper implements Mapper {
         context = (Context) vas;
     }
 
+    /**
+     * 使用 Context 编译好的 {@link ServletMappingTable} 一次完成匹配，
+     * 优先顺序为精确、前缀（最长者优先）、扩展名、默认。
+     */
     @Override
     public Vas map(HttpRequest request, boolean writeRequest) {
         // 获取上下文路径，例如 http：//local：1111/LLJ/LLJ—HOME 则上下文路径为/LLJ
         String contextPath = request.getContextPath();
-        // 获取请求URI 按照上面的例子则为 /LLJ/LLJ-HOME
+        // 获取请求URI 按照上面的例子则为 /LLJ/LLJ-HOME，相对路径 /LLJ-HOME 从上下文路径的长度处开始
         String requestURI = request.getRequestURI();
-        // 获取相对路径  按照上面的例子则为 /LLJ-HOME
-        String relativeURI = requestURI.substring(contextPath.length());
-        logger.debug("contextPath:{},requestURI:{},relativeURI:{}", contextPath, requestURI, relativeURI);
-
-        Endpoint endpoint = null;
-        String servletPath = null;
-        String pathInfo = null;
-        // 按照优先顺序依次执行匹配
-        endpoint = exactMatch(relativeURI);
-        if (endpoint != null) {
-            servletPath = relativeURI;
-        } else {
-            endpoint = prefixMatch(relativeURI);
-            if (endpoint != null) {
-                servletPath = matchedServletPath(relativeURI);
-                pathInfo = matchedPathInfo(relativeURI, servletPath);
-            } else {
-                endpoint = extensionMatch(relativeURI);
-                if (endpoint != null) {
-                    servletPath = relativeURI;
-                } else {
-                    endpoint = defaultMatch();
-                    if (endpoint != null) {
-                        servletPath = relativeURI;
-                    }
-                }
-            }
+        ServletMappingTable.Match match = context.getServletMappingTable().match(requestURI, contextPath.length());
+        if (request.getTrace() != null) {
+            request.getTrace().event("ContextMapper : " + requestURI + " ->",
+                    match == null ? null : match.endpoint().getName());
         }
+        if (match == null) return null;
 
         // 若请求update，更新Request对象
-        if (writeRequest && endpoint != null) {
-            request.setEndpoint(endpoint);
-            request.setServletPath(servletPath);
-            request.setPathInfo(pathInfo);
-        }
-
-        return endpoint;
-    }
-
-    // 精确匹配方法
-    private Endpoint exactMatch(String uri) {
-        if (!SOLIDUS.equals(uri)) {
-            String name = context.findServletMapping(uri);
-            if (name != null) {
-                return (Endpoint) context.findChild(name);
-            }
+        if (writeRequest) {
+            request.setEndpoint(match.endpoint());
+            request.setServletPath(match.servletPath());
+            request.setPathInfo(match.pathInfo());
         }
-        return null;
-    }
-
-    // 前缀匹配方法
-    private Endpoint prefixMatch(String uri) {
-        String servletPath = uri;
-        while (!servletPath.isEmpty()) {
-            String name = context.findServletMapping(servletPath + "/*");
-            if (name != null) {
-                return (Endpoint) context.findChild(name);
-            }
-            int slash = servletPath.lastIndexOf(CHAR_SOLIDUS);
-            if (slash < 0) break;
-            servletPath = servletPath.substring(0, slash);
-        }
-        return null;
-    }
 
-    // 获取前缀匹配成功的servletPath
-    private String matchedServletPath(String uri) {
-        String servletPath = uri;
-        while (!servletPath.isEmpty()) {
-            String name = context.findServletMapping(servletPath + "/*");
-            if (name != null) {
-                return servletPath;
-            }
-            int slash = servletPath.lastIndexOf(CHAR_SOLIDUS);
-            if (slash < 0) break;
-            servletPath = servletPath.substring(0, slash);
-        }
-        return null;
-    }
-
-    // 获取前缀匹配成功的pathInfo
-    private String matchedPathInfo(String uri, String servletPath) {
-        String pathInfo = uri.substring(servletPath.length());
-        return pathInfo.isEmpty() ? null : pathInfo;
-    }
-
-    // 扩展名匹配方法
-    private Endpoint extensionMatch(String uri) {
-        int slash = uri.lastIndexOf('/');
-        int period = uri.lastIndexOf('.');
-        if (period > slash) {
-            String pattern = "*" + uri.substring(period);
-            String name = context.findServletMapping(pattern);
-            if (name != null) {
-                return (Endpoint) context.findChild(name);
-            }
-        }
-        return null;
-    }
-
-    // 默认匹配方法
-    private Endpoint defaultMatch() {
-        String name = context.findServletMapping("/");
-        if (name != null) {
-            return (Endpoint) context.findChild(name);
-        }
-        return null;
+        return match.endpoint();
     }
     //</editor-fold>
 
@@ -0,0 +1,56 @@
+package livonia.mapper;
+
+import livonia.base.Context;
+import livonia.base.Vas;
+
+/**
+ * Host 下上下文路由的只读快照。
+ * <p>
+ * 以上下文路径为键组织成路径段前缀树，请求 URI 按段边界取最长的上下文路径，
+ * 根上下文（路径为空串）作为兜底。快照在部署、卸载或增删子容器时整体重建并替换，
+ * 查找过程不加锁、不截取子串。
+ */
+public final class ContextRoutingTable {
+    //<editor-fold desc = "attr">
+    public static final ContextRoutingTable EMPTY = build(new Vas[0]);
+    private final SegmentTrie<Context> contexts;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private ContextRoutingTable(SegmentTrie<Context> contexts) {
+        this.contexts = contexts;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "构建">
+
+    /**
+     * 由当前的上下文集合构建快照，上下文以其名称（即上下文路径）为键
+     *
+     * @param children Host 的全部子容器
+     * @return 路由快照
+     */
+    public static ContextRoutingTable build(Vas[] children) {
+        SegmentTrie.Builder<Context> contexts = new SegmentTrie.Builder<>();
+        for (Vas child : children) {
+            if (!(child instanceof Context context)) continue;
+            String path = context.getName();
+            if (path.isEmpty() || path.startsWith("/")) contexts.put(path, context);
+        }
+        return new ContextRoutingTable(contexts.build());
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "查找">
+
+    /**
+     * 取得与 URI 最长前缀匹配的上下文
+     *
+     * @param uri 已解码的请求 URI
+     * @return 对应的上下文，不存在时返回 null
+     */
+    public Context find(String uri) {
+        return contexts.longestMatch(uri, 0);
+    }
+    //</editor-fold>
+}
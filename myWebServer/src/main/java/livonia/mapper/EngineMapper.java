@@ -35,9 +35,9 @@ public class EngineMapper implements Mapper {
             if (writeRequest) request.setServerName(virtualHostName);
         }
         if (virtualHostName == null || virtualHostName.isEmpty()) return null;
-        virtualHostName = virtualHostName.toLowerCase();
-        logger.info("EngineMapper : virtual host name: '{}'", virtualHostName);
-        return engine.findChild(virtualHostName);
+        if (request.getTrace() != null) request.getTrace().event("EngineMapper : virtual host", virtualHostName);
+        // 路由快照忽略大小写，且支持主机别名与通配主机
+        return engine.getHostRoutingTable().find(virtualHostName);
     }
     //</editor-fold>
 
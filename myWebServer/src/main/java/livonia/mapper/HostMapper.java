@@ -35,8 +35,10 @@ public class HostMapper implements Mapper {
     @Override
     public Vas map(HttpRequest request, boolean writeRequest) {
         String uri = (Decoder.decode(request.getRequestURI(), StandardCharsets.UTF_8));
-        logger.info("HostMapper : 目标 URI: '{}'", uri);
         Context context = host.map(uri);
+        if (request.getTrace() != null) {
+            request.getTrace().event("HostMapper : " + uri + " ->", context == null ? null : context.getName());
+        }
         if (writeRequest) {
             if (context != null) {
                 request.setContextPath(context.getPath());
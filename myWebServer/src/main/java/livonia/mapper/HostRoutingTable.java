@@ -0,0 +1,84 @@
+package livonia.mapper;
+
+import livonia.base.Host;
+
+/**
+ * Engine 下虚拟主机路由的只读快照。
+ * <p>
+ * 主机名与别名放入同一张忽略大小写的哈希表，名称冲突时主机名优先于别名；
+ * 以 {@code *.} 开头的名称或别名为通配主机，按域名后缀匹配，后缀越长越优先，
+ * 例如 {@code *.example.com} 可匹配 {@code a.example.com} 与 {@code a.b.example.com}。
+ * 快照在子容器或别名变化时整体重建并替换，查找过程不加锁、不截取子串。
+ */
+public final class HostRoutingTable {
+    //<editor-fold desc = "attr">
+    public static final HostRoutingTable EMPTY = build(new Host[0]);
+    private static final String WILDCARD_PREFIX = "*.";
+    // 主机名与别名
+    private final RangeTable<Host> names;
+    // 通配主机，键为去掉 * 后的后缀，例如 .example.com
+    private final RangeTable<Host> wildcards;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private HostRoutingTable(RangeTable<Host> names, RangeTable<Host> wildcards) {
+        this.names = names;
+        this.wildcards = wildcards;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "构建">
+
+    /**
+     * 由当前的主机集合构建快照
+     *
+     * @param hosts Engine 的全部子容器
+     * @return 路由快照
+     */
+    public static HostRoutingTable build(Host[] hosts) {
+        RangeTable.Builder<Host> names = new RangeTable.Builder<>(true);
+        RangeTable.Builder<Host> wildcards = new RangeTable.Builder<>(true);
+        for (Host host : hosts) {
+            add(host.getName(), host, names, wildcards, false);
+        }
+        for (Host host : hosts) {
+            for (String alias : host.findAliases()) {
+                add(alias, host, names, wildcards, true);
+            }
+        }
+        return new HostRoutingTable(names.build(), wildcards.build());
+    }
+
+    private static void add(String name, Host host, RangeTable.Builder<Host> names,
+                            RangeTable.Builder<Host> wildcards, boolean alias) {
+        if (name == null || name.isEmpty()) return;
+        RangeTable.Builder<Host> target = names;
+        if (name.startsWith(WILDCARD_PREFIX)) {
+            target = wildcards;
+            name = name.substring(1);
+        }
+        if (alias) target.putIfAbsent(name, host);
+        else target.put(name, host);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "查找">
+
+    /**
+     * 按主机名查找，先精确匹配主机名与别名，再从最长的域名后缀开始匹配通配主机
+     *
+     * @param serverName 请求的主机名
+     * @return 对应的主机，不存在时返回 null
+     */
+    public Host find(String serverName) {
+        int end = serverName.length();
+        Host host = names.get(serverName, 0, end);
+        if (host != null) return host;
+        for (int dot = serverName.indexOf('.'); dot >= 0; dot = serverName.indexOf('.', dot + 1)) {
+            host = wildcards.get(serverName, dot, end);
+            if (host != null) return host;
+        }
+        return null;
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,115 @@
+package livonia.mapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 以字符串为键、可直接按字符区间查找的开放寻址哈希表，构建后只读。
+ * <p>
+ * 区间哈希与 {@link String#hashCode()} 的定义一致，查找时无需截取子串；
+ * 键与区间按 regionMatches 比较，可选择忽略大小写（此时键须全部为小写）。
+ * 装载因子不超过 0.5，探测链很短且总有空槽。
+ */
+final class RangeTable<V> {
+    //<editor-fold desc = "attr">
+    private static final RangeTable<?> EMPTY = new RangeTable<>(new String[1], new Object[1], false);
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final boolean ignoreCase;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private RangeTable(String[] keys, Object[] values, boolean ignoreCase) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.ignoreCase = ignoreCase;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "查找">
+
+    /**
+     * 查找键等于 {@code s[from, to)} 的值
+     */
+    @SuppressWarnings("unchecked")
+    V get(String s, int from, int to) {
+        int length = to - from;
+        int h = 0;
+        if (ignoreCase) {
+            for (int i = from; i < to; i++) {
+                h = 31 * h + Character.toLowerCase(s.charAt(i));
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                h = 31 * h + s.charAt(i);
+            }
+        }
+        for (int i = spread(h) & mask; ; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key == null) return null;
+            if (key.length() == length && s.regionMatches(ignoreCase, from, key, 0, length)) return (V) values[i];
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "构建">
+    static final class Builder<V> {
+        private final HashMap<String, V> entries = new HashMap<>();
+        private final boolean ignoreCase;
+
+        Builder() {
+            this(false);
+        }
+
+        /**
+         * @param ignoreCase 是否忽略大小写，为 true 时键在放入时统一转为小写
+         */
+        Builder(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+        }
+
+        V get(String key) {
+            return entries.get(normalize(key));
+        }
+
+        void put(String key, V value) {
+            entries.put(normalize(key), value);
+        }
+
+        void putIfAbsent(String key, V value) {
+            entries.putIfAbsent(normalize(key), value);
+        }
+
+        Set<String> keys() {
+            return entries.keySet();
+        }
+
+        @SuppressWarnings("unchecked")
+        RangeTable<V> build() {
+            if (entries.isEmpty()) return (RangeTable<V>) EMPTY;
+            int capacity = Integer.highestOneBit(entries.size() * 2 - 1) << 1;
+            String[] keys = new String[capacity];
+            Object[] values = new Object[capacity];
+            int mask = capacity - 1;
+            for (Map.Entry<String, V> entry : entries.entrySet()) {
+                int i = spread(entry.getKey().hashCode()) & mask;
+                while (keys[i] != null) i = (i + 1) & mask;
+                keys[i] = entry.getKey();
+                values[i] = entry.getValue();
+            }
+            return new RangeTable<>(keys, values, ignoreCase);
+        }
+
+        private String normalize(String key) {
+            return ignoreCase ? key.toLowerCase() : key;
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,85 @@
+package livonia.mapper;
+
+import static livonia.base.Const.CharPunctuationMarks.CHAR_SOLIDUS;
+
+/**
+ * 按路径段组织的只读前缀树，用于最长路径前缀匹配。
+ * <p>
+ * 路径 {@code /api/v1} 对应 root → api → v1，空路径对应根节点本身。
+ * 匹配只在 {@code /} 分隔的段边界上成立，{@code /api} 不会匹配 {@code /apix}。
+ */
+final class SegmentTrie<V> {
+    //<editor-fold desc = "attr">
+    private final RangeTable<SegmentTrie<V>> children;
+    private final V value;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private SegmentTrie(RangeTable<SegmentTrie<V>> children, V value) {
+        this.children = children;
+        this.value = value;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "查找">
+
+    /**
+     * 取得 {@code s[from, length)} 的最长带值前缀对应的值
+     *
+     * @param s    路径所在的字符串
+     * @param from 路径的起始下标
+     * @return 最长前缀的值，没有任何前缀带值时返回 null
+     */
+    V longestMatch(String s, int from) {
+        int end = s.length();
+        SegmentTrie<V> node = this;
+        V best = value;
+        int pos = from;
+        while (pos < end && s.charAt(pos) == CHAR_SOLIDUS) {
+            int next = s.indexOf(CHAR_SOLIDUS, pos + 1);
+            if (next < 0) next = end;
+            node = node.children.get(s, pos + 1, next);
+            if (node == null) break;
+            if (node.value != null) best = node.value;
+            pos = next;
+        }
+        return best;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "构建">
+    static final class Builder<V> {
+        private final RangeTable.Builder<Builder<V>> children = new RangeTable.Builder<>();
+        private V value;
+
+        /**
+         * 放入路径（空串或以 / 开头）对应的值，已有值时覆盖
+         */
+        void put(String path, V value) {
+            node(path, 0).value = value;
+        }
+
+        private Builder<V> node(String path, int from) {
+            if (from >= path.length()) return this;
+            int next = path.indexOf(CHAR_SOLIDUS, from + 1);
+            if (next < 0) next = path.length();
+            String segment = path.substring(from + 1, next);
+            Builder<V> child = children.get(segment);
+            if (child == null) {
+                child = new Builder<>();
+                children.put(segment, child);
+            }
+            return child.node(path, next);
+        }
+
+        SegmentTrie<V> build() {
+            RangeTable.Builder<SegmentTrie<V>> built = new RangeTable.Builder<>();
+            // 键不变，逐个替换为已构建的子树
+            for (String segment : children.keys()) {
+                built.put(segment, children.get(segment).build());
+            }
+            return new SegmentTrie<>(built.build(), value);
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,132 @@
+package livonia.mapper;
+
+import livonia.base.Endpoint;
+import livonia.base.Vas;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static livonia.base.Const.CharPunctuationMarks.CHAR_SOLIDUS;
+import static livonia.base.Const.commonCharacters.SOLIDUS;
+
+/**
+ * 由 Context 的 servlet-mapping 编译得到的只读匹配表。
+ * <p>
+ * 编译时按模式种类拆分为四部分：
+ * <ul>
+ *     <li>精确匹配：以完整路径为键的哈希表</li>
+ *     <li>前缀匹配：按路径段组织的前缀树，{@code /api/v1/*} 对应 root → api → v1</li>
+ *     <li>扩展名匹配：以扩展名（不含 {@code *.}）为键的哈希表</li>
+ *     <li>默认匹配：{@code /} 对应的 Endpoint</li>
+ * </ul>
+ * 查找直接在请求 URI 的字符区间上进行（按区间计算哈希、用 regionMatches 比较），
+ * 不截取子串、不拼接字符串、不加锁，一次遍历即可得到 Endpoint、servletPath 与 pathInfo。
+ * 映射或子容器变化时由 Context 丢弃旧表并重新编译。
+ */
+public final class ServletMappingTable {
+    //<editor-fold desc = "attr">
+    private static final String PREFIX_SUFFIX = "/*";
+    private static final String EXTENSION_PREFIX = "*.";
+    // 精确匹配，值为预先构造好的匹配结果
+    private final RangeTable<Match> exact;
+    // 前缀匹配，根节点本身对应 /*
+    private final SegmentTrie<Match> prefixes;
+    // 扩展名匹配
+    private final RangeTable<Endpoint> extensions;
+    // 默认匹配
+    private final Endpoint defaultEndpoint;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private ServletMappingTable(RangeTable<Match> exact, SegmentTrie<Match> prefixes,
+                                RangeTable<Endpoint> extensions, Endpoint defaultEndpoint) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+        this.extensions = extensions;
+        this.defaultEndpoint = defaultEndpoint;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "编译">
+
+    /**
+     * 编译映射表
+     *
+     * @param mappings 模式 → servlet 名称
+     * @param children 按名称查找子容器，找不到对应 Endpoint 的映射会被忽略
+     * @return 编译后的映射表
+     */
+    public static ServletMappingTable compile(Map<String, String> mappings, Function<String, Vas> children) {
+        RangeTable.Builder<Match> exact = new RangeTable.Builder<>();
+        RangeTable.Builder<Endpoint> extensions = new RangeTable.Builder<>();
+        SegmentTrie.Builder<Match> prefixes = new SegmentTrie.Builder<>();
+        Endpoint defaultEndpoint = null;
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            String pattern = mapping.getKey();
+            if (!(children.apply(mapping.getValue()) instanceof Endpoint endpoint)) continue;
+            if (SOLIDUS.equals(pattern)) {
+                defaultEndpoint = endpoint;
+            } else if (pattern.startsWith(EXTENSION_PREFIX)) {
+                extensions.put(pattern.substring(EXTENSION_PREFIX.length()), endpoint);
+            } else if (pattern.endsWith(PREFIX_SUFFIX) && pattern.startsWith(SOLIDUS)) {
+                String servletPath = pattern.substring(0, pattern.length() - PREFIX_SUFFIX.length());
+                prefixes.put(servletPath, new Match(endpoint, servletPath, null));
+            } else {
+                exact.put(pattern, new Match(endpoint, pattern, null));
+            }
+        }
+        return new ServletMappingTable(exact.build(), prefixes.build(), extensions.build(), defaultEndpoint);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "匹配">
+
+    /**
+     * 按精确、前缀、扩展名、默认的优先顺序匹配
+     *
+     * @param uri  请求URI
+     * @param from 相对路径在 uri 中的起始下标（即上下文路径的长度）
+     * @return 匹配结果，没有任何映射匹配时返回 null
+     */
+    public Match match(String uri, int from) {
+        int end = uri.length();
+        Match match = exact.get(uri, from, end);
+        if (match != null) return match;
+
+        match = prefixMatch(uri, from, end);
+        if (match != null) return match;
+
+        int slash = uri.lastIndexOf(CHAR_SOLIDUS);
+        int period = uri.lastIndexOf('.');
+        if (period > slash && period >= from) {
+            Endpoint endpoint = extensions.get(uri, period + 1, end);
+            if (endpoint != null) return new Match(endpoint, uri.substring(from), null);
+        }
+
+        if (defaultEndpoint != null) return new Match(defaultEndpoint, uri.substring(from), null);
+        return null;
+    }
+
+    // 最长前缀的 servletPath 即已匹配的部分，其后的剩余部分为 pathInfo
+    private Match prefixMatch(String uri, int from, int end) {
+        Match match = prefixes.longestMatch(uri, from);
+        if (match == null) return null;
+        int matchedEnd = from + match.servletPath().length();
+        if (matchedEnd == end) return match;
+        return new Match(match.endpoint(), match.servletPath(), uri.substring(matchedEnd));
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 一次匹配的结果
+     *
+     * @param endpoint    匹配到的 Endpoint
+     * @param servletPath servlet 路径
+     * @param pathInfo    额外路径信息，没有时为 null
+     */
+    public record Match(Endpoint endpoint, String servletPath, String pathInfo) {
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,89 @@
+package livonia.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个响应缓存的命中与容量统计。
+ * <p>
+ * 条目数与字节数由缓存在注册时以回调形式提供，只有在导出时才会读取。
+ */
+public final class CacheMetrics {
+    //<editor-fold desc = "attr">
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // 保存到缓存的响应数
+    private final LongAdder stores = new LongAdder();
+    // 因容量不足被淘汰的条目数
+    private final LongAdder evictions = new LongAdder();
+    // 被主动清除的条目数
+    private final LongAdder purges = new LongAdder();
+    private final LongSupplier entries;
+    private final LongSupplier bytes;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    CacheMetrics(String name, LongSupplier entries, LongSupplier bytes) {
+        this.name = name;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void stored() {
+        stores.increment();
+    }
+
+    public void evicted(long count) {
+        evictions.add(count);
+    }
+
+    public void purged(long count) {
+        purges.add(count);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "getter">
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getPurges() {
+        return purges.sum();
+    }
+
+    public long getEntries() {
+        return entries.getAsLong();
+    }
+
+    public long getBytes() {
+        return bytes.getAsLong();
+    }
+    //</editor-fold>
+}
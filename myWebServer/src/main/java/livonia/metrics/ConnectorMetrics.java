@@ -0,0 +1,81 @@
+package livonia.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 单个连接器的连接与解析器池统计。
+ * <p>
+ * 解析器池的数量由连接器在注册时以回调形式提供，只有在导出时才会读取。
+ */
+public final class ConnectorMetrics {
+    //<editor-fold desc = "attr">
+    private final int port;
+    // 当前活动连接数
+    private final LongAdder activeConnections = new LongAdder();
+    // 累计接受的连接数
+    private final LongAdder connections = new LongAdder();
+    // 请求解析失败、容器处理异常、响应写出失败等错误数
+    private final LongAdder errors = new LongAdder();
+    // 已创建的解析器数量
+    private final IntSupplier currentProcessors;
+    // 正在处理连接的解析器数量
+    private final IntSupplier busyProcessors;
+    // 解析器数量上限
+    private final IntSupplier maxProcessors;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    ConnectorMetrics(int port, IntSupplier currentProcessors, IntSupplier busyProcessors, IntSupplier maxProcessors) {
+        this.port = port;
+        this.currentProcessors = currentProcessors;
+        this.busyProcessors = busyProcessors;
+        this.maxProcessors = maxProcessors;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+    public void connectionOpened() {
+        connections.increment();
+        activeConnections.increment();
+    }
+
+    public void connectionClosed() {
+        activeConnections.decrement();
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "getter">
+    public int getPort() {
+        return port;
+    }
+
+    public long getActiveConnections() {
+        return activeConnections.sum();
+    }
+
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public int getCurrentProcessors() {
+        return currentProcessors.getAsInt();
+    }
+
+    public int getBusyProcessors() {
+        return busyProcessors.getAsInt();
+    }
+
+    public int getMaxProcessors() {
+        return maxProcessors.getAsInt();
+    }
+    //</editor-fold>
+}
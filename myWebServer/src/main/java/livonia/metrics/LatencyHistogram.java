@@ -0,0 +1,129 @@
+package livonia.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定内存的对数-线性延迟直方图，单位为微秒。
+ * <p>
+ * 每个2的幂区间再线性切分为 {@value #SUB_BUCKETS} 个子桶，相对误差不超过 1/{@value #SUB_BUCKETS}。
+ * 小于 {@value #SUB_BUCKETS} 微秒的值各占一个桶，超过上限的值计入最后一个桶。
+ * 记录只是一次数组下标计算加一次原子自增，不分配对象、不加锁。
+ * <pre>
+ * 值域            桶宽
+ * [0, 8)          1us
+ * [8, 16)         1us
+ * [16, 32)        2us
+ * [32, 64)        4us
+ * ...
+ * [2^39, 2^40)    2^36us
+ * </pre>
+ */
+public final class LatencyHistogram {
+    //<editor-fold desc = "attr">
+    // 每个2的幂区间的子桶数量（2^SUB_BITS）
+    private static final int SUB_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // 可精确区分的最高位，约12.7天
+    private static final int MAX_MSB = 39;
+    // 桶总数
+    public static final int BUCKET_COUNT = (MAX_MSB - SUB_BITS + 2) * SUB_BUCKETS;
+    // 各桶计数
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    // 样本总数与总和
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+
+    /**
+     * 记录一次耗时
+     *
+     * @param micros 微秒，负数按0处理
+     */
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        buckets.incrementAndGet(indexOf(micros));
+        count.increment();
+        sum.add(micros);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "桶计算">
+
+    /**
+     * 取得值所在桶的下标
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb > MAX_MSB) return BUCKET_COUNT - 1;
+        int sub = (int) (value >>> (msb - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (msb - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 取得桶所能容纳的最大值（含）
+     */
+    public static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int msb = index / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long width = 1L << (msb - SUB_BITS);
+        return ((long) (SUB_BUCKETS + sub) << (msb - SUB_BITS)) + width - 1;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "读取">
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * 取得某个桶的计数
+     */
+    public long getBucket(int index) {
+        return buckets.get(index);
+    }
+
+    /**
+     * 统计不大于给定值的样本数量，桶边界处按桶上限判断
+     */
+    public long countAtOrBelow(long micros) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT && upperBoundOf(i) <= micros; i++) {
+            total += buckets.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 估算给定百分位上的值（取所在桶的上限）
+     *
+     * @param percentile 0~100
+     * @return 微秒，没有样本时返回0
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(Math.min(Math.max(percentile, 0.0), 100.0) / 100.0 * total);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBoundOf(i);
+        }
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,232 @@
+package livonia.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务器范围内的指标注册表。
+ * <p>
+ * 连接器在启动时注册自身的 {@link ConnectorMetrics}，解析器在每个请求完成后按
+ * （端口、Host、Context、Endpoint）取得对应的 {@link RequestMetrics} 并记录。
+ * 标签只使用配置中的容器名，未能映射到的请求统一记为 {@link RequestMetrics.Tags#NONE}，
+ * 因此序列数量不会随客户端输入增长。
+ * 响应缓存检查点启动时以容器名注册 {@link CacheMetrics}，停止时注销。
+ * <p>
+ * {@link #writePrometheus(StringBuilder)} 以 Prometheus 文本格式导出全部指标。
+ */
+public final class MetricsRegistry {
+    //<editor-fold desc = "attr">
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    // 导出时使用的延迟分桶（秒）
+    private static final double[] LATENCY_BUCKETS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final String[] STATUS_CLASSES = {"other", "1xx", "2xx", "3xx", "4xx", "5xx"};
+    private final ConcurrentHashMap<Integer, ConnectorMetrics> connectors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<RequestMetrics.Tags, RequestMetrics> requests = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CacheMetrics> caches = new ConcurrentHashMap<>();
+
+    //</editor-fold>
+    //<editor-fold desc = "获取">
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 注册连接器，同一端口重复注册时替换旧的统计
+     */
+    public ConnectorMetrics registerConnector(int port, IntSupplier currentProcessors,
+                                              IntSupplier busyProcessors, IntSupplier maxProcessors) {
+        ConnectorMetrics metrics = new ConnectorMetrics(port, currentProcessors, busyProcessors, maxProcessors);
+        connectors.put(port, metrics);
+        return metrics;
+    }
+
+    public void unregisterConnector(int port) {
+        connectors.remove(port);
+        requests.keySet().removeIf(tags -> tags.port() == port);
+    }
+
+    /**
+     * 取得（必要时创建）给定标签下的请求统计
+     */
+    public RequestMetrics requestMetrics(int port, String host, String context, String endpoint) {
+        RequestMetrics.Tags tags = new RequestMetrics.Tags(port,
+                host != null ? host : RequestMetrics.Tags.NONE,
+                context != null ? context : RequestMetrics.Tags.NONE,
+                endpoint != null ? endpoint : RequestMetrics.Tags.NONE);
+        RequestMetrics metrics = requests.get(tags);
+        if (metrics != null) return metrics;
+        return requests.computeIfAbsent(tags, RequestMetrics::new);
+    }
+
+    /**
+     * 注册响应缓存，同名重复注册时替换旧的统计
+     */
+    public CacheMetrics registerCache(String name, LongSupplier entries, LongSupplier bytes) {
+        CacheMetrics metrics = new CacheMetrics(name, entries, bytes);
+        caches.put(name, metrics);
+        return metrics;
+    }
+
+    /**
+     * 只注销给定的统计，蓝绿重载时新实例先注册，旧实例停止时不会把新实例的统计注销
+     */
+    public void unregisterCache(CacheMetrics metrics) {
+        caches.remove(metrics.getName(), metrics);
+    }
+
+    public Collection<CacheMetrics> getCacheMetrics() {
+        return caches.values();
+    }
+
+    public Collection<ConnectorMetrics> getConnectorMetrics() {
+        return connectors.values();
+    }
+
+    public Collection<RequestMetrics> getRequestMetrics() {
+        return requests.values();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "Prometheus导出">
+
+    /**
+     * 以 Prometheus 文本格式（0.0.4）导出全部指标
+     */
+    public void writePrometheus(StringBuilder out) {
+        List<ConnectorMetrics> connectorList = new ArrayList<>(connectors.values());
+        connectorList.sort(Comparator.comparingInt(ConnectorMetrics::getPort));
+        List<RequestMetrics> requestList = new ArrayList<>(requests.values());
+        requestList.sort(Comparator.comparing((RequestMetrics m) -> m.getTags().port())
+                .thenComparing(m -> m.getTags().host())
+                .thenComparing(m -> m.getTags().context())
+                .thenComparing(m -> m.getTags().endpoint()));
+
+        header(out, "livonia_connections_active", "gauge", "Currently open connections");
+        for (ConnectorMetrics c : connectorList) {
+            portSample(out, "livonia_connections_active", c.getPort(), c.getActiveConnections());
+        }
+        header(out, "livonia_connections_total", "counter", "Accepted connections");
+        for (ConnectorMetrics c : connectorList) {
+            portSample(out, "livonia_connections_total", c.getPort(), c.getConnections());
+        }
+        header(out, "livonia_errors_total", "counter", "Request parse, processing and write errors");
+        for (ConnectorMetrics c : connectorList) {
+            portSample(out, "livonia_errors_total", c.getPort(), c.getErrors());
+        }
+        header(out, "livonia_processors_current", "gauge", "Created processors");
+        for (ConnectorMetrics c : connectorList) {
+            portSample(out, "livonia_processors_current", c.getPort(), c.getCurrentProcessors());
+        }
+        header(out, "livonia_processors_busy", "gauge", "Processors bound to a connection");
+        for (ConnectorMetrics c : connectorList) {
+            portSample(out, "livonia_processors_busy", c.getPort(), c.getBusyProcessors());
+        }
+        header(out, "livonia_processors_max", "gauge", "Maximum processors");
+        for (ConnectorMetrics c : connectorList) {
+            portSample(out, "livonia_processors_max", c.getPort(), c.getMaxProcessors());
+        }
+
+        header(out, "livonia_requests_total", "counter", "Completed requests by status class");
+        for (RequestMetrics m : requestList) {
+            for (int i = 0; i < STATUS_CLASSES.length; i++) {
+                long value = m.getRequests(i);
+                if (value == 0) continue;
+                out.append("livonia_requests_total");
+                labels(out, m.getTags()).append(",status=\"").append(STATUS_CLASSES[i]).append("\"} ")
+                        .append(value).append('\n');
+            }
+        }
+        header(out, "livonia_request_bytes_total", "counter", "Request body bytes read");
+        for (RequestMetrics m : requestList) {
+            out.append("livonia_request_bytes_total");
+            labels(out, m.getTags()).append("} ").append(m.getBytesIn()).append('\n');
+        }
+        header(out, "livonia_response_bytes_total", "counter", "Response body bytes written");
+        for (RequestMetrics m : requestList) {
+            out.append("livonia_response_bytes_total");
+            labels(out, m.getTags()).append("} ").append(m.getBytesOut()).append('\n');
+        }
+        header(out, "livonia_request_duration_seconds", "histogram", "Request processing time");
+        for (RequestMetrics m : requestList) {
+            LatencyHistogram h = m.getLatency();
+            // 先取总数，保证各桶累计值不超过+Inf
+            long count = h.getCount();
+            for (double le : LATENCY_BUCKETS) {
+                out.append("livonia_request_duration_seconds_bucket");
+                labels(out, m.getTags()).append(",le=\"").append(le).append("\"} ")
+                        .append(Math.min(h.countAtOrBelow((long) (le * 1_000_000)), count)).append('\n');
+            }
+            out.append("livonia_request_duration_seconds_bucket");
+            labels(out, m.getTags()).append(",le=\"+Inf\"} ").append(count).append('\n');
+            out.append("livonia_request_duration_seconds_sum");
+            labels(out, m.getTags()).append("} ").append(h.getSum() / 1_000_000.0).append('\n');
+            out.append("livonia_request_duration_seconds_count");
+            labels(out, m.getTags()).append("} ").append(count).append('\n');
+        }
+
+        List<CacheMetrics> cacheList = new ArrayList<>(caches.values());
+        cacheList.sort(Comparator.comparing(CacheMetrics::getName));
+        if (cacheList.isEmpty()) return;
+        header(out, "livonia_cache_hits_total", "counter", "Responses replayed from the response cache");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_hits_total", c, c.getHits());
+        header(out, "livonia_cache_misses_total", "counter", "Cacheable requests not found in the response cache");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_misses_total", c, c.getMisses());
+        header(out, "livonia_cache_stores_total", "counter", "Responses stored in the response cache");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_stores_total", c, c.getStores());
+        header(out, "livonia_cache_evictions_total", "counter", "Entries evicted to stay within the size limit");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_evictions_total", c, c.getEvictions());
+        header(out, "livonia_cache_purges_total", "counter", "Entries removed by purge");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_purges_total", c, c.getPurges());
+        header(out, "livonia_cache_entries", "gauge", "Entries in the response cache");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_entries", c, c.getEntries());
+        header(out, "livonia_cache_bytes", "gauge", "Bytes held by the response cache");
+        for (CacheMetrics c : cacheList) cacheSample(out, "livonia_cache_bytes", c, c.getBytes());
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void portSample(StringBuilder out, String name, int port, long value) {
+        out.append(name).append("{port=\"").append(port).append("\"} ").append(value).append('\n');
+    }
+
+    private static void cacheSample(StringBuilder out, String name, CacheMetrics cache, long value) {
+        out.append(name).append("{cache=\"");
+        escape(out, cache.getName()).append("\"} ").append(value).append('\n');
+    }
+
+    // 输出标签但不闭合花括号，调用方可以继续追加标签
+    private static StringBuilder labels(StringBuilder out, RequestMetrics.Tags tags) {
+        out.append("{port=\"").append(tags.port()).append('"');
+        out.append(",host=\"");
+        escape(out, tags.host()).append('"');
+        out.append(",context=\"");
+        escape(out, tags.context()).append('"');
+        out.append(",endpoint=\"");
+        escape(out, tags.endpoint()).append('"');
+        return out;
+    }
+
+    private static StringBuilder escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        return out;
+    }
+    //</editor-fold>
+}
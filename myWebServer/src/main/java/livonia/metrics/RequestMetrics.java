@@ -0,0 +1,78 @@
+package livonia.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一组标签（连接器端口、Host、Context、Endpoint）下的请求统计。
+ * <p>
+ * 所有计数均为 {@link LongAdder}，多个解析器线程并发记录时不会互相争用。
+ */
+public final class RequestMetrics {
+    //<editor-fold desc = "attr">
+    private final Tags tags;
+    // 按状态码类别（1xx~5xx）统计的请求数，下标0为非法状态码
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    // 请求体读取字节数
+    private final LongAdder bytesIn = new LongAdder();
+    // 响应体写出字节数
+    private final LongAdder bytesOut = new LongAdder();
+    // 处理耗时
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    RequestMetrics(Tags tags) {
+        this.tags = tags;
+        for (int i = 0; i < statusClasses.length; i++) statusClasses[i] = new LongAdder();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+
+    /**
+     * 记录一次已完成的请求
+     */
+    public void record(int status, long bytesIn, long bytesOut, long elapsedNanos) {
+        int statusClass = status / 100;
+        statusClasses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+        if (bytesIn > 0) this.bytesIn.add(bytesIn);
+        if (bytesOut > 0) this.bytesOut.add(bytesOut);
+        latency.record(elapsedNanos / 1000);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "getter">
+    public Tags getTags() {
+        return tags;
+    }
+
+    /**
+     * @param statusClass 1~5 对应 1xx~5xx，0 为非法状态码
+     */
+    public long getRequests(int statusClass) {
+        return statusClasses[statusClass].sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "标签">
+
+    /**
+     * 请求统计的标签，未能映射到的层级使用 {@link #NONE}
+     */
+    public record Tags(int port, String host, String context, String endpoint) {
+        public static final String NONE = "-";
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,105 @@
+package livonia.metrics;
+
+import livonia.base.Vas;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动耗时报告。
+ * <p>
+ * 各组件在启动时按阶段记录耗时，组件名为从顶层容器到自身的路径，如 {@code engine/localhost/app}。
+ * 并行启动时兄弟组件的耗时互相重叠，父组件的 {@code children} 阶段是这些重叠区间的墙钟时间。
+ * 同一组件再次启动（如重载）时覆盖上一次的记录。
+ */
+public final class StartupReport {
+    //<editor-fold desc = "attr">
+    private static final StartupReport DEFAULT = new StartupReport();
+    // 表示组件整体启动的阶段名
+    public static final String TOTAL = "start";
+    // 组件 -> (阶段 -> 纳秒)，阶段保持记录顺序
+    private final ConcurrentHashMap<String, Map<String, Long>> components = new ConcurrentHashMap<>();
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+    public static StartupReport getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 记录一个阶段从 {@code startNanos} 到现在的耗时
+     *
+     * @param startNanos 阶段开始时的 {@link System#nanoTime()}
+     * @return 当前的 {@link System#nanoTime()}，可直接作为下一阶段的开始时间
+     */
+    public long record(String component, String phase, long startNanos) {
+        long now = System.nanoTime();
+        components.computeIfAbsent(component, _ -> Collections.synchronizedMap(new LinkedHashMap<>()))
+                .put(phase, now - startNanos);
+        return now;
+    }
+
+    /**
+     * 返回组件某一阶段的耗时（纳秒），未记录时返回-1
+     */
+    public long elapsed(String component, String phase) {
+        Map<String, Long> phases = components.get(component);
+        if (phases == null) return -1;
+        Long nanos = phases.get(phase);
+        return nanos == null ? -1 : nanos;
+    }
+
+    public Set<String> getComponents() {
+        return Collections.unmodifiableSet(components.keySet());
+    }
+
+    public void clear() {
+        components.clear();
+    }
+
+    /**
+     * 容器在报告中的名称：从顶层容器到自身的各级名称，以 / 连接
+     */
+    public static String nameOf(Vas vas) {
+        Deque<String> names = new ArrayDeque<>();
+        for (Vas v = vas; v != null; v = v.getParent()) {
+            String name = v.getName();
+            if (name == null || name.isEmpty() || name.equals("/")) name = "ROOT";
+            else if (name.startsWith("/")) name = name.substring(1);
+            names.push(name);
+        }
+        return String.join("/", names);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "输出">
+
+    /**
+     * 按组件路径排序输出，每行为组件的总耗时及各阶段耗时（毫秒）
+     */
+    public String format() {
+        List<String> names = new ArrayList<>(components.keySet());
+        Collections.sort(names);
+        int width = 9;
+        for (String name : names) width = Math.max(width, name.length());
+        StringBuilder out = new StringBuilder("startup report (ms)\n");
+        out.append(String.format("  %-" + width + "s %8s  %s%n", "component", TOTAL, "phases"));
+        for (String name : names) {
+            Map<String, Long> phases;
+            synchronized (phases = components.get(name)) {
+                phases = new LinkedHashMap<>(phases);
+            }
+            Long total = phases.remove(TOTAL);
+            StringJoiner detail = new StringJoiner(", ");
+            phases.forEach((phase, nanos) -> detail.add(phase + " " + millis(nanos)));
+            out.append(String.format("  %-" + width + "s %8s  %s%n", name, total == null ? "-" : millis(total), detail));
+        }
+        return out.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,180 @@
+package livonia.resource;
+
+import livonia.log.BaseLogger;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 持久化到 Host 工作目录中的 WEB-INF/classes 与 WEB-INF/lib 扫描结果。
+ * <p>
+ * 下次启动时只需比对各目录与 jar 的修改时刻（jar 另比对大小），未变化时直接还原，
+ * 不再遍历 classes 目录树，也不再枚举、校验 jar 中的条目。
+ * 文件内容本身总是实时读取，所以只修改已有文件的内容不会使索引失效；
+ * 增删文件会改变所在目录的修改时刻。
+ */
+final class ResourceIndex {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(ResourceIndex.class);
+    // 文件头 "LRIX"
+    private static final int MAGIC = 0x4C524958;
+    private static final int VERSION = 1;
+    // 目录不存在时记录的修改时刻
+    private static final long MISSING = -1L;
+    // 扫描时 WebApp 的根目录
+    private final String basePath;
+    // classes 中的目录（相对 classes，根目录为空串） -> 修改时刻
+    private final Map<String, Long> classDirs;
+    // classes 中的类文件，以 / 开头
+    private final List<String> classFiles;
+    // lib 目录的修改时刻
+    private final long libModified;
+    // lib 中按扫描顺序排列的 jar
+    private final List<Jar> jars;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    ResourceIndex(String basePath, Map<String, Long> classDirs, List<String> classFiles,
+                  long libModified, List<Jar> jars) {
+        this.basePath = basePath;
+        this.classDirs = classDirs;
+        this.classFiles = classFiles;
+        this.libModified = libModified;
+        this.jars = jars;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "getter">
+    List<String> getClassFiles() {
+        return classFiles;
+    }
+
+    List<Jar> getJars() {
+        return jars;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "校验">
+
+    /**
+     * 索引是否仍与磁盘一致
+     */
+    boolean matches(String basePath, Path classesDir, Path libDir) {
+        if (!this.basePath.equals(basePath)) return false;
+        for (Map.Entry<String, Long> dir : classDirs.entrySet()) {
+            if (modified(classesDir.resolve(dir.getKey())) != dir.getValue()) return false;
+        }
+        if (modified(libDir) != libModified) return false;
+        for (Jar jar : jars) {
+            Path file = libDir.resolve(jar.fileName());
+            try {
+                if (Files.size(file) != jar.size() || modified(file) != jar.modified()) return false;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long modified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "读写">
+
+    /**
+     * @return 文件不存在、损坏或版本不同时返回null
+     */
+    static ResourceIndex read(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            String basePath = in.readUTF();
+            int dirCount = in.readInt();
+            Map<String, Long> classDirs = new LinkedHashMap<>(dirCount * 2);
+            for (int i = 0; i < dirCount; i++) classDirs.put(in.readUTF(), in.readLong());
+            int fileCount = in.readInt();
+            List<String> classFiles = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; i++) classFiles.add(in.readUTF());
+            long libModified = in.readLong();
+            int jarCount = in.readInt();
+            List<Jar> jars = new ArrayList<>(jarCount);
+            for (int i = 0; i < jarCount; i++) {
+                String fileName = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                boolean skipped = in.readBoolean();
+                int entryCount = in.readInt();
+                List<String> entries = new ArrayList<>(entryCount);
+                for (int j = 0; j < entryCount; j++) entries.add(in.readUTF());
+                jars.add(new Jar(fileName, size, modified, skipped, entries));
+            }
+            return new ResourceIndex(basePath, classDirs, classFiles, libModified, jars);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("资源索引无法读取，重新扫描: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 先写入临时文件再替换，读到的索引总是完整的
+     */
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(basePath);
+                out.writeInt(classDirs.size());
+                for (Map.Entry<String, Long> dir : classDirs.entrySet()) {
+                    out.writeUTF(dir.getKey());
+                    out.writeLong(dir.getValue());
+                }
+                out.writeInt(classFiles.size());
+                for (String classFile : classFiles) out.writeUTF(classFile);
+                out.writeLong(libModified);
+                out.writeInt(jars.size());
+                for (Jar jar : jars) {
+                    out.writeUTF(jar.fileName());
+                    out.writeLong(jar.size());
+                    out.writeLong(jar.modified());
+                    out.writeBoolean(jar.skipped());
+                    out.writeInt(jar.entries().size());
+                    for (String entry : jar.entries()) out.writeUTF(entry);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * lib 中的一个 jar
+     *
+     * @param skipped 是否因包含 Servlet API 而被跳过
+     * @param entries 非目录条目的名称，如 com/example/MyClass.class
+     */
+    record Jar(String fileName, long size, long modified, boolean skipped, List<String> entries) {
+    }
+    //</editor-fold>
+}
@@ -33,6 +33,21 @@ public class ResourceManager implements Lifecycle {
     private final Map<String, List<LocalResource>> stasticResMap = new HashMap<>();
     // 缓存 .class 的相对路径到绝对 Path
     private final Map<String, Path> classesPaths = new HashMap<>();
+    // 包路径 -> 含有该包的来源，WEB-INF/classes 在前，其后按扫描顺序排列各个 jar
+    private final Map<String, List<ClassSource>> packageIndex = new HashMap<>();
+    // WEB-INF/classes 作为来源
+    private final ClassSource classesSource = path -> {
+        Path target = classesPaths.get(path);
+        return target == null ? null : new FileResource(target);
+    };
+    // 保持打开的 jar，停止时关闭
+    private final List<JarFile> openJars = new ArrayList<>();
+    // 本次扫描到的 classes 目录（相对 classes） -> 修改时刻，用于持久化索引
+    private final Map<String, Long> classDirs = new LinkedHashMap<>();
+    // 本次扫描到的 jar，用于持久化索引
+    private final List<ResourceIndex.Jar> scannedJars = new ArrayList<>();
+    // 持久化索引在 Host 工作目录下的文件名
+    private static final String INDEX_FILE = "resources.idx";
     // 生命周期助手
     protected LifecycleHelper lifecycleHelper = new LifecycleHelper(this);
     private Map<String, List<LocalResource>> allResources = new HashMap<>();
@@ -101,16 +116,22 @@ public class ResourceManager implements Lifecycle {
             if (!Files.exists(classesDir)) {
                 logger.debug("WEB-INF/classes 目录不存在，创建目录: {}", classesDir);
                 Files.createDirectories(classesDir);
+                classDirs.put("", ResourceIndex.modified(classesDir));
                 return; // 新创建的目录是空的，直接返回
             }
             
             Files.walk(classesDir)
-                    .filter(p -> p.toString().endsWith(DOTCLASS))
                     .forEach(p -> {
                         // 计算相对路径，并统一为/分隔
                         String rel = classesDir.relativize(p)
                                 .toString()
                                 .replace(File.separatorChar, CHAR_SOLIDUS);
+                        // 记录目录的修改时刻，增删文件时会变化
+                        if (Files.isDirectory(p)) {
+                            classDirs.put(rel, ResourceIndex.modified(p));
+                            return;
+                        }
+                        if (!rel.endsWith(DOTCLASS)) return;
                         // 跳过受保护的包
                         if (isProtectedClass(rel)) {
                             logger.info("跳过受保护的类文件: {}", rel);
@@ -118,6 +139,7 @@ public class ResourceManager implements Lifecycle {
                         }
                         // 正常注册
                         classesPaths.put(SOLIDUS + rel, p);
+                        indexPackage(SOLIDUS + rel, classesSource);
                     });
         } catch (IOException e) {
             logger.error("初始化 class 路径失败: {}", classesDir, e);
@@ -134,9 +156,13 @@ public class ResourceManager implements Lifecycle {
 
     // 扫描 jar 文件
     public void scanJarFile(File jarFile) {
-        // 打开 JarFile，并把所有条目读到一个列表中，方便两次遍历
+        // 打开的 JarFile 在本组件停止前一直保持打开，jar 中的条目都通过它读取
+        JarFile jf;
         List<JarEntry> entries;
-        try (JarFile jf = new JarFile(jarFile)) {
+        long size = jarFile.length();
+        long modified = jarFile.lastModified();
+        try {
+            jf = new JarFile(jarFile);
             entries = Collections.list(jf.entries());
         } catch (IOException e) {
             logger.warn("无法打开 JAR 进行校验，跳过扫描: {}", jarFile, e);
@@ -150,29 +176,66 @@ public class ResourceManager implements Lifecycle {
             if (name.equals("javax/servlet/Servlet.class")
                     || name.startsWith("javax/servlet/")) {
                 logger.info("跳过 servlet-api JAR: {}", jarFile.getName());
+                closeQuietly(jf);
+                scannedJars.add(new ResourceIndex.Jar(jarFile.getName(), size, modified, true, List.of()));
                 return;
             }
             if (name.equals("jakarta/servlet/Servlet.class")
                     || name.startsWith("jakarta/servlet/")) {
                 logger.info("跳过 jakarta servlet-api JAR: {}", jarFile.getName());
+                closeQuietly(jf);
+                scannedJars.add(new ResourceIndex.Jar(jarFile.getName(), size, modified, true, List.of()));
                 return;
             }
         }
 
         // 真正扫描阶段：所有校验通过的 JAR 才做全量索引
-        try (JarFile jf = new JarFile(jarFile)) {
-            Enumeration<JarEntry> e = jf.entries();
-            while (e.hasMoreElements()) {
-                JarEntry je = e.nextElement();
-                if (!je.isDirectory()) {
-                    String resourcePath = normalizePath(je.getName());
-                    LocalResource resource = new JarResource(jf, je, Path.of(resourcePath));
-                    addClassLoaderResources(resourcePath, resource);
-                }
+        List<JarEntry> files = new ArrayList<>(entries.size());
+        List<String> names = new ArrayList<>(entries.size());
+        for (JarEntry je : entries) {
+            if (!je.isDirectory()) {
+                files.add(je);
+                names.add(je.getName());
             }
-        } catch (IOException ex) {
-            throw new RuntimeException("扫描 JAR 失败: " + jarFile, ex);
         }
+        registerJar(jf, jarFile.toPath(), files);
+        scannedJars.add(new ResourceIndex.Jar(jarFile.getName(), size, modified, false, names));
+    }
+
+    // 登记一个保持打开的 jar 中的条目
+    private void registerJar(JarFile jf, Path jarPath, List<JarEntry> entries) {
+        openJars.add(jf);
+        ClassSource source = path -> {
+            JarEntry entry = jf.getJarEntry(path.substring(1));
+            return entry == null || entry.isDirectory() ? null : new JarResource(jf, entry, jarPath);
+        };
+        for (JarEntry je : entries) {
+            String resourcePath = normalizePath(je.getName());
+            addClassLoaderResources(resourcePath, new JarResource(jf, je, jarPath));
+            indexPackage(resourcePath, source);
+        }
+    }
+
+    private void closeQuietly(JarFile jarFile) {
+        try {
+            jarFile.close();
+        } catch (IOException e) {
+            logger.debug("关闭 JAR 失败: {}", jarFile.getName(), e);
+        }
+    }
+
+    /**
+     * 把资源所在的包登记到来源上，同一来源只登记一次
+     */
+    private void indexPackage(String resourcePath, ClassSource source) {
+        List<ClassSource> sources = packageIndex.computeIfAbsent(packageOf(resourcePath), k -> new ArrayList<>(1));
+        if (!sources.contains(source)) sources.add(source);
+    }
+
+    // /com/example/MyClass.class -> /com/example ，根目录下的资源为空串
+    private static String packageOf(String resourcePath) {
+        int slash = resourcePath.lastIndexOf(CHAR_SOLIDUS);
+        return slash <= 0 ? "" : resourcePath.substring(0, slash);
     }
 
     // 扫描 配置文件
@@ -287,19 +350,19 @@ public class ResourceManager implements Lifecycle {
         return resources.toArray(new LocalResource[0]);
     }
 
+    /**
+     * 按包索引查找类加载器可见的资源，先 WEB-INF/classes 后 WEB-INF/lib。
+     * 包不在任何来源中时不做进一步查找。
+     *
+     * @return 找不到时返回null
+     */
     public LocalResource getLoaderResource(String path) {
         String normalizedPath = normalizePath(path);
-        List<LocalResource> resources01 = classLoaderResourceMap.get(normalizedPath);
-        if (resources01 != null) {
-            for (LocalResource res : resources01) {
-                if (res.exists()) {
-                    return res;
-                }
-            }
-        }
-        Path target = classesPaths.get(normalizedPath);
-        if (target != null) {
-            return new FileResource(target);
+        List<ClassSource> sources = packageIndex.get(packageOf(normalizedPath));
+        if (sources == null) return null;
+        for (ClassSource source : sources) {
+            LocalResource resource = source.find(normalizedPath);
+            if (resource != null) return resource;
         }
         return null;
     }
@@ -374,11 +437,28 @@ public class ResourceManager implements Lifecycle {
         Path classesDir = webInfRoot.resolve(CLASSES_ONLY);
         Path libDir = webInfRoot.resolve(LIB_ONLY);
         Path staticDir = webInfRoot.resolve(RESOURCES_ONLY);
-        // 扫描WEB-INF/classes下的所有 class 文件
-        scanClassDir(classesDir);
-        // 扫描静态资源
+        // Host 工作目录中的索引与磁盘一致时直接还原，否则重新扫描并保存
+        Path indexFile = indexFile();
+        ResourceIndex index = indexFile == null ? null : ResourceIndex.read(indexFile);
+        if (index != null && index.matches(basePath, classesDir, libDir)) {
+            restoreIndex(index, classesDir, libDir);
+            logger.debug("从资源索引还原: {}", indexFile);
+        } else {
+            scanClassAndLib(classesDir, libDir);
+            if (indexFile != null) saveIndex(indexFile, libDir);
+        }
+        // 扫描所有配置文件
+        scanConfigResources(webInfRoot);
+        // 扫描所有静态文件
         scanFileSystem(staticDir);
-        // 扫描 WEB-INF/lib 下的所有 jar 文件
+        // 将所有映射统一管理
+        combine();
+    }
+
+
+    // 扫描WEB-INF/classes下的所有 class 文件与 WEB-INF/lib 下的所有 jar 文件
+    private void scanClassAndLib(Path classesDir, Path libDir) {
+        scanClassDir(classesDir);
         if (!Files.exists(libDir)) {
             logger.debug("WEB-INF/lib 目录不存在，创建目录: {}", libDir);
             try {
@@ -397,14 +477,49 @@ public class ResourceManager implements Lifecycle {
                 logger.error("Failed to scan jar files in WEB-INF/lib", e);
             }
         }
-        // 扫描所有配置文件
-        scanConfigResources(webInfRoot);
-        // 扫描所有静态文件
-        scanFileSystem(staticDir);
-        // 将所有映射统一管理
-        combine();
     }
 
+    /**
+     * 持久化索引的位置：{@code <workDir>/<context>/resources.idx}
+     *
+     * @return Host 未配置工作目录时返回null
+     */
+    private Path indexFile() {
+        Path dir = context.getWorkPath();
+        return dir == null ? null : dir.resolve(INDEX_FILE);
+    }
+
+    private void restoreIndex(ResourceIndex index, Path classesDir, Path libDir) {
+        for (String classFile : index.getClassFiles()) {
+            classesPaths.put(classFile, classesDir.resolve(classFile.substring(1)));
+            indexPackage(classFile, classesSource);
+        }
+        for (ResourceIndex.Jar jar : index.getJars()) {
+            if (jar.skipped()) continue;
+            Path jarPath = libDir.resolve(jar.fileName());
+            try {
+                JarFile jf = new JarFile(jarPath.toFile());
+                List<JarEntry> entries = new ArrayList<>(jar.entries().size());
+                for (String name : jar.entries()) {
+                    JarEntry entry = jf.getJarEntry(name);
+                    if (entry != null) entries.add(entry);
+                }
+                registerJar(jf, jarPath, entries);
+            } catch (IOException e) {
+                logger.warn("无法打开 JAR: {}", jarPath, e);
+            }
+        }
+    }
+
+    private void saveIndex(Path indexFile, Path libDir) {
+        ResourceIndex index = new ResourceIndex(basePath, new LinkedHashMap<>(classDirs),
+                new ArrayList<>(classesPaths.keySet()), ResourceIndex.modified(libDir), new ArrayList<>(scannedJars));
+        try {
+            index.write(indexFile);
+        } catch (IOException e) {
+            logger.warn("保存资源索引失败: {}", indexFile, e);
+        }
+    }
 
     //<editor-fold desc = "扫描WEB-INF/classes">
 
@@ -425,15 +540,27 @@ public class ResourceManager implements Lifecycle {
             logger.warn("未找到WEB-INF/classes目录: {}", classesDir);
             return new LocalResource[0];
         }
-        try (var stream = Files.walk(classesDir)) {
-            return stream
-                    .filter(Files::isRegularFile)
-                    .map(FileResource::new)
-                    .toArray(LocalResource[]::new);
-        } catch (IOException e) {
-            logger.error("遍历WEB-INF/classes时出错", e);
-            return new LocalResource[0];
-        }
+        // 启动时已扫描过，不再遍历目录
+        return classesPaths.values().stream()
+                .map(FileResource::new)
+                .toArray(LocalResource[]::new);
+    }
+
+    /**
+     * 列出 WEB-INF/classes 与 WEB-INF/lib 中所有类的二进制名
+     */
+    public List<String> listClassNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (String path : classesPaths.keySet()) addClassName(names, path);
+        for (String path : classLoaderResourceMap.keySet()) addClassName(names, path);
+        return new ArrayList<>(names);
+    }
+
+    private static void addClassName(Set<String> names, String path) {
+        if (!path.endsWith(DOTCLASS) || path.startsWith("/META-INF/")) return;
+        String name = path.substring(1, path.length() - DOTCLASS.length()).replace(CHAR_SOLIDUS, '.');
+        if (name.endsWith("module-info") || name.endsWith("package-info")) return;
+        names.add(name);
     }
     //</editor-fold>
     //<editor-fold desc = "扫描WEB-INF/lib">
@@ -491,6 +618,7 @@ public class ResourceManager implements Lifecycle {
         lifecycleHelper.fireLifecycleEvent(START_EVENT, null);
         isStarted = true;
         classLoaderResourceMap.clear();
+        packageIndex.clear();
         if (context == null) throw new IllegalStateException("ResourceManager ：context is null！");
         basePath = context.getBasePath();
         // /Users/lilinjian/workspace/webapp/WEB-INF/
@@ -509,7 +637,27 @@ public class ResourceManager implements Lifecycle {
         logger.debug("LifeCycle : ResourceManager is stopping");
         lifecycleHelper.fireLifecycleEvent(STOP_EVENT, null);
         isStarted = false;
+        for (JarFile jar : openJars) closeQuietly(jar);
+        openJars.clear();
+        packageIndex.clear();
+        classesPaths.clear();
+        classDirs.clear();
+        scannedJars.clear();
         logger.debug("LifeCycle : ResourceManager is stopped");
     }
     //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 类加载资源的来源：WEB-INF/classes 或一个 jar
+     */
+    @FunctionalInterface
+    private interface ClassSource {
+        /**
+         * @param path 以 / 开头的资源路径
+         * @return 来源中不存在时返回null
+         */
+        LocalResource find(String path);
+    }
+    //</editor-fold>
 }
@@ -0,0 +1,218 @@
+package livonia.session;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+import javax.servlet.http.HttpSessionContext;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 完整保存在客户端Cookie中的会话，服务器端不保留任何状态。
+ * <p>
+ * 每个请求从Cookie解码出自己的实例，响应提交前只有属性或超时时间有变化时才重新写出Cookie，
+ * 因此修改可变属性值的内部状态后需要再次调用 {@link #setAttribute}。
+ * 服务器无法得知会话何时在客户端消失，不通知会话与属性监听器，只通知 {@link HttpSessionBindingListener}。
+ */
+public final class CookieSession implements HttpSession {
+    //<editor-fold desc = "attr">
+    private final CookieSessionCodec codec;
+    private final long creationTime;
+    // 上次写出Cookie的时刻
+    private final long lastWrittenTime;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final boolean isNew;
+    private volatile String id;
+    // 单位为秒，不大于0时永不过期
+    private volatile int maxInactiveInterval;
+    private volatile boolean valid = true;
+    // 本次请求中是否有需要写回Cookie的变化
+    private volatile boolean dirty = false;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    CookieSession(CookieSessionCodec codec, String id, long creationTime, long lastWrittenTime,
+                  int maxInactiveInterval, boolean isNew) {
+        this.codec = codec;
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastWrittenTime = lastWrittenTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.isNew = isNew;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "编解码器使用">
+
+    // 解码与编码时直接读写属性，不通知监听器
+    Map<String, Object> attributes() {
+        return attributes;
+    }
+
+    long lastWritten() {
+        return lastWrittenTime;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public boolean isEmpty() {
+        return attributes.isEmpty();
+    }
+
+    /**
+     * 更换会话ID，下次写出的Cookie携带新ID
+     */
+    public String changeId() {
+        checkValid();
+        id = codec.generateId();
+        dirty = true;
+        return id;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "HttpSession">
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        return creationTime;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Cookie只在有变化时写出，这里返回的是上次写出Cookie的时刻
+     */
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return lastWrittenTime;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return codec.getServletContext();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        if (interval != maxInactiveInterval) dirty = true;
+        maxInactiveInterval = interval;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    @Override
+    @Deprecated
+    public HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        return name == null ? null : attributes.get(name);
+    }
+
+    @Override
+    @Deprecated
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    @Deprecated
+    public String[] getValueNames() {
+        checkValid();
+        return attributes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (name == null) throw new IllegalArgumentException("attribute name is null");
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        checkValid();
+        if (value instanceof HttpSessionBindingListener listener) {
+            listener.valueBound(new HttpSessionBindingEvent(this, name, value));
+        }
+        Object old = attributes.put(name, value);
+        dirty = true;
+        if (old != null && old != value && old instanceof HttpSessionBindingListener listener) {
+            listener.valueUnbound(new HttpSessionBindingEvent(this, name, old));
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        checkValid();
+        if (name == null) return;
+        Object old = attributes.remove(name);
+        if (old == null) return;
+        dirty = true;
+        if (old instanceof HttpSessionBindingListener listener) {
+            listener.valueUnbound(new HttpSessionBindingEvent(this, name, old));
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    /**
+     * 失效后响应中删除客户端的Cookie；已经发出的Cookie在超时前仍可被重放，服务器无法吊销
+     */
+    @Override
+    public void invalidate() {
+        checkValid();
+        valid = false;
+        dirty = true;
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            if (entry.getValue() instanceof HttpSessionBindingListener listener) {
+                listener.valueUnbound(new HttpSessionBindingEvent(this, entry.getKey(), entry.getValue()));
+            }
+        }
+        attributes.clear();
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return isNew;
+    }
+
+    private void checkValid() {
+        if (!valid) throw new IllegalStateException("session " + id + " already invalidated");
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,380 @@
+package livonia.session;
+
+import livonia.base.Context;
+import livonia.log.BaseLogger;
+import org.slf4j.Logger;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.ServletContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把 {@link CookieSession} 编码为Cookie值，以及从Cookie值还原会话。
+ * <p>
+ * 常见类型的属性值按类型标记紧凑编码，其余可序列化的值使用Java序列化，不可序列化的值被丢弃。
+ * 默认只签名：{@code base64(数据).base64(HMAC-SHA256)}；启用加密时使用 AES-GCM，
+ * 认证标签同时保证完整性，不再单独签名。签名与加密都绑定上下文路径，Cookie不能被挪用到其他上下文。
+ * 只有通过校验的数据才会被反序列化。
+ * <p>
+ * 超时按上次写出Cookie的时刻计算；只读请求不会写出Cookie，
+ * 但距上次写出已超过一半超时时间时会重新写出一次，使仍在使用的会话不会过期。
+ */
+public final class CookieSessionCodec {
+    private static final Logger logger = BaseLogger.getLogger(CookieSessionCodec.class);
+    //<editor-fold desc = "attr">
+    // 浏览器对单个Cookie（含名称与属性）的限制约为4096字节
+    public static final int MAX_VALUE_LENGTH = 3800;
+    // 密钥至少128位
+    public static final int MIN_SECRET_LENGTH = 16;
+    private static final byte VERSION = 1;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BYTES = 6;
+    private static final byte SERIALIZED = 9;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final char SEPARATOR = '.';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Context context;
+    // Context 没有类加载器时反序列化属性所用的类加载器，为null时使用线程上下文类加载器
+    private final ClassLoader classLoader;
+    private final SecretKeySpec macKey;
+    // 未启用加密时为null
+    private final SecretKeySpec cipherKey;
+    // 签名与加密时附加的上下文路径
+    private final byte[] binding;
+    private final SessionIdGenerator idGenerator = new SessionIdGenerator();
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> macs;
+    // 签名不符、无法解密或无法解码的Cookie数，持续增长通常意味着各实例的密钥不一致
+    private final LongAdder rejected = new LongAdder();
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+
+    /**
+     * @param secret  各实例共享的密钥，签名与加密的密钥都由它派生
+     * @param encrypt 是否加密，不加密时客户端可以读到属性值
+     */
+    public CookieSessionCodec(Context context, byte[] secret, boolean encrypt) throws GeneralSecurityException {
+        this(context, secret, encrypt, null);
+    }
+
+    /**
+     * @param classLoader Context 没有类加载器时反序列化属性所用的类加载器
+     */
+    public CookieSessionCodec(Context context, byte[] secret, boolean encrypt, ClassLoader classLoader)
+            throws GeneralSecurityException {
+        if (secret == null || secret.length < MIN_SECRET_LENGTH)
+            throw new IllegalArgumentException("session secret must be at least " + MIN_SECRET_LENGTH + " bytes");
+        this.context = context;
+        this.classLoader = classLoader;
+        this.macKey = new SecretKeySpec(derive(secret, "livonia-session-mac"), MAC_ALGORITHM);
+        this.cipherKey = encrypt ? new SecretKeySpec(derive(secret, "livonia-session-cipher"), "AES") : null;
+        String path = context == null ? null : context.getPath();
+        this.binding = (path == null ? "" : path).getBytes(StandardCharsets.UTF_8);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(macKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // 提前暴露算法不可用的问题
+        macs.get();
+        if (encrypt) Cipher.getInstance(CIPHER);
+    }
+
+    private static byte[] derive(byte[] secret, String label) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+        return mac.doFinal(label.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "会话">
+    public CookieSession create() {
+        long now = System.currentTimeMillis();
+        int timeout = context == null ? SessionManager.DEFAULT_MAX_INACTIVE_INTERVAL : context.getSessionTimeout() * 60;
+        return new CookieSession(this, generateId(), now, now, timeout, true);
+    }
+
+    String generateId() {
+        return idGenerator.generate();
+    }
+
+    ServletContext getServletContext() {
+        return context == null ? null : context.getServletContext();
+    }
+
+    public boolean isEncrypted() {
+        return cipherKey != null;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 有变化，或距上次写出已超过一半超时时间时需要写出Cookie
+     */
+    public boolean shouldWrite(CookieSession session, long now) {
+        if (session.isDirty()) return true;
+        int interval = session.getMaxInactiveInterval();
+        return !session.isNew() && interval > 0 && now - session.lastWritten() > interval * 500L;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "编码">
+
+    /**
+     * @return Cookie值，超出长度限制时返回null，此时本次的变化不会保存
+     */
+    public String encode(CookieSession session, long now) {
+        byte[] payload;
+        try {
+            payload = write(session, now);
+        } catch (IOException e) {
+            logger.error("session : encode cookie session {} failed", session.getId(), e);
+            return null;
+        }
+        String value;
+        try {
+            value = cipherKey == null ? sign(payload) : encrypt(payload);
+        } catch (GeneralSecurityException e) {
+            logger.error("session : seal cookie session {} failed", session.getId(), e);
+            return null;
+        }
+        if (value.length() > MAX_VALUE_LENGTH) {
+            logger.warn("session : cookie session {} is {} bytes , exceeds {} , changes are not saved",
+                    session.getId(), value.length(), MAX_VALUE_LENGTH);
+            return null;
+        }
+        return value;
+    }
+
+    private byte[] write(CookieSession session, long now) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeUTF(session.getId());
+        out.writeLong(session.getCreationTime());
+        out.writeLong(now);
+        out.writeInt(session.getMaxInactiveInterval());
+        Map<String, Object> attributes = session.attributes();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream values = new DataOutputStream(body);
+        int count = 0;
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (writeValue(values, attribute.getKey(), attribute.getValue())) count++;
+        }
+        out.writeShort(count);
+        values.flush();
+        body.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return 不可序列化时返回false，属性被丢弃
+     */
+    private boolean writeValue(DataOutputStream out, String name, Object value) throws IOException {
+        switch (value) {
+            case String s -> {
+                out.writeUTF(name);
+                out.writeByte(STRING);
+                out.writeUTF(s);
+            }
+            case Integer i -> {
+                out.writeUTF(name);
+                out.writeByte(INTEGER);
+                out.writeInt(i);
+            }
+            case Long l -> {
+                out.writeUTF(name);
+                out.writeByte(LONG);
+                out.writeLong(l);
+            }
+            case Boolean b -> {
+                out.writeUTF(name);
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(b);
+            }
+            case Double d -> {
+                out.writeUTF(name);
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            case byte[] b -> {
+                out.writeUTF(name);
+                out.writeByte(BYTES);
+                out.writeInt(b.length);
+                out.write(b);
+            }
+            case Serializable s -> {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                    oos.writeObject(s);
+                } catch (IOException e) {
+                    logger.debug("session : attribute {} is not serializable , dropped", name, e);
+                    return false;
+                }
+                out.writeUTF(name);
+                out.writeByte(SERIALIZED);
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+            }
+            default -> {
+                logger.debug("session : attribute {} is not serializable , dropped", name);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String sign(byte[] payload) {
+        Mac mac = macs.get();
+        mac.update(binding);
+        byte[] signature = mac.doFinal(payload);
+        return ENCODER.encodeToString(payload) + SEPARATOR + ENCODER.encodeToString(signature);
+    }
+
+    private String encrypt(byte[] payload) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, cipherKey, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(binding);
+        byte[] sealed = new byte[IV_LENGTH + cipher.getOutputSize(payload.length)];
+        System.arraycopy(iv, 0, sealed, 0, IV_LENGTH);
+        cipher.doFinal(payload, 0, payload.length, sealed, IV_LENGTH);
+        return ENCODER.encodeToString(sealed);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "解码">
+
+    /**
+     * @return 没有Cookie、校验失败或已超时时返回null
+     */
+    public CookieSession decode(String value, long now) {
+        if (value == null || value.isEmpty() || value.length() > MAX_VALUE_LENGTH) return null;
+        byte[] payload;
+        try {
+            payload = cipherKey == null ? verify(value) : decrypt(value);
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            payload = null;
+        }
+        if (payload == null) {
+            rejected.increment();
+            logger.debug("session : cookie session rejected");
+            return null;
+        }
+        try {
+            return read(payload, now);
+        } catch (IOException | RuntimeException | LinkageError e) {
+            // 类加载器已停止等情况下也只拒绝这个Cookie，不能让请求失败
+            rejected.increment();
+            logger.warn("session : cookie session cannot be decoded", e);
+            return null;
+        }
+    }
+
+    private byte[] verify(String value) {
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) return null;
+        byte[] payload = DECODER.decode(value.substring(0, separator));
+        byte[] signature = DECODER.decode(value.substring(separator + 1));
+        Mac mac = macs.get();
+        mac.update(binding);
+        return MessageDigest.isEqual(mac.doFinal(payload), signature) ? payload : null;
+    }
+
+    private byte[] decrypt(String value) throws GeneralSecurityException {
+        byte[] sealed = DECODER.decode(value);
+        if (sealed.length < IV_LENGTH + TAG_BITS / 8) return null;
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, cipherKey, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+        cipher.updateAAD(binding);
+        try {
+            return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+        } catch (AEADBadTagException e) {
+            return null;
+        }
+    }
+
+    private CookieSession read(byte[] payload, long now) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != VERSION) return null;
+        String id = in.readUTF();
+        long creationTime = in.readLong();
+        long lastWrittenTime = in.readLong();
+        int interval = in.readInt();
+        if (interval > 0 && now - lastWrittenTime > interval * 1000L) return null;
+        CookieSession session = new CookieSession(this, id, creationTime, lastWrittenTime, interval, false);
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            Object value = readValue(in);
+            if (value != null) session.attributes().put(name, value);
+            else logger.warn("session : attribute {} of cookie session {} cannot be restored , dropped", name, id);
+        }
+        return session;
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case STRING -> in.readUTF();
+            case INTEGER -> in.readInt();
+            case LONG -> in.readLong();
+            case BOOLEAN -> in.readBoolean();
+            case DOUBLE -> in.readDouble();
+            case BYTES -> readBytes(in);
+            case SERIALIZED -> {
+                try (ObjectInputStream ois = new SessionManager.LoaderObjectInputStream(
+                        new ByteArrayInputStream(readBytes(in)), loader())) {
+                    yield ois.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    logger.debug("session : attribute cannot be restored", e);
+                    yield null;
+                }
+            }
+            default -> throw new IOException("unknown attribute tag " + tag);
+        };
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_VALUE_LENGTH) throw new IOException("invalid attribute length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private ClassLoader loader() {
+        if (context != null && context.getLoader() != null) return context.getLoader().getClassLoader();
+        return classLoader != null ? classLoader : Thread.currentThread().getContextClassLoader();
+    }
+    //</editor-fold>
+}
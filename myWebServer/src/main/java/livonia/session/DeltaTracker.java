@@ -0,0 +1,124 @@
+package livonia.session;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录自上次发送以来发生变化的会话，供 {@link SessionReplicator} 成批取走。
+ * <p>
+ * 请求线程上只有一次并发Map操作，序列化与发送都在复制线程中完成。
+ * 同时保存最近失效的会话（墓碑），防止迟到的变化使会话复活。
+ */
+final class DeltaTracker {
+    //<editor-fold desc = "attr">
+    // 墓碑保留时间（毫秒）
+    private static final long TOMBSTONE_MILLIS = 60_000L;
+    // 会话ID -> 待发送的变化
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    // 待发送的失效会话ID -> 最后访问时刻
+    private final Map<String, Long> removals = new ConcurrentHashMap<>();
+    // 最近失效的会话ID -> {最后访问时刻, 失效时刻}
+    private final Map<String, long[]> tombstones = new ConcurrentHashMap<>();
+
+    //</editor-fold>
+    //<editor-fold desc = "记录">
+
+    /**
+     * 会话被访问，只需发送会话本身的状态
+     */
+    void touched(String id) {
+        if (pending.get(id) == null) pending.computeIfAbsent(id, k -> new Pending(System.currentTimeMillis()));
+    }
+
+    void changed(String id, String name) {
+        pending.compute(id, (k, p) -> {
+            if (p == null) p = new Pending(System.currentTimeMillis());
+            p.names.add(name);
+            return p;
+        });
+    }
+
+    /**
+     * 需要发送全部属性，如新建或更换了ID的会话
+     */
+    void full(String id) {
+        pending.compute(id, (k, p) -> {
+            if (p == null) p = new Pending(System.currentTimeMillis());
+            p.full = true;
+            return p;
+        });
+    }
+
+    void removed(String id, long lastAccessedTime) {
+        pending.remove(id);
+        removals.put(id, lastAccessedTime);
+        bury(id, lastAccessedTime);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "墓碑">
+    void bury(String id, long lastAccessedTime) {
+        tombstones.put(id, new long[]{lastAccessedTime, System.currentTimeMillis()});
+    }
+
+    /**
+     * 会话失效之后没有再被访问过的变化都应丢弃
+     */
+    boolean isBuried(String id, long lastAccessedTime) {
+        long[] tombstone = tombstones.get(id);
+        return tombstone != null && lastAccessedTime <= tombstone[0];
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "取走">
+    boolean isEmpty() {
+        return pending.isEmpty() && removals.isEmpty();
+    }
+
+    /**
+     * 取走全部待发送的变化，并清理过期的墓碑
+     */
+    Batch drain(long now) {
+        Map<String, Pending> changed = new HashMap<>();
+        for (String id : new ArrayList<>(pending.keySet())) {
+            Pending p = pending.remove(id);
+            if (p != null) changed.put(id, p);
+        }
+        Map<String, Long> removed = new HashMap<>();
+        for (String id : new ArrayList<>(removals.keySet())) {
+            Long lastAccessedTime = removals.remove(id);
+            if (lastAccessedTime != null) removed.put(id, lastAccessedTime);
+        }
+        tombstones.values().removeIf(t -> t[1] + TOMBSTONE_MILLIS < now);
+        long since = now;
+        for (Pending p : changed.values()) since = Math.min(since, p.since);
+        return new Batch(since, changed, removed);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 一个会话待发送的变化，只在 Map 的 compute 中修改
+     */
+    static final class Pending {
+        // 首次记录的时刻
+        final long since;
+        final Set<String> names = new HashSet<>();
+        boolean full;
+
+        Pending(long since) {
+            this.since = since;
+        }
+    }
+
+    /**
+     * @param since 其中最早一次变化的时刻，用于计算复制延迟
+     */
+    record Batch(long since, Map<String, Pending> changed, Map<String, Long> removed) {
+        boolean isEmpty() {
+            return changed.isEmpty() && removed.isEmpty();
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,107 @@
+package livonia.session;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在节点之间复制的一个会话的变化。
+ * <p>
+ * 只携带变化了的属性；属性按 {@link Stamp} 后写者胜出，重复或乱序到达的变化不会覆盖更新的值，
+ * 所以同一变化应用多次与应用一次结果相同。
+ *
+ * @param removed          会话是否已失效，失效时只有 lastAccessedTime 有意义
+ * @param lastAccessedTime 发出节点所知的最后访问时刻
+ * @param intervalStamp    最大不活动间隔的版本
+ * @param attributes       变化了的属性
+ */
+record SessionDelta(String id, boolean removed, long creationTime, long lastAccessedTime,
+                    int maxInactiveInterval, Stamp intervalStamp, List<Attribute> attributes) {
+
+    static SessionDelta removed(String id, long lastAccessedTime) {
+        return new SessionDelta(id, true, 0, lastAccessedTime, 0, Stamp.ZERO, List.of());
+    }
+
+    //<editor-fold desc = "编解码">
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(id);
+        out.writeBoolean(removed);
+        out.writeLong(lastAccessedTime);
+        if (removed) return;
+        out.writeLong(creationTime);
+        out.writeInt(maxInactiveInterval);
+        intervalStamp.writeTo(out);
+        out.writeInt(attributes.size());
+        for (Attribute attribute : attributes) {
+            out.writeUTF(attribute.name());
+            attribute.stamp().writeTo(out);
+            byte[] value = attribute.value();
+            out.writeInt(value == null ? -1 : value.length);
+            if (value != null) out.write(value);
+        }
+    }
+
+    static SessionDelta readFrom(DataInput in) throws IOException {
+        String id = in.readUTF();
+        boolean removed = in.readBoolean();
+        long lastAccessedTime = in.readLong();
+        if (removed) return removed(id, lastAccessedTime);
+        long creationTime = in.readLong();
+        int maxInactiveInterval = in.readInt();
+        Stamp intervalStamp = Stamp.readFrom(in);
+        int count = in.readInt();
+        List<Attribute> attributes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            Stamp stamp = Stamp.readFrom(in);
+            int length = in.readInt();
+            byte[] value = null;
+            if (length >= 0) {
+                value = new byte[length];
+                in.readFully(value);
+            }
+            attributes.add(new Attribute(name, stamp, value));
+        }
+        return new SessionDelta(id, false, creationTime, lastAccessedTime, maxInactiveInterval, intervalStamp, attributes);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 一个属性的变化
+     *
+     * @param value 序列化后的值，属性被移除时为null
+     */
+    record Attribute(String name, Stamp stamp, byte[] value) {
+    }
+
+    /**
+     * Lamport 时钟版本，版本相同时按节点ID区分，所有节点对先后的判断一致
+     */
+    record Stamp(long version, String node) implements Comparable<Stamp> {
+        static final Stamp ZERO = new Stamp(0, "");
+
+        @Override
+        public int compareTo(Stamp other) {
+            int result = Long.compare(version, other.version);
+            return result != 0 ? result : node.compareTo(other.node);
+        }
+
+        boolean isNewerThan(Stamp other) {
+            return other == null || compareTo(other) > 0;
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeLong(version);
+            out.writeUTF(node);
+        }
+
+        static Stamp readFrom(DataInput in) throws IOException {
+            return new Stamp(in.readLong(), in.readUTF());
+        }
+    }
+    //</editor-fold>
+}
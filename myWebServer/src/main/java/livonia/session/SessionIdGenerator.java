@@ -0,0 +1,54 @@
+package livonia.session;
+
+import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 会话ID生成器。
+ * <p>
+ * {@link SecureRandom} 单个实例在并发下会成为争用点，这里按需创建实例并放回池中复用，
+ * 池的大小自然收敛到同时生成ID的线程数。
+ */
+public final class SessionIdGenerator {
+    //<editor-fold desc = "attr">
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    // 默认16字节，即128位随机数
+    public static final int DEFAULT_LENGTH = 16;
+    private final Queue<SecureRandom> pool = new ConcurrentLinkedQueue<>();
+    private final int length;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    public SessionIdGenerator() {
+        this(DEFAULT_LENGTH);
+    }
+
+    /**
+     * @param length 随机字节数，ID长度为其两倍
+     */
+    public SessionIdGenerator(int length) {
+        if (length <= 0) throw new IllegalArgumentException("length must be positive : " + length);
+        this.length = length;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "生成">
+    public String generate() {
+        SecureRandom random = pool.poll();
+        if (random == null) random = new SecureRandom();
+        byte[] bytes = new byte[length];
+        try {
+            random.nextBytes(bytes);
+        } finally {
+            pool.offer(random);
+        }
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+    //</editor-fold>
+}
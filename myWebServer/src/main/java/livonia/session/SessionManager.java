@@ -0,0 +1,838 @@
+package livonia.session;
+
+import livonia.base.Context;
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleException;
+import livonia.lifecycle.LifecycleListener;
+import livonia.log.BaseLogger;
+import livonia.utils.LifecycleHelper;
+import org.slf4j.Logger;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.*;
+import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 每个 Context 一个的内存会话管理器。
+ * <p>
+ * 会话保存在并发Map中，到期由 {@link TimerWheel} 管理：后台线程每秒推进一格，
+ * 只检查这一格中的会话，开销与存活会话总数无关。
+ * 查找会话时也会检查是否已过期，所以过期的会话不会在时间轮推进之前被取到。
+ * <p>
+ * Host 配置了工作目录时，空闲超过 {@link #setMaxIdleSwap} 的会话钝化到 {@link SessionStore}，
+ * 内存中只保留活跃的会话；停止时所有会话都写入存储，重启后按需激活。
+ * 蓝绿重载期间新管理器从旧管理器按需迁移会话，旧实例的请求结束后再迁移其余的会话。
+ */
+public class SessionManager implements Lifecycle {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(SessionManager.class);
+    // 默认30分钟
+    public static final int DEFAULT_MAX_INACTIVE_INTERVAL = 1800;
+    // 时间轮一格的长度（毫秒）
+    static final long TICK_MILLIS = 1000L;
+    // 每隔多少格检查一次空闲会话与存储中到期的会话
+    static final int IDLE_CHECK_TICKS = 10;
+    // 存储在 Context 工作目录下的子目录
+    private static final String STORE_DIR = "sessions";
+    private final LifecycleHelper lifecycleHelper = new LifecycleHelper(this);
+    private final Map<String, StandardSession> sessions = new ConcurrentHashMap<>();
+    private final SessionIdGenerator idGenerator = new SessionIdGenerator();
+    private final TimerWheel wheel = new TimerWheel(TICK_MILLIS, System.currentTimeMillis());
+    // 统计
+    private final LongAdder sessionsCreated = new LongAdder();
+    private final LongAdder sessionsExpired = new LongAdder();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final LongAdder sessionsPassivated = new LongAdder();
+    private final LongAdder sessionsActivated = new LongAdder();
+    // 当前线程正在应用其他节点发来的变化，此时不再记录变化
+    private static final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> false);
+    // 没有存储时用于串行化激活
+    private final Object activationLock = new Object();
+    // 所属的Context
+    private final Context context;
+    // 新会话的最大不活动间隔（秒），不大于0时永不过期
+    private volatile int maxInactiveInterval = DEFAULT_MAX_INACTIVE_INTERVAL;
+    // 空闲多少秒后钝化，小于0时不钝化
+    private volatile int maxIdleSwap = -1;
+    // 钝化会话的存储，Host 未配置工作目录时为null
+    private volatile SessionStore store = null;
+    // 蓝绿重载时被替换的旧管理器
+    private volatile SessionManager predecessor = null;
+    // 会话复制，未启用时为null
+    private volatile SessionReplicator replicator = null;
+    private final DeltaTracker tracker = new DeltaTracker();
+    private volatile boolean started = false;
+    // 推进时间轮的后台线程
+    private Thread expirer = null;
+    // 后台线程推进的格数
+    private long ticks = 0;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    public SessionManager(Context context) {
+        this.context = context;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "getter & setter">
+    public Context getContext() {
+        return context;
+    }
+
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    /**
+     * 只影响之后创建的会话
+     *
+     * @param maxInactiveInterval 单位为秒
+     */
+    public void setMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+
+    public int getMaxIdleSwap() {
+        return maxIdleSwap;
+    }
+
+    /**
+     * @param maxIdleSwap 空闲多少秒后钝化到存储，小于0时不钝化
+     */
+    public void setMaxIdleSwap(int maxIdleSwap) {
+        this.maxIdleSwap = maxIdleSwap;
+    }
+
+    /**
+     * 蓝绿重载时设置被替换的旧管理器，此后在本管理器中找不到的会话从旧管理器迁移过来
+     */
+    public void setPredecessor(SessionManager predecessor) {
+        this.predecessor = predecessor;
+    }
+
+    public SessionReplicator getReplicator() {
+        return replicator;
+    }
+
+    /**
+     * 启动前设置，启动时向复制器登记
+     */
+    public void setReplicator(SessionReplicator replicator) {
+        this.replicator = replicator;
+    }
+
+    ServletContext getServletContext() {
+        return context == null ? null : context.getServletContext();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "会话">
+
+    /**
+     * 创建新会话并通知 {@link HttpSessionListener}
+     */
+    public StandardSession createSession() {
+        long now = System.currentTimeMillis();
+        StandardSession session;
+        do {
+            session = new StandardSession(this, idGenerator.generate(), now, maxInactiveInterval);
+        } while (sessions.putIfAbsent(session.getId(), session) != null);
+        if (maxInactiveInterval > 0) wheel.schedule(session);
+        SessionReplicator current = replicator;
+        if (current != null) {
+            session.stampInterval(current.tick());
+            tracker.full(session.getId());
+        }
+        sessionsCreated.increment();
+        maxActive.accumulateAndGet(sessions.size(), Math::max);
+        fireSessionCreated(session);
+        return session;
+    }
+
+    /**
+     * @return 不存在或已过期时返回null
+     */
+    public StandardSession findSession(String id) {
+        if (id == null) return null;
+        StandardSession session = sessions.get(id);
+        if (session == null) session = activate(id);
+        if (session == null) return null;
+        if (session.expiresAt() <= System.currentTimeMillis()) {
+            expire(session);
+            return null;
+        }
+        return session.isValid() ? session : null;
+    }
+
+    /**
+     * 客户端携带会话ID再次访问，更新最后访问时刻
+     */
+    public void access(StandardSession session) {
+        session.access(System.currentTimeMillis());
+        if (replicator != null) tracker.touched(session.getId());
+    }
+
+    /**
+     * 更换会话ID并通知 {@link HttpSessionIdListener}
+     *
+     * @return 新的会话ID
+     */
+    public String changeSessionId(StandardSession session) {
+        String oldId = session.getId();
+        String newId;
+        do {
+            newId = idGenerator.generate();
+        } while (sessions.putIfAbsent(newId, session) != null);
+        session.setId(newId);
+        sessions.remove(oldId, session);
+        if (replicator != null) {
+            tracker.removed(oldId, session.lastAccessed());
+            tracker.full(newId);
+        }
+        HttpSessionEvent event = new HttpSessionEvent(session);
+        for (Object listener : listeners()) {
+            if (!(listener instanceof HttpSessionIdListener idListener)) continue;
+            try {
+                idListener.sessionIdChanged(event, oldId);
+            } catch (Throwable t) {
+                logger.error("session : listener {} sessionIdChanged failed", listener, t);
+            }
+        }
+        return newId;
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public long getSessionsCreated() {
+        return sessionsCreated.sum();
+    }
+
+    public long getSessionsExpired() {
+        return sessionsExpired.sum();
+    }
+
+    public int getMaxActive() {
+        return maxActive.get();
+    }
+
+    /**
+     * @return 当前钝化在存储中的会话数
+     */
+    public int getPassivatedSessions() {
+        SessionStore current = store;
+        return current == null ? 0 : current.size();
+    }
+
+    public long getSessionsPassivated() {
+        return sessionsPassivated.sum();
+    }
+
+    public long getSessionsActivated() {
+        return sessionsActivated.sum();
+    }
+
+    // 由会话调用，失效时从Map和时间轮中移除
+    void remove(StandardSession session) {
+        sessions.remove(session.getId(), session);
+        wheel.cancel(session);
+        if (replicator != null && !replaying.get()) tracker.removed(session.getId(), session.lastAccessed());
+    }
+
+    // 由会话调用，属性变化时记录版本
+    void attributeChanged(StandardSession session, String name) {
+        SessionReplicator current = replicator;
+        if (current == null || replaying.get()) return;
+        session.stamp(name, current.tick());
+        tracker.changed(session.getId(), name);
+    }
+
+    // 由会话调用，最大不活动间隔变化时记录版本
+    void intervalChanged(StandardSession session) {
+        SessionReplicator current = replicator;
+        if (current == null || replaying.get()) return;
+        session.stampInterval(current.tick());
+        tracker.touched(session.getId());
+    }
+
+    // 由会话调用，最大不活动间隔缩短时重新登记
+    void reschedule(StandardSession session) {
+        if (session.isValid() && sessions.get(session.getId()) == session) wheel.schedule(session);
+    }
+
+    private void expire(StandardSession session) {
+        if (session.expire()) sessionsExpired.increment();
+    }
+
+    /**
+     * 推进时间轮并使到期的会话失效
+     *
+     * @return 本次失效的会话数
+     */
+    int processExpires(long now) {
+        List<TimerWheel.Node> due = wheel.advance(now);
+        if (due.isEmpty()) return 0;
+        // 在web程序的类加载器下通知监听器
+        ClassLoader old = bindLoader();
+        try {
+            for (TimerWheel.Node node : due) expire((StandardSession) node);
+        } finally {
+            Thread.currentThread().setContextClassLoader(old);
+        }
+        return due.size();
+    }
+
+    private ClassLoader bindLoader() {
+        Thread thread = Thread.currentThread();
+        ClassLoader old = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader());
+        return old;
+    }
+
+    private ClassLoader loader() {
+        if (context != null && context.getLoader() != null) return context.getLoader().getClassLoader();
+        return Thread.currentThread().getContextClassLoader();
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "钝化与激活">
+
+    /**
+     * 钝化空闲的会话，使存储中到期的会话失效，并在需要时压缩存储
+     *
+     * @return 本次钝化的会话数
+     */
+    int processIdle(long now) {
+        SessionManager previous = predecessor;
+        if (previous != null && !previous.started) predecessor = null;
+        SessionStore current = store;
+        if (current == null) return 0;
+        int count = 0;
+        ClassLoader old = bindLoader();
+        try {
+            int idle = maxIdleSwap;
+            if (idle >= 0) {
+                long limit = now - idle * 1000L;
+                for (StandardSession session : sessions.values()) {
+                    if (session.lastAccessed() <= limit && session.expiresAt() > now && passivate(session, current)) {
+                        count++;
+                    }
+                }
+            }
+            // 存储中到期的会话先激活再失效，监听器照常收到通知
+            for (String id : current.expired(now)) {
+                StandardSession session = activate(id);
+                if (session != null) expire(session);
+            }
+            current.compact();
+        } catch (IOException e) {
+            logger.error("session : compact session store failed", e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(old);
+        }
+        return count;
+    }
+
+    /**
+     * 旧实例上的请求都已结束后，把旧管理器中剩余的会话全部迁移过来
+     *
+     * @return 迁移的会话数
+     */
+    public int migrateFromPredecessor() {
+        SessionManager previous = predecessor;
+        if (previous == null) return 0;
+        int count = 0;
+        for (String id : new ArrayList<>(previous.sessions.keySet())) {
+            if (activate(id) != null) count++;
+        }
+        predecessor = null;
+        return count;
+    }
+
+    // 有存储时以存储为锁，蓝绿重载期间共用同一存储的新旧管理器也互斥
+    private Object lock() {
+        SessionStore current = store;
+        return current == null ? activationLock : current;
+    }
+
+    /**
+     * 写入存储并从内存中移除，写入失败时会话留在内存中
+     */
+    private boolean passivate(StandardSession session, SessionStore target) {
+        synchronized (lock()) {
+            if (!session.isValid()) return false;
+            byte[] data = unload(session);
+            if (data == null) return false;
+            try {
+                target.save(session.getId(), session.expiresAt(), data);
+                sessionsPassivated.increment();
+                return true;
+            } catch (IOException e) {
+                logger.error("session : passivate session {} failed", session.getId(), e);
+                sessions.put(session.getId(), session);
+                if (session.getMaxInactiveInterval() > 0) wheel.schedule(session);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 由新管理器调用，把会话从本管理器中取出
+     *
+     * @return 不存在或已过期时返回null
+     */
+    private byte[] detach(String id) {
+        StandardSession session = sessions.get(id);
+        if (session == null || !session.isValid()) return null;
+        if (session.expiresAt() <= System.currentTimeMillis()) {
+            expire(session);
+            return null;
+        }
+        return unload(session);
+    }
+
+    // 从内存中移除并序列化，已被其他线程移除时返回null
+    private byte[] unload(StandardSession session) {
+        if (!sessions.remove(session.getId(), session)) return null;
+        wheel.cancel(session);
+        try {
+            session.passivate();
+        } catch (Throwable t) {
+            logger.error("session : sessionWillPassivate of {} failed", session.getId(), t);
+        }
+        try {
+            return writeSession(session);
+        } catch (IOException e) {
+            logger.error("session : serialize session {} failed", session.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 从旧管理器或存储中取回会话
+     *
+     * @return 都不存在时返回null
+     */
+    private StandardSession activate(String id) {
+        SessionManager previous = predecessor;
+        SessionStore current = store;
+        if (previous == null && current == null) return null;
+        StandardSession session;
+        synchronized (lock()) {
+            session = sessions.get(id);
+            if (session != null) return session;
+            byte[] data = previous == null ? null : previous.detach(id);
+            try {
+                if (data == null && current != null) data = current.take(id);
+            } catch (IOException e) {
+                logger.error("session : read session {} from store failed", id, e);
+            }
+            if (data == null) return null;
+            try {
+                session = readSession(data);
+            } catch (IOException | RuntimeException | LinkageError e) {
+                // 属性的类无法加载或 readObject 抛出异常时只丢弃这一个会话，不影响其余会话的加载与迁移
+                logger.error("session : deserialize session {} failed , dropped", id, e);
+                return null;
+            }
+            sessions.put(session.getId(), session);
+            if (session.getMaxInactiveInterval() > 0) wheel.schedule(session);
+            sessionsActivated.increment();
+            maxActive.accumulateAndGet(sessions.size(), Math::max);
+        }
+        try {
+            session.activate();
+        } catch (Throwable t) {
+            logger.error("session : sessionDidActivate of {} failed", id, t);
+        }
+        return session;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "序列化">
+
+    /**
+     * 每个属性单独序列化，不可序列化的属性被丢弃，不影响其余属性
+     */
+    private byte[] writeSession(StandardSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(session.getId());
+        out.writeLong(session.getCreationTime());
+        out.writeLong(session.lastAccessed());
+        out.writeInt(session.getMaxInactiveInterval());
+        out.writeBoolean(session.isNewSession());
+        List<String> names = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        for (Map.Entry<String, Object> attribute : session.attributes().entrySet()) {
+            byte[] value = writeValue(session, attribute.getKey(), attribute.getValue());
+            if (value == null) continue;
+            names.add(attribute.getKey());
+            values.add(value);
+        }
+        out.writeInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            out.writeUTF(names.get(i));
+            out.writeInt(values.get(i).length);
+            out.write(values.get(i));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 属性的类在web程序的类加载器中解析，无法还原的属性被丢弃
+     */
+    private StandardSession readSession(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        StandardSession session = new StandardSession(this, in.readUTF(), in.readLong(), in.readLong(),
+                in.readInt(), in.readBoolean());
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            Object restored = readValue(value);
+            if (restored != null) session.attributes().put(name, restored);
+            else logger.warn("session : attribute {} of {} cannot be restored , dropped", name, session.getId());
+        }
+        return session;
+    }
+
+    /**
+     * @return 不可序列化时返回null
+     */
+    private byte[] writeValue(StandardSession session, String name, Object value) {
+        if (!(value instanceof Serializable)) {
+            logger.debug("session : attribute {} of {} is not serializable , dropped", name, session.getId());
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            logger.debug("session : attribute {} of {} is not serializable , dropped", name, session.getId(), e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 在web程序的类加载器中还原属性值，类加载器已停止等运行时异常交给调用方按会话处理
+     *
+     * @return 无法还原时返回null
+     */
+    private Object readValue(byte[] value) {
+        return readValue(value, null);
+    }
+
+    /**
+     * @param filter 限制可以反序列化的类与对象图大小，为null时只受JVM范围的过滤器限制
+     */
+    private Object readValue(byte[] value, ObjectInputFilter filter) {
+        try (ObjectInputStream ois = new LoaderObjectInputStream(new ByteArrayInputStream(value), loader(), filter)) {
+            return ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            logger.debug("session : attribute cannot be restored", e);
+            return null;
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "复制">
+    DeltaTracker tracker() {
+        return tracker;
+    }
+
+    /**
+     * 把取走的变化转换为可发送的形式，只包含变化了的属性
+     */
+    List<SessionDelta> toDeltas(DeltaTracker.Batch batch) {
+        List<SessionDelta> deltas = new ArrayList<>(batch.changed().size() + batch.removed().size());
+        for (Map.Entry<String, DeltaTracker.Pending> entry : batch.changed().entrySet()) {
+            StandardSession session = sessions.get(entry.getKey());
+            if (session == null || !session.isValid()) continue;
+            DeltaTracker.Pending pending = entry.getValue();
+            deltas.add(toDelta(session, pending.full ? session.attributes().keySet() : pending.names));
+        }
+        for (Map.Entry<String, Long> entry : batch.removed().entrySet()) {
+            deltas.add(SessionDelta.removed(entry.getKey(), entry.getValue()));
+        }
+        return deltas;
+    }
+
+    /**
+     * 内存中全部会话的完整状态，发给新连接上的节点
+     */
+    List<SessionDelta> fullState() {
+        List<SessionDelta> deltas = new ArrayList<>(sessions.size());
+        for (StandardSession session : sessions.values()) {
+            if (session.isValid()) deltas.add(toDelta(session, session.attributes().keySet()));
+        }
+        return deltas;
+    }
+
+    private SessionDelta toDelta(StandardSession session, Iterable<String> names) {
+        List<SessionDelta.Attribute> attributes = new ArrayList<>();
+        for (String name : names) {
+            Object value = session.attributes().get(name);
+            byte[] bytes = null;
+            if (value != null) {
+                bytes = writeValue(session, name, value);
+                if (bytes == null) continue;
+            }
+            attributes.add(new SessionDelta.Attribute(name, session.stampOf(name), bytes));
+        }
+        return new SessionDelta(session.getId(), false, session.getCreationTime(), session.lastAccessed(),
+                session.getMaxInactiveInterval(), session.intervalStamp(), attributes);
+    }
+
+    /**
+     * 应用其他节点发来的变化，不再复制出去
+     */
+    void applyRemote(List<SessionDelta> deltas) {
+        ClassLoader old = bindLoader();
+        replaying.set(true);
+        try {
+            for (SessionDelta delta : deltas) {
+                try {
+                    applyRemote(delta);
+                } catch (RuntimeException | LinkageError e) {
+                    logger.error("session : apply replicated session {} failed", delta.id(), e);
+                }
+            }
+        } finally {
+            replaying.set(false);
+            Thread.currentThread().setContextClassLoader(old);
+        }
+    }
+
+    private void applyRemote(SessionDelta delta) {
+        String id = delta.id();
+        if (delta.removed()) {
+            tracker.bury(id, delta.lastAccessedTime());
+            StandardSession session = sessions.get(id);
+            if (session == null) session = activate(id);
+            // 本节点上之后又被访问过的会话不失效
+            if (session != null && session.lastAccessed() <= delta.lastAccessedTime()) expire(session);
+            return;
+        }
+        if (tracker.isBuried(id, delta.lastAccessedTime())) return;
+        StandardSession session = sessions.get(id);
+        if (session == null) session = activate(id);
+        boolean created = false;
+        if (session == null) {
+            StandardSession replica = new StandardSession(this, id, delta.creationTime(), delta.lastAccessedTime(),
+                    delta.maxInactiveInterval(), false);
+            session = sessions.putIfAbsent(id, replica);
+            if (session == null) {
+                session = replica;
+                created = true;
+                maxActive.accumulateAndGet(sessions.size(), Math::max);
+            }
+        }
+        // 来自其他节点的数据总是经过过滤器，即使对端已通过认证
+        SessionReplicator current = replicator;
+        ObjectInputFilter filter = current != null ? current.getSerialFilter() : SessionReplicator.DEFAULT_SERIAL_FILTER;
+        session.applyRemote(delta, value -> readValue(value, filter));
+        if (created && session.getMaxInactiveInterval() > 0) wheel.schedule(session);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "通知监听器">
+    private Object[] listeners() {
+        Object[] listeners = context == null ? null : context.getApplicationListeners();
+        return listeners == null ? new Object[0] : listeners;
+    }
+
+    private void fireSessionCreated(StandardSession session) {
+        HttpSessionEvent event = null;
+        for (Object listener : listeners()) {
+            if (!(listener instanceof HttpSessionListener sessionListener)) continue;
+            if (event == null) event = new HttpSessionEvent(session);
+            try {
+                sessionListener.sessionCreated(event);
+            } catch (Throwable t) {
+                logger.error("session : listener {} sessionCreated failed", listener, t);
+            }
+        }
+    }
+
+    void fireSessionDestroyed(StandardSession session) {
+        HttpSessionEvent event = null;
+        for (Object listener : listeners()) {
+            if (!(listener instanceof HttpSessionListener sessionListener)) continue;
+            if (event == null) event = new HttpSessionEvent(session);
+            try {
+                sessionListener.sessionDestroyed(event);
+            } catch (Throwable t) {
+                logger.error("session : listener {} sessionDestroyed failed", listener, t);
+            }
+        }
+    }
+
+    void fireAttributeAdded(StandardSession session, String name, Object value) {
+        for (Object listener : listeners()) {
+            if (!(listener instanceof HttpSessionAttributeListener attributeListener)) continue;
+            try {
+                attributeListener.attributeAdded(new HttpSessionBindingEvent(session, name, value));
+            } catch (Throwable t) {
+                logger.error("session : listener {} attributeAdded failed", listener, t);
+            }
+        }
+    }
+
+    void fireAttributeReplaced(StandardSession session, String name, Object oldValue) {
+        for (Object listener : listeners()) {
+            if (!(listener instanceof HttpSessionAttributeListener attributeListener)) continue;
+            try {
+                attributeListener.attributeReplaced(new HttpSessionBindingEvent(session, name, oldValue));
+            } catch (Throwable t) {
+                logger.error("session : listener {} attributeReplaced failed", listener, t);
+            }
+        }
+    }
+
+    void fireAttributeRemoved(StandardSession session, String name, Object value) {
+        for (Object listener : listeners()) {
+            if (!(listener instanceof HttpSessionAttributeListener attributeListener)) continue;
+            try {
+                attributeListener.attributeRemoved(new HttpSessionBindingEvent(session, name, value));
+            } catch (Throwable t) {
+                logger.error("session : listener {} attributeRemoved failed", listener, t);
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "生命周期">
+    @Override
+    public void removeLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.removeLifecycleListener(listener);
+    }
+
+    @Override
+    public void addLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.addLifecycleListener(listener);
+    }
+
+    @Override
+    public LifecycleListener[] findLifecycleListener() {
+        return lifecycleHelper.findLifecycleListeners();
+    }
+
+    @Override
+    public void start() throws LifecycleException {
+        if (started) throw new LifecycleException("SessionManager is already started");
+        lifecycleHelper.fireLifecycleEvent(START_EVENT, null);
+        Path workPath = context == null ? null : context.getWorkPath();
+        if (workPath != null) {
+            try {
+                store = SessionStore.open(workPath.resolve(STORE_DIR));
+            } catch (IOException e) {
+                logger.error("session : open session store in {} failed , sessions will not be persisted", workPath, e);
+            }
+        }
+        started = true;
+        if (replicator != null) replicator.register(this);
+        String name = context == null ? "" : context.getName();
+        expirer = new Thread(this::runExpirer, "livonia-session-expirer-" + name);
+        expirer.setDaemon(true);
+        expirer.start();
+        logger.debug("LifeCycle : SessionManager of {} is started", name);
+    }
+
+    @Override
+    public void stop() throws LifecycleException {
+        if (!started) throw new LifecycleException("SessionManager is not started");
+        lifecycleHelper.fireLifecycleEvent(STOP_EVENT, null);
+        started = false;
+        if (expirer != null) {
+            expirer.interrupt();
+            try {
+                expirer.join(TICK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            expirer = null;
+        }
+        predecessor = null;
+        // 先停止复制，本节点停止不应使其他节点上的会话失效
+        if (replicator != null) replicator.unregister(this);
+        replicator = null;
+        // 有存储时保存全部会话，下次启动后按需激活；其余的会话失效
+        SessionStore current = store;
+        if (current != null) {
+            ClassLoader old = bindLoader();
+            try {
+                for (StandardSession session : new ArrayList<>(sessions.values())) passivate(session, current);
+            } finally {
+                Thread.currentThread().setContextClassLoader(old);
+            }
+            store = null;
+            current.close();
+        }
+        for (StandardSession session : new ArrayList<>(sessions.values())) session.expire();
+        logger.debug("LifeCycle : SessionManager is stopped, created {} sessions, expired {}, passivated {}",
+                getSessionsCreated(), getSessionsExpired(), getSessionsPassivated());
+    }
+
+    private void runExpirer() {
+        while (started) {
+            try {
+                Thread.sleep(TICK_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            try {
+                processExpires(now);
+                if (++ticks % IDLE_CHECK_TICKS == 0) processIdle(now);
+            } catch (Throwable t) {
+                logger.error("session : process expires failed", t);
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 在指定的类加载器中解析类的对象输入流
+     */
+    static final class LoaderObjectInputStream extends ObjectInputStream {
+        private final ClassLoader loader;
+
+        LoaderObjectInputStream(InputStream in, ClassLoader loader) throws IOException {
+            this(in, loader, null);
+        }
+
+        LoaderObjectInputStream(InputStream in, ClassLoader loader, ObjectInputFilter filter) throws IOException {
+            super(in);
+            this.loader = loader;
+            if (filter != null) {
+                ObjectInputFilter global = ObjectInputFilter.Config.getSerialFilter();
+                setObjectInputFilter(global == null ? filter : ObjectInputFilter.merge(filter, global));
+            }
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (loader == null) return super.resolveClass(desc);
+            try {
+                return Class.forName(desc.getName(), false, loader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,698 @@
+package livonia.session;
+
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleException;
+import livonia.lifecycle.LifecycleListener;
+import livonia.log.BaseLogger;
+import livonia.metrics.LatencyHistogram;
+import livonia.utils.LifecycleHelper;
+import org.slf4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在多个 Livonia 实例之间复制会话，每个 Host 一个。
+ * <p>
+ * 请求线程只把变化记录到各管理器的 {@link DeltaTracker} 中；复制线程每隔 {@link #setFlushInterval} 毫秒
+ * 取走变化，按 Context 打包后放入每个节点各自的发送队列，由每个节点一个的发送线程经 TCP 写出，
+ * 请求处理不会等待其他节点。
+ * <p>
+ * 每次连上一个节点（包括该节点刚刚加入或重新启动）时，先发送全部会话的完整状态（按大小分成多帧），
+ * 此后只发送变化；连接断开期间的变化不排队，重新连上后由完整状态覆盖。
+ * 接收方按属性的版本应用变化，重复与乱序都不影响结果。
+ * <p>
+ * 复制的数据包含反序列化的对象，因此：
+ * <ul>
+ *   <li>只接受来自配置的节点地址的连接，本机地址也必须出现在节点列表中</li>
+ *   <li>各节点共享一个密钥，连接时双方交换随机数，发起方以由密钥与随机数派生的连接密钥证明自己持有密钥，
+ *   此后每一帧都附带以连接密钥计算的 HMAC 与递增序号，未通过校验的连接立即关闭</li>
+ *   <li>属性值经过 {@link #setSerialFilter} 的 {@link ObjectInputFilter} 反序列化，
+ *   并与JVM范围的过滤器（jdk.serialFilter）合并</li>
+ * </ul>
+ * 端口仍应只在可信网络中开放。
+ */
+public class SessionReplicator implements Lifecycle {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(SessionReplicator.class);
+    // 连接头 "LSRP"
+    static final int MAGIC = 0x4C535250;
+    static final int VERSION = 2;
+    /**
+     * 默认的反序列化过滤器：限制对象图大小，并拒绝常见反序列化利用链所在的包
+     */
+    public static final String DEFAULT_SERIAL_FILTER_PATTERN = "maxdepth=64;maxrefs=100000;maxarray=1048576;"
+            + "!org.apache.commons.collections.functors.*;!org.apache.commons.collections4.functors.*;"
+            + "!org.codehaus.groovy.runtime.*;!org.springframework.beans.factory.*;!com.sun.org.apache.xalan.*;"
+            + "!javax.management.*;!java.rmi.*;!sun.rmi.*;!com.sun.rowset.*;!com.sun.jndi.*;!javax.naming.*;"
+            + "!bsh.*;!org.python.core.*;!com.mchange.v2.c3p0.*";
+    static final ObjectInputFilter DEFAULT_SERIAL_FILTER =
+            ObjectInputFilter.Config.createFilter(DEFAULT_SERIAL_FILTER_PATTERN);
+    // 密钥的最小字节数
+    private static final int MIN_SECRET_LENGTH = 16;
+    private static final int NONCE_LENGTH = 16;
+    private static final int MAC_LENGTH = 32;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    // 单帧上限
+    private static final int MAX_FRAME = 64 << 20;
+    // 一帧中变化部分的大约字节数，超过后另起一帧，全部会话的完整状态因此分成多帧发送
+    static final int FRAME_SPLIT_BYTES = 1 << 20;
+    // 每个节点的发送队列长度，溢出时改为重新发送完整状态
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long RECONNECT_MILLIS = 500L;
+    private static final int CONNECT_TIMEOUT = 2000;
+    private final LifecycleHelper lifecycleHelper = new LifecycleHelper(this);
+    // Context名 -> 会话管理器
+    private final Map<String, SessionManager> managers = new ConcurrentHashMap<>();
+    // Lamport 时钟
+    private final AtomicLong clock = new AtomicLong();
+    // 节点ID，只用于版本相同时排序
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Peer> peers = new CopyOnWriteArrayList<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+    // 统计
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder deltasSent = new LongAdder();
+    private final LongAdder deltasReceived = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    // 从变化发生到在本节点应用的时间
+    private final LatencyHistogram lag = new LatencyHistogram();
+    // 监听地址与端口，端口为0时由系统分配
+    private String address = "127.0.0.1";
+    private int port = 0;
+    // 其他节点，逗号分隔的 host:port
+    private String peerAddresses = "";
+    // 发送间隔（毫秒）
+    private long flushInterval = 100L;
+    // 各节点共享的密钥
+    private String secret = null;
+    private SecretKeySpec secretKey = null;
+    private String serialFilterPattern = DEFAULT_SERIAL_FILTER_PATTERN;
+    private ObjectInputFilter serialFilter = DEFAULT_SERIAL_FILTER;
+    private volatile boolean started = false;
+    private ServerSocket serverSocket = null;
+    private Thread acceptor = null;
+    private Thread sender = null;
+    // 允许连入的地址
+    private Set<InetAddress> allowed = Set.of();
+
+    //</editor-fold>
+    //<editor-fold desc = "getter & setter">
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @return 实际监听的端口，未启动时为-1
+     */
+    public int getLocalPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    public String getPeers() {
+        return peerAddresses;
+    }
+
+    /**
+     * @param peers 逗号分隔的 host:port
+     */
+    public void setPeers(String peers) {
+        this.peerAddresses = peers == null ? "" : peers;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    /**
+     * @param secret 各节点相同，至少16字节
+     */
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public String getSerialFilterPattern() {
+        return serialFilterPattern;
+    }
+
+    /**
+     * @param pattern {@link ObjectInputFilter.Config#createFilter} 的格式
+     */
+    public void setSerialFilterPattern(String pattern) {
+        this.serialFilterPattern = pattern;
+    }
+
+    ObjectInputFilter getSerialFilter() {
+        return serialFilter;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "统计">
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getDeltasSent() {
+        return deltasSent.sum();
+    }
+
+    public long getDeltasReceived() {
+        return deltasReceived.sum();
+    }
+
+    /**
+     * 因发送队列溢出丢弃的帧数，之后会重新发送完整状态
+     */
+    public long getFramesDropped() {
+        return framesDropped.sum();
+    }
+
+    /**
+     * 复制延迟，从变化在发出节点上被记录到在本节点应用，跨机器时受时钟偏差影响
+     *
+     * @param percentile 0 ~ 100
+     * @return 毫秒
+     */
+    public long getLagMillis(double percentile) {
+        return lag.valueAtPercentile(percentile) / 1000;
+    }
+
+    public int getConnectedPeers() {
+        int count = 0;
+        for (Peer peer : peers) {
+            if (peer.connected) count++;
+        }
+        return count;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "管理器登记">
+    void register(SessionManager manager) {
+        managers.put(nameOf(manager), manager);
+    }
+
+    // 蓝绿重载时新管理器已登记在同一名字下，旧管理器不能把它移除
+    void unregister(SessionManager manager) {
+        managers.remove(nameOf(manager), manager);
+    }
+
+    private static String nameOf(SessionManager manager) {
+        return manager.getContext() == null ? "" : manager.getContext().getName();
+    }
+
+    SessionDelta.Stamp tick() {
+        return new SessionDelta.Stamp(clock.incrementAndGet(), nodeId);
+    }
+
+    private void observe(SessionDelta.Stamp stamp) {
+        if (stamp.version() > clock.get()) clock.accumulateAndGet(stamp.version(), Math::max);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "发送">
+
+    /**
+     * 取走各管理器中的变化，放入每个已连接节点的发送队列
+     */
+    void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, SessionManager> entry : managers.entrySet()) {
+            SessionManager manager = entry.getValue();
+            if (manager.tracker().isEmpty()) continue;
+            DeltaTracker.Batch batch = manager.tracker().drain(now);
+            if (batch.isEmpty()) continue;
+            List<SessionDelta> deltas = manager.toDeltas(batch);
+            if (deltas.isEmpty()) continue;
+            List<byte[]> frames;
+            try {
+                frames = encode(entry.getKey(), batch.since(), deltas);
+            } catch (IOException e) {
+                logger.error("replication : encode deltas of {} failed", entry.getKey(), e);
+                continue;
+            }
+            deltasSent.add(deltas.size());
+            for (byte[] frame : frames) {
+                for (Peer peer : peers) peer.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * 把一个Context的变化编码为若干帧，变化部分超过 {@link #FRAME_SPLIT_BYTES} 后另起一帧，
+     * 单个变化本身超过时独占一帧。每帧可以单独应用，接收方不需要等齐所有帧
+     */
+    static List<byte[]> encode(String context, long since, List<SessionDelta> deltas) throws IOException {
+        List<byte[]> frames = new ArrayList<>(1);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(body);
+        int count = 0;
+        for (SessionDelta delta : deltas) {
+            delta.writeTo(out);
+            count++;
+            if (body.size() >= FRAME_SPLIT_BYTES) {
+                frames.add(frame(context, since, count, body));
+                body.reset();
+                count = 0;
+            }
+        }
+        if (count > 0) frames.add(frame(context, since, count, body));
+        return frames;
+    }
+
+    private static byte[] frame(String context, long since, int count, ByteArrayOutputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(context);
+        out.writeLong(since);
+        out.writeInt(count);
+        body.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void runSender() {
+        while (started) {
+            try {
+                Thread.sleep(flushInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                flush();
+            } catch (Throwable t) {
+                logger.error("replication : flush failed", t);
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "接收">
+    private void runAcceptor() {
+        while (started) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (started) logger.error("replication : accept failed", e);
+                continue;
+            }
+            InetAddress remote = socket.getInetAddress();
+            if (!allowed.contains(remote)) {
+                logger.warn("replication : reject connection from {} , not a configured peer", remote);
+                closeQuietly(socket);
+                continue;
+            }
+            inbound.add(socket);
+            Thread reader = new Thread(() -> read(socket), "livonia-replication-reader-" + socket.getRemoteSocketAddress());
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void read(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            // 握手期间限时，未认证的连接不能长期占用读线程
+            socket.setSoTimeout(CONNECT_TIMEOUT);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("replication : unknown protocol from {}", socket.getRemoteSocketAddress());
+                return;
+            }
+            String remoteNode = in.readUTF();
+            byte[] clientNonce = new byte[NONCE_LENGTH];
+            in.readFully(clientNonce);
+            byte[] serverNonce = nonce();
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.write(serverNonce);
+            out.flush();
+            Mac mac = connectionMac(clientNonce, serverNonce);
+            byte[] proof = new byte[MAC_LENGTH];
+            in.readFully(proof);
+            if (!MessageDigest.isEqual(proof, helloProof(mac, remoteNode))) {
+                logger.warn("replication : reject peer {} from {} , authentication failed",
+                        remoteNode, socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+            logger.info("replication : peer {} connected from {}", remoteNode, socket.getRemoteSocketAddress());
+            long sequence = 0;
+            byte[] tag = new byte[MAC_LENGTH];
+            while (started) {
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FRAME) throw new IOException("illegal frame length " + length);
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                in.readFully(tag);
+                if (!MessageDigest.isEqual(tag, frameTag(mac, sequence++, frame))) {
+                    logger.warn("replication : frame from {} failed verification , close connection",
+                            socket.getRemoteSocketAddress());
+                    return;
+                }
+                bytesReceived.add(length + 4L + MAC_LENGTH);
+                apply(frame);
+            }
+        } catch (EOFException | SocketException | SocketTimeoutException e) {
+            logger.debug("replication : connection from {} closed", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            logger.warn("replication : read from {} failed", socket.getRemoteSocketAddress(), e);
+        } finally {
+            inbound.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * 应用一帧变化，本节点没有对应的Context时丢弃
+     */
+    void apply(byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+        String context = in.readUTF();
+        long since = in.readLong();
+        int count = in.readInt();
+        List<SessionDelta> deltas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SessionDelta delta = SessionDelta.readFrom(in);
+            observe(delta.intervalStamp());
+            for (SessionDelta.Attribute attribute : delta.attributes()) observe(attribute.stamp());
+            deltas.add(delta);
+        }
+        deltasReceived.add(count);
+        SessionManager manager = managers.get(context);
+        if (manager != null) manager.applyRemote(deltas);
+        lag.record(Math.max(0, System.currentTimeMillis() - since) * 1000);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "认证">
+    private byte[] nonce() {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    /**
+     * 由共享密钥与双方的随机数派生本连接的密钥，旧连接中截获的帧无法在新连接中重放
+     */
+    private Mac connectionMac(byte[] clientNonce, byte[] serverNonce) throws IOException {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(clientNonce);
+            mac.update(serverNonce);
+            byte[] key = mac.doFinal();
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("replication : cannot initialize " + MAC_ALGORITHM, e);
+        }
+    }
+
+    private static byte[] helloProof(Mac mac, String node) {
+        mac.update((byte) 0);
+        return mac.doFinal(node.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 序号使帧不能在同一连接中被重放、删除或调换顺序
+    private static byte[] frameTag(Mac mac, long sequence, byte[] frame) {
+        mac.update((byte) 1);
+        for (int shift = 56; shift >= 0; shift -= 8) mac.update((byte) (sequence >>> shift));
+        return mac.doFinal(frame);
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "生命周期">
+    @Override
+    public void removeLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.removeLifecycleListener(listener);
+    }
+
+    @Override
+    public void addLifecycleListener(LifecycleListener listener) {
+        lifecycleHelper.addLifecycleListener(listener);
+    }
+
+    @Override
+    public LifecycleListener[] findLifecycleListener() {
+        return lifecycleHelper.findLifecycleListeners();
+    }
+
+    @Override
+    public void start() throws LifecycleException {
+        if (started) throw new LifecycleException("SessionReplicator is already started");
+        lifecycleHelper.fireLifecycleEvent(START_EVENT, null);
+        byte[] secretBytes = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_LENGTH)
+            throw new LifecycleException("replication : a shared secret of at least " + MIN_SECRET_LENGTH + " bytes is required");
+        try {
+            serialFilter = ObjectInputFilter.Config.createFilter(serialFilterPattern);
+        } catch (IllegalArgumentException e) {
+            throw new LifecycleException("replication : illegal serial filter " + serialFilterPattern, e);
+        }
+        // 先校验全部配置再绑定端口，配置错误时不会留下已绑定的端口
+        Set<InetAddress> addresses = new HashSet<>();
+        List<Peer> configured = new ArrayList<>();
+        for (String peer : peerAddresses.split(",")) {
+            peer = peer.trim();
+            if (peer.isEmpty()) continue;
+            int colon = peer.lastIndexOf(':');
+            if (colon <= 0) throw new LifecycleException("replication : illegal peer address " + peer);
+            String host = peer.substring(0, colon);
+            int peerPort;
+            try {
+                peerPort = Integer.parseInt(peer.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                throw new LifecycleException("replication : illegal peer address " + peer, e);
+            }
+            if (peerPort <= 0 || peerPort > 0xFFFF) throw new LifecycleException("replication : illegal peer address " + peer);
+            try {
+                addresses.addAll(Arrays.asList(InetAddress.getAllByName(host)));
+            } catch (UnknownHostException e) {
+                logger.warn("replication : cannot resolve peer {}", peer);
+            }
+            configured.add(new Peer(host, peerPort));
+        }
+        secretKey = new SecretKeySpec(derive(secretBytes), MAC_ALGORITHM);
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(address, port));
+        } catch (IOException e) {
+            closeQuietly(serverSocket);
+            serverSocket = null;
+            throw new LifecycleException("replication : bind " + address + ":" + port + " failed", e);
+        }
+        peers.addAll(configured);
+        allowed = addresses;
+        started = true;
+        acceptor = daemon(this::runAcceptor, "livonia-replication-acceptor-" + getLocalPort());
+        sender = daemon(this::runSender, "livonia-replication-sender-" + getLocalPort());
+        for (Peer peer : peers) peer.thread = daemon(peer, "livonia-replication-peer-" + peer.host + ":" + peer.port);
+        logger.info("replication : listening on {}:{} , peers {}", address, getLocalPort(), peerAddresses);
+    }
+
+    @Override
+    public void stop() throws LifecycleException {
+        if (!started) throw new LifecycleException("SessionReplicator is not started");
+        lifecycleHelper.fireLifecycleEvent(STOP_EVENT, null);
+        started = false;
+        closeQuietly(serverSocket);
+        if (sender != null) sender.interrupt();
+        for (Peer peer : peers) peer.close();
+        for (Socket socket : inbound) closeQuietly(socket);
+        join(acceptor);
+        join(sender);
+        for (Peer peer : peers) join(peer.thread);
+        peers.clear();
+        serverSocket = null;
+        logger.info("replication : stopped , sent {} bytes , received {} bytes", getBytesSent(), getBytesReceived());
+    }
+
+    private static byte[] derive(byte[] secret) throws LifecycleException {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac.doFinal("livonia-replication".getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new LifecycleException("replication : cannot initialize " + MAC_ALGORITHM, e);
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(Thread thread) {
+        if (thread == null) return;
+        try {
+            thread.join(CONNECT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 一个对端节点，由自己的线程连接并发送
+     */
+    private final class Peer implements Runnable {
+        private final String host;
+        private final int port;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean connected = false;
+        // 是否需要先发送完整状态
+        private volatile boolean resync = true;
+        private volatile Socket socket = null;
+        private Thread thread = null;
+        // 本连接的密钥与下一帧的序号，只由本节点的线程使用
+        private Mac mac = null;
+        private long sequence = 0;
+
+        Peer(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        void offer(byte[] frame) {
+            if (!connected) return;
+            if (!queue.offer(frame)) {
+                framesDropped.increment();
+                queue.clear();
+                resync = true;
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean warned = false;
+            while (started) {
+                try (Socket s = new Socket()) {
+                    s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+                    s.setTcpNoDelay(true);
+                    socket = s;
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                    byte[] clientNonce = nonce();
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeUTF(nodeId);
+                    out.write(clientNonce);
+                    out.flush();
+                    s.setSoTimeout(CONNECT_TIMEOUT);
+                    byte[] serverNonce = new byte[NONCE_LENGTH];
+                    new DataInputStream(s.getInputStream()).readFully(serverNonce);
+                    s.setSoTimeout(0);
+                    mac = connectionMac(clientNonce, serverNonce);
+                    sequence = 0;
+                    out.write(helloProof(mac, nodeId));
+                    queue.clear();
+                    resync = true;
+                    connected = true;
+                    warned = false;
+                    logger.info("replication : connected to peer {}:{}", host, port);
+                    while (started) {
+                        if (resync) {
+                            resync = false;
+                            sendFullState(out);
+                        }
+                        byte[] frame = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                        while (frame != null) {
+                            write(out, frame);
+                            frame = queue.poll();
+                        }
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    if (started && !warned) {
+                        logger.warn("replication : peer {}:{} is unavailable : {}", host, port, e.getMessage());
+                        warned = true;
+                    }
+                } finally {
+                    connected = false;
+                    socket = null;
+                }
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void sendFullState(DataOutputStream out) throws IOException {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, SessionManager> entry : managers.entrySet()) {
+                List<SessionDelta> deltas = entry.getValue().fullState();
+                if (deltas.isEmpty()) continue;
+                for (byte[] frame : encode(entry.getKey(), now, deltas)) write(out, frame);
+                deltasSent.add(deltas.size());
+            }
+        }
+
+        private void write(DataOutputStream out, byte[] frame) throws IOException {
+            out.writeInt(frame.length);
+            out.write(frame);
+            out.write(frameTag(mac, sequence++, frame));
+            bytesSent.add(frame.length + 4L + MAC_LENGTH);
+        }
+
+        void close() {
+            if (thread != null) thread.interrupt();
+            closeQuietly(socket);
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,318 @@
+package livonia.session;
+
+import livonia.log.BaseLogger;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 钝化会话的文件存储，位于 Context 工作目录下。
+ * <p>
+ * 数据按追加方式写入编号递增的段文件 {@code segment-<n>.dat}，每条记录为
+ * 保存（会话ID、到期时刻、序列化数据）或删除（会话ID）。内存中只保留 会话ID -> 记录位置 的索引，
+ * 打开时按编号顺序重放各段文件的记录头重建，后写的记录覆盖先写的。
+ * 失效记录占用的空间超过有效数据时压缩：把有效记录写入新段，再删除旧段。
+ * <p>
+ * 同一目录只打开一个实例并按引用计数关闭，蓝绿重载期间新旧两个 Context 共用同一个存储。
+ */
+final class SessionStore {
+    //<editor-fold desc = "attr">
+    private static final Logger logger = BaseLogger.getLogger(SessionStore.class);
+    // 已打开的存储，key为目录
+    private static final Map<Path, SessionStore> opened = new HashMap<>();
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    // 单个段文件的大小上限，超过后写入新段
+    private static final long SEGMENT_LIMIT = 16L << 20;
+    // 失效数据少于此值时不压缩
+    private static final long COMPACT_THRESHOLD = 4L << 20;
+    private final Path dir;
+    // 段编号 -> 文件
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    // 会话ID -> 有效记录的位置
+    private final Map<String, Entry> index = new HashMap<>();
+    private int refCount = 0;
+    // 追加写入的段
+    private int activeSegment;
+    private FileChannel active;
+    // 有效数据与失效数据的字节数
+    private long liveBytes = 0;
+    private long garbageBytes = 0;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    private SessionStore(Path dir) {
+        this.dir = dir;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "打开 关闭">
+
+    /**
+     * 打开目录下的存储，目录已被打开时返回同一实例
+     */
+    static SessionStore open(Path dir) throws IOException {
+        Path key = dir.toAbsolutePath().normalize();
+        synchronized (opened) {
+            SessionStore store = opened.get(key);
+            if (store == null) {
+                store = new SessionStore(key);
+                store.load();
+                opened.put(key, store);
+            }
+            store.refCount++;
+            return store;
+        }
+    }
+
+    /**
+     * 最后一个使用者关闭时关闭全部文件
+     */
+    void close() {
+        synchronized (opened) {
+            if (--refCount > 0) return;
+            opened.remove(dir);
+        }
+        synchronized (this) {
+            for (FileChannel channel : segments.values()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.debug("关闭会话存储段文件失败", e);
+                }
+            }
+            segments.clear();
+            index.clear();
+            active = null;
+        }
+    }
+
+    // 重放已有的段文件，之后总是写入新的段，不在可能残缺的旧段后追加
+    private synchronized void load() throws IOException {
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    int number = Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    // 上次打开后没有写入过的段
+                    if (Files.size(file) == 0) Files.delete(file);
+                    else segments.put(number, FileChannel.open(file, StandardOpenOption.READ));
+                } catch (NumberFormatException e) {
+                    logger.debug("忽略会话存储中无法识别的文件: {}", file);
+                }
+            }
+        }
+        for (Map.Entry<Integer, FileChannel> segment : segments.entrySet()) replay(segment.getKey(), segment.getValue());
+        roll();
+        logger.debug("会话存储 {} 已打开，{} 个会话", dir, index.size());
+    }
+
+    private void replay(int segment, FileChannel channel) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(dir.resolve(PREFIX + segment + SUFFIX).toFile())))) {
+            long offset = 0;
+            long size = channel.size();
+            while (offset < size) {
+                byte type;
+                String id;
+                long headerEnd;
+                try {
+                    type = in.readByte();
+                    id = in.readUTF();
+                    headerEnd = offset + 1 + 2 + utfLength(id);
+                    if (type == SAVE) {
+                        long expiresAt = in.readLong();
+                        int length = in.readInt();
+                        long dataOffset = headerEnd + 8 + 4;
+                        if (dataOffset + length > size) break;
+                        in.skipNBytes(length);
+                        put(id, new Entry(segment, dataOffset, length, expiresAt));
+                        offset = dataOffset + length;
+                    } else if (type == DELETE) {
+                        delete(id);
+                        offset = headerEnd;
+                    } else {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    // 写到一半的记录
+                    break;
+                }
+            }
+            if (offset < size) logger.warn("会话存储段文件 {} 在 {} 字节处残缺，忽略其后的内容", segment, offset);
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "读写">
+
+    /**
+     * 保存会话，覆盖此前保存的同ID会话
+     */
+    synchronized void save(String id, long expiresAt, byte[] data) throws IOException {
+        checkOpen();
+        if (active.size() >= SEGMENT_LIMIT) roll();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length + 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(SAVE);
+        out.writeUTF(id);
+        out.writeLong(expiresAt);
+        out.writeInt(data.length);
+        int header = buffer.size();
+        out.write(data);
+        long offset = append(buffer.toByteArray());
+        put(id, new Entry(activeSegment, offset + header, data.length, expiresAt));
+    }
+
+    /**
+     * 取出并删除会话
+     *
+     * @return 不存在时返回null
+     */
+    synchronized byte[] take(String id) throws IOException {
+        checkOpen();
+        Entry entry = index.get(id);
+        if (entry == null) return null;
+        byte[] data = read(entry);
+        remove(id);
+        return data;
+    }
+
+    synchronized void remove(String id) throws IOException {
+        checkOpen();
+        if (!index.containsKey(id)) return;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(DELETE);
+        out.writeUTF(id);
+        append(buffer.toByteArray());
+        delete(id);
+    }
+
+    synchronized boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return 到期时刻不晚于 now 的会话ID
+     */
+    synchronized List<String> expired(long now) {
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : index.entrySet()) {
+            if (entry.getValue().expiresAt() <= now) ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * 失效数据多于有效数据时，把有效记录写入新段并删除旧段
+     *
+     * @return 是否进行了压缩
+     */
+    synchronized boolean compact() throws IOException {
+        checkOpen();
+        if (garbageBytes < COMPACT_THRESHOLD || garbageBytes < liveBytes) return false;
+        long before = liveBytes + garbageBytes;
+        List<Integer> old = new ArrayList<>(segments.keySet());
+        roll();
+        for (Map.Entry<String, Entry> entry : new ArrayList<>(index.entrySet())) {
+            save(entry.getKey(), entry.getValue().expiresAt(), read(entry.getValue()));
+        }
+        active.force(false);
+        // 新段落盘后再删除旧段，中途崩溃时重放旧段再重放新段，结果不变
+        for (Integer segment : old) {
+            segments.remove(segment).close();
+            Files.deleteIfExists(dir.resolve(PREFIX + segment + SUFFIX));
+        }
+        garbageBytes = 0;
+        logger.debug("会话存储 {} 压缩完成，{} -> {} 字节", dir, before, liveBytes);
+        return true;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部方法">
+    private void checkOpen() throws IOException {
+        if (active == null) throw new IOException("session store " + dir + " is closed");
+    }
+
+    private void roll() throws IOException {
+        activeSegment = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        active = FileChannel.open(dir.resolve(PREFIX + activeSegment + SUFFIX),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(activeSegment, active);
+    }
+
+    // 追加到当前段，返回写入的位置
+    private long append(byte[] bytes) throws IOException {
+        long offset = active.size();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = offset;
+        while (buffer.hasRemaining()) position += active.write(buffer, position);
+        return offset;
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        FileChannel channel = segments.get(entry.segment());
+        if (channel == null) throw new IOException("session store segment " + entry.segment() + " is missing");
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        long position = entry.offset();
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new EOFException("session store segment " + entry.segment() + " is truncated");
+            position += n;
+        }
+        return buffer.array();
+    }
+
+    private void put(String id, Entry entry) {
+        Entry old = index.put(id, entry);
+        if (old != null) {
+            liveBytes -= old.length();
+            garbageBytes += old.length();
+        }
+        liveBytes += entry.length();
+    }
+
+    private void delete(String id) {
+        Entry old = index.remove(id);
+        if (old == null) return;
+        liveBytes -= old.length();
+        garbageBytes += old.length();
+    }
+
+    // DataOutput.writeUTF 写入的字节数，不含长度前缀
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) length++;
+            else if (c > 0x07FF) length += 3;
+            else length += 2;
+        }
+        return length;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 一条保存记录中序列化数据的位置
+     */
+    private record Entry(int segment, long offset, int length, long expiresAt) {
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,326 @@
+package livonia.session;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionActivationListener;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+import javax.servlet.http.HttpSessionContext;
+import javax.servlet.http.HttpSessionEvent;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 由 {@link SessionManager} 管理的内存会话。
+ * <p>
+ * 访问会话只更新最后访问时刻，不移动其在时间轮中的位置。
+ * 钝化时只保存可序列化的属性，其余属性被丢弃。
+ */
+public class StandardSession extends TimerWheel.Node implements HttpSession {
+    //<editor-fold desc = "attr">
+    private final SessionManager manager;
+    private final long creationTime;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    // 是否正在或已经失效，保证失效流程只执行一次
+    private final AtomicBoolean expiring = new AtomicBoolean(false);
+    private volatile String id;
+    private volatile long lastAccessedTime;
+    // 单位为秒，不大于0时永不过期
+    private volatile int maxInactiveInterval;
+    private volatile boolean isNew = true;
+    private volatile boolean valid = true;
+    // 启用复制时各属性与最大不活动间隔的版本
+    private volatile Map<String, SessionDelta.Stamp> stamps = null;
+    private volatile SessionDelta.Stamp intervalStamp = SessionDelta.Stamp.ZERO;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    StandardSession(SessionManager manager, String id, long now, int maxInactiveInterval) {
+        this.manager = manager;
+        this.id = id;
+        this.creationTime = now;
+        this.lastAccessedTime = now;
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+
+    // 从钝化的数据还原
+    StandardSession(SessionManager manager, String id, long creationTime, long lastAccessedTime,
+                    int maxInactiveInterval, boolean isNew) {
+        this.manager = manager;
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.isNew = isNew;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "管理器使用">
+
+    /**
+     * 客户端携带会话ID再次访问
+     */
+    void access(long now) {
+        lastAccessedTime = now;
+        isNew = false;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    long expiresAt() {
+        int interval = maxInactiveInterval;
+        if (interval <= 0) return Long.MAX_VALUE;
+        return lastAccessedTime + interval * 1000L;
+    }
+
+    /**
+     * 使会话失效：通知监听器后解除全部属性
+     *
+     * @return 已经失效过时返回false
+     */
+    boolean expire() {
+        if (!expiring.compareAndSet(false, true)) return false;
+        manager.remove(this);
+        manager.fireSessionDestroyed(this);
+        for (String name : attributes.keySet()) removeAttribute(name, true);
+        valid = false;
+        return true;
+    }
+
+    int getAttributeCount() {
+        return attributes.size();
+    }
+
+    // 序列化与还原时直接读写属性，不通知监听器
+    Map<String, Object> attributes() {
+        return attributes;
+    }
+
+    long lastAccessed() {
+        return lastAccessedTime;
+    }
+
+    boolean isNewSession() {
+        return isNew;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "复制">
+    SessionDelta.Stamp stampOf(String name) {
+        Map<String, SessionDelta.Stamp> current = stamps;
+        SessionDelta.Stamp stamp = current == null ? null : current.get(name);
+        return stamp == null ? SessionDelta.Stamp.ZERO : stamp;
+    }
+
+    synchronized void stamp(String name, SessionDelta.Stamp stamp) {
+        if (stamps == null) stamps = new ConcurrentHashMap<>();
+        stamps.put(name, stamp);
+    }
+
+    SessionDelta.Stamp intervalStamp() {
+        return intervalStamp;
+    }
+
+    void stampInterval(SessionDelta.Stamp stamp) {
+        intervalStamp = stamp;
+    }
+
+    /**
+     * 应用其他节点发来的变化，只接受版本更新的属性，不通知监听器
+     *
+     * @param reader 反序列化属性值，失败时返回null
+     */
+    synchronized void applyRemote(SessionDelta delta, Function<byte[], Object> reader) {
+        if (delta.lastAccessedTime() > lastAccessedTime) lastAccessedTime = delta.lastAccessedTime();
+        if (delta.intervalStamp().isNewerThan(intervalStamp)) {
+            int old = maxInactiveInterval;
+            maxInactiveInterval = delta.maxInactiveInterval();
+            intervalStamp = delta.intervalStamp();
+            if (maxInactiveInterval > 0 && (old <= 0 || maxInactiveInterval < old)) manager.reschedule(this);
+        }
+        for (SessionDelta.Attribute attribute : delta.attributes()) {
+            if (!attribute.stamp().isNewerThan(stampOf(attribute.name()))) continue;
+            if (attribute.value() == null) {
+                attributes.remove(attribute.name());
+            } else {
+                Object value = reader.apply(attribute.value());
+                if (value == null) continue;
+                attributes.put(attribute.name(), value);
+            }
+            stamp(attribute.name(), attribute.stamp());
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "钝化">
+
+    /**
+     * 钝化之前通知实现了 {@link HttpSessionActivationListener} 的属性
+     */
+    void passivate() {
+        HttpSessionEvent event = new HttpSessionEvent(this);
+        for (Object value : attributes.values()) {
+            if (value instanceof HttpSessionActivationListener listener) listener.sessionWillPassivate(event);
+        }
+    }
+
+    /**
+     * 激活之后通知实现了 {@link HttpSessionActivationListener} 的属性
+     */
+    void activate() {
+        HttpSessionEvent event = new HttpSessionEvent(this);
+        for (Object value : attributes.values()) {
+            if (value instanceof HttpSessionActivationListener listener) listener.sessionDidActivate(event);
+        }
+    }
+
+    public SessionManager getManager() {
+        return manager;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "HttpSession">
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        return creationTime;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return lastAccessedTime;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return manager.getServletContext();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        int old = maxInactiveInterval;
+        maxInactiveInterval = interval;
+        // 缩短或改为会过期时需要重新登记，延长时到期检查会自行重新分配
+        if (interval > 0 && (old <= 0 || interval < old)) manager.reschedule(this);
+        manager.intervalChanged(this);
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    @Override
+    @Deprecated
+    public HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        return name == null ? null : attributes.get(name);
+    }
+
+    @Override
+    @Deprecated
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    @Deprecated
+    public String[] getValueNames() {
+        checkValid();
+        return attributes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (name == null) throw new IllegalArgumentException("attribute name is null");
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        checkValid();
+        if (value instanceof HttpSessionBindingListener listener) {
+            listener.valueBound(new HttpSessionBindingEvent(this, name, value));
+        }
+        Object old = attributes.put(name, value);
+        if (old != null && old != value && old instanceof HttpSessionBindingListener listener) {
+            listener.valueUnbound(new HttpSessionBindingEvent(this, name, old));
+        }
+        manager.attributeChanged(this, name);
+        if (old == null) manager.fireAttributeAdded(this, name, value);
+        else manager.fireAttributeReplaced(this, name, old);
+    }
+
+    @Override
+    @Deprecated
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        removeAttribute(name, false);
+    }
+
+    private void removeAttribute(String name, boolean expiring) {
+        if (!expiring) checkValid();
+        if (name == null) return;
+        Object old = attributes.remove(name);
+        if (old == null) return;
+        if (!expiring) manager.attributeChanged(this, name);
+        if (old instanceof HttpSessionBindingListener listener) {
+            listener.valueUnbound(new HttpSessionBindingEvent(this, name, old));
+        }
+        manager.fireAttributeRemoved(this, name, old);
+    }
+
+    @Override
+    @Deprecated
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        if (!expire()) throw new IllegalStateException("session " + id + " already invalidated");
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return isNew;
+    }
+
+    private void checkValid() {
+        if (!valid) throw new IllegalStateException("session " + id + " already invalidated");
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,180 @@
+package livonia.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮，管理大量节点的到期时刻。
+ * <p>
+ * 共 {@value #LEVELS} 层，每层 {@value #SLOTS} 格；第 0 层一格为一个 tick，
+ * 第 n 层一格覆盖 64^n 个 tick，一秒一 tick 时可覆盖约 194 天。
+ * 低层转过一圈时把高层对应一格中的节点重新分配到低层，每个 tick 只处理一格。
+ * 插入、取消为 O(1)，推进一个 tick 的开销只与这一格中的节点数有关，与节点总数无关。
+ * <p>
+ * 节点的到期时刻由 {@link Node#expiresAt()} 实时给出，延长到期时刻（例如会话被访问）时不必移动节点：
+ * 节点所在的格到达时发现尚未到期，重新分配即可。只有缩短到期时刻时才需要 {@link #schedule} 重新登记。
+ */
+final class TimerWheel {
+    //<editor-fold desc = "attr">
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // 可登记的最远 tick 数
+    private static final long SPAN = 1L << (BITS * LEVELS);
+    // 一个 tick 的长度（毫秒）
+    private final long tickMillis;
+    // 每一格为一个带哨兵的双向循环链表
+    private final Node[][] wheel = new Node[LEVELS][SLOTS];
+    // 已处理到的 tick
+    private long currentTick;
+    // 登记中的节点数
+    private int size;
+
+    //</editor-fold>
+    //<editor-fold desc = "constructor">
+    TimerWheel(long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.currentTick = now / tickMillis;
+        for (Node[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                Node sentinel = new Sentinel();
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                level[i] = sentinel;
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "登记与取消">
+
+    /**
+     * 登记节点，已登记的节点按当前的到期时刻重新登记
+     */
+    synchronized void schedule(Node node) {
+        if (node.next != null) unlink(node);
+        else size++;
+        place(node, node.expiresAt(), currentTick + 1);
+    }
+
+    synchronized void cancel(Node node) {
+        if (node.next == null) return;
+        unlink(node);
+        size--;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "推进">
+
+    /**
+     * 推进到 now，返回已到期的节点，这些节点已从时间轮中移除
+     */
+    synchronized List<Node> advance(long now) {
+        List<Node> expired = new ArrayList<>();
+        long target = now / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // 低层转过一圈时，把高层当前格中的节点分配到低层
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) break;
+                Node node = detach(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+                while (node != null) {
+                    Node next = node.next;
+                    place(node, node.expiresAt(), currentTick);
+                    node = next;
+                }
+            }
+            Node node = detach(0, (int) (currentTick & MASK));
+            while (node != null) {
+                Node next = node.next;
+                long deadline = node.expiresAt();
+                if (deadline <= now) {
+                    node.prev = null;
+                    node.next = null;
+                    size--;
+                    expired.add(node);
+                } else {
+                    place(node, deadline, currentTick + 1);
+                }
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "链表操作">
+
+    /**
+     * 把节点放入到期 tick 对应的格
+     *
+     * @param minTick 最早可放入的 tick，当前格已处理过时为下一个 tick
+     */
+    private void place(Node node, long deadline, long minTick) {
+        long tick = Math.max(deadline / tickMillis, minTick);
+        long delta = tick - currentTick;
+        if (delta >= SPAN) {
+            tick = currentTick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= SLOTS && level < LEVELS - 1) {
+            delta >>>= BITS;
+            level++;
+        }
+        Node sentinel = wheel[level][(int) ((tick >>> (BITS * level)) & MASK)];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * 摘下一整格，返回以 null 结尾的单向链表的头
+     */
+    private Node detach(int level, int slot) {
+        Node sentinel = wheel[level][slot];
+        if (sentinel.next == sentinel) return null;
+        Node head = sentinel.next;
+        sentinel.prev.next = null;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        return head;
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "内部类">
+
+    /**
+     * 时间轮中的节点，链接字段由时间轮在持有锁时维护
+     */
+    abstract static class Node {
+        Node prev;
+        Node next;
+
+        /**
+         * @return 到期时刻（毫秒），不会到期时为 {@link Long#MAX_VALUE}
+         */
+        abstract long expiresAt();
+    }
+
+    private static final class Sentinel extends Node {
+        @Override
+        long expiresAt() {
+            return Long.MAX_VALUE;
+        }
+    }
+    //</editor-fold>
+}
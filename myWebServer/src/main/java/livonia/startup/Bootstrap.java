@@ -1,10 +1,14 @@
 package livonia.startup;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static java.io.File.separator;
@@ -18,16 +22,28 @@ public class Bootstrap {
     // 服务器真正的启动类
     private static final String LIVONIA = "livonia.startup.Livonia";
     private static final String PROCESS = "process";
+    // 训练运行并生成 AppCDS 归档
+    private static final String CDS_DUMP = "-cds-dump";
+    // 启动完成后立即停止并退出，由训练运行与启动耗时测量使用
+    private static final String EXIT_AFTER_START = "-exit-after-start";
+    // 归档文件位置，默认为 core.dir 下的 livonia.jsa
+    private static final String CDS_ARCHIVE_PROP = "livonia.cds.archive";
+    private static final String CDS_ARCHIVE = "livonia.jsa";
 
     //</editor-fold>
     //<editor-fold desc = "MAIN">
     public static void main(String[] args) {
         // 检查是否是停止命令
         boolean isStopCommand = false;
+        boolean exitAfterStart = false;
         for (String arg : args) {
             if ("-stop".equals(arg)) {
                 isStopCommand = true;
-                break;
+            } else if (CDS_DUMP.equals(arg)) {
+                // 在子进程中完成训练运行，归档在子进程退出时写出
+                System.exit(dumpArchive(args));
+            } else if (EXIT_AFTER_START.equals(arg)) {
+                exitAfterStart = true;
             }
         }
 
@@ -46,6 +62,7 @@ public class Bootstrap {
 
             // 打印启动 Banner
             printBanner();
+            reportArchive();
 
             if (showAnimation) {
                 try {
@@ -97,6 +114,8 @@ public class Bootstrap {
             paramValues[0] = args;
             method = livoInstance.getClass().getMethod(PROCESS, paramTypes);
             method.invoke(livoInstance, paramValues);
+            // 仍在运行的非守护线程不应阻止退出，JVM 退出时写出归档
+            if (exitAfterStart) System.exit(0);
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
             System.exit(2);
@@ -189,7 +208,89 @@ public class Bootstrap {
     }
 
     //</editor-fold>
-    //<editor-fold desc = "">
+    //<editor-fold desc = "AppCDS">
+
+    private static File archiveFile() {
+        String archive = System.getProperty(CDS_ARCHIVE_PROP);
+        if (archive != null) return new File(archive);
+        return new File(getCoreDir(true), CDS_ARCHIVE);
+    }
+
+    /**
+     * 以 {@code -XX:ArchiveClassesAtExit} 启动子进程，完成一次启动与预热后退出，
+     * 子进程加载过的 JDK 类与容器类随之写入动态归档。
+     * webapp 类由 WebAppClassLoader 从字节数组定义，动态 CDS 会跳过它们，不在归档之内。
+     * 之后以 {@code -XX:SharedArchiveFile} 启动即可直接映射这些已解析、已校验的类。
+     *
+     * @return 子进程的退出码
+     */
+    private static int dumpArchive(String[] args) {
+        String classPath = System.getProperty("java.class.path");
+        // CDS 不能归档来自目录的类，类路径中有非空目录时 JVM 会拒绝生成归档
+        for (String entry : classPath.split(File.pathSeparator)) {
+            String[] files = new File(entry).list();
+            if (files != null && files.length > 0) {
+                System.out.println("=== Bootstrap : CDS needs a jar-only class path, found directory " + entry + " ===");
+                return 4;
+            }
+        }
+        File archive = archiveFile();
+        if (archive.exists() && !archive.delete()) {
+            System.out.println("=== Bootstrap : cannot replace CDS archive " + archive + " ===");
+            return 4;
+        }
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin" + separator + "java").getPath());
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (jvmArg.startsWith("-XX:SharedArchiveFile") || jvmArg.startsWith("-XX:ArchiveClassesAtExit")
+                    || jvmArg.startsWith("-Xshare")) continue;
+            command.add(jvmArg);
+        }
+        command.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+        command.add("-D" + CORE_DIR + "=" + getCoreDir(false));
+        command.add("-Dlivonia.banner.animation=false");
+        command.add("-cp");
+        command.add(classPath);
+        command.add(Bootstrap.class.getName());
+        for (String arg : args) {
+            if (!CDS_DUMP.equals(arg)) command.add(arg);
+        }
+        command.add(EXIT_AFTER_START);
+        System.out.println("=== Bootstrap : training run for CDS archive " + archive.getAbsolutePath() + " ===");
+        try {
+            int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exitCode == 0 && archive.isFile()) {
+                System.out.println("=== Bootstrap : CDS archive written (" + archive.length() / 1024 + " KB) ===");
+            } else {
+                System.out.println("=== Bootstrap : CDS training run failed, exit code " + exitCode + " ===");
+            }
+            return exitCode;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 4;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 4;
+        }
+    }
+
+    // 启动时说明归档的配置情况。-Xshare:auto 下归档不兼容时 JVM 会静默忽略它，
+    // 这里只能确认参数已配置，是否映射成功需用 -Xshare:on 或 -Xlog:cds 确认
+    private static void reportArchive() {
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (jvmArg.startsWith("-XX:SharedArchiveFile=")) {
+                System.out.println("=== Bootstrap : CDS archive configured " + jvmArg.substring(jvmArg.indexOf('=') + 1)
+                        + " (use -Xlog:cds or -Xshare:on to verify it is mapped) ===");
+                return;
+            }
+        }
+        File archive = archiveFile();
+        if (archive.isFile()) {
+            System.out.println("=== Bootstrap : CDS archive found but not in use, add -XX:SharedArchiveFile="
+                    + archive.getAbsolutePath() + " ===");
+        }
+    }
+
     //</editor-fold>
     //<editor-fold desc = "内部类">
     public static class ClassLoaderFactory {
@@ -3,6 +3,7 @@ package livonia.startup;
 import livonia.XMLParse.*;
 import livonia.base.Server;
 import livonia.base.Vas;
+import livonia.jmx.MBeanLifecycleListener;
 import livonia.lifecycle.Lifecycle;
 import livonia.lifecycle.LifecycleException;
 import livonia.utils.ServerXmlWriter;
@@ -11,6 +12,7 @@ import org.xml.sax.Attributes;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.Socket;
 
@@ -27,6 +29,8 @@ public class Livonia {
                       -h,--help       Show this help message
                       -d,--debug      Debug mode
                       -v,--version    Show version information
+                      -cds-dump       Start once, then exit and write an AppCDS archive
+                      -exit-after-start  Stop and exit as soon as the server has started
                       start           Start the server
                       stop            Stop the server""";
     private ClassLoader parentClassLoader = null;
@@ -40,6 +44,7 @@ public class Livonia {
     public Server server = null;
     private boolean saveDynamicApps = false;  // 是否保存动态部署的应用
     private String xmlConfigFile = null;      // 配置文件路径
+    private boolean exitAfterStart = false;   // 启动完成后立即停止（训练运行、启动耗时测量）
     //</editor-fold>
     //<editor-fold desc = "配置二进制目录和实例运行目录">
 
@@ -119,6 +124,8 @@ public class Livonia {
                 isStarting = true;
             } else if (arg.equals("-stop")) {
                 isStopping = true;
+            } else if (arg.equals("-exit-after-start")) {
+                exitAfterStart = true;
             }
         }
         return true;
@@ -148,7 +155,7 @@ public class Livonia {
         // 获取XML引用
         File serverXML = serverXML();
         xmlConfigFile = serverXML.getAbsolutePath();  // 保存配置文件路径
-        saveDynamicApps = true;  // 启用保存动态应用功能
+        saveDynamicApps = !exitAfterStart;  // 启用保存动态应用功能
         
         try (FileInputStream fileInputStream = new FileInputStream(serverXML)) {
             d.push(this);
@@ -159,16 +166,21 @@ public class Livonia {
             System.exit(1);
         }
         shutdownHook = new ShutdownHook();
+        // 各组件启动时注册MBean，停止时注销
+        ((Lifecycle) server).addLifecycleListener(new MBeanLifecycleListener());
         // 启动服务器
         try {
             server.initialize();
             ((Lifecycle) server).start();
+            // JVM 启动至今的耗时，包含类加载与预热
+            System.out.println("=== Livonia : server started in "
+                    + ManagementFactory.getRuntimeMXBean().getUptime() + " ms ===");
             try {
                 Runtime.getRuntime().addShutdownHook(shutdownHook);
             } catch (IllegalStateException e) {
                 System.out.println("Exception occurred when Shutdown hook  added");
             }
-            server.waitForShutdown();
+            if (!exitAfterStart) server.waitForShutdown();
         } catch (LifecycleException e) {
             System.out.println("Exception occurred when starting : " + e);
             e.printStackTrace();
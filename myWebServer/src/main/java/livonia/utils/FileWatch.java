@@ -0,0 +1,40 @@
+package livonia.utils;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchService;
+
+/**
+ * 文件系统监视服务的统一入口，供类加载器与Host的部署检测共用。
+ * 没有原生通知机制的文件系统上JDK会退回到自带的轮询实现，
+ * 它同样是定期扫描目录，不比容器原有的修改时间比对更及时，此时返回null由调用方自行轮询。
+ * 可通过系统属性 {@value #MODE_PROPERTY} 显式指定：
+ * poll 始终轮询；native 只要能创建监视服务就使用；默认 auto 仅在原生实现可用时使用。
+ */
+public final class FileWatch {
+    public static final String MODE_PROPERTY = "livonia.fileWatch";
+    // JDK在无原生通知机制时使用的实现
+    private static final String POLLING_IMPL = "sun.nio.fs.PollingWatchService";
+
+    private FileWatch() {
+    }
+
+    /**
+     * 打开默认文件系统的监视服务，应当轮询时返回null
+     */
+    public static WatchService open() throws IOException {
+        String mode = System.getProperty(MODE_PROPERTY, "auto").trim();
+        if ("poll".equalsIgnoreCase(mode)) return null;
+        WatchService watcher;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        if (!"native".equalsIgnoreCase(mode) && POLLING_IMPL.equals(watcher.getClass().getName())) {
+            watcher.close();
+            return null;
+        }
+        return watcher;
+    }
+}
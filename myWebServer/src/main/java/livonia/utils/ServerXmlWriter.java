@@ -1,6 +1,10 @@
 package livonia.utils;
 
 import livonia.base.*;
+import livonia.connector.http.HttpConnector;
+import livonia.core.DefaultContext;
+import livonia.core.DefaultHost;
+import livonia.core.DefaultService;
 import org.w3c.dom.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -9,6 +13,8 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -43,6 +49,15 @@ public final class ServerXmlWriter {
         for (Service service : services) {
             Element serviceElement = doc.createElement("Service");
             serviceElement.setAttribute("name", service.getName());
+            if (service instanceof DefaultService defaultService && defaultService.isWarmup()) {
+                serviceElement.setAttribute("warmup", "true");
+                if (defaultService.getWarmupRequests() != null)
+                    serviceElement.setAttribute("warmupRequests", defaultService.getWarmupRequests());
+                if (defaultService.getWarmupFile() != null)
+                    serviceElement.setAttribute("warmupFile", defaultService.getWarmupFile());
+                serviceElement.setAttribute("warmupMaxRounds", String.valueOf(defaultService.getWarmupMaxRounds()));
+                serviceElement.setAttribute("warmupTimeout", String.valueOf(defaultService.getWarmupTimeout()));
+            }
             serverElement.appendChild(serviceElement);
             
             // 添加Connector
@@ -51,6 +66,12 @@ public final class ServerXmlWriter {
                 Element connectorElement = doc.createElement("Connector");
                 connectorElement.setAttribute("port", String.valueOf(connector.getPort()));
                 connectorElement.setAttribute("protocol", connector.getProtocol());
+                if (connector instanceof HttpConnector httpConnector) {
+                    if (httpConnector.getTraceSampleRate() > 0)
+                        connectorElement.setAttribute("traceSampleRate", String.valueOf(httpConnector.getTraceSampleRate()));
+                    if (httpConnector.getTraceHeader() != null)
+                        connectorElement.setAttribute("traceHeader", httpConnector.getTraceHeader());
+                }
                 serviceElement.appendChild(connectorElement);
             }
             
@@ -61,6 +82,7 @@ public final class ServerXmlWriter {
                 engineElement.setAttribute("name", engine.getName());
                 engineElement.setAttribute("defaultHostName", ((Engine)engine).getDefaultHostName());
                 serviceElement.appendChild(engineElement);
+                appendCheckpoints(doc, engineElement, engine);
                 
                 // 遍历所有Host
                 Vas[] hosts = engine.findChildren();
@@ -68,7 +90,20 @@ public final class ServerXmlWriter {
                     Element hostElement = doc.createElement("Host");
                     hostElement.setAttribute("name", host.getName());
                     hostElement.setAttribute("appBase", ((Host)host).getAppBase());
+                    String workDir = ((Host) host).getWorkDir();
+                    if (workDir != null && !workDir.isEmpty())
+                        hostElement.setAttribute("workDir", workDir);
+                    if (host instanceof DefaultHost defaultHost && defaultHost.getReplicationPort() >= 0) {
+                        hostElement.setAttribute("replicationPort", String.valueOf(defaultHost.getReplicationPort()));
+                        hostElement.setAttribute("replicationAddress", defaultHost.getReplicationAddress());
+                        hostElement.setAttribute("replicationPeers", defaultHost.getReplicationPeers());
+                        if (defaultHost.getReplicationSecret() != null)
+                            hostElement.setAttribute("replicationSecret", defaultHost.getReplicationSecret());
+                        if (defaultHost.getReplicationFilter() != null)
+                            hostElement.setAttribute("replicationFilter", defaultHost.getReplicationFilter());
+                    }
                     engineElement.appendChild(hostElement);
+                    appendCheckpoints(doc, hostElement, host);
                     
                     // 获取Host的appBase目录
                     String appBase = ((Host)host).getAppBase();
@@ -82,6 +117,7 @@ public final class ServerXmlWriter {
                     // 遍历所有Context（包括动态部署的）
                     Vas[] contexts = host.findChildren();
                     List<ContextInfo> contextInfos = new ArrayList<>();
+                    List<Vas> contextVas = new ArrayList<>();
                     // 使用Set去重，key为basePath
                     Set<String> processedBasePaths = new HashSet<>();
                     
@@ -124,12 +160,14 @@ public final class ServerXmlWriter {
                                 // 判断是否是动态部署的Context（不在原始server.xml中）
                                 boolean isDynamic = !staticContexts.contains(key);
                                 contextInfos.add(new ContextInfo(path, basePath, isDynamic));
+                                contextVas.add(context);
                             }
                         }
                     }
                     
                     // 添加Context元素
-                    for (ContextInfo info : contextInfos) {
+                    for (int i = 0; i < contextInfos.size(); i++) {
+                        ContextInfo info = contextInfos.get(i);
                         // 如果是动态部署的应用，添加注释
                         if (info.isDynamic) {
                             Comment comment = doc.createComment(" 动态部署的应用 ");
@@ -139,7 +177,18 @@ public final class ServerXmlWriter {
                         Element contextElement = doc.createElement("Context");
                         contextElement.setAttribute("path", info.path);
                         contextElement.setAttribute("basePath", info.basePath);
+                        if (contextVas.get(i) instanceof DefaultContext dc) {
+                            if (dc.getSessionIdleSwap() >= 0)
+                                contextElement.setAttribute("sessionIdleSwap", String.valueOf(dc.getSessionIdleSwap()));
+                            if (DefaultContext.SESSION_MODE_COOKIE.equalsIgnoreCase(dc.getSessionMode())) {
+                                contextElement.setAttribute("sessionMode", dc.getSessionMode());
+                                if (dc.getSessionSecret() != null)
+                                    contextElement.setAttribute("sessionSecret", dc.getSessionSecret());
+                                if (dc.getSessionEncrypt()) contextElement.setAttribute("sessionEncrypt", "true");
+                            }
+                        }
                         hostElement.appendChild(contextElement);
+                        appendCheckpoints(doc, contextElement, contextVas.get(i));
                     }
                 }
             }
@@ -187,6 +236,32 @@ public final class ServerXmlWriter {
         System.out.println("Server配置已保存到: " + xmlPath);
     }
     
+    /**
+     * 将容器通道上的非基础检查点写为 &lt;Checkpoint className="..."/&gt;，
+     * 可读写的简单类型属性一并写出，以便下次启动时还原
+     */
+    private static void appendCheckpoints(Document doc, Element parent, Vas vas) {
+        if (!(vas instanceof Channel channel)) return;
+        Checkpoint basic = channel.getBasicCheckpoint();
+        for (Checkpoint checkpoint : channel.getCheckpoints()) {
+            if (checkpoint == basic) continue;
+            Element element = doc.createElement("Checkpoint");
+            element.setAttribute("className", checkpoint.getClass().getName());
+            try {
+                for (PropertyDescriptor pd : Introspector.getBeanInfo(checkpoint.getClass()).getPropertyDescriptors()) {
+                    if (pd.getReadMethod() == null || pd.getWriteMethod() == null) continue;
+                    Class<?> type = pd.getPropertyType();
+                    if (type != String.class && !type.isPrimitive()) continue;
+                    Object value = pd.getReadMethod().invoke(checkpoint);
+                    if (value != null) element.setAttribute(pd.getName(), String.valueOf(value));
+                }
+            } catch (Exception e) {
+                System.out.println("读取检查点属性失败: " + checkpoint.getClass().getName() + " " + e);
+            }
+            parent.appendChild(element);
+        }
+    }
+
     /**
      * 从原始server.xml中加载静态配置的Context
      * 返回一个Set，包含所有静态Context的"path|basePath"组合
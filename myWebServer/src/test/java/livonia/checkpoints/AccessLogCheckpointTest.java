@@ -0,0 +1,236 @@
+package livonia.checkpoints;
+
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.connector.http.HttpResponseStream;
+import livonia.lifecycle.LifecycleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 访问日志检查点测试
+ */
+public class AccessLogCheckpointTest {
+
+    private Path logDir;
+    private MutableClock clock;
+    private AccessLogCheckpoint accessLog;
+    private boolean started;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        logDir = Files.createTempDirectory("livonia-access");
+        clock = new MutableClock(Instant.parse("2026-03-01T10:15:30Z").toEpochMilli());
+        accessLog = new AccessLogCheckpoint();
+        accessLog.setDirectory(logDir.toString());
+        accessLog.setClock(clock);
+        started = false;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (started) accessLog.stop();
+        try (Stream<Path> files = Files.walk(logDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testPatternFormatsEveryCode() throws Exception {
+        accessLog.setPattern("%m %U %H %s %b %% [%r] %a %t %D");
+        start();
+        request("GET", "/app/missing", 404);
+        waitFor(() -> accessLog.getWrittenCount() == 1);
+
+        List<String> lines = lines("2026-03-01");
+        assertEquals(1, lines.size());
+        String line = lines.getFirst();
+        String expected = "GET /app/missing HTTP/1.1 404 - % [GET /app/missing HTTP/1.1] 127.0.0.1 [01/Mar/2026:10:15:30 +0000] ";
+        assertTrue(line.startsWith(expected), line);
+        assertTrue(line.substring(expected.length()).matches("\\d+"), line);
+    }
+
+    @Test
+    public void testWriterResponseKeepsContentLength() throws Exception {
+        accessLog.setPattern("%U %b");
+        start();
+        HttpRequest request = new HttpRequest();
+        HttpResponse response = new HttpResponse();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        request.setProtocol("HTTP/1.1");
+        request.setMethod("GET");
+        request.setUri("/app/writer");
+        request.setResponse(response);
+        response.setRequest(request);
+        response.setStream(out);
+        response.setResponseStream(new HttpResponseStream(response));
+        response.setAllowChunking(true);
+        accessLog.process(request, response, (req, resp) -> resp.getWriter().write("hello"));
+        assertFalse(response.isCommitted(), "logging must not commit the response");
+        response.finishResponse();
+        waitFor(() -> accessLog.getWrittenCount() == 1);
+
+        String raw = out.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(raw.contains("Content-Length: 5\r\n"), raw);
+        assertFalse(raw.contains("Transfer-Encoding"), raw);
+        assertEquals(List.of("/app/writer 5"), lines("2026-03-01"));
+    }
+
+    @Test
+    public void testUnknownPatternCodeFailsStart() {
+        accessLog.setPattern("%a %x");
+        assertThrows(LifecycleException.class, accessLog::start);
+    }
+
+    @Test
+    public void testSlotsAreReusedAcrossLaps() throws Exception {
+        accessLog.setBufferSize(4);
+        accessLog.setPattern("%U");
+        start();
+        for (int i = 0; i < 20; i++) {
+            request("GET", "/page/" + i, 200);
+            int expected = i + 1;
+            waitFor(() -> accessLog.getWrittenCount() == expected);
+        }
+        assertEquals(0, accessLog.getDroppedCount());
+
+        List<String> lines = lines("2026-03-01");
+        assertEquals(20, lines.size());
+        for (int i = 0; i < 20; i++) assertEquals("/page/" + i, lines.get(i));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreWrittenOrCounted() throws Exception {
+        accessLog.setBufferSize(64);
+        accessLog.setPattern("%U");
+        start();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) request("GET", "/t" + id + "/" + i, 200);
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        accessLog.stop();
+        started = false;
+
+        // 停止时写完缓冲区中剩余的记录，每条记录要么写入文件要么计为丢弃
+        assertEquals(2000, accessLog.getWrittenCount() + accessLog.getDroppedCount());
+        assertEquals(accessLog.getWrittenCount(), lines("2026-03-01").size());
+    }
+
+    @Test
+    public void testFullBufferDropsInsteadOfBlocking() throws Exception {
+        // 目录无法创建，后台线程一直无法消费
+        Path blocker = Files.createFile(logDir.resolve("blocker"));
+        accessLog.setDirectory(blocker.resolve("logs").toString());
+        accessLog.setBufferSize(4);
+        start();
+        for (int i = 0; i < 20; i++) request("GET", "/page/" + i, 200);
+
+        assertEquals(16, accessLog.getDroppedCount());
+        assertEquals(0, accessLog.getWrittenCount());
+    }
+
+    @Test
+    public void testRollsToNewFileWhenDateChanges() throws Exception {
+        accessLog.setPattern("%U %t");
+        clock.set(Instant.parse("2026-03-01T23:59:59Z").toEpochMilli());
+        start();
+        request("GET", "/before", 200);
+        waitFor(() -> accessLog.getWrittenCount() == 1);
+        clock.set(Instant.parse("2026-03-02T00:00:01Z").toEpochMilli());
+        request("GET", "/after", 200);
+        waitFor(() -> accessLog.getWrittenCount() == 2);
+
+        assertEquals(List.of("/before [01/Mar/2026:23:59:59 +0000]"), lines("2026-03-01"));
+        assertEquals(List.of("/after [02/Mar/2026:00:00:01 +0000]"), lines("2026-03-02"));
+    }
+
+    private void start() throws Exception {
+        accessLog.start();
+        started = true;
+    }
+
+    private void request(String method, String uri, int status) {
+        HttpRequest request = new HttpRequest();
+        HttpResponse response = new HttpResponse();
+        request.setProtocol("HTTP/1.1");
+        request.setMethod(method);
+        request.setUri(uri);
+        request.setInet(InetAddress.getLoopbackAddress());
+        request.setResponse(response);
+        response.setRequest(request);
+        try {
+            accessLog.process(request, response, (req, resp) -> resp.setStatus(status));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> lines(String date) throws Exception {
+        return Files.readAllLines(logDir.resolve("access_log." + date + ".txt"), StandardCharsets.UTF_8);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 可由测试拨动的UTC时钟
+     */
+    private static final class MutableClock extends Clock {
+        private volatile long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package livonia.checkpoints;
+
+import livonia.base.CheckpointContext;
+import livonia.base.Const;
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.connector.http.HttpResponseStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.Cookie;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 响应缓存检查点测试
+ */
+public class CacheCheckpointTest {
+
+    private CacheCheckpoint cache;
+    private int calls;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        cache = new CacheCheckpoint();
+        cache.setPaths("/static/=60");
+        cache.start();
+        calls = 0;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cache.stop();
+    }
+
+    @Test
+    public void testHitIsReplayedWithoutServlet() throws Exception {
+        Exchange first = new Exchange("GET", "/app/page");
+        first.run("max-age=60", null, "hello");
+        assertEquals(1, calls);
+
+        Exchange second = new Exchange("GET", "/app/page");
+        second.run("max-age=60", null, "changed");
+        assertEquals(1, calls, "a fresh entry must not reach the servlet");
+        assertTrue(second.output().endsWith("hello"));
+        assertTrue(second.output().contains("Age: "));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        Exchange head = new Exchange("HEAD", "/app/page");
+        head.run("max-age=60", null, "changed");
+        assertEquals(1, calls);
+        assertFalse(head.output().endsWith("hello"), "HEAD replays headers only");
+    }
+
+    @Test
+    public void testWriterResponseIsCapturedWithoutCommitting() throws Exception {
+        Exchange first = new Exchange("GET", "/app/writer").writer();
+        first.process("max-age=60", null, "hello");
+        assertFalse(first.response.isCommitted(), "capturing must not commit the response");
+        first.response.finishResponse();
+        assertTrue(first.output().contains("Content-Length: 5\r\n"), first.output());
+        assertFalse(first.output().contains("Transfer-Encoding"), first.output());
+        assertTrue(first.output().endsWith("hello"));
+
+        Exchange second = new Exchange("GET", "/app/writer").writer();
+        second.run("max-age=60", null, "changed");
+        assertEquals(1, calls);
+        assertTrue(second.output().endsWith("hello"));
+    }
+
+    @Test
+    public void testVaryKeepsVariantsApart() throws Exception {
+        Exchange gzip = new Exchange("GET", "/app/list");
+        gzip.header("Accept-Encoding", "gzip");
+        gzip.run("max-age=60", "Accept-Encoding", "gzip-body");
+        Exchange plain = new Exchange("GET", "/app/list");
+        plain.run("max-age=60", "Accept-Encoding", "plain-body");
+        assertEquals(2, calls);
+
+        Exchange again = new Exchange("GET", "/app/list");
+        again.header("accept-encoding", "gzip");
+        again.run("max-age=60", "Accept-Encoding", "other");
+        assertEquals(2, calls);
+        assertTrue(again.output().endsWith("gzip-body"));
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void testUncacheableResponsesAreNotStored() throws Exception {
+        new Exchange("GET", "/app/a").run("no-store", null, "a");
+        new Exchange("GET", "/app/a").run("no-store", null, "a");
+        new Exchange("GET", "/app/b").run(null, null, "b");
+        new Exchange("GET", "/app/b").run(null, null, "b");
+        Exchange cookie = new Exchange("GET", "/app/c");
+        cookie.response.addCookie(new Cookie("k", "v"));
+        cookie.run("max-age=60", null, "c");
+        new Exchange("GET", "/app/c").run("max-age=60", null, "c");
+        assertEquals(6, calls);
+
+        Exchange authorized = new Exchange("GET", "/app/c");
+        authorized.header(Const.Header.AUTHORIZATION, "Basic eA==");
+        authorized.run("max-age=60", null, "c");
+        assertEquals(7, calls, "requests with credentials bypass the cache");
+    }
+
+    @Test
+    public void testPathRuleAndPurge() throws Exception {
+        new Exchange("GET", "/static/app.js").run(null, null, "js");
+        new Exchange("GET", "/static/app.js").run(null, null, "js");
+        assertEquals(1, calls, "path rule applies when the response gives no freshness");
+
+        new Exchange("GET", "/app/page").run("max-age=60", null, "page");
+        assertEquals(2, cache.getEntryCount());
+        assertTrue(cache.getSize() > 0);
+        assertEquals(1, cache.purge("/static/"));
+        assertEquals(1, cache.getEntryCount());
+
+        Exchange noCache = new Exchange("GET", "/app/page");
+        noCache.header(Const.Header.CACHE_CONTROL, "no-cache");
+        noCache.run("max-age=60", null, "page2");
+        assertEquals(3, calls, "no-cache requests revalidate with the servlet");
+        assertTrue(new Exchange("GET", "/app/page").run("max-age=60", null, "x").output().endsWith("page2"));
+        assertEquals(1, cache.purge(null));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testSessionResponsesAreNotShared() throws Exception {
+        Exchange alice = new Exchange("GET", "/static/profile");
+        alice.header(Const.Header.COOKIE, "JSESSIONID=alice");
+        alice.run(null, null, "alice");
+        Exchange bob = new Exchange("GET", "/static/profile");
+        bob.header(Const.Header.COOKIE, "JSESSIONID=bob");
+        bob.run("max-age=60", null, "bob");
+        assertEquals(2, calls, "path rules and max-age do not apply to requests with cookies");
+        assertEquals(0, cache.getEntryCount());
+        assertTrue(new Exchange("GET", "/static/profile").run(null, null, "anonymous").output().endsWith("anonymous"));
+        assertEquals(3, calls);
+
+        Exchange shared = new Exchange("GET", "/app/logo");
+        shared.header(Const.Header.COOKIE, "JSESSIONID=alice");
+        shared.run("public, max-age=60", null, "logo");
+        Exchange other = new Exchange("GET", "/app/logo");
+        other.header(Const.Header.COOKIE, "JSESSIONID=bob");
+        other.run("public, max-age=60", null, "changed");
+        assertEquals(4, calls, "explicitly public responses are still shared");
+        assertTrue(other.output().endsWith("logo"));
+    }
+
+    @Test
+    public void testOversizedBodyIsNotStored() throws Exception {
+        cache.stop();
+        cache.setMaxEntrySize(4);
+        cache.start();
+        new Exchange("GET", "/app/big").run("max-age=60", null, "too large");
+        new Exchange("GET", "/app/big").run("max-age=60", null, "too large");
+        assertEquals(2, calls);
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    /**
+     * 一次经过缓存的请求与响应，下一个检查点以给定的响应头与响应体模拟servlet
+     */
+    private final class Exchange {
+        private final HttpRequest request = new HttpRequest();
+        private final HttpResponse response = new HttpResponse();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final Map<String, List<String>> headers = new HashMap<>();
+        // servlet 通过 Writer 而不是输出流写出响应体
+        private boolean writer = false;
+
+        Exchange(String method, String uri) {
+            request.setProtocol("HTTP/1.1");
+            request.setMethod(method);
+            request.setUri(uri);
+            request.setServerName("localhost");
+            request.setHeaders(headers);
+            request.setParameters(new HashMap<>());
+            request.setCookies(new ArrayList<>());
+            request.setResponse(response);
+            response.setRequest(request);
+            response.setStream(out);
+            response.setResponseStream(new HttpResponseStream(response));
+        }
+
+        void header(String name, String value) {
+            headers.put(name, List.of(value));
+        }
+
+        Exchange writer() {
+            writer = true;
+            // 允许分块时提前提交的响应会改用分块编码，便于发现
+            response.setAllowChunking(true);
+            return this;
+        }
+
+        Exchange run(String cacheControl, String vary, String body) throws Exception {
+            process(cacheControl, vary, body);
+            response.finishResponse();
+            return this;
+        }
+
+        void process(String cacheControl, String vary, String body) throws Exception {
+            CheckpointContext servlet = (req, resp) -> {
+                calls++;
+                if (cacheControl != null) resp.setHeader(Const.Header.CACHE_CONTROL, cacheControl);
+                if (vary != null) resp.setHeader(Const.Header.VARY, vary);
+                if (writer) resp.getWriter().write(body);
+                else resp.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+            };
+            cache.process(request, response, servlet);
+        }
+
+        String output() {
+            return out.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
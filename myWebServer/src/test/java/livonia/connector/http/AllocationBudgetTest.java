@@ -0,0 +1,385 @@
+package livonia.connector.http;
+
+import livonia.core.*;
+import livonia.listener.InnerContextListener;
+import livonia.log.BaseLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import javax.servlet.*;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每请求内存分配预算测试
+ * <p>
+ * 在回环地址上启动真实的 HttpConnector + HttpProcessor，通过同一个 keep-alive 连接反复发送请求，
+ * 用 {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} 统计处理线程上每个请求
+ * 平均分配的字节数，超过 allocation-budget.properties 中的预算即失败。
+ * 解析器、过滤器链或响应流的改动使分配上升时需要同时说明并更新预算。
+ */
+public class AllocationBudgetTest {
+
+    private static final Logger logger = BaseLogger.getLogger(AllocationBudgetTest.class);
+    private static final String BUDGET_FILE = "allocation-budget.properties";
+    private static final int WARMUP = 5000;
+    private static final int ITERATIONS = 2000;
+    private static final String CONTEXT = "/alloc";
+
+    private DefaultServer server;
+    private Path appBase;
+    private int port;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        appBase = Files.createTempDirectory("livonia-alloc");
+        Path webInf = Files.createDirectories(appBase.resolve("alloc/WEB-INF/classes")).getParent();
+        Files.writeString(webInf.resolve("web.xml"), webXml(), StandardCharsets.UTF_8);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        server = new DefaultServer();
+        DefaultService service = new DefaultService();
+        service.setName("allocService");
+        server.addService(service);
+        HttpConnector connector = new HttpConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(port);
+        service.addConnector(connector);
+        DefaultEngine engine = new DefaultEngine();
+        engine.setName("allocEngine");
+        engine.setDefaultHostName("localhost");
+        service.setVas(engine);
+        DefaultHost host = new DefaultHost();
+        host.setName("localhost");
+        host.setAppBase(appBase.toString());
+        host.setAutoDeploy(false);
+        engine.addChild(host);
+        DefaultContext context = new DefaultContext();
+        context.setPath(CONTEXT);
+        context.setBasePath("alloc");
+        context.addLifecycleListener(new InnerContextListener());
+        host.addChild(context);
+
+        server.initialize();
+        server.start();
+        assertTrue(context.getAvailable(), "context " + CONTEXT + " failed to start");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (server != null) server.stop();
+        if (appBase != null) {
+            try (Stream<Path> files = Files.walk(appBase)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testGetWithHeadersAndCookies() throws Exception {
+        byte[] request = ("GET " + CONTEXT + "/headers?q=livonia&page=2 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36\r\n" +
+                "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+                "Accept-Language: en-US,en;q=0.9\r\n" +
+                "Accept-Encoding: gzip, deflate\r\n" +
+                "Cookie: theme=dark; lang=en; tracking=a1b2c3d4e5\r\n" +
+                "Connection: keep-alive\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        assertWithinBudget("get.headers.cookies", request, false);
+    }
+
+    @Test
+    public void testPostForm() throws Exception {
+        String body = "name=livonia&email=dev%40example.com&age=42&city=Shanghai&remember=on";
+        byte[] request = ("POST " + CONTEXT + "/form HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: application/x-www-form-urlencoded\r\n" +
+                "Content-Length: " + body.length() + "\r\n" +
+                "Connection: keep-alive\r\n\r\n" + body).getBytes(StandardCharsets.ISO_8859_1);
+        assertWithinBudget("post.form", request, false);
+    }
+
+    @Test
+    public void testChunkedUpload() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("POST " + CONTEXT + "/upload HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Connection: keep-alive\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        byte[] chunk = new byte[1024];
+        for (int i = 0; i < 8; i++) {
+            out.writeBytes("400\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.writeBytes(chunk);
+            out.writeBytes("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        out.writeBytes("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertWithinBudget("upload.chunked", out.toByteArray(), false);
+    }
+
+    @Test
+    public void testChunkedResponse() throws Exception {
+        byte[] request = ("GET " + CONTEXT + "/chunked HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: keep-alive\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        assertWithinBudget("response.chunked", request, true);
+    }
+
+    //<editor-fold desc = "测量">
+    private void assertWithinBudget(String workload, byte[] request, boolean expectChunked) throws Exception {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(mx.isThreadAllocatedMemorySupported(), "thread allocated memory is not supported by this JVM");
+        mx.setThreadAllocatedMemoryEnabled(true);
+        long budget = loadBudget(workload);
+
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            ResponseReader reader = new ResponseReader(socket.getInputStream());
+            // 预热使解析与过滤链路径完成 JIT 编译，同一连接始终由同一个处理线程服务
+            for (int i = 0; i < WARMUP; i++) {
+                exchange(out, reader, request);
+            }
+            assertEquals(expectChunked, reader.chunked, workload + " : unexpected transfer encoding");
+            long processorThread = Servlets.processorThread;
+            long before = mx.getThreadAllocatedBytes(processorThread);
+            for (int i = 0; i < ITERATIONS; i++) {
+                exchange(out, reader, request);
+            }
+            long after = mx.getThreadAllocatedBytes(processorThread);
+            assertEquals(processorThread, Servlets.processorThread, "connection moved to another processor");
+            long perRequest = (after - before) / ITERATIONS;
+            logger.info("allocation [{}] {} B/request (budget {})", workload, perRequest, budget);
+            assertTrue(perRequest <= budget, workload + " allocates " + perRequest
+                    + " B/request on the processor thread, budget is " + budget);
+        }
+    }
+
+    private static void exchange(OutputStream out, ResponseReader reader, byte[] request) throws IOException {
+        out.write(request);
+        out.flush();
+        assertEquals(200, reader.read());
+        assertFalse(reader.close, "server closed the keep-alive connection");
+    }
+
+    private static long loadBudget(String workload) throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream(BUDGET_FILE)) {
+            assertNotNull(in, BUDGET_FILE + " not found on test classpath");
+            budgets.load(in);
+        }
+        String value = budgets.getProperty(workload);
+        assertNotNull(value, "no budget for workload " + workload);
+        return Long.parseLong(value.trim());
+    }
+
+    private static String webXml() {
+        return """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <web-app>
+                    <filter>
+                        <filter-name>PassFilter</filter-name>
+                        <filter-class>%s</filter-class>
+                    </filter>
+                    <filter-mapping>
+                        <filter-name>PassFilter</filter-name>
+                        <url-pattern>/*</url-pattern>
+                    </filter-mapping>
+                    %s
+                    %s
+                    %s
+                    %s
+                </web-app>
+                """.formatted(Servlets.PassFilter.class.getName(),
+                servlet("HeaderServlet", Servlets.HeaderServlet.class, "/headers"),
+                servlet("FormServlet", Servlets.FormServlet.class, "/form"),
+                servlet("UploadServlet", Servlets.UploadServlet.class, "/upload"),
+                servlet("ChunkedServlet", Servlets.ChunkedServlet.class, "/chunked"));
+    }
+
+    private static String servlet(String name, Class<?> type, String pattern) {
+        return "<servlet><servlet-name>" + name + "</servlet-name><servlet-class>" + type.getName()
+                + "</servlet-class></servlet>\n<servlet-mapping><servlet-name>" + name
+                + "</servlet-name><url-pattern>" + pattern + "</url-pattern></servlet-mapping>";
+    }
+    //</editor-fold>
+    //<editor-fold desc = "测试用 Servlet 与过滤器">
+
+    /**
+     * 由 web.xml 引用，经 WebAppClassLoader 委派给系统类加载器加载
+     */
+    public static final class Servlets {
+        // 最近一次处理请求的线程，用于定位处理线程
+        static volatile long processorThread;
+
+        private static final byte[] SMALL_BODY = "ok".getBytes(StandardCharsets.ISO_8859_1);
+
+        public static class PassFilter implements Filter {
+            @Override
+            public void init(FilterConfig filterConfig) {
+            }
+
+            @Override
+            public void destroy() {
+            }
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                    throws IOException, ServletException {
+                chain.doFilter(request, response);
+            }
+        }
+
+        public static class HeaderServlet extends HttpServlet {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                processorThread = Thread.currentThread().threadId();
+                int used = request.getHeader("User-Agent").length() + request.getParameter("q").length();
+                Cookie[] cookies = request.getCookies();
+                if (cookies != null) used += cookies.length;
+                if (used == 0) response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+                response.setContentType("text/plain");
+                response.setContentLength(SMALL_BODY.length);
+                response.getOutputStream().write(SMALL_BODY);
+            }
+        }
+
+        public static class FormServlet extends HttpServlet {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                processorThread = Thread.currentThread().threadId();
+                if (request.getParameter("name") == null || request.getParameter("email") == null) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+                    return;
+                }
+                response.setContentType("text/plain");
+                response.setContentLength(SMALL_BODY.length);
+                response.getOutputStream().write(SMALL_BODY);
+            }
+        }
+
+        public static class UploadServlet extends HttpServlet {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                processorThread = Thread.currentThread().threadId();
+                // 每个处理线程一个缓冲，不把测试自身的分配算进预算
+                byte[] buffer = BUFFER.get();
+                InputStream in = request.getInputStream();
+                while (in.read(buffer) != -1) {
+                }
+                response.setContentType("text/plain");
+                response.setContentLength(SMALL_BODY.length);
+                response.getOutputStream().write(SMALL_BODY);
+            }
+
+            private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+        }
+
+        public static class ChunkedServlet extends HttpServlet {
+            private static final byte[] BLOCK = new byte[1024];
+
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                processorThread = Thread.currentThread().threadId();
+                response.setContentType("application/octet-stream");
+                // 不设置 Content-Length，写出超过响应缓冲的数据后以分块编码发送
+                ServletOutputStream out = response.getOutputStream();
+                for (int i = 0; i < 32; i++) {
+                    out.write(BLOCK);
+                }
+            }
+        }
+    }
+
+    //</editor-fold>
+    //<editor-fold desc = "响应读取">
+
+    /**
+     * 读取并丢弃一个完整响应，跳过 1xx 临时响应
+     */
+    private static final class ResponseReader {
+        private final InputStream in;
+        private final byte[] skip = new byte[8192];
+        private final StringBuilder line = new StringBuilder();
+        boolean chunked;
+        boolean close;
+
+        ResponseReader(InputStream in) {
+            this.in = new BufferedInputStream(in, 16384);
+        }
+
+        int read() throws IOException {
+            int status;
+            do {
+                status = readHead();
+            } while (status / 100 == 1);
+            if (chunked) {
+                long size;
+                while ((size = Long.parseLong(readLine(), 16)) > 0) {
+                    skip(size);
+                    readLine();
+                }
+                while (!readLine().isEmpty()) {
+                }
+            }
+            return status;
+        }
+
+        private int readHead() throws IOException {
+            String statusLine = readLine();
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long contentLength = 0;
+            chunked = false;
+            close = false;
+            String header;
+            while (!(header = readLine()).isEmpty()) {
+                int colon = header.indexOf(':');
+                String name = header.substring(0, colon).trim();
+                String value = header.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) contentLength = Long.parseLong(value);
+                else if (name.equalsIgnoreCase("Transfer-Encoding")) chunked = value.equalsIgnoreCase("chunked");
+                else if (name.equalsIgnoreCase("Connection")) close = value.equalsIgnoreCase("close");
+            }
+            if (status / 100 != 1 && !chunked) skip(contentLength);
+            return status;
+        }
+
+        private void skip(long n) throws IOException {
+            while (n > 0) {
+                int read = in.read(skip, 0, (int) Math.min(n, skip.length));
+                if (read < 0) throw new EOFException();
+                n -= read;
+            }
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) throw new EOFException();
+                if (b != '\r') line.append((char) b);
+            }
+            return line.toString();
+        }
+    }
+    //</editor-fold>
+}
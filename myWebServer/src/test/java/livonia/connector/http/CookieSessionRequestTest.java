@@ -0,0 +1,118 @@
+package livonia.connector.http;
+
+import livonia.base.Const;
+import livonia.core.DefaultContext;
+import livonia.session.CookieSessionCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.Cookie;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 会话保存在Cookie中时，请求与响应之间的Cookie读写测试
+ */
+public class CookieSessionRequestTest {
+
+    private DefaultContext context;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        CookieSessionCodec[] holder = new CookieSessionCodec[1];
+        context = new DefaultContext() {
+            @Override
+            public CookieSessionCodec getSessionCodec() {
+                return holder[0];
+            }
+        };
+        context.setPath("/app");
+        holder[0] = new CookieSessionCodec(context, "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8), true);
+    }
+
+    @Test
+    public void testCookieWrittenOnlyWhenChanged() throws Exception {
+        Exchange first = new Exchange(null);
+        first.request.getSession().setAttribute("user", "alice");
+        String value = first.commit();
+        assertNotNull(value);
+        assertNull(context.getManager(), "no server side session state");
+
+        Exchange read = new Exchange(value);
+        assertEquals("alice", read.request.getSession(false).getAttribute("user"));
+        assertTrue(read.request.isRequestedSessionIdValid());
+        assertNull(read.commit(), "unchanged session must not be written");
+
+        Exchange untouched = new Exchange(value);
+        assertNull(untouched.commit());
+
+        Exchange write = new Exchange(value);
+        write.request.getSession(false).setAttribute("user", "bob");
+        String updated = write.commit();
+        assertNotNull(updated);
+        assertEquals("bob", new Exchange(updated).request.getSession(false).getAttribute("user"));
+    }
+
+    @Test
+    public void testEmptyNewSessionIsNotWritten() throws Exception {
+        Exchange exchange = new Exchange(null);
+        assertNotNull(exchange.request.getSession());
+        assertNull(exchange.commit());
+    }
+
+    @Test
+    public void testInvalidateDeletesCookie() throws Exception {
+        Exchange first = new Exchange(null);
+        first.request.getSession().setAttribute("user", "alice");
+        String value = first.commit();
+
+        Exchange second = new Exchange(value);
+        second.request.getSession(false).invalidate();
+        assertEquals("", second.commit());
+        assertTrue(second.headers().contains("Max-Age=0"));
+
+        Exchange tampered = new Exchange(value.substring(1));
+        assertNull(tampered.request.getSession(false));
+        assertEquals("", tampered.commit(), "a cookie that fails verification is cleared");
+    }
+
+    /**
+     * 一次请求与响应，响应头写入内存
+     */
+    private final class Exchange {
+        private final HttpRequest request = new HttpRequest();
+        private final HttpResponse response = new HttpResponse();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Exchange(String cookie) {
+            request.setProtocol("HTTP/1.1");
+            request.setContext(context);
+            request.setContextPath("/app");
+            request.setResponse(response);
+            response.setRequest(request);
+            response.setStream(out);
+            ArrayList<Cookie> cookies = new ArrayList<>();
+            if (cookie != null) cookies.add(new Cookie(Const.Header.SESSION_STATE, cookie));
+            request.setCookies(cookies);
+        }
+
+        /**
+         * @return 响应中会话Cookie的值，没有写出时返回null
+         */
+        String commit() throws Exception {
+            response.sendHeaders();
+            String prefix = Const.Header.SET_COOKIE + ": " + Const.Header.SESSION_STATE + "=";
+            for (String line : headers().split("\r\n")) {
+                if (line.startsWith(prefix)) return line.substring(prefix.length(), line.indexOf(';'));
+            }
+            return null;
+        }
+
+        String headers() {
+            return out.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package livonia.core;
+
+import livonia.connector.http.HttpConnector;
+import livonia.connector.http.HttpRequest;
+import livonia.connector.http.HttpResponse;
+import livonia.connector.http.HttpResponseStream;
+import livonia.listener.InnerContextListener;
+import livonia.session.StandardSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Context 蓝绿重载测试
+ */
+public class ContextReloadTest {
+
+    private static final String CONTEXT = "/reload";
+
+    private DefaultServer server;
+    private DefaultHost host;
+    private Path appBase;
+    private int port;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        appBase = Files.createTempDirectory("livonia-reload");
+        Path webInf = Files.createDirectories(appBase.resolve("reload/WEB-INF/classes")).getParent();
+        Files.writeString(webInf.resolve("web.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <web-app>
+                    <servlet>
+                        <servlet-name>Hello</servlet-name>
+                        <servlet-class>%s</servlet-class>
+                    </servlet>
+                    <servlet-mapping>
+                        <servlet-name>Hello</servlet-name>
+                        <url-pattern>/hello</url-pattern>
+                    </servlet-mapping>
+                </web-app>
+                """.formatted(HelloServlet.class.getName()), StandardCharsets.UTF_8);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        server = new DefaultServer();
+        DefaultService service = new DefaultService();
+        service.setName("reloadService");
+        server.addService(service);
+        HttpConnector connector = new HttpConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(port);
+        service.addConnector(connector);
+        DefaultEngine engine = new DefaultEngine();
+        engine.setName("reloadEngine");
+        engine.setDefaultHostName("localhost");
+        service.setVas(engine);
+        host = new DefaultHost();
+        host.setName("localhost");
+        host.setAppBase(appBase.toString());
+        host.setAutoDeploy(false);
+        engine.addChild(host);
+        DefaultContext context = new DefaultContext();
+        context.setPath(CONTEXT);
+        context.setBasePath("reload");
+        context.addLifecycleListener(new InnerContextListener());
+        host.addChild(context);
+
+        server.initialize();
+        server.start();
+        assertTrue(context.getAvailable(), "context " + CONTEXT + " failed to start");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (server != null) server.stop();
+        if (appBase != null) {
+            try (Stream<Path> files = Files.walk(appBase)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testReloadSwapsInWarmContext() throws Exception {
+        DefaultContext old = (DefaultContext) host.findChild(CONTEXT);
+        assertEquals(200, get());
+
+        old.reload();
+
+        DefaultContext fresh = (DefaultContext) host.findChild(CONTEXT);
+        assertNotSame(old, fresh);
+        assertTrue(fresh.getAvailable());
+        assertFalse(old.getAvailable());
+        assertNull(old.getParent());
+        assertSame(fresh, host.map(CONTEXT + "/hello"));
+        assertTrue(((DefaultEndpoint) fresh.findChild("Hello")).isLoaded(), "servlet should be warmed up");
+        assertEquals(200, get());
+    }
+
+    @Test
+    public void testSessionsSurviveReload() throws Exception {
+        DefaultContext old = (DefaultContext) host.findChild(CONTEXT);
+        StandardSession session = old.getManager().createSession();
+        session.setAttribute("user", "alice");
+
+        old.reload();
+
+        DefaultContext fresh = (DefaultContext) host.findChild(CONTEXT);
+        StandardSession migrated = fresh.getManager().findSession(session.getId());
+        assertNotNull(migrated, "session should be migrated to the new context");
+        assertEquals("alice", migrated.getAttribute("user"));
+        assertEquals(0, old.getManager().getActiveSessions());
+    }
+
+    @Test
+    public void testRequestsAreServedDuringReload() throws Exception {
+        assertEquals(200, get());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger served = new AtomicInteger();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        Thread client = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    int status = get();
+                    if (status == 200) served.incrementAndGet();
+                    else failures.add("status " + status);
+                } catch (IOException e) {
+                    failures.add(e.toString());
+                }
+            }
+        });
+        client.start();
+        try {
+            for (int i = 0; i < 3; i++) {
+                ((DefaultContext) host.findChild(CONTEXT)).reload();
+            }
+        } finally {
+            running.set(false);
+            client.join();
+        }
+        assertTrue(failures.isEmpty(), "requests failed during reload : " + failures);
+        assertTrue(served.get() > 0);
+    }
+
+    @Test
+    public void testClassChangeTriggersReload() throws Exception {
+        DefaultContext old = (DefaultContext) host.findChild(CONTEXT);
+        Path pkg = Files.createDirectories(appBase.resolve("reload/WEB-INF/classes/demo"));
+        Files.write(pkg.resolve("Changed.class"), new byte[]{(byte) 0xCA, (byte) 0xFE});
+        // 远小于10秒的轮询周期，只能由文件系统通知触发
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (host.findChild(CONTEXT) == old && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertNotSame(old, host.findChild(CONTEXT));
+        assertEquals(200, get());
+    }
+
+    @Test
+    public void testFailedReloadKeepsWatchingForChanges() throws Exception {
+        DefaultContext old = (DefaultContext) host.findChild(CONTEXT);
+        Path webXml = appBase.resolve("reload/WEB-INF/web.xml");
+        String valid = Files.readString(webXml, StandardCharsets.UTF_8);
+        Files.writeString(webXml, "<web-app><servlet>", StandardCharsets.UTF_8);
+        Path pkg = Files.createDirectories(appBase.resolve("reload/WEB-INF/classes/demo"));
+        Files.write(pkg.resolve("First.class"), new byte[]{(byte) 0xCA, (byte) 0xFE});
+        // 等待失败的重载结束：去抖之后替换实例启动失败，旧实例继续服务
+        Thread.sleep(2_000);
+        assertSame(old, host.findChild(CONTEXT), "a replacement that failed to start must not be swapped in");
+        assertEquals(200, get());
+
+        Files.writeString(webXml, valid, StandardCharsets.UTF_8);
+        Files.write(pkg.resolve("Second.class"), new byte[]{(byte) 0xCA, (byte) 0xFE});
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (host.findChild(CONTEXT) == old && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertNotSame(old, host.findChild(CONTEXT), "changes after a failed reload must still be detected");
+        assertEquals(200, get());
+    }
+
+    @Test
+    public void testForwardedRequestUsesNewContextClassLoader() throws Exception {
+        DefaultContext old = (DefaultContext) host.findChild(CONTEXT);
+        ClassLoader oldLoader = old.getLoader().getClassLoader();
+        old.reload();
+        DefaultContext fresh = (DefaultContext) host.findChild(CONTEXT);
+        ClassLoader freshLoader = fresh.getLoader().getClassLoader();
+        assertNotSame(oldLoader, freshLoader);
+
+        // 模拟交换前已由 HostCheckpoint 路由到旧实例、并绑定了旧类加载器的请求
+        HttpRequest request = new HttpRequest();
+        HttpResponse response = new HttpResponse();
+        request.setProtocol("HTTP/1.1");
+        request.setMethod("GET");
+        request.setUri(CONTEXT + "/hello");
+        request.setContextPath(CONTEXT);
+        request.setServerName("localhost");
+        request.setHeaders(new HashMap<>());
+        request.setParameters(new HashMap<>());
+        request.setCookies(new ArrayList<>());
+        request.setResponse(response);
+        response.setRequest(request);
+        response.setStream(new ByteArrayOutputStream());
+        response.setResponseStream(new HttpResponseStream(response));
+        Thread current = Thread.currentThread();
+        ClassLoader previous = current.getContextClassLoader();
+        current.setContextClassLoader(oldLoader);
+        HelloServlet.contextLoader = null;
+        try {
+            old.process(request, response);
+            assertSame(oldLoader, current.getContextClassLoader(), "the caller's loader must be restored");
+        } finally {
+            current.setContextClassLoader(previous);
+        }
+        assertSame(freshLoader, HelloServlet.contextLoader, "a forwarded request must run under the new context's loader");
+    }
+
+    private int get() throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + CONTEXT + "/hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            // 跳过 100 Continue 等中间响应
+            int status;
+            do {
+                String statusLine = reader.readLine();
+                while (statusLine != null && statusLine.isEmpty()) statusLine = reader.readLine();
+                if (statusLine == null) throw new IOException("no response");
+                status = Integer.parseInt(statusLine.split(" ")[1]);
+                if (status / 100 == 1) {
+                    while (!reader.readLine().isEmpty()) {
+                    }
+                }
+            } while (status / 100 == 1);
+            return status;
+        }
+    }
+
+    public static class HelloServlet extends HttpServlet {
+        // 最近一次处理请求时的线程上下文类加载器
+        static volatile ClassLoader contextLoader;
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            contextLoader = Thread.currentThread().getContextClassLoader();
+            resp.setContentType("text/plain");
+            resp.getWriter().write("hello");
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package livonia.core;
+
+import livonia.base.Context;
+import livonia.base.Loader;
+import livonia.base.Vas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.GenericServlet;
+import javax.servlet.Servlet;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.SingleThreadModel;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * servlet 分配计数与实例池测试
+ */
+public class DefaultEndpointTest {
+
+    private DefaultEndpoint endpoint;
+
+    @BeforeEach
+    public void setUp() {
+        endpoint = new DefaultEndpoint();
+        endpoint.setName("test");
+        endpoint.setLoader(new TestLoader());
+        SharedServlet.destroyed.set(0);
+    }
+
+    @Test
+    public void testThreadSafeServletIsShared() throws Exception {
+        endpoint.setServletClass(SharedServlet.class.getName());
+        Servlet first = endpoint.salloc();
+        Servlet second = endpoint.salloc();
+        assertSame(first, second);
+        assertFalse(endpoint.isSingleThreadModel());
+        assertEquals(2, endpoint.getCount());
+        endpoint.sfree(first);
+        endpoint.sfree(second);
+        assertEquals(0, endpoint.getCount());
+    }
+
+    @Test
+    public void testSingleThreadModelUsesBoundedPool() throws Exception {
+        endpoint.setServletClass(PooledServlet.class.getName());
+        endpoint.setMaxInstances(2);
+        Servlet first = endpoint.salloc();
+        Servlet second = endpoint.salloc();
+        assertTrue(endpoint.isSingleThreadModel());
+        assertNotSame(first, second);
+
+        CompletableFuture<Servlet> third = CompletableFuture.supplyAsync(this::allocate);
+        Thread.sleep(100);
+        assertFalse(third.isDone());
+        endpoint.sfree(first);
+        assertSame(first, third.get(5, TimeUnit.SECONDS));
+        endpoint.sfree(second);
+        endpoint.sfree(first);
+        assertEquals(0, endpoint.getCount());
+    }
+
+    @Test
+    public void testNonThreadSafeFlagUsesPool() throws Exception {
+        endpoint.setServletClass(SharedServlet.class.getName());
+        endpoint.setThreadSafe(false);
+        Servlet first = endpoint.salloc();
+        Servlet second = endpoint.salloc();
+        assertNotSame(first, second);
+        endpoint.sfree(first);
+        endpoint.sfree(second);
+        endpoint.unload();
+        assertEquals(2, SharedServlet.destroyed.get());
+    }
+
+    @Test
+    public void testUnloadWaitsForInFlightRequests() throws Exception {
+        endpoint.setServletClass(SharedServlet.class.getName());
+        Servlet servlet = endpoint.salloc();
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            assertEquals(0, SharedServlet.destroyed.get());
+            endpoint.sfree(servlet);
+        });
+        long start = System.nanoTime();
+        endpoint.unload();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(0, endpoint.getCount());
+        assertEquals(1, SharedServlet.destroyed.get());
+        assertTrue(elapsed < 900, "unload should return once the request is freed : " + elapsed + "ms");
+    }
+
+    @Test
+    public void testLateReturnAfterUnloadIsDestroyed() throws Exception {
+        endpoint.setServletClass(SharedServlet.class.getName());
+        endpoint.setThreadSafe(false);
+        Servlet idle = endpoint.salloc();
+        Servlet late = endpoint.salloc();
+        endpoint.sfree(idle);
+        // 借出的实例未在等待时限内归还
+        endpoint.unload();
+        assertEquals(1, SharedServlet.destroyed.get(), "only the idle instance is destroyed while the other is in use");
+
+        Servlet fresh = endpoint.salloc();
+        endpoint.sfree(late);
+        assertEquals(2, SharedServlet.destroyed.get(), "an instance of a retired pool is destroyed when returned");
+        Servlet next = endpoint.salloc();
+        assertNotSame(late, next, "an instance of a retired pool must not enter the new pool");
+        assertNotSame(late, fresh);
+        endpoint.sfree(fresh);
+        endpoint.sfree(next);
+        assertEquals(0, endpoint.getCount());
+    }
+
+    private Servlet allocate() {
+        try {
+            return endpoint.salloc();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class SharedServlet extends GenericServlet {
+        static final AtomicInteger destroyed = new AtomicInteger();
+
+        @Override
+        public void service(ServletRequest req, ServletResponse res) {
+        }
+
+        @Override
+        public void destroy() {
+            destroyed.incrementAndGet();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    public static class PooledServlet extends GenericServlet implements SingleThreadModel {
+        @Override
+        public void service(ServletRequest req, ServletResponse res) {
+        }
+    }
+
+    private static class TestLoader implements Loader {
+        private Vas vas;
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return DefaultEndpointTest.class.getClassLoader();
+        }
+
+        @Override
+        public Vas getVas() {
+            return vas;
+        }
+
+        @Override
+        public void setVas(Vas vas) {
+            this.vas = vas;
+        }
+
+        @Override
+        public Context getContext() {
+            return null;
+        }
+
+        @Override
+        public void setContext(Context context) {
+        }
+
+        @Override
+        public boolean getDelegate() {
+            return false;
+        }
+
+        @Override
+        public void setDelegate(boolean delegate) {
+        }
+
+        @Override
+        public boolean getReloadable() {
+            return false;
+        }
+
+        @Override
+        public void setReloadable(boolean reloadable) {
+        }
+
+        @Override
+        public boolean modified() {
+            return false;
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+        }
+    }
+}
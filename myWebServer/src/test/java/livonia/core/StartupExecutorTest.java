@@ -0,0 +1,107 @@
+package livonia.core;
+
+import livonia.lifecycle.Lifecycle;
+import livonia.lifecycle.LifecycleException;
+import livonia.lifecycle.LifecycleListener;
+import livonia.metrics.StartupReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并行启动与启动报告测试
+ */
+public class StartupExecutorTest {
+
+    @Test
+    public void testSiblingsStartConcurrently() throws Exception {
+        List<SlowComponent> components = new ArrayList<>();
+        for (int i = 0; i < 2; i++) components.add(new SlowComponent("c" + i, 300, false));
+        long start = System.nanoTime();
+        StartupExecutor.startAll(components, SlowComponent::toString);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        for (SlowComponent component : components) assertTrue(component.started);
+        assertTrue(elapsed < 550, "siblings should start in parallel : " + elapsed + "ms");
+    }
+
+    @Test
+    public void testFailuresAreAggregated() {
+        List<SlowComponent> components = List.of(
+                new SlowComponent("ok", 10, false),
+                new SlowComponent("bad1", 10, true),
+                new SlowComponent("bad2", 10, true));
+        LifecycleException e = assertThrows(LifecycleException.class,
+                () -> StartupExecutor.startAll(components, SlowComponent::toString));
+        assertTrue(components.get(0).started);
+        assertEquals(2, e.getSuppressed().length);
+        assertTrue(e.getMessage().contains("bad1") && e.getMessage().contains("bad2"), e.getMessage());
+    }
+
+    @Test
+    public void testReportRecordsContainerPhases() throws Exception {
+        DefaultEngine engine = new DefaultEngine();
+        engine.setName("reportEngine");
+        DefaultHost host = new DefaultHost();
+        host.setName("reportHost");
+        engine.addChild(host);
+        engine.start();
+        try {
+            StartupReport report = StartupReport.getDefault();
+            assertTrue(report.elapsed("reportEngine", StartupReport.TOTAL) >= 0);
+            assertTrue(report.elapsed("reportEngine", "children") >= 0);
+            assertTrue(report.elapsed("reportEngine/reportHost", StartupReport.TOTAL) >= 0);
+            assertTrue(report.format().contains("reportEngine/reportHost"));
+        } finally {
+            engine.stop();
+        }
+    }
+
+    private static final class SlowComponent implements Lifecycle {
+        private final String name;
+        private final long millis;
+        private final boolean fail;
+        volatile boolean started;
+
+        SlowComponent(String name, long millis, boolean fail) {
+            this.name = name;
+            this.millis = millis;
+            this.fail = fail;
+        }
+
+        @Override
+        public void start() throws LifecycleException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ignored) {
+            }
+            if (fail) throw new LifecycleException(name + " failed");
+            started = true;
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void addLifecycleListener(LifecycleListener listener) {
+        }
+
+        @Override
+        public void removeLifecycleListener(LifecycleListener listener) {
+        }
+
+        @Override
+        public LifecycleListener[] findLifecycleListener() {
+            return new LifecycleListener[0];
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
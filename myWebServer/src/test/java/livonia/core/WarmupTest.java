@@ -0,0 +1,156 @@
+package livonia.core;
+
+import livonia.connector.http.HttpConnector;
+import livonia.listener.InnerContextListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 启动预热测试
+ */
+public class WarmupTest {
+
+    private DefaultServer server;
+    private DefaultService service;
+    private Path appBase;
+    private boolean started;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        CountingServlet.served.set(0);
+        appBase = Files.createTempDirectory("livonia-warmup");
+        Path webInf = Files.createDirectories(appBase.resolve("warm/WEB-INF/classes")).getParent();
+        Files.writeString(webInf.resolve("web.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <web-app>
+                    <servlet>
+                        <servlet-name>Counting</servlet-name>
+                        <servlet-class>%s</servlet-class>
+                        <load-on-startup>1</load-on-startup>
+                    </servlet>
+                    <servlet-mapping>
+                        <servlet-name>Counting</servlet-name>
+                        <url-pattern>/count</url-pattern>
+                    </servlet-mapping>
+                </web-app>
+                """.formatted(CountingServlet.class.getName()), StandardCharsets.UTF_8);
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        server = new DefaultServer();
+        service = new DefaultService();
+        service.setName("warmupService");
+        server.addService(service);
+        HttpConnector connector = new HttpConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(port);
+        service.addConnector(connector);
+        DefaultEngine engine = new DefaultEngine();
+        engine.setName("warmupEngine");
+        engine.setDefaultHostName("localhost");
+        service.setVas(engine);
+        DefaultHost host = new DefaultHost();
+        host.setName("localhost");
+        host.setAppBase(appBase.toString());
+        host.setAutoDeploy(false);
+        engine.addChild(host);
+        DefaultContext context = new DefaultContext();
+        context.setPath("/warm");
+        context.setBasePath("warm");
+        context.addLifecycleListener(new InnerContextListener());
+        host.addChild(context);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (started) server.stop();
+        try (Stream<Path> files = Files.walk(appBase)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testLoadOnStartupWithoutWarmup() throws Exception {
+        startServer();
+        DefaultEndpoint endpoint = (DefaultEndpoint) service.getVas().findChild("localhost")
+                .findChild("/warm").findChild("Counting");
+        assertTrue(endpoint.isLoaded(), "load-on-startup servlet should be loaded with the context");
+        assertEquals(0, CountingServlet.served.get());
+    }
+
+    @Test
+    public void testReplaysConfiguredRequestsBeforeAccepting() throws Exception {
+        service.setWarmup(true);
+        service.setWarmupRequests("GET /warm/count");
+        service.setWarmupMaxRounds(5);
+        startServer();
+        int served = CountingServlet.served.get();
+        assertTrue(served >= 1 && served <= 5, "served during warmup : " + served);
+    }
+
+    @Test
+    public void testWarmupWithoutRequestsOnlyPreloadsClasses() throws Exception {
+        service.setWarmup(true);
+        service.setWarmupMaxRounds(5);
+        startServer();
+        assertEquals(0, CountingServlet.served.get(), "servlets must not be called without configured requests");
+    }
+
+    @Test
+    public void testParseRequests() {
+        List<Warmup.Sample> samples = Warmup.parse("""
+                # comment
+                GET /warm/count
+                POST /warm/count demo.local; GET /x
+                """);
+        assertEquals(3, samples.size());
+        assertEquals(new Warmup.Sample("POST", "/warm/count", "demo.local"), samples.get(1));
+        assertNull(samples.get(2).host());
+    }
+
+    private void startServer() throws Exception {
+        server.initialize();
+        server.start();
+        started = true;
+    }
+
+    @Test
+    public void testReplayRestoresContextClassLoader() throws Exception {
+        service.setWarmup(true);
+        service.setWarmupRequests("GET /warm/count");
+        service.setWarmupMaxRounds(2);
+        ClassLoader before = Thread.currentThread().getContextClassLoader();
+        startServer();
+        assertSame(before, Thread.currentThread().getContextClassLoader(),
+                "warmup must not leave the webapp loader on the startup thread");
+    }
+
+    public static class CountingServlet extends HttpServlet {
+        static final AtomicInteger served = new AtomicInteger();
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            served.incrementAndGet();
+            resp.setContentType("text/plain");
+            resp.getWriter().write("ok");
+        }
+    }
+}
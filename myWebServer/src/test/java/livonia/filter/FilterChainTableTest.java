@@ -0,0 +1,99 @@
+package livonia.filter;
+
+import livonia.base.Vas;
+import livonia.core.DefaultContext;
+import livonia.core.DefaultEndpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.FilterConfig;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 过滤链表测试
+ */
+public class FilterChainTableTest {
+
+    private final Map<String, FilterConfig> configs = new HashMap<>();
+    private final List<FilterMap> filterMaps = new ArrayList<>();
+    private Vas[] endpoints;
+
+    @BeforeEach
+    public void setUp() {
+        DefaultEndpoint hello = new DefaultEndpoint();
+        hello.setName("Hello");
+        DefaultEndpoint upload = new DefaultEndpoint();
+        upload.setName("Upload");
+        endpoints = new Vas[]{hello, upload};
+        map("Audit", null, "Upload");
+        map("Logging", "/*", null);
+        map("Auth", "/api/*", null);
+        map("Jsp", "*.jsp", null);
+        map("Exact", "/hello", null);
+        map("Missing", "/*", null);
+        configs.remove("Missing");
+    }
+
+    @Test
+    public void testUrlFiltersBeforeServletFilters() {
+        FilterChainTable table = compile();
+        assertChain(table.resolve("Upload", "/app/upload", 4), "Logging", "Audit");
+        assertChain(table.resolve("Hello", "/app/hello", 4), "Logging", "Exact");
+        assertChain(table.resolve("Hello", "/app/api/x/index.jsp", 4), "Logging", "Auth", "Jsp");
+    }
+
+    @Test
+    public void testPrefixRespectsSegmentBoundary() {
+        FilterChainTable table = compile();
+        assertChain(table.resolve("Hello", "/app/api", 4), "Logging", "Auth");
+        assertChain(table.resolve("Hello", "/app/apix", 4), "Logging");
+    }
+
+    @Test
+    public void testExtensionOnlyInLastSegment() {
+        FilterChainTable table = compile();
+        assertChain(table.resolve("Hello", "/app/view.jsp/show", 4), "Logging");
+        assertChain(table.resolve("Hello", "/app/a%2Eb/x.jsp", 4), "Logging", "Jsp");
+    }
+
+    @Test
+    public void testSamePathClassSharesChain() {
+        FilterChainTable table = compile();
+        assertSame(table.resolve("Hello", "/app/api/a", 4), table.resolve("Hello", "/app/api/b/c", 4));
+    }
+
+    @Test
+    public void testPathIndependentChain() {
+        filterMaps.removeIf(filterMap -> filterMap.getUrlPattern() != null
+                && !filterMap.getUrlPattern().equals("/*"));
+        FilterChainTable table = compile();
+        assertChain(table.resolve("Upload", "/app/anything.jsp", 4), "Logging", "Audit");
+        assertEquals(0, table.resolve("Unknown", "/app/x", 4).length);
+    }
+
+    private FilterChainTable compile() {
+        return FilterChainTable.compile(filterMaps.toArray(new FilterMap[0]), configs::get, endpoints);
+    }
+
+    private void map(String name, String urlPattern, String servletName) {
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName(name);
+        configs.put(name, new ApplicationFilterConfig(new DefaultContext(), filterDef));
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName(name);
+        if (urlPattern != null) filterMap.setUrlPattern(urlPattern);
+        if (servletName != null) filterMap.setServletName(servletName);
+        filterMaps.add(filterMap);
+    }
+
+    private static void assertChain(ApplicationFilterConfig[] chain, String... names) {
+        String[] actual = new String[chain.length];
+        for (int i = 0; i < chain.length; i++) actual[i] = chain[i].getFilterName();
+        assertArrayEquals(names, actual);
+    }
+}
@@ -0,0 +1,195 @@
+package livonia.jmx;
+
+import livonia.connector.http.HttpConnector;
+import livonia.core.*;
+import livonia.listener.InnerContextListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MBean 随生命周期注册与注销的测试
+ */
+public class MBeanLifecycleListenerTest {
+
+    private static final String CONTEXT = "/jmx";
+
+    private MBeanServer mBeanServer;
+    private DefaultServer server;
+    private DefaultHost host;
+    private Path appBase;
+    private int port;
+    private boolean started;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        appBase = Files.createTempDirectory("livonia-jmx");
+        Path webInf = Files.createDirectories(appBase.resolve("jmx/WEB-INF/classes")).getParent();
+        Files.writeString(webInf.resolve("web.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <web-app>
+                    <servlet>
+                        <servlet-name>Hello</servlet-name>
+                        <servlet-class>%s</servlet-class>
+                    </servlet>
+                    <servlet-mapping>
+                        <servlet-name>Hello</servlet-name>
+                        <url-pattern>/hello</url-pattern>
+                    </servlet-mapping>
+                </web-app>
+                """.formatted(HelloServlet.class.getName()), StandardCharsets.UTF_8);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        server = new DefaultServer();
+        DefaultService service = new DefaultService();
+        service.setName("jmxService");
+        server.addService(service);
+        HttpConnector connector = new HttpConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(port);
+        service.addConnector(connector);
+        DefaultEngine engine = new DefaultEngine();
+        engine.setName("jmxEngine");
+        engine.setDefaultHostName("localhost");
+        service.setVas(engine);
+        host = new DefaultHost();
+        host.setName("localhost");
+        host.setAppBase(appBase.toString());
+        host.setAutoDeploy(false);
+        engine.addChild(host);
+        DefaultContext context = new DefaultContext();
+        context.setPath(CONTEXT);
+        context.setBasePath("jmx");
+        context.addLifecycleListener(new InnerContextListener());
+        host.addChild(context);
+
+        // 独立的 MBeanServer，不与平台 MBeanServer 上的其他测试互相影响
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        server.addLifecycleListener(new MBeanLifecycleListener(mBeanServer));
+        server.initialize();
+        server.start();
+        started = true;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (started) server.stop();
+        try (Stream<Path> files = Files.walk(appBase)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRegisteredOnStartAndUnregisteredOnStop() throws Exception {
+        Set<ObjectName> names = mBeanServer.queryNames(new ObjectName(MBeans.DOMAIN + ":*"), null);
+        for (String name : new String[]{
+                "type=Server",
+                "type=Service,name=jmxService",
+                "type=Connector,port=" + port,
+                "type=Engine,name=jmxEngine",
+                "type=Host,host=localhost",
+                "type=Context,host=localhost,path=" + CONTEXT,
+                "type=Endpoint,host=localhost,context=" + CONTEXT + ",name=Hello",
+                "type=Loader,host=localhost,context=" + CONTEXT}) {
+            assertTrue(names.contains(new ObjectName(MBeans.DOMAIN + ":" + name)), name + " in " + names);
+        }
+        assertEquals(CONTEXT, mBeanServer.getAttribute(contextName(), "Path"));
+
+        server.stop();
+        started = false;
+        assertTrue(mBeanServer.queryNames(new ObjectName(MBeans.DOMAIN + ":*"), null).isEmpty());
+    }
+
+    @Test
+    public void testReloadedContextKeepsItsMBean() throws Exception {
+        DefaultContext old = (DefaultContext) host.findChild(CONTEXT);
+        mBeanServer.invoke(contextName(), "reload", null, null);
+
+        DefaultContext fresh = (DefaultContext) host.findChild(CONTEXT);
+        assertNotSame(old, fresh);
+        assertFalse(old.getAvailable());
+        // 旧实例停止时名称已被新实例接管，不应注销
+        assertTrue(mBeanServer.isRegistered(contextName()));
+        fresh.setPaused(true);
+        try {
+            assertEquals(Boolean.TRUE, mBeanServer.getAttribute(contextName(), "Paused"), "MBean must wrap the new context");
+        } finally {
+            fresh.setPaused(false);
+        }
+
+        server.stop();
+        started = false;
+        assertFalse(mBeanServer.isRegistered(contextName()));
+    }
+
+    @Test
+    public void testPauseAnswersServiceUnavailable() throws Exception {
+        assertEquals(200, get());
+        mBeanServer.invoke(contextName(), "pause", null, null);
+        assertEquals(Boolean.TRUE, mBeanServer.getAttribute(contextName(), "Paused"));
+        assertEquals(503, get());
+
+        mBeanServer.invoke(contextName(), "resume", null, null);
+        assertEquals(200, get());
+    }
+
+    private static ObjectName contextName() throws Exception {
+        return new ObjectName(MBeans.DOMAIN + ":type=Context,host=localhost,path=" + CONTEXT);
+    }
+
+    private int get() throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + CONTEXT + "/hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            // 跳过 100 Continue 等中间响应
+            int status;
+            do {
+                String statusLine = reader.readLine();
+                while (statusLine != null && statusLine.isEmpty()) statusLine = reader.readLine();
+                if (statusLine == null) throw new IOException("no response");
+                status = Integer.parseInt(statusLine.split(" ")[1]);
+                if (status / 100 == 1) {
+                    while (!reader.readLine().isEmpty()) {
+                    }
+                }
+            } while (status / 100 == 1);
+            return status;
+        }
+    }
+
+    public static class HelloServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setContentType("text/plain");
+            resp.getWriter().write("hello");
+        }
+    }
+}
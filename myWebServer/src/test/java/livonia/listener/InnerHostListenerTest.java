@@ -0,0 +1,81 @@
+package livonia.listener;
+
+import livonia.core.DefaultHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Host 自动部署测试
+ */
+public class InnerHostListenerTest {
+
+    private DefaultHost host;
+    private Path appBase;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        appBase = Files.createTempDirectory("livonia-deploy");
+        for (int i = 0; i < 4; i++) createApp("app" + i);
+        host = new DefaultHost();
+        host.setName("localhost");
+        host.setAppBase(appBase.toString());
+        host.addLifecycleListener(new InnerHostListener());
+        host.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (host != null) host.stop();
+        try (Stream<Path> files = Files.walk(appBase)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testDeploysExistingAppsOnStart() {
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(host.findChild("/app" + i), "app" + i + " should be deployed");
+        }
+    }
+
+    @Test
+    public void testDeploysAndUndeploysOnDirectoryEvents() throws Exception {
+        createApp("added");
+        // 远小于10秒的扫描周期，只能由文件系统通知触发
+        await(() -> host.findChild("/added") != null);
+
+        try (Stream<Path> files = Files.walk(appBase.resolve("app0"))) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+        await(() -> host.findChild("/app0") == null);
+        assertNotNull(host.findChild("/app1"));
+    }
+
+    private void createApp(String name) throws IOException {
+        Path webInf = Files.createDirectories(appBase.resolve(name).resolve("WEB-INF"));
+        Files.writeString(webInf.resolve("web.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <web-app>
+                </web-app>
+                """, StandardCharsets.UTF_8);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
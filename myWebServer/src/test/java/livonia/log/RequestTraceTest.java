@@ -0,0 +1,27 @@
+package livonia.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求追踪中凭据的隐藏测试
+ */
+public class RequestTraceTest {
+
+    @Test
+    public void testCredentialsAreRedacted() {
+        assertEquals("Authorization = [redacted]", RequestTrace.describe("Authorization", List.of("Basic eA==")));
+        assertEquals("cookie = [redacted]", RequestTrace.describe("cookie", List.of("JSESSIONID=abc")));
+        assertEquals("Accept = [text/html]", RequestTrace.describe("Accept", List.of("text/html")));
+    }
+
+    @Test
+    public void testSessionIdIsShortened() {
+        assertEquals("A1B2...", RequestTrace.redactId("A1B2C3D4E5F6"));
+        assertEquals("[redacted]", RequestTrace.redactId("abc"));
+        assertNull(RequestTrace.redactId(null));
+    }
+}
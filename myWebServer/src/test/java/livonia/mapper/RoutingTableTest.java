@@ -0,0 +1,92 @@
+package livonia.mapper;
+
+import livonia.core.DefaultContext;
+import livonia.core.DefaultEngine;
+import livonia.core.DefaultHost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Engine → Host → Context 路由快照测试
+ */
+public class RoutingTableTest {
+
+    private DefaultEngine engine;
+    private DefaultHost localhost;
+    private DefaultHost example;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new DefaultEngine();
+        engine.setName("engine");
+        localhost = host("localhost");
+        example = host("example.com");
+        engine.addChild(localhost);
+        engine.addChild(example);
+        localhost.addChild(context(""));
+        localhost.addChild(context("/app1"));
+        localhost.addChild(context("/shop/admin"));
+    }
+
+    @Test
+    public void testHostNameIsCaseInsensitive() {
+        assertSame(localhost, engine.getHostRoutingTable().find("LocalHost"));
+        assertNull(engine.getHostRoutingTable().find("unknown.org"));
+    }
+
+    @Test
+    public void testAliasAndWildcard() {
+        example.addAlias("WWW.example.com");
+        example.addAlias("*.example.org");
+        HostRoutingTable table = engine.getHostRoutingTable();
+        assertSame(example, table.find("www.example.com"));
+        assertSame(example, table.find("a.b.example.org"));
+        assertNull(table.find("example.org"));
+
+        example.removeAlias("*.example.org");
+        assertNull(engine.getHostRoutingTable().find("a.example.org"));
+    }
+
+    @Test
+    public void testHostNameWinsOverAlias() {
+        localhost.addAlias("example.com");
+        assertSame(example, engine.getHostRoutingTable().find("example.com"));
+    }
+
+    @Test
+    public void testRemovedHostIsNotRouted() {
+        engine.removeChild(example);
+        assertNull(engine.getHostRoutingTable().find("example.com"));
+    }
+
+    @Test
+    public void testLongestContextPath() {
+        assertEquals("/app1", localhost.map("/app1/hello").getName());
+        assertEquals("/app1", localhost.map("/app1").getName());
+        assertEquals("/shop/admin", localhost.map("/shop/admin/users").getName());
+        assertEquals("", localhost.map("/shop/cart").getName());
+        assertEquals("", localhost.map("/app10/hello").getName());
+    }
+
+    @Test
+    public void testContextRemovalRebuildsRouting() {
+        localhost.removeChild(localhost.findChild("/app1"));
+        assertEquals("", localhost.map("/app1/hello").getName());
+        localhost.removeChild(localhost.findChild(""));
+        assertNull(localhost.map("/app1/hello"));
+    }
+
+    private static DefaultHost host(String name) {
+        DefaultHost host = new DefaultHost();
+        host.setName(name);
+        return host;
+    }
+
+    private static DefaultContext context(String path) {
+        DefaultContext context = new DefaultContext();
+        context.setPath(path);
+        return context;
+    }
+}
@@ -0,0 +1,87 @@
+package livonia.mapper;
+
+import livonia.base.Vas;
+import livonia.core.DefaultEndpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * servlet 映射匹配表测试
+ */
+public class ServletMappingTableTest {
+
+    private final Map<String, Vas> endpoints = new HashMap<>();
+    private ServletMappingTable table;
+
+    @BeforeEach
+    public void setUp() {
+        for (String name : new String[]{"Hello", "Api", "ApiV1", "Jsp", "Default"}) {
+            DefaultEndpoint endpoint = new DefaultEndpoint();
+            endpoint.setName(name);
+            endpoints.put(name, endpoint);
+        }
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("/hello", "Hello");
+        mappings.put("/api/*", "Api");
+        mappings.put("/api/v1/*", "ApiV1");
+        mappings.put("*.jsp", "Jsp");
+        mappings.put("/", "Default");
+        mappings.put("/removed", "Missing");
+        table = ServletMappingTable.compile(mappings, endpoints::get);
+    }
+
+    @Test
+    public void testExactMatch() {
+        assertMatch("/app/hello", "Hello", "/hello", null);
+    }
+
+    @Test
+    public void testLongestPrefixWins() {
+        assertMatch("/app/api/v1/users/42", "ApiV1", "/api/v1", "/users/42");
+        assertMatch("/app/api/v2/users", "Api", "/api", "/v2/users");
+        assertMatch("/app/api", "Api", "/api", null);
+        assertMatch("/app/api/", "Api", "/api", "/");
+    }
+
+    @Test
+    public void testPrefixRespectsSegmentBoundary() {
+        assertMatch("/app/apix/list", "Default", "/apix/list", null);
+    }
+
+    @Test
+    public void testPrefixBeatsExtension() {
+        assertMatch("/app/api/index.jsp", "Api", "/api", "/index.jsp");
+    }
+
+    @Test
+    public void testExtensionMatch() {
+        assertMatch("/app/views/order.detail/show.jsp", "Jsp", "/views/order.detail/show.jsp", null);
+        assertMatch("/app/views.jsp/show", "Default", "/views.jsp/show", null);
+    }
+
+    @Test
+    public void testUnresolvedEndpointIsIgnored() {
+        assertMatch("/app/removed", "Default", "/removed", null);
+    }
+
+    @Test
+    public void testRootPrefixMatchesEverything() {
+        ServletMappingTable rootOnly = ServletMappingTable.compile(Map.of("/*", "Hello"), endpoints::get);
+        assertEquals("/any/path", rootOnly.match("/app/any/path", 4).pathInfo());
+        assertEquals("", rootOnly.match("/app/any/path", 4).servletPath());
+        assertNull(ServletMappingTable.compile(Map.of(), endpoints::get).match("/app/x", 4));
+    }
+
+    private void assertMatch(String uri, String endpoint, String servletPath, String pathInfo) {
+        ServletMappingTable.Match match = table.match(uri, "/app".length());
+        assertNotNull(match, uri);
+        assertEquals(endpoint, match.endpoint().getName(), uri);
+        assertEquals(servletPath, match.servletPath(), uri);
+        assertEquals(pathInfo, match.pathInfo(), uri);
+    }
+}
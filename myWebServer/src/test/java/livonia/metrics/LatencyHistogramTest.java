@@ -0,0 +1,46 @@
+package livonia.metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟直方图分桶与百分位测试
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguous() {
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long lower = LatencyHistogram.upperBoundOf(i - 1) + 1;
+            assertEquals(i, LatencyHistogram.indexOf(lower));
+            assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.upperBoundOf(i)));
+        }
+    }
+
+    @Test
+    public void testOverflowGoesToLastBucket() {
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentileWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10000, histogram.getCount());
+        long p50 = histogram.valueAtPercentile(50);
+        long p99 = histogram.valueAtPercentile(99);
+        assertTrue(p50 >= 5000 && p50 <= 5000 * 9 / 8, "p50 = " + p50);
+        assertTrue(p99 >= 9900 && p99 <= 9900 * 9 / 8, "p99 = " + p99);
+        assertEquals(histogram.getCount(), histogram.countAtOrBelow(LatencyHistogram.upperBoundOf(
+                LatencyHistogram.BUCKET_COUNT - 1)));
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        assertEquals(0, histogram.getSum());
+    }
+}
@@ -0,0 +1,118 @@
+package livonia.resource;
+
+import livonia.core.DefaultContext;
+import livonia.core.DefaultHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 类加载资源的包索引测试
+ */
+public class ResourceManagerTest {
+
+    private Path base;
+    private Path workDir;
+    private ResourceManager resources;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        base = Files.createTempDirectory("livonia-resources");
+        Path pkg = Files.createDirectories(base.resolve("WEB-INF/classes/demo"));
+        Files.writeString(pkg.resolve("A.class"), "classes", StandardCharsets.UTF_8);
+        Path lib = Files.createDirectories(base.resolve("WEB-INF/lib"));
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(lib.resolve("demo.jar")))) {
+            write(jar, "demo/A.class", "jar");
+            write(jar, "demo/B.class", "jarB");
+            write(jar, "other/c.properties", "c");
+        }
+        workDir = Files.createTempDirectory("livonia-work");
+        DefaultHost host = new DefaultHost();
+        host.setName("localhost");
+        host.setWorkDir(workDir.toString());
+        DefaultContext context = new DefaultContext();
+        context.setPath("/demo");
+        context.setBasePath(base.toString());
+        host.addChild(context);
+        resources = new ResourceManager(context);
+        resources.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        resources.stop();
+        delete(base);
+        delete(workDir);
+    }
+
+    @Test
+    public void testClassesBeforeLib() {
+        assertEquals("classes", content("/demo/A.class"));
+        assertEquals("jarB", content("/demo/B.class"));
+        assertEquals("c", content("/other/c.properties"));
+    }
+
+    @Test
+    public void testUnknownPackageMisses() {
+        assertNull(resources.getLoaderResource("/missing/A.class"));
+        assertNull(resources.getLoaderResource("/demo/Missing.class"));
+    }
+
+    @Test
+    public void testJarReadableRepeatedly() {
+        for (int i = 0; i < 3; i++) assertEquals("jarB", content("/demo/B.class"));
+    }
+
+    @Test
+    public void testRestartRestoresIndex() throws Exception {
+        assertTrue(Files.isRegularFile(workDir.resolve("demo/resources.idx")));
+        // 新增的文件被隐藏在未变化的目录修改时刻之后，只有从索引还原时才看不到它
+        Path pkg = base.resolve("WEB-INF/classes/demo");
+        FileTime modified = Files.getLastModifiedTime(pkg);
+        Files.writeString(pkg.resolve("Hidden.class"), "hidden", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(pkg, modified);
+        resources.stop();
+        resources.start();
+        assertNull(resources.getLoaderResource("/demo/Hidden.class"));
+        assertEquals("classes", content("/demo/A.class"));
+        assertEquals("jarB", content("/demo/B.class"));
+    }
+
+    @Test
+    public void testChangedDirectoryInvalidatesIndex() throws Exception {
+        Path pkg = Files.createDirectories(base.resolve("WEB-INF/classes/added"));
+        Files.writeString(pkg.resolve("D.class"), "added", StandardCharsets.UTF_8);
+        resources.stop();
+        resources.start();
+        assertEquals("added", content("/added/D.class"));
+    }
+
+    private String content(String path) {
+        LocalResource resource = resources.getLoaderResource(path);
+        assertNotNull(resource, path);
+        return new String(resource.getContent(), StandardCharsets.UTF_8);
+    }
+
+    private static void delete(Path dir) throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static void write(JarOutputStream jar, String name, String content) throws Exception {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(content.getBytes(StandardCharsets.UTF_8));
+        jar.closeEntry();
+    }
+}
@@ -0,0 +1,128 @@
+package livonia.session;
+
+import livonia.core.DefaultContext;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cookie会话编解码测试
+ */
+public class CookieSessionCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (boolean encrypt : new boolean[]{false, true}) {
+            CookieSessionCodec codec = codec("/app", SECRET, encrypt);
+            CookieSession session = codec.create();
+            session.setAttribute("user", "alice");
+            session.setAttribute("count", 3);
+            session.setAttribute("id", 42L);
+            session.setAttribute("admin", true);
+            session.setAttribute("cart", new ArrayList<>(List.of("book")));
+            long now = System.currentTimeMillis();
+            String value = codec.encode(session, now);
+            assertNotNull(value);
+
+            CookieSession restored = codec.decode(value, now);
+            assertNotNull(restored);
+            assertEquals(session.getId(), restored.getId());
+            assertEquals(session.getCreationTime(), restored.getCreationTime());
+            assertEquals("alice", restored.getAttribute("user"));
+            assertEquals(3, restored.getAttribute("count"));
+            assertEquals(42L, restored.getAttribute("id"));
+            assertEquals(true, restored.getAttribute("admin"));
+            assertEquals(List.of("book"), restored.getAttribute("cart"));
+            assertFalse(restored.isNew());
+            assertFalse(restored.isDirty());
+            assertEquals(encrypt, !value.contains("."), "encrypted values carry no separate signature");
+        }
+    }
+
+    @Test
+    public void testSmallSessionsStayCompact() throws Exception {
+        CookieSessionCodec codec = codec("/app", SECRET, false);
+        CookieSession session = codec.create();
+        session.setAttribute("user", "alice");
+        session.setAttribute("count", 3);
+        assertTrue(codec.encode(session, System.currentTimeMillis()).length() < 200);
+    }
+
+    @Test
+    public void testTamperedOrForeignCookiesAreRejected() throws Exception {
+        for (boolean encrypt : new boolean[]{false, true}) {
+            CookieSessionCodec codec = codec("/app", SECRET, encrypt);
+            CookieSession session = codec.create();
+            session.setAttribute("role", "user");
+            long now = System.currentTimeMillis();
+            String value = codec.encode(session, now);
+
+            char[] chars = value.toCharArray();
+            chars[10] = chars[10] == 'A' ? 'B' : 'A';
+            assertNull(codec.decode(new String(chars), now));
+            assertNull(codec.decode("garbage", now));
+            assertNull(codec("/app", "another-secret-of-enough-length".getBytes(StandardCharsets.UTF_8), encrypt)
+                    .decode(value, now));
+            assertNull(codec("/other", SECRET, encrypt).decode(value, now), "cookie must not move to another context");
+            assertEquals(2, codec.getRejected());
+        }
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        CookieSessionCodec codec = codec("/app", SECRET, false);
+        CookieSession session = codec.create();
+        session.setAttribute("user", "alice");
+        session.setMaxInactiveInterval(60);
+        long now = System.currentTimeMillis();
+        String value = codec.encode(session, now);
+        assertNotNull(codec.decode(value, now + 59_000));
+        assertNull(codec.decode(value, now + 61_000));
+
+        // 未修改的会话只在超过一半超时时间后重新写出
+        CookieSession restored = codec.decode(value, now + 10_000);
+        assertFalse(codec.shouldWrite(restored, now + 10_000));
+        assertTrue(codec.shouldWrite(restored, now + 31_000));
+        restored.setAttribute("user", "alice2");
+        assertTrue(codec.shouldWrite(restored, now + 10_000));
+    }
+
+    @Test
+    public void testUnloadableAttributeRejectsCookie() throws Exception {
+        CookieSessionCodec codec = codec("/app", SECRET, false);
+        CookieSession session = codec.create();
+        session.setAttribute("cart", new ArrayList<>(List.of("book")));
+        long now = System.currentTimeMillis();
+        String value = codec.encode(session, now);
+
+        DefaultContext context = new DefaultContext();
+        context.setPath("/app");
+        ClassLoader stopped = new ClassLoader(null) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) {
+                throw new IllegalStateException("WebAppClassLoader has not been started");
+            }
+        };
+        CookieSessionCodec reader = new CookieSessionCodec(context, SECRET, false, stopped);
+        assertNull(reader.decode(value, now), "a cookie that cannot be decoded is dropped instead of failing the request");
+        assertEquals(1, reader.getRejected());
+    }
+
+    @Test
+    public void testShortSecretIsRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> codec("/app", "short".getBytes(StandardCharsets.UTF_8), false));
+    }
+
+    private static CookieSessionCodec codec(String path, byte[] secret, boolean encrypt) throws Exception {
+        DefaultContext context = new DefaultContext();
+        context.setPath(path);
+        return new CookieSessionCodec(context, secret, encrypt, CookieSessionCodecTest.class.getClassLoader());
+    }
+}
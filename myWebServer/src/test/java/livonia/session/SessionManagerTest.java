@@ -0,0 +1,131 @@
+package livonia.session;
+
+import livonia.core.DefaultContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionIdListener;
+import javax.servlet.http.HttpSessionListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存会话管理器测试，时间轮由测试直接推进，不启动后台线程
+ */
+public class SessionManagerTest {
+
+    private final List<String> events = new ArrayList<>();
+    private SessionManager manager;
+
+    @BeforeEach
+    public void setUp() {
+        DefaultContext context = new DefaultContext();
+        context.setApplicationListeners(new Object[]{new RecordingListener()});
+        manager = new SessionManager(context);
+        manager.setMaxInactiveInterval(10);
+    }
+
+    @Test
+    public void testExpiresOnlyAfterInactiveInterval() {
+        StandardSession session = manager.createSession();
+        long created = session.getCreationTime();
+        assertEquals(0, manager.processExpires(created + 9_000));
+        assertSame(session, manager.findSession(session.getId()));
+
+        assertEquals(1, manager.processExpires(created + 11_000));
+        assertNull(manager.findSession(session.getId()));
+        assertEquals(0, manager.getActiveSessions());
+        assertEquals(1, manager.getSessionsExpired());
+        assertEquals(List.of("created " + session.getId(), "destroyed " + session.getId()), events);
+    }
+
+    @Test
+    public void testAccessPostponesExpiry() {
+        StandardSession session = manager.createSession();
+        long created = session.getCreationTime();
+        session.access(created + 8_000);
+        assertFalse(session.isNew());
+        assertEquals(0, manager.processExpires(created + 15_000));
+        assertEquals(1, manager.processExpires(created + 19_000));
+    }
+
+    @Test
+    public void testShortenedIntervalIsRescheduled() {
+        StandardSession session = manager.createSession();
+        session.setMaxInactiveInterval(2);
+        assertEquals(1, manager.processExpires(session.getCreationTime() + 3_000));
+    }
+
+    @Test
+    public void testLongIntervalCascadesThroughLevels() {
+        manager.setMaxInactiveInterval(2 * 3600);
+        StandardSession session = manager.createSession();
+        long created = session.getCreationTime();
+        assertEquals(0, manager.processExpires(created + 3600_000));
+        assertEquals(0, manager.processExpires(created + 7199_000));
+        assertEquals(1, manager.processExpires(created + 7201_000));
+    }
+
+    @Test
+    public void testInvalidateUnbindsAttributes() {
+        StandardSession session = manager.createSession();
+        List<String> unbound = new ArrayList<>();
+        session.setAttribute("user", new HttpSessionBindingListener() {
+            @Override
+            public void valueUnbound(HttpSessionBindingEvent event) {
+                unbound.add(event.getName());
+            }
+        });
+        session.invalidate();
+        assertEquals(List.of("user"), unbound);
+        assertThrows(IllegalStateException.class, session::invalidate);
+        assertThrows(IllegalStateException.class, () -> session.getAttribute("user"));
+        assertEquals(0, manager.getActiveSessions());
+    }
+
+    @Test
+    public void testChangeSessionId() {
+        StandardSession session = manager.createSession();
+        String oldId = session.getId();
+        String newId = manager.changeSessionId(session);
+        assertNotEquals(oldId, newId);
+        assertNull(manager.findSession(oldId));
+        assertSame(session, manager.findSession(newId));
+        assertTrue(events.contains("changed " + oldId + " -> " + newId));
+    }
+
+    @Test
+    public void testGeneratedIdsAreUnique() {
+        SessionIdGenerator generator = new SessionIdGenerator();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String id = generator.generate();
+            assertEquals(32, id.length());
+            assertTrue(ids.add(id));
+        }
+    }
+
+    private class RecordingListener implements HttpSessionListener, HttpSessionIdListener {
+        @Override
+        public void sessionCreated(HttpSessionEvent se) {
+            events.add("created " + se.getSession().getId());
+        }
+
+        @Override
+        public void sessionDestroyed(HttpSessionEvent se) {
+            events.add("destroyed " + se.getSession().getId());
+        }
+
+        @Override
+        public void sessionIdChanged(HttpSessionEvent event, String oldSessionId) {
+            events.add("changed " + oldSessionId + " -> " + event.getSession().getId());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package livonia.session;
+
+import livonia.core.DefaultContext;
+import livonia.core.DefaultHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpSessionActivationListener;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 会话钝化、重启后激活与蓝绿重载迁移测试
+ */
+public class SessionPassivationTest {
+
+    private static final List<String> events = new ArrayList<>();
+    private Path workDir;
+    private DefaultContext context;
+    private SessionManager manager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        events.clear();
+        workDir = Files.createTempDirectory("livonia-work");
+        DefaultHost host = new DefaultHost();
+        host.setName("localhost");
+        host.setWorkDir(workDir.toString());
+        context = new DefaultContext();
+        context.setPath("/demo");
+        context.setApplicationListeners(new Object[]{new DestroyRecorder()});
+        host.addChild(context);
+        manager = newManager();
+        manager.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        try {
+            manager.stop();
+        } catch (Exception ignored) {
+        }
+        try (Stream<Path> files = Files.walk(workDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testIdleSessionIsPassivatedAndActivated() {
+        StandardSession session = manager.createSession();
+        String id = session.getId();
+        session.setAttribute("recorder", new ActivationRecorder());
+        session.setAttribute("count", 7);
+        session.setAttribute("local", new Object());
+        long created = session.getCreationTime();
+
+        assertEquals(0, manager.processIdle(created + 4_000));
+        assertEquals(1, manager.processIdle(created + 6_000));
+        assertEquals(0, manager.getActiveSessions());
+        assertEquals(1, manager.getPassivatedSessions());
+        assertEquals(List.of("passivate " + id), events);
+
+        StandardSession activated = manager.findSession(id);
+        assertNotNull(activated);
+        assertNotSame(session, activated);
+        assertEquals(7, activated.getAttribute("count"));
+        assertNull(activated.getAttribute("local"), "non-serializable attributes are dropped");
+        assertEquals(created, activated.getCreationTime());
+        assertEquals(List.of("passivate " + id, "activate " + id), events);
+        assertEquals(0, manager.getPassivatedSessions());
+        assertEquals(1, manager.getActiveSessions());
+    }
+
+    @Test
+    public void testPassivatedSessionExpiresFromStore() {
+        StandardSession session = manager.createSession();
+        long created = session.getCreationTime();
+        manager.processIdle(created + 6_000);
+        manager.processIdle(created + 11_000);
+        assertEquals(0, manager.getPassivatedSessions());
+        assertNull(manager.findSession(session.getId()));
+        assertTrue(events.contains("destroyed " + session.getId()));
+    }
+
+    @Test
+    public void testSessionsSurviveRestart() throws Exception {
+        StandardSession session = manager.createSession();
+        session.setAttribute("user", "alice");
+        manager.stop();
+        assertFalse(events.contains("destroyed " + session.getId()), "stopping with a store keeps sessions");
+
+        manager = newManager();
+        manager.start();
+        assertEquals(1, manager.getPassivatedSessions());
+        StandardSession restored = manager.findSession(session.getId());
+        assertNotNull(restored);
+        assertEquals("alice", restored.getAttribute("user"));
+    }
+
+    @Test
+    public void testReplacementTakesOverSessions() throws Exception {
+        SessionManager fresh = newManager();
+        fresh.start();
+        try {
+            StandardSession first = manager.createSession();
+            StandardSession second = manager.createSession();
+            first.setAttribute("n", 1);
+            fresh.setPredecessor(manager);
+
+            StandardSession migrated = fresh.findSession(first.getId());
+            assertNotNull(migrated);
+            assertEquals(1, migrated.getAttribute("n"));
+            assertNull(manager.findSession(first.getId()));
+
+            assertEquals(1, fresh.migrateFromPredecessor());
+            assertNotNull(fresh.findSession(second.getId()));
+            assertEquals(0, manager.getActiveSessions());
+        } finally {
+            fresh.stop();
+        }
+    }
+
+    @Test
+    public void testUnreadableSessionIsDroppedAlone() throws Exception {
+        SessionManager fresh = newManager();
+        fresh.start();
+        try {
+            StandardSession broken = manager.createSession();
+            StandardSession healthy = manager.createSession();
+            broken.setAttribute("poison", new Unreadable());
+            healthy.setAttribute("n", 2);
+            fresh.setPredecessor(manager);
+
+            assertEquals(1, fresh.migrateFromPredecessor());
+            assertNull(fresh.findSession(broken.getId()));
+            assertEquals(2, fresh.findSession(healthy.getId()).getAttribute("n"));
+        } finally {
+            fresh.stop();
+        }
+    }
+
+    private SessionManager newManager() {
+        SessionManager sessionManager = new SessionManager(context);
+        sessionManager.setMaxInactiveInterval(10);
+        sessionManager.setMaxIdleSwap(5);
+        return sessionManager;
+    }
+
+    private static class ActivationRecorder implements HttpSessionActivationListener, Serializable {
+        @Override
+        public void sessionWillPassivate(HttpSessionEvent se) {
+            events.add("passivate " + se.getSession().getId());
+        }
+
+        @Override
+        public void sessionDidActivate(HttpSessionEvent se) {
+            events.add("activate " + se.getSession().getId());
+        }
+    }
+
+    private static class Unreadable implements Serializable {
+        private void readObject(java.io.ObjectInputStream in) {
+            throw new IllegalStateException("WebAppClassLoader has not been started");
+        }
+    }
+
+    private static class DestroyRecorder implements HttpSessionListener {
+        @Override
+        public void sessionDestroyed(HttpSessionEvent se) {
+            events.add("destroyed " + se.getSession().getId());
+        }
+    }
+}
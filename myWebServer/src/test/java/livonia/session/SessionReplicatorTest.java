@@ -0,0 +1,256 @@
+package livonia.session;
+
+import livonia.core.DefaultContext;
+import livonia.lifecycle.LifecycleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 回环地址上多个节点之间的会话复制测试
+ */
+public class SessionReplicatorTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private final List<Node> nodes = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        for (Node node : nodes) node.stop();
+    }
+
+    @Test
+    public void testChangesReachPeers() throws Exception {
+        int[] ports = freePorts(2);
+        Node a = start(ports[0], ports[1]);
+        Node b = start(ports[1], ports[0]);
+        await(() -> a.replicator.getConnectedPeers() == 1 && b.replicator.getConnectedPeers() == 1);
+
+        StandardSession session = a.manager.createSession();
+        session.setAttribute("user", "alice");
+        session.setAttribute("cart", new ArrayList<>(List.of("book")));
+        String id = session.getId();
+        await(() -> b.manager.findSession(id) != null && b.manager.findSession(id).getAttribute("cart") != null);
+        assertEquals("alice", b.manager.findSession(id).getAttribute("user"));
+        assertEquals(List.of("book"), b.manager.findSession(id).getAttribute("cart"));
+        assertEquals(session.getCreationTime(), b.manager.findSession(id).getCreationTime());
+
+        // 在另一个节点上修改，变化复制回来
+        b.manager.findSession(id).removeAttribute("cart");
+        await(() -> session.getAttribute("cart") == null);
+
+        session.invalidate();
+        await(() -> b.manager.findSession(id) == null);
+        assertTrue(a.replicator.getBytesSent() > 0);
+        assertTrue(b.replicator.getBytesReceived() > 0);
+        assertTrue(b.replicator.getDeltasReceived() > 0);
+    }
+
+    @Test
+    public void testJoiningNodeReceivesFullState() throws Exception {
+        int[] ports = freePorts(2);
+        Node a = start(ports[0], ports[1]);
+        StandardSession session = a.manager.createSession();
+        session.setAttribute("user", "bob");
+
+        Node b = start(ports[1], ports[0]);
+        await(() -> b.manager.findSession(session.getId()) != null);
+        assertEquals("bob", b.manager.findSession(session.getId()).getAttribute("user"));
+    }
+
+    @Test
+    public void testLargeFullStateIsSentInSeveralFrames() throws Exception {
+        int[] ports = freePorts(2);
+        Node a = start(ports[0], ports[1]);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            StandardSession session = a.manager.createSession();
+            session.setAttribute("blob", new byte[128 * 1024]);
+            ids.add(session.getId());
+        }
+        // 约 3MB 的完整状态，分成多帧且每帧只超出上限不到一个会话
+        List<byte[]> frames = SessionReplicator.encode("/app", System.currentTimeMillis(), a.manager.fullState());
+        assertTrue(frames.size() > 1, "frames " + frames.size());
+        for (byte[] frame : frames) assertTrue(frame.length < SessionReplicator.FRAME_SPLIT_BYTES + 256 * 1024);
+
+        Node b = start(ports[1], ports[0]);
+        await(() -> ids.stream().allMatch(id -> b.manager.findSession(id) != null));
+        assertEquals(24, b.manager.getActiveSessions());
+        assertEquals(128 * 1024, ((byte[]) b.manager.findSession(ids.getLast()).getAttribute("blob")).length);
+    }
+
+    @Test
+    public void testStoppingNodeKeepsSessionsOnPeers() throws Exception {
+        int[] ports = freePorts(2);
+        Node a = start(ports[0], ports[1]);
+        Node b = start(ports[1], ports[0]);
+        StandardSession session = a.manager.createSession();
+        await(() -> b.manager.findSession(session.getId()) != null);
+        a.stop();
+        Thread.sleep(300);
+        assertNotNull(b.manager.findSession(session.getId()));
+    }
+
+    @Test
+    public void testPeerWithWrongSecretIsRejected() throws Exception {
+        int[] ports = freePorts(2);
+        Node a = start(ports[0], ports[1]);
+        Node b = start(ports[1], ports[0], "another-secret-of-enough-length");
+        StandardSession session = a.manager.createSession();
+        Thread.sleep(500);
+        assertNull(b.manager.findSession(session.getId()));
+        assertEquals(0, b.replicator.getDeltasReceived());
+        assertEquals(0, a.replicator.getDeltasReceived());
+    }
+
+    @Test
+    public void testUnauthenticatedFramesAreNotApplied() throws Exception {
+        int[] ports = freePorts(2);
+        Node a = start(ports[0], ports[1]);
+        try (Socket socket = new Socket("127.0.0.1", ports[0]);
+             DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            out.writeInt(SessionReplicator.MAGIC);
+            out.writeInt(SessionReplicator.VERSION);
+            out.writeUTF("intruder");
+            out.write(new byte[16]);
+            out.flush();
+            socket.getInputStream().readNBytes(16);
+            out.write(new byte[32]);
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read(), "connection must be closed after the failed handshake");
+        }
+        assertEquals(0, a.replicator.getDeltasReceived());
+    }
+
+    @Test
+    public void testInvalidConfigurationFailsToStart() {
+        SessionReplicator noSecret = new SessionReplicator();
+        noSecret.setPeers("127.0.0.1:4000");
+        assertThrows(LifecycleException.class, noSecret::start);
+
+        SessionReplicator badPort = new SessionReplicator();
+        badPort.setSecret(SECRET);
+        badPort.setPeers("127.0.0.1:http");
+        assertThrows(LifecycleException.class, badPort::start);
+        assertEquals(-1, badPort.getLocalPort(), "no port is bound for an invalid configuration");
+    }
+
+    @Test
+    public void testSerialFilterRejectsDeniedClasses() throws Exception {
+        DefaultContext context = new DefaultContext();
+        context.setPath("/app");
+        SessionManager manager = new SessionManager(context);
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+            out.writeObject(new javax.management.BadAttributeValueExpException("x"));
+        }
+        long now = System.currentTimeMillis();
+        manager.applyRemote(List.of(new SessionDelta("S1", false, now, now, 600, SessionDelta.Stamp.ZERO,
+                List.of(new SessionDelta.Attribute("gadget", new SessionDelta.Stamp(1, "n1"), bytes.toByteArray())))));
+        assertNotNull(manager.findSession("S1"));
+        assertNull(manager.findSession("S1").getAttribute("gadget"), "filtered classes are never instantiated");
+    }
+
+    @Test
+    public void testApplyIsIdempotentAndIgnoresStaleChanges() throws Exception {
+        DefaultContext context = new DefaultContext();
+        context.setPath("/app");
+        SessionManager manager = new SessionManager(context);
+        SessionDelta.Stamp older = new SessionDelta.Stamp(1, "n1");
+        SessionDelta.Stamp newer = new SessionDelta.Stamp(2, "n1");
+        long now = System.currentTimeMillis();
+        SessionDelta first = delta("S1", now, older, "v1");
+        SessionDelta second = delta("S1", now + 100, newer, "v2");
+
+        manager.applyRemote(List.of(first, second, second));
+        assertEquals("v2", manager.findSession("S1").getAttribute("k"));
+        manager.applyRemote(List.of(first));
+        assertEquals("v2", manager.findSession("S1").getAttribute("k"), "stale change must not win");
+        assertEquals(1, manager.getActiveSessions());
+
+        manager.applyRemote(List.of(SessionDelta.removed("S1", now + 100)));
+        assertNull(manager.findSession("S1"));
+        // 失效之后迟到的变化不会使会话复活
+        manager.applyRemote(List.of(second));
+        assertNull(manager.findSession("S1"));
+    }
+
+    private SessionDelta delta(String id, long lastAccessed, SessionDelta.Stamp stamp, String value) throws IOException {
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return new SessionDelta(id, false, lastAccessed, lastAccessed, 600, SessionDelta.Stamp.ZERO,
+                List.of(new SessionDelta.Attribute("k", stamp, bytes.toByteArray())));
+    }
+
+    private Node start(int port, int peer) throws Exception {
+        return start(port, peer, SECRET);
+    }
+
+    private Node start(int port, int peer, String secret) throws Exception {
+        DefaultContext context = new DefaultContext();
+        context.setPath("/app");
+        SessionReplicator replicator = new SessionReplicator();
+        replicator.setPort(port);
+        replicator.setPeers("127.0.0.1:" + peer);
+        replicator.setSecret(secret);
+        replicator.setFlushInterval(20);
+        SessionManager manager = new SessionManager(context);
+        manager.setReplicator(replicator);
+        manager.start();
+        replicator.start();
+        Node node = new Node(replicator, manager);
+        nodes.add(node);
+        return node;
+    }
+
+    private static int[] freePorts(int count) throws IOException {
+        int[] ports = new int[count];
+        for (int i = 0; i < count; i++) {
+            try (ServerSocket probe = new ServerSocket(0)) {
+                ports[i] = probe.getLocalPort();
+            }
+        }
+        return ports;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("condition not met within 5s");
+            Thread.sleep(20);
+        }
+    }
+
+    private static final class Node {
+        private final SessionReplicator replicator;
+        private final SessionManager manager;
+        private boolean stopped = false;
+
+        Node(SessionReplicator replicator, SessionManager manager) {
+            this.replicator = replicator;
+            this.manager = manager;
+        }
+
+        void stop() {
+            if (stopped) return;
+            stopped = true;
+            try {
+                manager.stop();
+                replicator.stop();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package livonia.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 会话段文件存储测试
+ */
+public class SessionStoreTest {
+
+    private Path dir;
+    private SessionStore store;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("livonia-sessions");
+        store = SessionStore.open(dir);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testLatestRecordWinsAfterReopen() throws Exception {
+        store.save("a", 100, bytes(1));
+        store.save("b", 200, bytes(2));
+        store.save("a", 300, bytes(3));
+        store.remove("b");
+        reopen();
+        assertEquals(1, store.size());
+        assertArrayEquals(bytes(3), store.take("a"));
+        assertNull(store.take("a"));
+        reopen();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testSameDirectorySharesInstance() throws Exception {
+        SessionStore other = SessionStore.open(dir);
+        try {
+            assertSame(store, other);
+            other.save("a", 100, bytes(1));
+            assertTrue(store.contains("a"));
+        } finally {
+            other.close();
+        }
+        store.save("b", 100, bytes(2));
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        store.save("a", 100, bytes(1));
+        store.save("b", 200, bytes(2));
+        assertEquals(List.of("a"), store.expired(150));
+    }
+
+    @Test
+    public void testCompactDropsOverwrittenRecords() throws Exception {
+        byte[] large = new byte[1 << 20];
+        for (int i = 0; i < 6; i++) store.save("a", 100, large);
+        store.save("b", 100, bytes(2));
+        assertTrue(store.compact());
+        try (Stream<Path> files = Files.list(dir)) {
+            long total = files.mapToLong(p -> p.toFile().length()).sum();
+            assertTrue(total < 2 << 20, "old segments should be deleted, total " + total);
+        }
+        reopen();
+        assertArrayEquals(large, store.take("a"));
+        assertArrayEquals(bytes(2), store.take("b"));
+    }
+
+    @Test
+    public void testTruncatedTailIsIgnored() throws Exception {
+        store.save("a", 100, bytes(1));
+        store.save("b", 100, new byte[100]);
+        store.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toFile().length() > 0).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        store = SessionStore.open(dir);
+        assertArrayEquals(bytes(1), store.take("a"));
+        assertFalse(store.contains("b"));
+    }
+
+    private void reopen() throws Exception {
+        store.close();
+        store = SessionStore.open(dir);
+    }
+
+    private static byte[] bytes(int value) {
+        return new byte[]{(byte) value, (byte) (value >> 8), 42};
+    }
+}